@@ -0,0 +1,72 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Sink for bytes which is written asynchronously.
+ * Sinks are not closed by PGPainless. Closing the underlying channel is the responsibility of the caller.
+ */
+public interface AsyncByteSink {
+
+    /**
+     * Write a sequence of bytes from the given buffer.
+     * The returned future completes with the number of bytes written, which might be less than the number of
+     * remaining bytes in the buffer. PGPainless issues at most one write at a time.
+     *
+     * @param buffer buffer
+     * @return future completing with the number of bytes written
+     */
+    CompletableFuture<Integer> write(ByteBuffer buffer);
+
+    /**
+     * Return a sink which writes to an {@link AsynchronousFileChannel} starting at the beginning of the file.
+     *
+     * @param channel file channel
+     * @return sink
+     */
+    static AsyncByteSink of(AsynchronousFileChannel channel) {
+        return of(channel, 0L);
+    }
+
+    /**
+     * Return a sink which writes to an {@link AsynchronousFileChannel} starting at the given position.
+     *
+     * @param channel file channel
+     * @param position file position
+     * @return sink
+     */
+    static AsyncByteSink of(AsynchronousFileChannel channel, long position) {
+        return new ChannelAdapters.FileChannelSink(channel, position);
+    }
+
+    /**
+     * Return a sink which writes to an {@link AsynchronousByteChannel}, such as an asynchronous socket channel.
+     *
+     * @param channel channel
+     * @return sink
+     */
+    static AsyncByteSink of(AsynchronousByteChannel channel) {
+        return new ChannelAdapters.ByteChannelSink(channel);
+    }
+
+    /**
+     * Return a sink which writes to a blocking {@link WritableByteChannel}.
+     * Writes are performed by tasks submitted to the given {@link Executor}.
+     *
+     * @param channel channel
+     * @param executor executor performing the blocking writes
+     * @return sink
+     */
+    static AsyncByteSink of(WritableByteChannel channel, Executor executor) {
+        return new ChannelAdapters.BlockingChannelSink(channel, executor);
+    }
+}
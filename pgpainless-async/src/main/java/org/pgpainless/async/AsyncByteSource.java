@@ -0,0 +1,72 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Source of bytes which is read asynchronously.
+ * Sources are not closed by PGPainless. Closing the underlying channel is the responsibility of the caller.
+ */
+public interface AsyncByteSource {
+
+    /**
+     * Read a sequence of bytes into the given buffer.
+     * The returned future completes with the number of bytes read, or -1 if the end of the source is reached.
+     * PGPainless issues at most one read at a time.
+     *
+     * @param buffer buffer
+     * @return future completing with the number of bytes read or -1
+     */
+    CompletableFuture<Integer> read(ByteBuffer buffer);
+
+    /**
+     * Return a source which reads an {@link AsynchronousFileChannel} from the beginning.
+     *
+     * @param channel file channel
+     * @return source
+     */
+    static AsyncByteSource of(AsynchronousFileChannel channel) {
+        return of(channel, 0L);
+    }
+
+    /**
+     * Return a source which reads an {@link AsynchronousFileChannel} starting at the given position.
+     *
+     * @param channel file channel
+     * @param position file position
+     * @return source
+     */
+    static AsyncByteSource of(AsynchronousFileChannel channel, long position) {
+        return new ChannelAdapters.FileChannelSource(channel, position);
+    }
+
+    /**
+     * Return a source which reads an {@link AsynchronousByteChannel}, such as an asynchronous socket channel.
+     *
+     * @param channel channel
+     * @return source
+     */
+    static AsyncByteSource of(AsynchronousByteChannel channel) {
+        return new ChannelAdapters.ByteChannelSource(channel);
+    }
+
+    /**
+     * Return a source which reads a blocking {@link ReadableByteChannel}.
+     * Reads are performed by tasks submitted to the given {@link Executor}.
+     *
+     * @param channel channel
+     * @param executor executor performing the blocking reads
+     * @return source
+     */
+    static AsyncByteSource of(ReadableByteChannel channel, Executor executor) {
+        return new ChannelAdapters.BlockingChannelSource(channel, executor);
+    }
+}
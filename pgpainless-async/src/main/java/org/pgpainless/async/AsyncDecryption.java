@@ -0,0 +1,97 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.pgpainless.PGPainless;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+
+/**
+ * Decrypts and/or verifies data from an {@link AsyncByteSource} into an {@link AsyncByteSink}.
+ *
+ * OpenPGP messages are parsed by pulling data from an {@link java.io.InputStream}.
+ * The message is therefore processed in steps, each of which produces one chunk of plaintext on a thread of the
+ * {@link Executor}. A step is only scheduled once the previous chunk has been written to the sink and the read-ahead
+ * of ciphertext has completed, so no thread is occupied while the operation waits for IO between steps.
+ * Within a step, the parser might still wait for further ciphertext if a chunk of plaintext spans more than the
+ * read-ahead buffer.
+ */
+final class AsyncDecryption {
+
+    private final AsyncSourceInputStream ciphertext;
+    private final AsyncByteSink sink;
+    private final Executor executor;
+    private final byte[] plaintext;
+    private final CompletableFuture<OpenPgpMetadata> result = new CompletableFuture<>();
+
+    private DecryptionStream decryptionStream;
+
+    AsyncDecryption(AsyncByteSource source, AsyncByteSink sink, Executor executor, int chunkSize) {
+        this.ciphertext = new AsyncSourceInputStream(source, chunkSize);
+        this.sink = sink;
+        this.executor = executor;
+        this.plaintext = new byte[chunkSize];
+    }
+
+    CompletableFuture<OpenPgpMetadata> start(ConsumerOptions options) {
+        ciphertext.ready().whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                result.completeExceptionally(ChannelAdapters.unwrap(error));
+                return;
+            }
+            try {
+                decryptionStream = PGPainless.decryptAndOrVerify()
+                        .onInputStream(ciphertext)
+                        .withOptions(options);
+                processNext();
+            } catch (PGPException | IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, executor);
+        return result;
+    }
+
+    private void processNext() {
+        if (result.isDone()) {
+            // cancelled
+            return;
+        }
+        try {
+            int length = 0;
+            int read;
+            do {
+                read = decryptionStream.read(plaintext, length, plaintext.length - length);
+                if (read > 0) {
+                    length += read;
+                }
+            } while (read >= 0 && length < plaintext.length && ciphertext.isReady());
+
+            if (length == 0 && read < 0) {
+                decryptionStream.close();
+                result.complete(decryptionStream.getResult());
+                return;
+            }
+
+            ChannelAdapters.writeFully(sink, ByteBuffer.wrap(plaintext, 0, length), executor)
+                    .thenCompose(ignored -> ciphertext.ready())
+                    .whenCompleteAsync((ignored, error) -> {
+                        if (error != null) {
+                            result.completeExceptionally(ChannelAdapters.unwrap(error));
+                        } else {
+                            processNext();
+                        }
+                    }, executor);
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nonnull;
+
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+
+/**
+ * Builder for asynchronous decryption and/or verification operations.
+ */
+public final class AsyncDecryptionBuilder {
+
+    AsyncDecryptionBuilder() {
+
+    }
+
+    /**
+     * Read the encrypted and/or signed data from the given source and write the plain data to the given sink.
+     *
+     * @param ciphertext source of the encrypted and/or signed data
+     * @param plaintext sink for the plain data
+     * @return api handle
+     */
+    public DecryptWith onChannels(@Nonnull AsyncByteSource ciphertext, @Nonnull AsyncByteSink plaintext) {
+        return new DecryptWith(ciphertext, plaintext);
+    }
+
+    public static final class DecryptWith {
+
+        private final AsyncByteSource ciphertext;
+        private final AsyncByteSink plaintext;
+
+        private DecryptWith(AsyncByteSource ciphertext, AsyncByteSink plaintext) {
+            this.ciphertext = ciphertext;
+            this.plaintext = plaintext;
+        }
+
+        /**
+         * Start the operation with the given options, using {@link ForkJoinPool#commonPool()} to perform the work.
+         *
+         * @param options options
+         * @return future completing with the metadata once all data has been written to the sink
+         */
+        public CompletableFuture<OpenPgpMetadata> withOptions(@Nonnull ConsumerOptions options) {
+            return withOptions(options, ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Start the operation with the given options, using the given {@link Executor} to perform the work.
+         * If the operation fails, the returned future completes exceptionally with a
+         * {@link org.bouncycastle.openpgp.PGPException} or {@link java.io.IOException}.
+         * Cancelling the future stops the operation after the current chunk.
+         *
+         * Note, that the plain data is written to the sink before the integrity of the message and its signatures
+         * have been verified. Consumers must not process the plain data before the returned future completed
+         * successfully.
+         *
+         * @param options options
+         * @param executor executor
+         * @return future completing with the metadata once all data has been written to the sink
+         */
+        public CompletableFuture<OpenPgpMetadata> withOptions(@Nonnull ConsumerOptions options,
+                                                              @Nonnull Executor executor) {
+            return new AsyncDecryption(ciphertext, plaintext, executor, Math.max(options.getBufferSize(),
+                    AsyncEncryptionBuilder.CHUNK_SIZE)).start(options);
+        }
+    }
+}
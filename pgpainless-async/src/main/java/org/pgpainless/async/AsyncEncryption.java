@@ -0,0 +1,116 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.pgpainless.PGPainless;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+
+/**
+ * Encrypts and/or signs data from an {@link AsyncByteSource} into an {@link AsyncByteSink}.
+ *
+ * {@link EncryptionStream} is push-based, so the whole pipeline is driven by IO completions:
+ * Each chunk of plaintext is pushed through the encryption stream by a task of the {@link Executor} once it has been
+ * read, and the next chunk is requested once the produced ciphertext has been written.
+ * While IO operations are in flight, no thread is occupied by the operation.
+ */
+final class AsyncEncryption {
+
+    private final AsyncByteSource source;
+    private final AsyncByteSink sink;
+    private final Executor executor;
+    private final ByteBuffer plaintext;
+    private final PendingOutput ciphertext = new PendingOutput();
+    private final CompletableFuture<EncryptionResult> result = new CompletableFuture<>();
+
+    private EncryptionStream encryptionStream;
+
+    AsyncEncryption(AsyncByteSource source, AsyncByteSink sink, Executor executor, int chunkSize) {
+        this.source = source;
+        this.sink = sink;
+        this.executor = executor;
+        this.plaintext = ByteBuffer.allocate(chunkSize);
+    }
+
+    CompletableFuture<EncryptionResult> start(ProducerOptions options) {
+        executor.execute(() -> {
+            try {
+                encryptionStream = PGPainless.encryptAndOrSign()
+                        .onOutputStream(ciphertext)
+                        .withOptions(options);
+                // write packet headers
+                drainThen(this::readNext);
+            } catch (PGPException | IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private void readNext() {
+        if (result.isDone()) {
+            // cancelled
+            return;
+        }
+        ((Buffer) plaintext).clear();
+        ChannelAdapters.read(source, plaintext).whenCompleteAsync((read, error) -> {
+            if (error != null) {
+                result.completeExceptionally(ChannelAdapters.unwrap(error));
+                return;
+            }
+            try {
+                if (read < 0) {
+                    encryptionStream.close();
+                    drainThen(() -> result.complete(encryptionStream.getResult()));
+                } else {
+                    ((Buffer) plaintext).flip();
+                    encryptionStream.write(plaintext);
+                    drainThen(this::readNext);
+                }
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Write the ciphertext produced so far to the sink and run the given action afterwards.
+     *
+     * @param next action
+     */
+    private void drainThen(Runnable next) {
+        if (ciphertext.size() == 0) {
+            next.run();
+            return;
+        }
+        ChannelAdapters.writeFully(sink, ciphertext.toByteBuffer(), executor).whenComplete((ignored, error) -> {
+            if (error != null) {
+                result.completeExceptionally(ChannelAdapters.unwrap(error));
+                return;
+            }
+            ciphertext.reset();
+            next.run();
+        });
+    }
+
+    /**
+     * Output stream collecting the ciphertext, which can be handed to the sink without copying.
+     */
+    private static final class PendingOutput extends ByteArrayOutputStream {
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+    }
+}
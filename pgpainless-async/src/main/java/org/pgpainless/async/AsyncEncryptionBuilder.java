@@ -0,0 +1,75 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nonnull;
+
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.ProducerOptions;
+
+/**
+ * Builder for asynchronous encryption and/or signing operations.
+ */
+public final class AsyncEncryptionBuilder {
+
+    /**
+     * Size of the chunks in which plaintext is read from the source.
+     */
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    AsyncEncryptionBuilder() {
+
+    }
+
+    /**
+     * Read the plain data from the given source and write the encrypted and/or signed data to the given sink.
+     *
+     * @param plaintext source of the plain data
+     * @param ciphertext sink for the encrypted and/or signed data
+     * @return api handle
+     */
+    public WithOptions onChannels(@Nonnull AsyncByteSource plaintext, @Nonnull AsyncByteSink ciphertext) {
+        return new WithOptions(plaintext, ciphertext);
+    }
+
+    public static final class WithOptions {
+
+        private final AsyncByteSource plaintext;
+        private final AsyncByteSink ciphertext;
+
+        private WithOptions(AsyncByteSource plaintext, AsyncByteSink ciphertext) {
+            this.plaintext = plaintext;
+            this.ciphertext = ciphertext;
+        }
+
+        /**
+         * Start the operation with the given options, using {@link ForkJoinPool#commonPool()} to perform the work.
+         *
+         * @param options options
+         * @return future completing with the result once all data has been written to the sink
+         */
+        public CompletableFuture<EncryptionResult> withOptions(@Nonnull ProducerOptions options) {
+            return withOptions(options, ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Start the operation with the given options, using the given {@link Executor} to perform the work.
+         * If the operation fails, the returned future completes exceptionally with a
+         * {@link org.bouncycastle.openpgp.PGPException} or {@link java.io.IOException}.
+         * Cancelling the future stops the operation after the current chunk.
+         *
+         * @param options options
+         * @param executor executor
+         * @return future completing with the result once all data has been written to the sink
+         */
+        public CompletableFuture<EncryptionResult> withOptions(@Nonnull ProducerOptions options,
+                                                               @Nonnull Executor executor) {
+            return new AsyncEncryption(plaintext, ciphertext, executor, CHUNK_SIZE).start(options);
+        }
+    }
+}
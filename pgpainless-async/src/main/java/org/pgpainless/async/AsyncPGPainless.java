@@ -0,0 +1,46 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+/**
+ * Entry point to the non-blocking API of PGPainless.
+ *
+ * Instead of streams, the operations read from an {@link AsyncByteSource} and write to an {@link AsyncByteSink}
+ * and return a {@link java.util.concurrent.CompletableFuture} which completes with the result of the operation.
+ * The CPU intensive work is performed by tasks of an {@link java.util.concurrent.Executor}, which defaults to
+ * {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+ *
+ * <pre>
+ * {@code
+ * CompletableFuture<EncryptionResult> result = AsyncPGPainless.encryptAndOrSign()
+ *         .onChannels(AsyncByteSource.of(plaintextChannel), AsyncByteSink.of(ciphertextChannel))
+ *         .withOptions(producerOptions, executor);
+ * }
+ * </pre>
+ */
+public final class AsyncPGPainless {
+
+    private AsyncPGPainless() {
+
+    }
+
+    /**
+     * Encrypt and/or sign data asynchronously.
+     *
+     * @return builder
+     */
+    public static AsyncEncryptionBuilder encryptAndOrSign() {
+        return new AsyncEncryptionBuilder();
+    }
+
+    /**
+     * Decrypt and/or verify data asynchronously.
+     *
+     * @return builder
+     */
+    public static AsyncDecryptionBuilder decryptAndOrVerify() {
+        return new AsyncDecryptionBuilder();
+    }
+}
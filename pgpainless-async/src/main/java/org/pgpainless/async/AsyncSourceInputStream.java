@@ -0,0 +1,120 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link InputStream} on top of an {@link AsyncByteSource}, which reads the next chunk of data ahead,
+ * while the current chunk is being consumed.
+ *
+ * Reading only blocks if the read-ahead has not yet completed.
+ * {@link #ready()} can be used to wait asynchronously until data can be read without blocking.
+ * Closing the stream does not close the source.
+ */
+final class AsyncSourceInputStream extends InputStream {
+
+    private final AsyncByteSource source;
+    private ByteBuffer current;
+    private ByteBuffer next;
+    private CompletableFuture<Integer> pending;
+    private boolean endOfSource = false;
+
+    AsyncSourceInputStream(AsyncByteSource source, int chunkSize) {
+        this.source = source;
+        this.current = ByteBuffer.allocate(chunkSize);
+        ((Buffer) this.current).flip();
+        this.next = ByteBuffer.allocate(chunkSize);
+        readAhead();
+    }
+
+    private void readAhead() {
+        ((Buffer) next).clear();
+        pending = ChannelAdapters.read(source, next);
+    }
+
+    /**
+     * Return true, if the next read does not block.
+     *
+     * @return true if data (or the end of the source) is available
+     */
+    boolean isReady() {
+        return endOfSource || current.hasRemaining() || pending.isDone();
+    }
+
+    /**
+     * Return a future which completes once the next read does not block.
+     *
+     * @return future
+     */
+    CompletableFuture<?> ready() {
+        if (endOfSource || current.hasRemaining()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return pending;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current.get() & 0xff;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.remaining());
+        current.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current.remaining();
+    }
+
+    /**
+     * Make sure the current buffer contains data.
+     *
+     * @return false if the end of the source is reached
+     * @throws IOException if reading from the source failed
+     */
+    private boolean fill() throws IOException {
+        while (!current.hasRemaining()) {
+            if (endOfSource) {
+                return false;
+            }
+            int read;
+            try {
+                read = pending.join();
+            } catch (CompletionException e) {
+                throw ChannelAdapters.asIOException(e);
+            }
+            if (read < 0) {
+                endOfSource = true;
+                return false;
+            }
+            ByteBuffer filled = next;
+            next = current;
+            current = filled;
+            ((Buffer) current).flip();
+            readAhead();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,266 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousByteChannel;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Implementations of {@link AsyncByteSource} and {@link AsyncByteSink} for NIO channels, as well as helper
+ * methods to chain asynchronous IO operations.
+ */
+final class ChannelAdapters {
+
+    private ChannelAdapters() {
+
+    }
+
+    /**
+     * Completion handler which completes the {@link CompletableFuture} given as attachment.
+     */
+    private static final CompletionHandler<Integer, CompletableFuture<Integer>> COMPLETE_FUTURE =
+            new CompletionHandler<Integer, CompletableFuture<Integer>>() {
+                @Override
+                public void completed(Integer result, CompletableFuture<Integer> future) {
+                    future.complete(result);
+                }
+
+                @Override
+                public void failed(Throwable exc, CompletableFuture<Integer> future) {
+                    future.completeExceptionally(exc);
+                }
+            };
+
+    /**
+     * Read from the source into the given buffer.
+     * Exceptions thrown synchronously by the source are reported through the returned future.
+     *
+     * @param source source
+     * @param buffer buffer
+     * @return future completing with the number of bytes read
+     */
+    static CompletableFuture<Integer> read(AsyncByteSource source, ByteBuffer buffer) {
+        try {
+            return source.read(buffer);
+        } catch (RuntimeException e) {
+            return failedFuture(e);
+        }
+    }
+
+    /**
+     * Write all remaining bytes of the buffer to the sink.
+     * Subsequent writes are dispatched via the given {@link Executor}, so that sinks which complete synchronously
+     * do not cause deep call stacks.
+     *
+     * @param sink sink
+     * @param buffer buffer
+     * @param executor executor
+     * @return future completing once the buffer has been written
+     */
+    static CompletableFuture<Void> writeFully(AsyncByteSink sink, ByteBuffer buffer, Executor executor) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        writeRemaining(sink, buffer, executor, done);
+        return done;
+    }
+
+    private static void writeRemaining(AsyncByteSink sink, ByteBuffer buffer, Executor executor,
+                                       CompletableFuture<Void> done) {
+        if (!buffer.hasRemaining()) {
+            done.complete(null);
+            return;
+        }
+        CompletableFuture<Integer> write;
+        try {
+            write = sink.write(buffer);
+        } catch (RuntimeException e) {
+            done.completeExceptionally(e);
+            return;
+        }
+        write.whenCompleteAsync((written, error) -> {
+            if (error != null) {
+                done.completeExceptionally(unwrap(error));
+            } else {
+                writeRemaining(sink, buffer, executor, done);
+            }
+        }, executor);
+    }
+
+    /**
+     * Return the cause of a {@link CompletionException}, or the throwable itself.
+     *
+     * @param throwable throwable
+     * @return unwrapped throwable
+     */
+    static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    /**
+     * Convert a throwable into an {@link IOException}.
+     *
+     * @param throwable throwable
+     * @return IO exception
+     */
+    static IOException asIOException(Throwable throwable) {
+        Throwable cause = unwrap(throwable);
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    static <T> CompletableFuture<T> failedFuture(Throwable throwable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    static final class FileChannelSource implements AsyncByteSource {
+
+        private final AsynchronousFileChannel channel;
+        private long position;
+
+        FileChannelSource(AsynchronousFileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public CompletableFuture<Integer> read(ByteBuffer buffer) {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            channel.read(buffer, position, future, new CompletionHandler<Integer, CompletableFuture<Integer>>() {
+                @Override
+                public void completed(Integer read, CompletableFuture<Integer> attachment) {
+                    if (read > 0) {
+                        position += read;
+                    }
+                    attachment.complete(read);
+                }
+
+                @Override
+                public void failed(Throwable exc, CompletableFuture<Integer> attachment) {
+                    attachment.completeExceptionally(exc);
+                }
+            });
+            return future;
+        }
+    }
+
+    static final class FileChannelSink implements AsyncByteSink {
+
+        private final AsynchronousFileChannel channel;
+        private long position;
+
+        FileChannelSink(AsynchronousFileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public CompletableFuture<Integer> write(ByteBuffer buffer) {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            channel.write(buffer, position, future, new CompletionHandler<Integer, CompletableFuture<Integer>>() {
+                @Override
+                public void completed(Integer written, CompletableFuture<Integer> attachment) {
+                    position += written;
+                    attachment.complete(written);
+                }
+
+                @Override
+                public void failed(Throwable exc, CompletableFuture<Integer> attachment) {
+                    attachment.completeExceptionally(exc);
+                }
+            });
+            return future;
+        }
+    }
+
+    static final class ByteChannelSource implements AsyncByteSource {
+
+        private final AsynchronousByteChannel channel;
+
+        ByteChannelSource(AsynchronousByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public CompletableFuture<Integer> read(ByteBuffer buffer) {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            channel.read(buffer, future, COMPLETE_FUTURE);
+            return future;
+        }
+    }
+
+    static final class ByteChannelSink implements AsyncByteSink {
+
+        private final AsynchronousByteChannel channel;
+
+        ByteChannelSink(AsynchronousByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public CompletableFuture<Integer> write(ByteBuffer buffer) {
+            CompletableFuture<Integer> future = new CompletableFuture<>();
+            channel.write(buffer, future, COMPLETE_FUTURE);
+            return future;
+        }
+    }
+
+    static final class BlockingChannelSource implements AsyncByteSource {
+
+        private final ReadableByteChannel channel;
+        private final Executor executor;
+
+        BlockingChannelSource(ReadableByteChannel channel, Executor executor) {
+            this.channel = channel;
+            this.executor = executor;
+        }
+
+        @Override
+        public CompletableFuture<Integer> read(ByteBuffer buffer) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return channel.read(buffer);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+    }
+
+    static final class BlockingChannelSink implements AsyncByteSink {
+
+        private final WritableByteChannel channel;
+        private final Executor executor;
+
+        BlockingChannelSink(WritableByteChannel channel, Executor executor) {
+            this.channel = channel;
+            this.executor = executor;
+        }
+
+        @Override
+        public CompletableFuture<Integer> write(ByteBuffer buffer) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return channel.write(buffer);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+    }
+}
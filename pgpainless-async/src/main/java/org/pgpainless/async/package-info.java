@@ -0,0 +1,8 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+/**
+ * Non-blocking encryption and decryption API based on {@link java.util.concurrent.CompletableFuture}.
+ */
+package org.pgpainless.async;
@@ -0,0 +1,198 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.async;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+
+public class AsyncEncryptionDecryptionTest {
+
+    private static PGPSecretKeyRing secretKeys;
+    private static PGPPublicKeyRing certificate;
+    private ExecutorService executor;
+
+    @BeforeAll
+    public static void generateKey() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+    }
+
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void fileChannelRoundTrip() throws IOException, PGPException, ExecutionException, InterruptedException {
+        byte[] data = new byte[3 * AsyncEncryptionBuilder.CHUNK_SIZE + 17];
+        new Random().nextBytes(data);
+        Path plaintextFile = Files.createTempFile("plaintext", ".bin");
+        Path ciphertextFile = Files.createTempFile("ciphertext", ".pgp");
+        Path decryptedFile = Files.createTempFile("decrypted", ".bin");
+        try {
+            Files.write(plaintextFile, data);
+
+            EncryptionResult encryptionResult;
+            try (AsynchronousFileChannel in = AsynchronousFileChannel.open(plaintextFile, StandardOpenOption.READ);
+                 AsynchronousFileChannel out = AsynchronousFileChannel.open(ciphertextFile, StandardOpenOption.WRITE)) {
+                encryptionResult = AsyncPGPainless.encryptAndOrSign()
+                        .onChannels(AsyncByteSource.of(in), AsyncByteSink.of(out))
+                        .withOptions(producerOptions(), executor)
+                        .get();
+            }
+            assertEquals(1, encryptionResult.getRecipients().size());
+
+            OpenPgpMetadata metadata;
+            try (AsynchronousFileChannel in = AsynchronousFileChannel.open(ciphertextFile, StandardOpenOption.READ);
+                 AsynchronousFileChannel out = AsynchronousFileChannel.open(decryptedFile, StandardOpenOption.WRITE)) {
+                metadata = AsyncPGPainless.decryptAndOrVerify()
+                        .onChannels(AsyncByteSource.of(in), AsyncByteSink.of(out))
+                        .withOptions(consumerOptions(), executor)
+                        .get();
+            }
+            assertTrue(metadata.isEncrypted());
+            assertTrue(metadata.containsVerifiedSignatureFrom(certificate));
+            assertArrayEquals(data, Files.readAllBytes(decryptedFile));
+        } finally {
+            Files.deleteIfExists(plaintextFile);
+            Files.deleteIfExists(ciphertextFile);
+            Files.deleteIfExists(decryptedFile);
+        }
+    }
+
+    @Test
+    public void manyConcurrentOperationsOnSmallExecutor()
+            throws PGPException, ExecutionException, InterruptedException {
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        try {
+            List<byte[]> messages = new ArrayList<>();
+            List<ByteArrayOutputStream> ciphertexts = new ArrayList<>();
+            List<CompletableFuture<EncryptionResult>> encryptions = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                byte[] data = ("Message " + i).getBytes(StandardCharsets.UTF_8);
+                ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+                messages.add(data);
+                ciphertexts.add(ciphertext);
+                encryptions.add(AsyncPGPainless.encryptAndOrSign()
+                        .onChannels(AsyncByteSource.of(Channels.newChannel(new ByteArrayInputStream(data)), io),
+                                AsyncByteSink.of(Channels.newChannel(ciphertext), io))
+                        .withOptions(producerOptions(), executor));
+            }
+            CompletableFuture.allOf(encryptions.toArray(new CompletableFuture<?>[0])).get();
+
+            List<ByteArrayOutputStream> plaintexts = new ArrayList<>();
+            List<CompletableFuture<OpenPgpMetadata>> decryptions = new ArrayList<>();
+            for (ByteArrayOutputStream ciphertext : ciphertexts) {
+                ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+                plaintexts.add(plaintext);
+                decryptions.add(AsyncPGPainless.decryptAndOrVerify()
+                        .onChannels(AsyncByteSource.of(Channels.newChannel(
+                                new ByteArrayInputStream(ciphertext.toByteArray())), io),
+                                AsyncByteSink.of(Channels.newChannel(plaintext), io))
+                        .withOptions(consumerOptions(), executor));
+            }
+            CompletableFuture.allOf(decryptions.toArray(new CompletableFuture<?>[0])).get();
+
+            for (int i = 0; i < messages.size(); i++) {
+                assertArrayEquals(messages.get(i), plaintexts.get(i).toByteArray());
+                assertTrue(decryptions.get(i).get().containsVerifiedSignatureFrom(certificate));
+            }
+        } finally {
+            io.shutdown();
+        }
+    }
+
+    @Test
+    public void missingDecryptionKeyCompletesExceptionally()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException,
+            ExecutionException, InterruptedException {
+        PGPSecretKeyRing otherKey = PGPainless.generateKeyRing().modernKeyRing("Bob <bob@pgpainless.org>", null);
+        byte[] data = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+        AsyncPGPainless.encryptAndOrSign()
+                .onChannels(AsyncByteSource.of(Channels.newChannel(new ByteArrayInputStream(data)), executor),
+                        AsyncByteSink.of(Channels.newChannel(ciphertext), executor))
+                .withOptions(ProducerOptions.encrypt(new EncryptionOptions()
+                        .addRecipient(KeyRingUtils.publicKeyRingFrom(otherKey))), executor)
+                .get();
+
+        CompletableFuture<OpenPgpMetadata> result = AsyncPGPainless.decryptAndOrVerify()
+                .onChannels(AsyncByteSource.of(Channels.newChannel(new ByteArrayInputStream(ciphertext.toByteArray())), executor),
+                        AsyncByteSink.of(Channels.newChannel(new ByteArrayOutputStream()), executor))
+                .withOptions(consumerOptions(), executor);
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertTrue(e.getCause() instanceof PGPException);
+    }
+
+    @Test
+    public void sourceFailureIsReported() {
+        IOException failure = new IOException("Disk on fire.");
+        CompletableFuture<EncryptionResult> result = AsyncPGPainless.encryptAndOrSign()
+                .onChannels(buffer -> ChannelAdapters.failedFuture(failure),
+                        AsyncByteSink.of(Channels.newChannel(new ByteArrayOutputStream()), executor))
+                .withOptions(ProducerOptions.encrypt(new EncryptionOptions().addRecipient(certificate)), executor);
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertEquals(failure, e.getCause());
+    }
+
+    private ProducerOptions producerOptions() throws PGPException {
+        return ProducerOptions.signAndEncrypt(
+                new EncryptionOptions().addRecipient(certificate),
+                new SigningOptions().addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                        DocumentSignatureType.BINARY_DOCUMENT));
+    }
+
+    private ConsumerOptions consumerOptions() {
+        return new ConsumerOptions()
+                .addDecryptionKey(secretKeys)
+                .addVerificationCert(certificate);
+    }
+}
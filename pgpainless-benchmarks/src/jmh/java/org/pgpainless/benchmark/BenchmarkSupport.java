@@ -0,0 +1,155 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.pgpainless.PGPainless;
+import org.pgpainless.implementation.BcImplementationFactory;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.implementation.JceImplementationFactory;
+import org.pgpainless.key.generation.type.rsa.RsaLength;
+
+/**
+ * Shared helpers for the benchmarks.
+ */
+final class BenchmarkSupport {
+
+    static final String USER_ID = "Benchmark <benchmark@pgpainless.org>";
+
+    // Size of the chunks that are written to/read from the streams under test.
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private BenchmarkSupport() {
+
+    }
+
+    /**
+     * Select the {@link ImplementationFactory} by name.
+     *
+     * @param name either "bc" or "jce"
+     */
+    static void setImplementation(String name) {
+        switch (name) {
+            case "bc":
+                ImplementationFactory.setFactoryImplementation(new BcImplementationFactory());
+                break;
+            case "jce":
+                ImplementationFactory.setFactoryImplementation(new JceImplementationFactory());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown implementation factory " + name);
+        }
+    }
+
+    /**
+     * Generate an unprotected key using one of the {@link org.pgpainless.key.generation.KeyRingTemplates}.
+     *
+     * @param keyType either "rsa4096", "nistp256" or "curve25519"
+     * @return key
+     */
+    static PGPSecretKeyRing generateKey(String keyType)
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        switch (keyType) {
+            case "rsa4096":
+                return PGPainless.generateKeyRing().simpleRsaKeyRing(USER_ID, RsaLength._4096);
+            case "nistp256":
+                return PGPainless.generateKeyRing().simpleEcKeyRing(USER_ID);
+            case "curve25519":
+                return PGPainless.generateKeyRing().modernKeyRing(USER_ID, null);
+            default:
+                throw new IllegalArgumentException("Unknown key type " + keyType);
+        }
+    }
+
+    /**
+     * Return a chunk of random bytes, which is used as repeating plaintext.
+     *
+     * @return chunk
+     */
+    static byte[] randomChunk() {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        new Random(0xBEEF).nextBytes(chunk);
+        return chunk;
+    }
+
+    /**
+     * Write size bytes to the output stream by repeatedly writing the given chunk.
+     *
+     * @param out output stream
+     * @param chunk chunk
+     * @param size total number of bytes to write
+     */
+    static void writePayload(OutputStream out, byte[] chunk, long size) throws IOException {
+        long remaining = size;
+        while (remaining > 0) {
+            int len = (int) Math.min(chunk.length, remaining);
+            out.write(chunk, 0, len);
+            remaining -= len;
+        }
+    }
+
+    /**
+     * Write size bytes to the output stream in writes of writeSize bytes, taken from successive offsets of the
+     * given chunk.
+     *
+     * @param out output stream
+     * @param chunk chunk
+     * @param size total number of bytes to write
+     * @param writeSize number of bytes per write
+     */
+    static void writePayload(OutputStream out, byte[] chunk, long size, int writeSize) throws IOException {
+        long remaining = size;
+        int off = 0;
+        while (remaining > 0) {
+            int len = (int) Math.min(writeSize, remaining);
+            if (off + len > chunk.length) {
+                off = 0;
+            }
+            out.write(chunk, off, len);
+            off += len;
+            remaining -= len;
+        }
+    }
+
+    /**
+     * Read the input stream until it is exhausted.
+     *
+     * @param in input stream
+     * @param buffer reusable read buffer
+     * @return number of bytes read
+     */
+    static long drain(InputStream in, byte[] buffer) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * {@link OutputStream} that discards everything written to it.
+     */
+    static final class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+            // discard
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // discard
+        }
+    }
+}
@@ -0,0 +1,171 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.decryption_verification.cleartext_signatures.ClearsignedMessageUtil;
+import org.pgpainless.decryption_verification.cleartext_signatures.InMemoryMultiPassStrategy;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.CleartextCanonicalizer;
+
+/**
+ * Benchmark of the line canonicalization of messages using the Cleartext Signature Framework.
+ * The text consists of lines of random length, some of which start with a dash or carry trailing whitespace.
+ *
+ * {@code canonicalize} measures the {@link CleartextCanonicalizer} alone, while {@code readInputLine} measures
+ * line-by-line processing using {@link ClearsignedMessageUtil#readInputLine(ByteArrayOutputStream, java.io.InputStream)}
+ * for comparison.
+ * The remaining benchmarks measure cleartext signing and verification end-to-end.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CleartextBenchmark {
+
+    @Param({"100000"})
+    public int lines;
+
+    @Param({"bc", "jce"})
+    public String implementation;
+
+    private PGPSecretKeyRing secretKeys;
+    private PGPPublicKeyRing certificate;
+    private byte[] text;
+    private byte[] cleartextSigned;
+    private final byte[] readBuffer = new byte[BenchmarkSupport.CHUNK_SIZE];
+    private final OutputStream discard = new BenchmarkSupport.NullOutputStream();
+
+    @Setup(Level.Trial)
+    public void setup() throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        BenchmarkSupport.setImplementation(implementation);
+        secretKeys = BenchmarkSupport.generateKey("curve25519");
+        certificate = PGPainless.extractCertificate(secretKeys);
+        text = randomText(lines);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(text.length + 1024);
+        sign(out);
+        cleartextSigned = out.toByteArray();
+    }
+
+    @Benchmark
+    public void canonicalize(ByteCounter counter) throws IOException {
+        CleartextCanonicalizer canonicalizer = CleartextCanonicalizer.forSigning(discard, discard);
+        for (int off = 0; off < text.length; off += readBuffer.length) {
+            canonicalizer.update(text, off, Math.min(readBuffer.length, text.length - off));
+        }
+        canonicalizer.finish();
+        counter.bytes += text.length;
+    }
+
+    @Benchmark
+    public void readInputLine(ByteCounter counter) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(text);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int lookAhead = ClearsignedMessageUtil.readInputLine(line, in);
+        discard.write(line.toByteArray());
+        while (lookAhead != -1) {
+            lookAhead = ClearsignedMessageUtil.readInputLine(line, lookAhead, in);
+            discard.write(line.toByteArray());
+        }
+        counter.bytes += text.length;
+    }
+
+    @Benchmark
+    public void sign(ByteCounter counter) throws PGPException, IOException {
+        sign(discard);
+        counter.bytes += text.length;
+    }
+
+    @Benchmark
+    public OpenPgpMetadata verify(ByteCounter counter) throws PGPException, IOException {
+        return verify(new ConsumerOptions()
+                .addVerificationCert(certificate), counter);
+    }
+
+    @Benchmark
+    public OpenPgpMetadata verifyMultiPass(ByteCounter counter) throws PGPException, IOException {
+        return verify(new ConsumerOptions()
+                .addVerificationCert(certificate)
+                .setMultiPassStrategy(new InMemoryMultiPassStrategy()), counter);
+    }
+
+    private void sign(OutputStream out) throws PGPException, IOException {
+        EncryptionStream signingStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.sign(new SigningOptions().addDetachedSignature(
+                        SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                        DocumentSignatureType.CANONICAL_TEXT_DOCUMENT))
+                        .setCleartextSigned());
+        BenchmarkSupport.writePayload(signingStream, text, text.length, BenchmarkSupport.CHUNK_SIZE);
+        signingStream.close();
+    }
+
+    private OpenPgpMetadata verify(ConsumerOptions options, ByteCounter counter) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(cleartextSigned))
+                .withOptions(options);
+        counter.bytes += BenchmarkSupport.drain(decryptionStream, readBuffer);
+        decryptionStream.close();
+        OpenPgpMetadata result = decryptionStream.getResult();
+        if (!result.isVerified()) {
+            throw new IllegalStateException("Cleartext signed message could not be verified.");
+        }
+        return result;
+    }
+
+    private static byte[] randomText(int lines) {
+        Random random = new Random(0xBEEF);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (random.nextInt(10) == 0) {
+                sb.append('-');
+            }
+            int length = random.nextInt(80);
+            for (int j = 0; j < length; j++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            if (random.nextInt(10) == 0) {
+                sb.append(" \t");
+            }
+            sb.append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
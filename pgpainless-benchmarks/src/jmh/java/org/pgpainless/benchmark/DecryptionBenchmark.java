@@ -0,0 +1,149 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+/**
+ * Benchmark of the {@link DecryptionStream} for decryption, signature verification and combined decryption and
+ * signature verification.
+ * The messages are created once per trial and are read from temporary files.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DecryptionBenchmark {
+
+    @Param({"1024", "1048576", "1073741824"})
+    public long payloadSize;
+
+    @Param({"rsa4096", "nistp256", "curve25519"})
+    public String keyType;
+
+    @Param({"bc", "jce"})
+    public String implementation;
+
+    private PGPSecretKeyRing secretKeys;
+    private PGPPublicKeyRing certificate;
+    private File encrypted;
+    private File signed;
+    private File encryptedAndSigned;
+    private final byte[] readBuffer = new byte[BenchmarkSupport.CHUNK_SIZE];
+
+    @Setup(Level.Trial)
+    public void setup() throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        BenchmarkSupport.setImplementation(implementation);
+        secretKeys = BenchmarkSupport.generateKey(keyType);
+        certificate = PGPainless.extractCertificate(secretKeys);
+        byte[] chunk = BenchmarkSupport.randomChunk();
+
+        encrypted = createMessage(ProducerOptions.encrypt(
+                new EncryptionOptions().addRecipient(certificate)), chunk);
+        signed = createMessage(ProducerOptions.sign(signingOptions()), chunk);
+        encryptedAndSigned = createMessage(ProducerOptions.signAndEncrypt(
+                new EncryptionOptions().addRecipient(certificate), signingOptions()), chunk);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        delete(encrypted);
+        delete(signed);
+        delete(encryptedAndSigned);
+    }
+
+    @Benchmark
+    public OpenPgpMetadata decrypt(ByteCounter counter) throws PGPException, IOException {
+        return process(encrypted, new ConsumerOptions()
+                .addDecryptionKey(secretKeys), counter);
+    }
+
+    @Benchmark
+    public OpenPgpMetadata verify(ByteCounter counter) throws PGPException, IOException {
+        return process(signed, new ConsumerOptions()
+                .addVerificationCert(certificate), counter);
+    }
+
+    @Benchmark
+    public OpenPgpMetadata decryptAndVerify(ByteCounter counter) throws PGPException, IOException {
+        return process(encryptedAndSigned, new ConsumerOptions()
+                .addDecryptionKey(secretKeys)
+                .addVerificationCert(certificate), counter);
+    }
+
+    private OpenPgpMetadata process(File message, ConsumerOptions options, ByteCounter counter)
+            throws PGPException, IOException {
+        InputStream fileIn = new FileInputStream(message);
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(fileIn)
+                .withOptions(options);
+        counter.bytes += BenchmarkSupport.drain(decryptionStream, readBuffer);
+        decryptionStream.close();
+        fileIn.close();
+        return decryptionStream.getResult();
+    }
+
+    private SigningOptions signingOptions() throws PGPException {
+        return new SigningOptions().addInlineSignature(
+                SecretKeyRingProtector.unprotectedKeys(), secretKeys, DocumentSignatureType.BINARY_DOCUMENT);
+    }
+
+    private File createMessage(ProducerOptions options, byte[] chunk) throws IOException, PGPException {
+        File file = File.createTempFile("pgpainless-benchmark", ".pgp");
+        file.deleteOnExit();
+        OutputStream fileOut = new BufferedOutputStream(new FileOutputStream(file));
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(fileOut)
+                .withOptions(options.setAsciiArmor(false));
+        BenchmarkSupport.writePayload(encryptionStream, chunk, payloadSize);
+        encryptionStream.close();
+        fileOut.close();
+        return file;
+    }
+
+    private static void delete(File file) {
+        if (file != null && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.IOException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+/**
+ * Benchmark of the {@link EncryptionStream} for encryption, signing and combined encryption and signing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EncryptionBenchmark {
+
+    private static final int SMALL_WRITE_SIZE = 64;
+
+    @Param({"1024", "1048576", "1073741824"})
+    public long payloadSize;
+
+    @Param({"rsa4096", "nistp256", "curve25519"})
+    public String keyType;
+
+    @Param({"bc", "jce"})
+    public String implementation;
+
+    private PGPSecretKeyRing secretKeys;
+    private PGPPublicKeyRing certificate;
+    private byte[] chunk;
+    private final BenchmarkSupport.NullOutputStream sink = new BenchmarkSupport.NullOutputStream();
+
+    @Setup(Level.Trial)
+    public void setup() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        BenchmarkSupport.setImplementation(implementation);
+        secretKeys = BenchmarkSupport.generateKey(keyType);
+        certificate = PGPainless.extractCertificate(secretKeys);
+        chunk = BenchmarkSupport.randomChunk();
+    }
+
+    @Benchmark
+    public EncryptionResult encrypt(ByteCounter counter) throws PGPException, IOException {
+        ProducerOptions options = ProducerOptions.encrypt(new EncryptionOptions().addRecipient(certificate))
+                .setAsciiArmor(false);
+        return process(options, counter);
+    }
+
+    @Benchmark
+    public EncryptionResult sign(ByteCounter counter) throws PGPException, IOException {
+        ProducerOptions options = ProducerOptions.sign(signingOptions())
+                .setAsciiArmor(false);
+        return process(options, counter);
+    }
+
+    @Benchmark
+    public EncryptionResult encryptAndSign(ByteCounter counter) throws PGPException, IOException {
+        ProducerOptions options = ProducerOptions.signAndEncrypt(
+                new EncryptionOptions().addRecipient(certificate), signingOptions())
+                .setAsciiArmor(false);
+        return process(options, counter);
+    }
+
+    /**
+     * Combined encryption and signing, where the payload is written in small chunks of 64 bytes.
+     * This measures the per-write overhead of the {@link EncryptionStream}.
+     */
+    @Benchmark
+    public EncryptionResult encryptAndSignSmallWrites(ByteCounter counter) throws PGPException, IOException {
+        ProducerOptions options = ProducerOptions.signAndEncrypt(
+                new EncryptionOptions().addRecipient(certificate), signingOptions())
+                .setAsciiArmor(false);
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(sink)
+                .withOptions(options);
+        BenchmarkSupport.writePayload(encryptionStream, chunk, payloadSize, SMALL_WRITE_SIZE);
+        encryptionStream.close();
+        counter.bytes += payloadSize;
+        return encryptionStream.getResult();
+    }
+
+    @Benchmark
+    public EncryptionResult encryptArmored(ByteCounter counter) throws PGPException, IOException {
+        ProducerOptions options = ProducerOptions.encrypt(new EncryptionOptions().addRecipient(certificate));
+        return process(options, counter);
+    }
+
+    private SigningOptions signingOptions() throws PGPException {
+        return new SigningOptions().addInlineSignature(
+                SecretKeyRingProtector.unprotectedKeys(), secretKeys, DocumentSignatureType.BINARY_DOCUMENT);
+    }
+
+    private EncryptionResult process(ProducerOptions options, ByteCounter counter) throws PGPException, IOException {
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(sink)
+                .withOptions(options);
+        BenchmarkSupport.writePayload(encryptionStream, chunk, payloadSize);
+        encryptionStream.close();
+        counter.bytes += payloadSize;
+        return encryptionStream.getResult();
+    }
+}
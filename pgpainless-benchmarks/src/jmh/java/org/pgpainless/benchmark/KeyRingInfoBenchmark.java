@@ -0,0 +1,67 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.info.KeyRingInfo;
+
+/**
+ * Benchmark of the evaluation of keys and certificates using {@link KeyRingInfo}.
+ * Constructing a {@link KeyRingInfo} verifies all self-signatures on the key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class KeyRingInfoBenchmark {
+
+    @Param({"rsa4096", "nistp256", "curve25519"})
+    public String keyType;
+
+    @Param({"bc", "jce"})
+    public String implementation;
+
+    private PGPSecretKeyRing secretKeys;
+    private PGPPublicKeyRing certificate;
+
+    @Setup(Level.Trial)
+    public void setup() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        BenchmarkSupport.setImplementation(implementation);
+        secretKeys = BenchmarkSupport.generateKey(keyType);
+        certificate = PGPainless.extractCertificate(secretKeys);
+    }
+
+    @Benchmark
+    public KeyRingInfo evaluateCertificate() {
+        return new KeyRingInfo(certificate, new Date());
+    }
+
+    @Benchmark
+    public KeyRingInfo evaluateSecretKey() {
+        return new KeyRingInfo(secretKeys, new Date());
+    }
+}
@@ -0,0 +1,98 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.parsing.PublicKeyRingIterator;
+import org.pgpainless.util.ArmorUtils;
+
+/**
+ * Benchmark of reading an armored keyring, which consists of one armored block per certificate.
+ * The keyring contains the same certificate over and over again.
+ *
+ * {@code readCollection} reads the keyring into a {@link PGPPublicKeyRingCollection}, {@code iterate} parses the
+ * certificates sequentially using a {@link PublicKeyRingIterator} and {@code iterateParallel} parses the armored blocks
+ * of a buffer on the common {@link ForkJoinPool}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class KeyRingReaderBenchmark {
+
+    @Param({"1000"})
+    public int certificates;
+
+    @Param({"rsa4096", "curve25519"})
+    public String keyType;
+
+    private byte[] keyring;
+
+    @Setup(Level.Trial)
+    public void setup() throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        String certificate = ArmorUtils.toAsciiArmoredString(
+                PGPainless.extractCertificate(BenchmarkSupport.generateKey(keyType)));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < certificates; i++) {
+            sb.append(certificate);
+        }
+        keyring = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PGPPublicKeyRingCollection readCollection(ByteCounter counter) throws PGPException, IOException {
+        PGPPublicKeyRingCollection collection = PGPainless.readKeyRing()
+                .publicKeyRingCollection(new ByteArrayInputStream(keyring));
+        counter.bytes += keyring.length;
+        return collection;
+    }
+
+    @Benchmark
+    public int iterate(ByteCounter counter) throws IOException {
+        return count(PGPainless.readKeyRing().publicKeyRingIterator(new ByteArrayInputStream(keyring)), counter);
+    }
+
+    @Benchmark
+    public int iterateParallel(ByteCounter counter) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return count(PGPainless.readKeyRing().publicKeyRingIterator(
+                ByteBuffer.wrap(keyring), pool, 2 * pool.getParallelism()), counter);
+    }
+
+    private int count(PublicKeyRingIterator iterator, ByteCounter counter) throws IOException {
+        int count = 0;
+        while (iterator.nextKeyRing() != null) {
+            count++;
+        }
+        iterator.close();
+        counter.bytes += keyring.length;
+        return count;
+    }
+}
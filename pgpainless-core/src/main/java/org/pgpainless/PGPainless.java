@@ -5,12 +5,18 @@
 package org.pgpainless;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.Date;
 import javax.annotation.Nonnull;
 
+import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPKeyRing;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.pgpainless.archive.ChunkedArchiveReader;
+import org.pgpainless.archive.ChunkedArchiveWriter;
+import org.pgpainless.decryption_verification.BatchDecryption;
+import org.pgpainless.decryption_verification.ConsumerOptions;
 import org.pgpainless.decryption_verification.DecryptionBuilder;
 import org.pgpainless.decryption_verification.DecryptionStream;
 import org.pgpainless.encryption_signing.EncryptionBuilder;
@@ -18,6 +24,7 @@ import org.pgpainless.encryption_signing.EncryptionStream;
 import org.pgpainless.key.generation.KeyRingBuilder;
 import org.pgpainless.key.generation.KeyRingTemplates;
 import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.key.info.KeyRingInfoCache;
 import org.pgpainless.key.modification.secretkeyring.SecretKeyRingEditor;
 import org.pgpainless.key.modification.secretkeyring.SecretKeyRingEditorInterface;
 import org.pgpainless.key.parsing.KeyRingReader;
@@ -98,6 +105,41 @@ public final class PGPainless {
         return new DecryptionBuilder();
     }
 
+    /**
+     * Decrypt and/or verify a large number of messages using the same {@link ConsumerOptions}.
+     * Secret keys are only unlocked once per batch and messages are processed concurrently.
+     *
+     * @return batch decryption
+     */
+    public static BatchDecryption decryptAndOrVerifyBatch() {
+        return new BatchDecryption();
+    }
+
+    /**
+     * Encrypt a large input into a chunked archive, whose segments are encrypted concurrently.
+     *
+     * @return chunked archive writer
+     */
+    public static ChunkedArchiveWriter encryptChunkedArchive() {
+        return new ChunkedArchiveWriter();
+    }
+
+    /**
+     * Open a chunked archive for decryption.
+     * This decrypts the manifest of the archive and verifies its signature.
+     *
+     * @param archive channel of the archive file
+     * @param options options for the decryption and verification of the manifest
+     * @return chunked archive reader
+     * @throws IOException if the file is not a valid chunked archive
+     * @throws PGPException if the manifest cannot be decrypted or verified
+     */
+    public static ChunkedArchiveReader decryptChunkedArchive(@Nonnull FileChannel archive,
+                                                             @Nonnull ConsumerOptions options)
+            throws IOException, PGPException {
+        return ChunkedArchiveReader.open(archive, options);
+    }
+
     /**
      * Make changes to a key ring.
      * This method can be used to change key expiration dates and passphrases, or add/remove/revoke subkeys.
@@ -118,11 +160,27 @@ public final class PGPainless {
      * To evaluate a key at a given date (e.g. to determine if the key was allowed to create a certain signature)
      * use {@link KeyRingInfo#KeyRingInfo(PGPKeyRing, Date)} instead.
      *
+     * If the {@link KeyRingInfoCache} is enabled, a cached evaluation might be returned.
+     *
      * @param keyRing key ring
      * @return access object
      */
     public static KeyRingInfo inspectKeyRing(PGPKeyRing keyRing) {
-        return new KeyRingInfo(keyRing);
+        return inspectKeyRing(keyRing, new Date());
+    }
+
+    /**
+     * Quickly access information about a {@link org.bouncycastle.openpgp.PGPPublicKeyRing} / {@link PGPSecretKeyRing}
+     * evaluated at the given date.
+     *
+     * If the {@link KeyRingInfoCache} is enabled, a cached evaluation might be returned.
+     *
+     * @param keyRing key ring
+     * @param evaluationDate date of evaluation
+     * @return access object
+     */
+    public static KeyRingInfo inspectKeyRing(PGPKeyRing keyRing, Date evaluationDate) {
+        return KeyRingInfoCache.getInstance().evaluate(keyRing, evaluationDate);
     }
 
     /**
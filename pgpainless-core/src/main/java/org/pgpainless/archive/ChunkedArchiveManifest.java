@@ -0,0 +1,161 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.util.SessionKey;
+
+/**
+ * Manifest of a chunked archive.
+ *
+ * An archive has the following layout:
+ * <pre>
+ *     MAGIC
+ *     segment 0 .. segment n-1   (OpenPGP messages, each encrypted with its own session key)
+ *     manifest                   (OpenPGP message, encrypted and signed using the options of the archive)
+ *     manifest offset            (8 octets)
+ *     manifest length            (8 octets)
+ *     MAGIC
+ * </pre>
+ *
+ * The manifest contains the position, length, SHA-256 digest and random session key of each encrypted segment.
+ * Since the manifest is signed, the digests authenticate the segments and their order.
+ */
+final class ChunkedArchiveManifest {
+
+    static final byte[] MAGIC = new byte[] {'P', 'G', 'P', 'C', 'H', 'U', 'N', 'K'};
+    static final int VERSION = 1;
+    static final int TRAILER_LENGTH = 8 + 8 + MAGIC.length;
+    static final int DIGEST_LENGTH = 32;
+    static final int MAX_SESSION_KEY_LENGTH = 64;
+
+    private final int segmentSize;
+    private final SymmetricKeyAlgorithm algorithm;
+    private final List<Segment> segments;
+
+    ChunkedArchiveManifest(int segmentSize, SymmetricKeyAlgorithm algorithm, List<Segment> segments) {
+        this.segmentSize = segmentSize;
+        this.algorithm = algorithm;
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    int getSegmentSize() {
+        return segmentSize;
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Return the session key which was used to encrypt the given segment.
+     *
+     * @param segment segment
+     * @return session key
+     */
+    SessionKey getSessionKey(Segment segment) {
+        return new SessionKey(algorithm, segment.sessionKey);
+    }
+
+    byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeInt(segmentSize);
+        out.writeByte(algorithm.getAlgorithmId());
+        out.writeInt(segments.size());
+        for (Segment segment : segments) {
+            out.writeLong(segment.offset);
+            out.writeInt(segment.length);
+            out.writeInt(segment.plaintextLength);
+            out.write(segment.digest);
+            out.writeByte(segment.sessionKey.length);
+            out.write(segment.sessionKey);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static ChunkedArchiveManifest decode(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported archive version " + version);
+        }
+        int segmentSize = in.readInt();
+        if (segmentSize <= 0) {
+            throw new IOException("Invalid segment size " + segmentSize);
+        }
+        int algorithmId = in.readUnsignedByte();
+        SymmetricKeyAlgorithm algorithm = SymmetricKeyAlgorithm.fromId(algorithmId);
+        if (algorithm == null || algorithm == SymmetricKeyAlgorithm.NULL) {
+            throw new IOException("Invalid segment encryption algorithm " + algorithmId);
+        }
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid segment count " + count);
+        }
+        List<Segment> segments = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            long offset = in.readLong();
+            int length = in.readInt();
+            int plaintextLength = in.readInt();
+            if (length <= 0 || plaintextLength <= 0 || plaintextLength > segmentSize) {
+                throw new IOException("Invalid length of segment " + i);
+            }
+            byte[] digest = new byte[DIGEST_LENGTH];
+            in.readFully(digest);
+            int keyLength = in.readUnsignedByte();
+            if (keyLength == 0 || keyLength > MAX_SESSION_KEY_LENGTH) {
+                throw new IOException("Invalid session key length of segment " + i);
+            }
+            byte[] sessionKey = new byte[keyLength];
+            in.readFully(sessionKey);
+            segments.add(new Segment(offset, length, plaintextLength, digest, sessionKey));
+        }
+        if (in.read() != -1) {
+            throw new IOException("Trailing data after archive manifest.");
+        }
+        return new ChunkedArchiveManifest(segmentSize, algorithm, segments);
+    }
+
+    static byte[] digest(byte[] data, int off, int len) {
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(data, off, len);
+        byte[] out = new byte[DIGEST_LENGTH];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    /**
+     * Entry of the manifest, describing a single encrypted segment.
+     */
+    static final class Segment {
+
+        final long offset;
+        final int length;
+        final int plaintextLength;
+        final byte[] digest;
+        final byte[] sessionKey;
+
+        Segment(long offset, int length, int plaintextLength, byte[] digest, byte[] sessionKey) {
+            this.offset = offset;
+            this.length = length;
+            this.plaintextLength = plaintextLength;
+            this.digest = digest;
+            this.sessionKey = sessionKey;
+        }
+    }
+}
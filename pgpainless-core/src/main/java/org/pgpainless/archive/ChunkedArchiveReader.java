@@ -0,0 +1,339 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.io.Streams;
+import org.pgpainless.PGPainless;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.exception.ModificationDetectionException;
+import org.pgpainless.exception.SignatureValidationException;
+import org.pgpainless.util.MappedFileInputStream;
+
+/**
+ * Read a chunked archive created by {@link ChunkedArchiveWriter}.
+ *
+ * Opening the archive decrypts the manifest and verifies its signature using the given {@link ConsumerOptions}.
+ * Afterwards, segments can be decrypted individually (e.g. to seek to a position in the plaintext), or
+ * all at once, in which case segments are decrypted concurrently.
+ * Each encrypted segment is checked against the digest in the signed manifest before it is decrypted, so no
+ * plaintext of a modified, truncated or reordered archive is ever returned.
+ *
+ * Instances are safe for use by multiple threads.
+ */
+public final class ChunkedArchiveReader {
+
+    private final FileChannel archive;
+    private final ChunkedArchiveManifest manifest;
+    private final OpenPgpMetadata manifestMetadata;
+    private final long plaintextSize;
+
+    private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+    private volatile Executor executor = null;
+
+    private ChunkedArchiveReader(FileChannel archive, ChunkedArchiveManifest manifest, OpenPgpMetadata manifestMetadata) {
+        this.archive = archive;
+        this.manifest = manifest;
+        this.manifestMetadata = manifestMetadata;
+        long size = 0;
+        for (ChunkedArchiveManifest.Segment segment : manifest.getSegments()) {
+            size += segment.plaintextLength;
+        }
+        this.plaintextSize = size;
+    }
+
+    /**
+     * Open a chunked archive.
+     * The options MUST allow to decrypt the manifest and MUST contain a certificate which verifies its signature.
+     * The channel is not closed by the reader.
+     *
+     * @param archive channel of the archive file
+     * @param options options for the manifest
+     * @return reader
+     * @throws IOException if the file is not a valid chunked archive
+     * @throws PGPException if the manifest cannot be decrypted
+     * @throws SignatureValidationException if the manifest does not carry a valid signature
+     */
+    public static ChunkedArchiveReader open(@Nonnull FileChannel archive, @Nonnull ConsumerOptions options)
+            throws IOException, PGPException {
+        byte[] magic = ChunkedArchiveManifest.MAGIC;
+        long size = archive.size();
+        if (size < magic.length + ChunkedArchiveManifest.TRAILER_LENGTH) {
+            throw new IOException("File is too short to be a chunked archive.");
+        }
+        ByteBuffer header = ByteBuffer.allocate(magic.length);
+        readFully(archive, header, 0);
+        ByteBuffer trailer = ByteBuffer.allocate(ChunkedArchiveManifest.TRAILER_LENGTH);
+        readFully(archive, trailer, size - ChunkedArchiveManifest.TRAILER_LENGTH);
+        long manifestOffset = trailer.getLong(0);
+        long manifestLength = trailer.getLong(8);
+        byte[] trailerMagic = new byte[magic.length];
+        ((Buffer) trailer).position(16);
+        trailer.get(trailerMagic);
+        if (!Arrays.areEqual(magic, header.array()) || !Arrays.areEqual(magic, trailerMagic)) {
+            throw new IOException("File is not a chunked archive.");
+        }
+        if (manifestOffset < magic.length || manifestLength <= 0 ||
+                manifestOffset + manifestLength != size - ChunkedArchiveManifest.TRAILER_LENGTH) {
+            throw new IOException("Invalid manifest position.");
+        }
+
+        DecryptionStream manifestStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new MappedFileInputStream(archive, manifestOffset, manifestLength,
+                        MappedFileInputStream.DEFAULT_REGION_SIZE))
+                .withOptions(options);
+        ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+        Streams.pipeAll(manifestStream, manifestBytes);
+        manifestStream.close();
+        OpenPgpMetadata metadata = manifestStream.getResult();
+        if (!metadata.isVerified()) {
+            throw new SignatureValidationException("Archive manifest does not carry a valid signature.");
+        }
+
+        ChunkedArchiveManifest manifest = ChunkedArchiveManifest.decode(
+                new ByteArrayInputStream(manifestBytes.toByteArray()));
+        checkLayout(manifest, magic.length, manifestOffset);
+        return new ChunkedArchiveReader(archive, manifest, metadata);
+    }
+
+    /**
+     * Make sure that the segments are contiguous and only the last segment is shorter than the segment size,
+     * so that plaintext offsets can be mapped to segments.
+     */
+    private static void checkLayout(ChunkedArchiveManifest manifest, long firstOffset, long manifestOffset)
+            throws IOException {
+        List<ChunkedArchiveManifest.Segment> segments = manifest.getSegments();
+        long expectedOffset = firstOffset;
+        for (int i = 0; i < segments.size(); i++) {
+            ChunkedArchiveManifest.Segment segment = segments.get(i);
+            if (segment.offset != expectedOffset) {
+                throw new IOException("Segment " + i + " is not at the expected position.");
+            }
+            if (i != segments.size() - 1 && segment.plaintextLength != manifest.getSegmentSize()) {
+                throw new IOException("Segment " + i + " is shorter than the segment size.");
+            }
+            expectedOffset += segment.length;
+        }
+        if (expectedOffset != manifestOffset) {
+            throw new IOException("Segments do not end at the manifest.");
+        }
+    }
+
+    /**
+     * Set the maximum number of segments that are decrypted concurrently by {@link #decrypt(OutputStream)}.
+     * Defaults to the number of available processors.
+     *
+     * @param parallelism maximum number of segments in flight
+     * @return this
+     */
+    public ChunkedArchiveReader withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism MUST be positive.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Set the {@link Executor} which is used to decrypt segments.
+     * If no executor is set, a thread pool of size {@link #withParallelism(int) parallelism} is created for
+     * each call to {@link #decrypt(int, int, OutputStream)}.
+     *
+     * @param executor executor or null
+     * @return this
+     */
+    public ChunkedArchiveReader withExecutor(@Nullable Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Return the metadata of the manifest, which contains information about its signatures and recipients.
+     *
+     * @return manifest metadata
+     */
+    public OpenPgpMetadata getManifestMetadata() {
+        return manifestMetadata;
+    }
+
+    /**
+     * Return the number of segments.
+     *
+     * @return segment count
+     */
+    public int getSegmentCount() {
+        return manifest.getSegments().size();
+    }
+
+    /**
+     * Return the size of the plaintext segments. All segments, except for the last one, are of this size.
+     *
+     * @return segment size
+     */
+    public int getSegmentSize() {
+        return manifest.getSegmentSize();
+    }
+
+    /**
+     * Return the total length of the plaintext.
+     *
+     * @return plaintext size
+     */
+    public long getPlaintextSize() {
+        return plaintextSize;
+    }
+
+    /**
+     * Return the index of the segment which contains the given position of the plaintext.
+     *
+     * @param plaintextOffset position in the plaintext
+     * @return segment index
+     */
+    public int getSegmentIndex(long plaintextOffset) {
+        if (plaintextOffset < 0 || plaintextOffset >= plaintextSize) {
+            throw new IndexOutOfBoundsException("Offset " + plaintextOffset + " is outside of the plaintext.");
+        }
+        return (int) (plaintextOffset / manifest.getSegmentSize());
+    }
+
+    /**
+     * Decrypt a single segment.
+     *
+     * @param index segment index
+     * @return plaintext of the segment
+     * @throws IOException in case of an IO error
+     * @throws ModificationDetectionException if the segment does not match the manifest
+     * @throws PGPException if the segment cannot be decrypted
+     */
+    public byte[] decryptSegment(int index) throws IOException, PGPException {
+        List<ChunkedArchiveManifest.Segment> segments = manifest.getSegments();
+        if (index < 0 || index >= segments.size()) {
+            throw new IndexOutOfBoundsException("Archive has no segment " + index);
+        }
+        ChunkedArchiveManifest.Segment segment = segments.get(index);
+        ByteBuffer ciphertext = ByteBuffer.allocate(segment.length);
+        readFully(archive, ciphertext, segment.offset);
+        byte[] digest = ChunkedArchiveManifest.digest(ciphertext.array(), 0, segment.length);
+        if (!Arrays.constantTimeAreEqual(segment.digest, digest)) {
+            throw new ModificationDetectionException("Segment " + index + " does not match the archive manifest.");
+        }
+
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext.array()))
+                .withOptions(new ConsumerOptions().setSessionKey(manifest.getSessionKey(segment)));
+        byte[] plaintext = new byte[segment.plaintextLength];
+        try {
+            readFully(decryptionStream, plaintext);
+            if (decryptionStream.read() != -1) {
+                throw new IOException("Segment " + index + " is longer than stated in the archive manifest.");
+            }
+        } finally {
+            decryptionStream.close();
+        }
+        return plaintext;
+    }
+
+    /**
+     * Decrypt all segments and write the plaintext to the given output stream.
+     *
+     * @param plaintext output stream for the plaintext
+     * @throws IOException in case of an IO error
+     * @throws PGPException if a segment cannot be decrypted
+     */
+    public void decrypt(@Nonnull OutputStream plaintext) throws IOException, PGPException {
+        decrypt(0, getSegmentCount(), plaintext);
+    }
+
+    /**
+     * Decrypt the segments in the range [from, to) concurrently and write their plaintext to the given
+     * output stream in order.
+     * The output stream is not closed by this method.
+     *
+     * @param from index of the first segment (inclusive)
+     * @param to index of the last segment (exclusive)
+     * @param plaintext output stream for the plaintext
+     * @throws IOException in case of an IO error
+     * @throws PGPException if a segment cannot be decrypted
+     */
+    public void decrypt(int from, int to, @Nonnull final OutputStream plaintext) throws IOException, PGPException {
+        if (from < 0 || to > getSegmentCount() || from > to) {
+            throw new IndexOutOfBoundsException("Invalid segment range [" + from + ", " + to + ")");
+        }
+        int parallelism = this.parallelism;
+        ExecutorService ownExecutor = null;
+        Executor executor = this.executor;
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(parallelism);
+            executor = ownExecutor;
+        }
+
+        SegmentPipeline<byte[]> pipeline = new SegmentPipeline<>(executor, parallelism,
+                new SegmentPipeline.Sink<byte[]>() {
+                    @Override
+                    public void accept(byte[] segment) throws IOException {
+                        plaintext.write(segment);
+                    }
+                });
+        try {
+            for (int i = from; i < to; i++) {
+                final int index = i;
+                pipeline.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException, PGPException {
+                        return decryptSegment(index);
+                    }
+                });
+            }
+            pipeline.finish();
+        } finally {
+            pipeline.cancel();
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read == -1) {
+                throw new EOFException("Unexpected end of archive.");
+            }
+            position += read;
+        }
+        ((Buffer) buffer).flip();
+    }
+
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                throw new EOFException("Segment is shorter than stated in the archive manifest.");
+            }
+            total += read;
+        }
+    }
+}
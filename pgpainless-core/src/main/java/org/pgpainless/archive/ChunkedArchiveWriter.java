@@ -0,0 +1,300 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.bcpg.ContainedPacket;
+import org.bouncycastle.bcpg.HashAlgorithmTags;
+import org.bouncycastle.bcpg.S2K;
+import org.bouncycastle.bcpg.SymmetricKeyEncSessionPacket;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.encryption_signing.EncryptionBuilder;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+
+/**
+ * Encrypt a large input into a chunked archive.
+ *
+ * OpenPGP encryption of a single message is inherently sequential, so encrypting a huge file as one message
+ * is limited to a single core.
+ * A chunked archive instead splits the input into fixed-size segments, which are encrypted as independent
+ * OpenPGP messages concurrently.
+ * Each segment is encrypted with its own random session key, which is stored in a manifest together with the digest
+ * of the encrypted segment. Only the manifest is encrypted for the recipients and signed using the
+ * {@link SigningOptions} of the archive, so the public key operations are done once per archive, while the signature
+ * over the manifest protects the integrity and order of all segments.
+ *
+ * Archives can be read using {@link ChunkedArchiveReader}, which decrypts segments in parallel or individually.
+ */
+public class ChunkedArchiveWriter {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 24;
+    public static final int MAX_SEGMENT_SIZE = 1 << 30;
+    // partial length chunk size used for segment messages
+    private static final int SEGMENT_BUFFER_SIZE = 1 << 16;
+
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Executor executor = null;
+    private CompressionAlgorithm compressionAlgorithm = CompressionAlgorithm.UNCOMPRESSED;
+
+    /**
+     * Set the size of the plaintext segments.
+     * Each segment is held in memory while it is encrypted, so up to parallelism * segmentSize bytes of memory
+     * are used for plaintext buffers.
+     * Defaults to {@link #DEFAULT_SEGMENT_SIZE}.
+     *
+     * @param segmentSize segment size in bytes
+     * @return this
+     */
+    public ChunkedArchiveWriter withSegmentSize(int segmentSize) {
+        if (segmentSize < 1 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size MUST be between 1 and " + MAX_SEGMENT_SIZE);
+        }
+        this.segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of segments that are encrypted concurrently.
+     * Defaults to the number of available processors.
+     *
+     * @param parallelism maximum number of segments in flight
+     * @return this
+     */
+    public ChunkedArchiveWriter withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism MUST be positive.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Set the {@link Executor} which is used to encrypt segments.
+     * If no executor is set, a thread pool of size {@link #withParallelism(int) parallelism} is created for
+     * each archive.
+     *
+     * @param executor executor or null
+     * @return this
+     */
+    public ChunkedArchiveWriter withExecutor(@Nullable Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set the compression algorithm for segments.
+     * Defaults to {@link CompressionAlgorithm#UNCOMPRESSED}, since compression usually dominates the cost
+     * of encryption.
+     *
+     * @param compressionAlgorithm compression algorithm
+     * @return this
+     */
+    public ChunkedArchiveWriter withCompression(@Nonnull CompressionAlgorithm compressionAlgorithm) {
+        this.compressionAlgorithm = compressionAlgorithm;
+        return this;
+    }
+
+    /**
+     * Read the plaintext until the end of the stream and write it to the given output stream as a chunked archive.
+     * The options are used to encrypt and sign the manifest of the archive. They MUST contain encryption and signing
+     * options and, like for an {@link EncryptionStream}, can only be used for a single archive.
+     * Neither stream is closed by this method.
+     *
+     * @param plaintext plaintext
+     * @param archive output stream for the archive
+     * @param options options for the manifest
+     * @return result of the manifest encryption
+     * @throws IOException in case of an IO error
+     * @throws PGPException in case of an OpenPGP error
+     */
+    public EncryptionResult write(@Nonnull InputStream plaintext,
+                                  @Nonnull OutputStream archive,
+                                  @Nonnull ProducerOptions options)
+            throws IOException, PGPException {
+        EncryptionOptions encryptionOptions = options.getEncryptionOptions();
+        if (encryptionOptions == null || !encryptionOptions.hasEncryptionMethods()) {
+            throw new IllegalArgumentException("Archive MUST be encrypted.");
+        }
+        SigningOptions signingOptions = options.getSigningOptions();
+        if (signingOptions == null || signingOptions.getSigningMethods().isEmpty()) {
+            throw new IllegalArgumentException("Archive MUST be signed.");
+        }
+
+        final SymmetricKeyAlgorithm algorithm = EncryptionBuilder.negotiateSymmetricEncryptionAlgorithm(encryptionOptions);
+
+        ExecutorService ownExecutor = null;
+        Executor executor = this.executor;
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(parallelism);
+            executor = ownExecutor;
+        }
+
+        SegmentSink sink = new SegmentSink(archive);
+        SegmentPipeline<EncryptedSegment> pipeline = new SegmentPipeline<>(executor, parallelism, sink);
+        try {
+            archive.write(ChunkedArchiveManifest.MAGIC);
+            sink.offset = ChunkedArchiveManifest.MAGIC.length;
+
+            int length;
+            do {
+                final byte[] buffer = new byte[segmentSize];
+                length = readFully(plaintext, buffer);
+                if (length == 0) {
+                    break;
+                }
+                final int segmentLength = length;
+                pipeline.submit(new Callable<EncryptedSegment>() {
+                    @Override
+                    public EncryptedSegment call() throws IOException, PGPException {
+                        return encryptSegment(buffer, segmentLength, algorithm);
+                    }
+                });
+            } while (length == segmentSize);
+            pipeline.finish();
+        } finally {
+            pipeline.cancel();
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+
+        ChunkedArchiveManifest manifest = new ChunkedArchiveManifest(segmentSize, algorithm, sink.segments);
+        ByteArrayOutputStream encryptedManifest = new ByteArrayOutputStream();
+        EncryptionStream manifestStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(encryptedManifest)
+                .withOptions(options);
+        manifestStream.write(manifest.encode());
+        manifestStream.close();
+
+        long manifestOffset = sink.offset;
+        archive.write(encryptedManifest.toByteArray());
+        DataOutputStream trailer = new DataOutputStream(archive);
+        trailer.writeLong(manifestOffset);
+        trailer.writeLong(encryptedManifest.size());
+        trailer.write(ChunkedArchiveManifest.MAGIC);
+        trailer.flush();
+        return manifestStream.getResult();
+    }
+
+    private EncryptedSegment encryptSegment(byte[] plaintext, int length, SymmetricKeyAlgorithm algorithm)
+            throws IOException, PGPException {
+        SessionKeyCapture sessionKey = new SessionKeyCapture();
+        EncryptionOptions segmentOptions = new EncryptionOptions()
+                .addEncryptionMethod(sessionKey)
+                .overrideEncryptionAlgorithm(algorithm);
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream(length + 1024);
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(ciphertext)
+                .withOptions(ProducerOptions.encrypt(segmentOptions)
+                        .overrideCompressionAlgorithm(compressionAlgorithm)
+                        .setAsciiArmor(false)
+                        .setBufferSize(SEGMENT_BUFFER_SIZE));
+        encryptionStream.write(plaintext, 0, length);
+        encryptionStream.close();
+
+        byte[] bytes = ciphertext.toByteArray();
+        return new EncryptedSegment(bytes, length, ChunkedArchiveManifest.digest(bytes, 0, bytes.length),
+                sessionKey.getKey());
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static final class EncryptedSegment {
+
+        private final byte[] ciphertext;
+        private final int plaintextLength;
+        private final byte[] digest;
+        private final byte[] sessionKey;
+
+        private EncryptedSegment(byte[] ciphertext, int plaintextLength, byte[] digest, byte[] sessionKey) {
+            this.ciphertext = ciphertext;
+            this.plaintextLength = plaintextLength;
+            this.digest = digest;
+            this.sessionKey = sessionKey;
+        }
+    }
+
+    /**
+     * Encryption method which records the random session key of a segment, so that it can be stored in the manifest.
+     *
+     * Segments are decrypted using the session key from the manifest, so no key derivation or public key operation
+     * is necessary per segment. Since OpenPGP messages need at least one encrypted session key packet,
+     * a symmetric-key encrypted session key packet without key material is emitted. It does not reveal anything
+     * about the session key, and cannot be used to decrypt the segment.
+     */
+    private static final class SessionKeyCapture extends PGPKeyEncryptionMethodGenerator {
+
+        private byte[] key;
+
+        @Override
+        public ContainedPacket generate(int encAlgorithm, byte[] sessionInfo) {
+            // algorithm id, key, two octet checksum (see RFC4880 §5.1)
+            key = Arrays.copyOfRange(sessionInfo, 1, sessionInfo.length - 2);
+            return new SymmetricKeyEncSessionPacket(encAlgorithm, new S2K(HashAlgorithmTags.SHA256), null);
+        }
+
+        private byte[] getKey() {
+            if (key == null) {
+                throw new IllegalStateException("Segment was not encrypted.");
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Writes encrypted segments to the archive in order and records their manifest entries.
+     */
+    private static final class SegmentSink implements SegmentPipeline.Sink<EncryptedSegment> {
+
+        private final OutputStream archive;
+        private final List<ChunkedArchiveManifest.Segment> segments = new ArrayList<>();
+        private long offset;
+
+        private SegmentSink(OutputStream archive) {
+            this.archive = archive;
+        }
+
+        @Override
+        public void accept(EncryptedSegment segment) throws IOException {
+            archive.write(segment.ciphertext);
+            segments.add(new ChunkedArchiveManifest.Segment(offset, segment.ciphertext.length,
+                    segment.plaintextLength, segment.digest, segment.sessionKey));
+            offset += segment.ciphertext.length;
+        }
+    }
+}
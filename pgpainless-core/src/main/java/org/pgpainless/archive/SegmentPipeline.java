@@ -0,0 +1,106 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.archive;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.bouncycastle.openpgp.PGPException;
+
+/**
+ * Runs segment tasks concurrently on an {@link Executor}, while passing their results to a {@link Sink}
+ * in the order in which the tasks were submitted.
+ * At most {@code parallelism} tasks are in flight at any time, which bounds the memory used for segment buffers.
+ *
+ * @param <T> result type
+ */
+final class SegmentPipeline<T> {
+
+    interface Sink<T> {
+        void accept(T result) throws IOException, PGPException;
+    }
+
+    private final Executor executor;
+    private final int parallelism;
+    private final Sink<T> sink;
+    private final Deque<FutureTask<T>> pending = new ArrayDeque<>();
+
+    SegmentPipeline(Executor executor, int parallelism, Sink<T> sink) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.sink = sink;
+    }
+
+    /**
+     * Submit a task. If the maximum number of tasks is in flight, this blocks until the oldest task completed
+     * and its result was passed to the sink.
+     *
+     * @param callable task
+     * @throws IOException if a task or the sink failed with an IO error
+     * @throws PGPException if a task or the sink failed with an OpenPGP error
+     */
+    void submit(Callable<T> callable) throws IOException, PGPException {
+        FutureTask<T> task = new FutureTask<>(callable);
+        pending.add(task);
+        executor.execute(task);
+        if (pending.size() >= parallelism) {
+            completeOldest();
+        }
+    }
+
+    /**
+     * Wait for all submitted tasks and pass their results to the sink.
+     *
+     * @throws IOException if a task or the sink failed with an IO error
+     * @throws PGPException if a task or the sink failed with an OpenPGP error
+     */
+    void finish() throws IOException, PGPException {
+        while (!pending.isEmpty()) {
+            completeOldest();
+        }
+    }
+
+    /**
+     * Cancel all tasks which did not yet start.
+     */
+    void cancel() {
+        for (FutureTask<T> task : pending) {
+            task.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private void completeOldest() throws IOException, PGPException {
+        FutureTask<T> task = pending.poll();
+        // Tasks which were not yet picked up by the executor are run on this thread.
+        task.run();
+        T result;
+        try {
+            result = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for segment.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof PGPException) {
+                throw (PGPException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Cannot process segment.", cause);
+        }
+        sink.accept(result);
+    }
+}
@@ -0,0 +1,8 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+/**
+ * Chunked archives, which split large inputs into independently encrypted segments.
+ */
+package org.pgpainless.archive;
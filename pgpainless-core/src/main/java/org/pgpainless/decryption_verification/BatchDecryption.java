@@ -0,0 +1,229 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.util.io.Streams;
+import org.pgpainless.key.SubkeyIdentifier;
+
+/**
+ * Decrypt and/or verify a large number of messages using the same {@link ConsumerOptions}.
+ *
+ * Compared to calling {@link org.pgpainless.PGPainless#decryptAndOrVerify()} once per message,
+ * each secret key is only unlocked once (which involves the S2K key derivation and a key integrity check)
+ * and the unlocked private key is then shared by all messages of the batch.
+ * Messages are processed concurrently, but at most {@link #withParallelism(int) parallelism} messages
+ * are in flight at any time, so that the messages can be supplied lazily.
+ *
+ * Every message is processed using its own copy of the {@link ConsumerOptions}.
+ * Options with detached signatures are rejected, since a set of detached signatures can only
+ * be verified over a single message.
+ */
+public class BatchDecryption {
+
+    /**
+     * Callback for a batch of messages of type M.
+     * All methods might be called concurrently from different threads.
+     *
+     * @param <M> message type, e.g. a file or message-id
+     */
+    public interface MessageHandler<M> {
+
+        /**
+         * Open the encrypted and/or signed data of the given message.
+         *
+         * @param message message
+         * @return input stream containing the encrypted and/or signed data
+         * @throws IOException in case of an IO error
+         */
+        InputStream open(M message) throws IOException;
+
+        /**
+         * Consume the plaintext of the given message, e.g. by copying it to some destination.
+         * Implementations MUST NOT close the plaintext stream, as this is done by the {@link BatchDecryption}.
+         * Unconsumed plaintext is drained afterwards.
+         *
+         * @param message message
+         * @param plaintext plaintext
+         * @throws IOException in case of an IO error
+         */
+        void consume(M message, InputStream plaintext) throws IOException;
+
+        /**
+         * Called after a message was processed successfully.
+         * Note: This does not mean that the message carried valid signatures, check the metadata for that.
+         *
+         * @param message message
+         * @param metadata metadata of the message
+         */
+        void onSuccess(M message, OpenPgpMetadata metadata);
+
+        /**
+         * Called if processing of a message failed.
+         *
+         * @param message message
+         * @param exception exception
+         */
+        void onFailure(M message, Exception exception);
+    }
+
+    private ConsumerOptions options;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Executor executor = null;
+
+    /**
+     * Set the options which are used to process each message.
+     *
+     * @param consumerOptions options
+     * @return this
+     */
+    public BatchDecryption withOptions(@Nonnull ConsumerOptions consumerOptions) {
+        if (!consumerOptions.getDetachedSignatures().isEmpty()) {
+            throw new IllegalArgumentException("Batch decryption does not support detached signatures.");
+        }
+        this.options = consumerOptions;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of messages that are processed concurrently.
+     * Defaults to the number of available processors.
+     *
+     * @param parallelism maximum number of messages in flight
+     * @return this
+     */
+    public BatchDecryption withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism MUST be positive.");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Set the {@link Executor} which is used to process messages.
+     * If no executor is set, a thread pool of size {@link #withParallelism(int) parallelism} is created for
+     * each call to {@link #process(Iterable, MessageHandler)}.
+     *
+     * @param executor executor or null
+     * @return this
+     */
+    public BatchDecryption withExecutor(@Nullable Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Process all given messages and block until all of them were processed.
+     * Messages are taken from the given {@link Iterable} lazily.
+     * The results are reported to the given {@link MessageHandler}.
+     *
+     * @param messages messages
+     * @param handler handler
+     * @param <M> message type
+     * @return number of messages which were processed successfully
+     * @throws InterruptedException if the calling thread is interrupted while waiting for messages to complete
+     */
+    public <M> int process(@Nonnull Iterable<M> messages, @Nonnull MessageHandler<M> handler)
+            throws InterruptedException {
+        if (options == null) {
+            throw new IllegalStateException("Consumer options MUST be set.");
+        }
+
+        ExecutorService ownExecutor = null;
+        Executor executor = this.executor;
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(parallelism);
+            executor = ownExecutor;
+        }
+
+        Map<SubkeyIdentifier, PGPPrivateKey> unlockedKeys = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(parallelism);
+        AtomicInteger successes = new AtomicInteger();
+        try {
+            for (M message : messages) {
+                inFlight.acquire();
+                Runnable task = new MessageTask<>(message, handler, options.copy(), unlockedKeys, successes, inFlight);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    handler.onFailure(message, e);
+                }
+            }
+            // wait for remaining messages
+            inFlight.acquire(parallelism);
+            inFlight.release(parallelism);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+        return successes.get();
+    }
+
+    private static final class MessageTask<M> implements Runnable {
+
+        private final M message;
+        private final MessageHandler<M> handler;
+        private final ConsumerOptions options;
+        private final Map<SubkeyIdentifier, PGPPrivateKey> unlockedKeys;
+        private final AtomicInteger successes;
+        private final Semaphore inFlight;
+
+        private MessageTask(M message,
+                            MessageHandler<M> handler,
+                            ConsumerOptions options,
+                            Map<SubkeyIdentifier, PGPPrivateKey> unlockedKeys,
+                            AtomicInteger successes,
+                            Semaphore inFlight) {
+            this.message = message;
+            this.handler = handler;
+            this.options = options;
+            this.unlockedKeys = unlockedKeys;
+            this.successes = successes;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void run() {
+            try {
+                OpenPgpMetadata metadata = processMessage();
+                successes.incrementAndGet();
+                handler.onSuccess(message, metadata);
+            } catch (Exception e) {
+                handler.onFailure(message, e);
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        private OpenPgpMetadata processMessage() throws Exception {
+            InputStream ciphertext = handler.open(message);
+            try {
+                DecryptionStream decryptionStream = DecryptionStreamFactory.create(ciphertext, options, unlockedKeys);
+                handler.consume(message, decryptionStream);
+                Streams.drain(decryptionStream);
+                decryptionStream.close();
+                return decryptionStream.getResult();
+            } finally {
+                ciphertext.close();
+            }
+        }
+    }
+}
@@ -10,20 +10,25 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPSecretKey;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.bouncycastle.openpgp.PGPSecretKeyRingCollection;
 import org.bouncycastle.openpgp.PGPSignature;
 import org.pgpainless.decryption_verification.cleartext_signatures.InMemoryMultiPassStrategy;
 import org.pgpainless.decryption_verification.cleartext_signatures.MultiPassStrategy;
+import org.pgpainless.key.OpenPgpFingerprint;
 import org.pgpainless.key.protection.SecretKeyRingProtector;
 import org.pgpainless.signature.SignatureUtils;
 import org.pgpainless.util.Passphrase;
@@ -42,6 +47,9 @@ public class ConsumerOptions {
 
     // Set of verification keys
     private final Set<PGPPublicKeyRing> certificates = new HashSet<>();
+    // Index of verification certificates by the key-ids and fingerprints of their (sub-)keys
+    private final Map<Long, PGPPublicKeyRing> certificatesByKeyId = new HashMap<>();
+    private final Map<OpenPgpFingerprint, PGPPublicKeyRing> certificatesByFingerprint = new HashMap<>();
     private final Set<PGPSignature> detachedSignatures = new HashSet<>();
     private MissingPublicKeyCallback missingCertificateCallback = null;
 
@@ -49,10 +57,19 @@ public class ConsumerOptions {
     private SessionKey sessionKey = null;
 
     private final Map<PGPSecretKeyRing, SecretKeyRingProtector> decryptionKeys = new HashMap<>();
+    // Index of decryption keys by the key-ids of their secret (sub-)keys
+    private final Map<Long, PGPSecretKeyRing> decryptionKeysByKeyId = new HashMap<>();
     private final Set<Passphrase> decryptionPassphrases = new HashSet<>();
     private MissingKeyPassphraseStrategy missingKeyPassphraseStrategy = MissingKeyPassphraseStrategy.INTERACTIVE;
 
     private MultiPassStrategy multiPassStrategy = new InMemoryMultiPassStrategy();
+    // cleartext-signed messages are verified in a single pass if possible, unless a multi-pass strategy was set
+    private boolean multiPassStrategySet = false;
+
+    private Executor certificateValidationExecutor = null;
+    private Executor sessionKeyDecryptionExecutor = null;
+
+    private int bufferSize = 0;
 
     /**
      * Consider signatures on the message made before the given timestamp invalid.
@@ -105,10 +122,27 @@ public class ConsumerOptions {
      * @return options
      */
     public ConsumerOptions addVerificationCert(PGPPublicKeyRing verificationCert) {
-        this.certificates.add(verificationCert);
+        if (this.certificates.add(verificationCert)) {
+            indexCertificate(verificationCert);
+        }
         return this;
     }
 
+    private void indexCertificate(PGPPublicKeyRing certificate) {
+        Iterator<PGPPublicKey> keys = certificate.getPublicKeys();
+        while (keys.hasNext()) {
+            PGPPublicKey key = keys.next();
+            // On key-id collisions, the first certificate wins
+            if (!certificatesByKeyId.containsKey(key.getKeyID())) {
+                certificatesByKeyId.put(key.getKeyID(), certificate);
+            }
+            OpenPgpFingerprint fingerprint = OpenPgpFingerprint.of(key);
+            if (!certificatesByFingerprint.containsKey(fingerprint)) {
+                certificatesByFingerprint.put(fingerprint, certificate);
+            }
+        }
+    }
+
     /**
      * Add a set of certificates (public key rings) for signature verification.
      *
@@ -201,10 +235,23 @@ public class ConsumerOptions {
      * @return options
      */
     public ConsumerOptions addDecryptionKey(@Nonnull PGPSecretKeyRing key, @Nonnull SecretKeyRingProtector keyRingProtector) {
-        decryptionKeys.put(key, keyRingProtector);
+        if (decryptionKeys.put(key, keyRingProtector) == null) {
+            indexDecryptionKey(key);
+        }
         return this;
     }
 
+    private void indexDecryptionKey(PGPSecretKeyRing key) {
+        Iterator<PGPSecretKey> secretKeys = key.getSecretKeys();
+        while (secretKeys.hasNext()) {
+            long keyId = secretKeys.next().getKeyID();
+            // On key-id collisions, the first key wins
+            if (!decryptionKeysByKeyId.containsKey(keyId)) {
+                decryptionKeysByKeyId.put(keyId, key);
+            }
+        }
+    }
+
     /**
      * Add the keys in the provided key collection for message decryption.
      *
@@ -245,6 +292,37 @@ public class ConsumerOptions {
         return Collections.unmodifiableSet(certificates);
     }
 
+    /**
+     * Return the verification certificate containing a (sub-)key with the given key-id.
+     * Unlike {@link #getCertificates()}, this is a constant time lookup.
+     *
+     * @param keyId key-id
+     * @return certificate or null
+     */
+    @Nullable PGPPublicKeyRing getCertificate(long keyId) {
+        return certificatesByKeyId.get(keyId);
+    }
+
+    /**
+     * Return the verification certificate containing a (sub-)key with the given fingerprint.
+     *
+     * @param fingerprint fingerprint
+     * @return certificate or null
+     */
+    @Nullable PGPPublicKeyRing getCertificate(@Nonnull OpenPgpFingerprint fingerprint) {
+        return certificatesByFingerprint.get(fingerprint);
+    }
+
+    /**
+     * Return the decryption key containing a secret (sub-)key with the given key-id.
+     *
+     * @param keyId key-id
+     * @return secret key ring or null
+     */
+    @Nullable PGPSecretKeyRing getDecryptionKey(long keyId) {
+        return decryptionKeysByKeyId.get(keyId);
+    }
+
     public @Nullable MissingPublicKeyCallback getMissingCertificateCallback() {
         return missingCertificateCallback;
     }
@@ -326,13 +404,18 @@ public class ConsumerOptions {
 
     /**
      * Set a custom multi-pass strategy for processing cleartext-signed messages.
-     * Uses {@link InMemoryMultiPassStrategy} by default.
+     * By default, cleartext-signed messages are verified in a single pass while the text is read, if the
+     * hash algorithms are announced in the armor headers and the verification certificates are known up front.
+     * Otherwise, {@link InMemoryMultiPassStrategy} is used.
+     * Setting a strategy explicitly disables single-pass verification, so that the text is always written to the
+     * {@link MultiPassStrategy#getMessageOutputStream()}.
      *
      * @param multiPassStrategy multi-pass caching strategy
      * @return builder
      */
     public ConsumerOptions setMultiPassStrategy(@Nonnull MultiPassStrategy multiPassStrategy) {
         this.multiPassStrategy = multiPassStrategy;
+        this.multiPassStrategySet = true;
         return this;
     }
 
@@ -345,4 +428,122 @@ public class ConsumerOptions {
     public MultiPassStrategy getMultiPassStrategy() {
         return multiPassStrategy;
     }
+
+    /**
+     * Return true if a {@link MultiPassStrategy} was set explicitly using
+     * {@link #setMultiPassStrategy(MultiPassStrategy)}.
+     *
+     * @return true if a multi-pass strategy was set
+     */
+    boolean hasMultiPassStrategy() {
+        return multiPassStrategySet;
+    }
+
+    /**
+     * Set the size of the buffer used when reading the encrypted and/or signed data.
+     * Larger buffers result in fewer, but larger reads from the underlying stream, which can speed up
+     * the processing of large messages.
+     * Defaults to 4096 bytes.
+     *
+     * @param bufferSize buffer size
+     * @return options
+     */
+    public ConsumerOptions setBufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size MUST be positive.");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Return the size of the buffer used when reading the encrypted and/or signed data.
+     *
+     * @return buffer size
+     */
+    @SuppressWarnings("deprecation")
+    public int getBufferSize() {
+        // Fall back to the (deprecated) global default
+        return bufferSize > 0 ? bufferSize : DecryptionStreamFactory.BUFFER_SIZE;
+    }
+
+    /**
+     * Return a copy of these options.
+     * The copy shares keys, certificates, passphrases and callbacks with this object, but can be modified
+     * (e.g. by adding detached signatures during processing of a cleartext-signed message) independently.
+     * If this object uses an {@link InMemoryMultiPassStrategy}, the copy gets its own instance.
+     *
+     * @return copy
+     */
+    ConsumerOptions copy() {
+        ConsumerOptions copy = new ConsumerOptions();
+        copy.ignoreMDCErrors = ignoreMDCErrors;
+        copy.verifyNotBefore = verifyNotBefore;
+        copy.verifyNotAfter = verifyNotAfter;
+        copy.certificates.addAll(certificates);
+        copy.certificatesByKeyId.putAll(certificatesByKeyId);
+        copy.certificatesByFingerprint.putAll(certificatesByFingerprint);
+        copy.detachedSignatures.addAll(detachedSignatures);
+        copy.missingCertificateCallback = missingCertificateCallback;
+        copy.sessionKey = sessionKey;
+        copy.decryptionKeys.putAll(decryptionKeys);
+        copy.decryptionKeysByKeyId.putAll(decryptionKeysByKeyId);
+        copy.decryptionPassphrases.addAll(decryptionPassphrases);
+        copy.missingKeyPassphraseStrategy = missingKeyPassphraseStrategy;
+        copy.multiPassStrategy = multiPassStrategy instanceof InMemoryMultiPassStrategy ?
+                new InMemoryMultiPassStrategy() : multiPassStrategy;
+        copy.multiPassStrategySet = multiPassStrategySet;
+        copy.certificateValidationExecutor = certificateValidationExecutor;
+        copy.sessionKeyDecryptionExecutor = sessionKeyDecryptionExecutor;
+        copy.bufferSize = bufferSize;
+        return copy;
+    }
+
+    /**
+     * Set an {@link Executor} which is used to verify the self-signatures of signing certificates in parallel
+     * when validating message signatures.
+     * This pays off for large certificates with many user-ids and subkeys.
+     * By default (null), certificates are validated sequentially on the thread consuming the message.
+     *
+     * @param executor executor or null
+     * @return options
+     */
+    public ConsumerOptions setCertificateValidationExecutor(@Nullable Executor executor) {
+        this.certificateValidationExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Return the {@link Executor} used to validate signing certificates, or null if certificates are
+     * validated sequentially.
+     *
+     * @return executor or null
+     */
+    public @Nullable Executor getCertificateValidationExecutor() {
+        return certificateValidationExecutor;
+    }
+
+    /**
+     * Set an {@link Executor} which is used to try decryption keys in parallel for messages with hidden recipients.
+     * Hidden recipients (wildcard key-id 0) do not tell which key the session key was encrypted for, so decryption
+     * needs to be attempted with every encryption capable subkey of every decryption key.
+     * By default (null), these attempts are performed sequentially on the thread consuming the message.
+     *
+     * @param executor executor or null
+     * @return options
+     */
+    public ConsumerOptions setSessionKeyDecryptionExecutor(@Nullable Executor executor) {
+        this.sessionKeyDecryptionExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Return the {@link Executor} used to try decryption keys for hidden recipients, or null if decryption keys are
+     * tried sequentially.
+     *
+     * @return executor or null
+     */
+    public @Nullable Executor getSessionKeyDecryptionExecutor() {
+        return sessionKeyDecryptionExecutor;
+    }
 }
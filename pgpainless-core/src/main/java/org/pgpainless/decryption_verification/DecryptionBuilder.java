@@ -6,9 +6,13 @@ package org.pgpainless.decryption_verification;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import javax.annotation.Nonnull;
 
 import org.bouncycastle.openpgp.PGPException;
+import org.pgpainless.util.MappedFileInputStream;
 
 public class DecryptionBuilder implements DecryptionBuilderInterface {
 
@@ -34,4 +38,40 @@ public class DecryptionBuilder implements DecryptionBuilderInterface {
             return DecryptionStreamFactory.create(inputStream, consumerOptions);
         }
     }
+
+    static class DecryptWithChannelImpl implements DecryptWithChannel {
+
+        // Size of the chunks in which plain data is read from the decryption stream
+        private static final int CHUNK_SIZE = 1 << 16;
+
+        private final FileChannel ciphertext;
+        private final WritableByteChannel plaintext;
+
+        DecryptWithChannelImpl(FileChannel ciphertext, WritableByteChannel plaintext) {
+            this.ciphertext = ciphertext;
+            this.plaintext = plaintext;
+        }
+
+        @Override
+        public OpenPgpMetadata withOptions(ConsumerOptions consumerOptions) throws PGPException, IOException {
+            if (consumerOptions == null) {
+                throw new IllegalArgumentException("Consumer options cannot be null.");
+            }
+
+            MappedFileInputStream ciphertextIn = new MappedFileInputStream(ciphertext);
+            DecryptionStream decryptionStream = DecryptionStreamFactory.create(ciphertextIn, consumerOptions);
+
+            byte[] chunk = new byte[Math.max(CHUNK_SIZE, consumerOptions.getBufferSize())];
+            int read;
+            while ((read = decryptionStream.read(chunk, 0, chunk.length)) != -1) {
+                ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                while (buffer.hasRemaining()) {
+                    plaintext.write(buffer);
+                }
+            }
+            decryptionStream.close();
+            ciphertext.position(ciphertext.size());
+            return decryptionStream.getResult();
+        }
+    }
 }
@@ -6,6 +6,8 @@ package org.pgpainless.decryption_verification;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import javax.annotation.Nonnull;
 
 import org.bouncycastle.openpgp.PGPException;
@@ -20,6 +22,26 @@ public interface DecryptionBuilderInterface {
      */
     DecryptWith onInputStream(@Nonnull InputStream inputStream);
 
+    /**
+     * Decrypt and/or verify the contents of a {@link FileChannel} from its current position to the end of the file,
+     * and write the plain data to a {@link WritableByteChannel}.
+     * The encrypted and/or signed data is read by mapping the file into memory, and the plain data is written
+     * in large chunks.
+     *
+     * Afterwards, the position of the ciphertext channel is at the end of the file.
+     * Neither channel is closed.
+     * Note, that the plain data is written to the channel before the integrity of the message and its signatures
+     * are verified. Consumers must not use the plain data if the operation throws an exception.
+     *
+     * @param ciphertext file channel containing the encrypted and/or signed data
+     * @param plaintext channel to which the plain data is written
+     * @return api handle
+     */
+    default DecryptWithChannel onFileChannel(@Nonnull FileChannel ciphertext,
+                                             @Nonnull WritableByteChannel plaintext) {
+        return new DecryptionBuilder.DecryptWithChannelImpl(ciphertext, plaintext);
+    }
+
     interface DecryptWith {
 
         /**
@@ -33,4 +55,18 @@ public interface DecryptionBuilderInterface {
         DecryptionStream withOptions(ConsumerOptions consumerOptions) throws PGPException, IOException;
 
     }
+
+    interface DecryptWithChannel {
+
+        /**
+         * Decrypt and/or verify the contents of the file channel with the given options.
+         *
+         * @param consumerOptions consumer options
+         * @return metadata of the message
+         * @throws PGPException in case of an OpenPGP related error
+         * @throws IOException in case of an IO error
+         */
+        OpenPgpMetadata withOptions(ConsumerOptions consumerOptions) throws PGPException, IOException;
+
+    }
 }
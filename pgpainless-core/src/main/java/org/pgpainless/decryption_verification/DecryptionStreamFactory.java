@@ -6,11 +6,13 @@ package org.pgpainless.decryption_verification;
 
 import java.io.BufferedInputStream;
 import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -19,11 +21,13 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.bouncycastle.bcpg.ArmoredInputStream;
+import org.bouncycastle.bcpg.PacketTags;
 import org.bouncycastle.openpgp.PGPCompressedData;
 import org.bouncycastle.openpgp.PGPEncryptedData;
 import org.bouncycastle.openpgp.PGPEncryptedDataList;
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPLiteralData;
+import org.bouncycastle.openpgp.PGPMarker;
 import org.bouncycastle.openpgp.PGPObjectFactory;
 import org.bouncycastle.openpgp.PGPOnePassSignature;
 import org.bouncycastle.openpgp.PGPOnePassSignatureList;
@@ -32,22 +36,23 @@ import org.bouncycastle.openpgp.PGPPrivateKey;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyEncryptedData;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
-import org.bouncycastle.openpgp.PGPSecretKey;
-import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.bouncycastle.openpgp.PGPSessionKey;
 import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPSignatureList;
 import org.bouncycastle.openpgp.PGPUtil;
 import org.bouncycastle.openpgp.operator.PBEDataDecryptorFactory;
+import org.bouncycastle.openpgp.operator.PGPContentVerifier;
+import org.bouncycastle.openpgp.operator.PGPContentVerifierBuilder;
 import org.bouncycastle.openpgp.operator.PGPContentVerifierBuilderProvider;
-import org.bouncycastle.openpgp.operator.PublicKeyDataDecryptorFactory;
 import org.bouncycastle.openpgp.operator.SessionKeyDataDecryptorFactory;
 import org.pgpainless.PGPainless;
 import org.pgpainless.algorithm.CompressionAlgorithm;
-import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.algorithm.HashAlgorithm;
+import org.pgpainless.algorithm.PublicKeyAlgorithm;
 import org.pgpainless.algorithm.StreamEncoding;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
 import org.pgpainless.decryption_verification.cleartext_signatures.ClearsignedMessageUtil;
+import org.pgpainless.decryption_verification.cleartext_signatures.ClearsignedTextInputStream;
 import org.pgpainless.decryption_verification.cleartext_signatures.MultiPassStrategy;
 import org.pgpainless.exception.FinalIOException;
 import org.pgpainless.exception.MessageNotIntegrityProtectedException;
@@ -56,20 +61,21 @@ import org.pgpainless.exception.MissingLiteralDataException;
 import org.pgpainless.exception.MissingPassphraseException;
 import org.pgpainless.exception.SignatureValidationException;
 import org.pgpainless.exception.UnacceptableAlgorithmException;
+import org.pgpainless.exception.WrongConsumingMethodException;
 import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.instrumentation.OperationListener;
+import org.pgpainless.key.OpenPgpFingerprint;
 import org.pgpainless.key.SubkeyIdentifier;
-import org.pgpainless.key.info.KeyRingInfo;
-import org.pgpainless.key.protection.SecretKeyRingProtector;
-import org.pgpainless.key.protection.UnlockSecretKey;
 import org.pgpainless.signature.SignatureUtils;
 import org.pgpainless.signature.consumer.DetachedSignatureCheck;
 import org.pgpainless.signature.consumer.OnePassSignatureCheck;
+import org.pgpainless.signature.subpackets.SignatureSubpacketsUtil;
+import org.pgpainless.util.ArmorUtils;
 import org.pgpainless.util.ArmoredInputStreamFactory;
 import org.pgpainless.util.CRCingArmoredInputStreamWrapper;
 import org.pgpainless.util.PGPUtilWrapper;
 import org.pgpainless.util.Passphrase;
 import org.pgpainless.util.SessionKey;
-import org.pgpainless.util.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,11 +85,20 @@ public final class DecryptionStreamFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(DecryptionStreamFactory.class);
     // Maximum nesting depth of packets (e.g. compression, encryption...)
     private static final int MAX_PACKET_NESTING_DEPTH = 16;
+    // upper bound for the number of key and hash algorithm combinations of single-pass cleartext verification
+    private static final int MAX_SINGLE_PASS_COMBINATIONS = 32;
 
-    // Buffer Size for BufferedInputStreams
+    /**
+     * Default buffer size for BufferedInputStreams.
+     *
+     * @deprecated use {@link ConsumerOptions#setBufferSize(int)} instead.
+     */
+    @Deprecated
     public static int BUFFER_SIZE = 4096;
 
     private final ConsumerOptions options;
+    // Unlocked private keys shared between multiple decryption operations, or null
+    private final Map<SubkeyIdentifier, PGPPrivateKey> unlockedKeys;
     private final OpenPgpMetadata.Builder resultBuilder = OpenPgpMetadata.getBuilder();
     private final List<OnePassSignatureCheck> onePassSignatureChecks = new ArrayList<>();
     private final List<DetachedSignatureCheck> detachedSignatureChecks = new ArrayList<>();
@@ -97,20 +112,42 @@ public final class DecryptionStreamFactory {
     public static DecryptionStream create(@Nonnull InputStream inputStream,
                                           @Nonnull ConsumerOptions options)
             throws PGPException, IOException {
-        DecryptionStreamFactory factory = new DecryptionStreamFactory(options);
-        BufferedInputStream bufferedIn = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        return create(inputStream, options, null);
+    }
+
+    /**
+     * Create a {@link DecryptionStream} which shares unlocked private keys with other decryption operations.
+     * Private keys that are already present in the given map are not unlocked again, and private keys
+     * which get unlocked while processing the message are added to the map.
+     *
+     * @param inputStream encrypted and/or signed data
+     * @param options consumer options
+     * @param unlockedKeys thread-safe map of unlocked private keys or null
+     * @return decryption stream
+     */
+    static DecryptionStream create(@Nonnull InputStream inputStream,
+                                   @Nonnull ConsumerOptions options,
+                                   @Nullable Map<SubkeyIdentifier, PGPPrivateKey> unlockedKeys)
+            throws PGPException, IOException {
+        DecryptionStreamFactory factory = new DecryptionStreamFactory(options, unlockedKeys);
+        BufferedInputStream bufferedIn = new BufferedInputStream(inputStream, options.getBufferSize());
         return factory.parseOpenPGPDataAndCreateDecryptionStream(bufferedIn);
     }
 
     public DecryptionStreamFactory(ConsumerOptions options) {
+        this(options, null);
+    }
+
+    private DecryptionStreamFactory(ConsumerOptions options, @Nullable Map<SubkeyIdentifier, PGPPrivateKey> unlockedKeys) {
         this.options = options;
+        this.unlockedKeys = unlockedKeys;
         initializeDetachedSignatures(options.getDetachedSignatures());
     }
 
     private void initializeDetachedSignatures(Set<PGPSignature> signatures) {
         for (PGPSignature signature : signatures) {
             long issuerKeyId = SignatureUtils.determineIssuerKeyId(signature);
-            PGPPublicKeyRing signingKeyRing = findSignatureVerificationKeyRing(issuerKeyId);
+            PGPPublicKeyRing signingKeyRing = findSignatureVerificationKeyRing(signature, issuerKeyId);
             if (signingKeyRing == null) {
                 SignatureValidationException ex = new SignatureValidationException(
                         "Missing verification certificate " + Long.toHexString(issuerKeyId));
@@ -195,6 +232,13 @@ public final class DecryptionStreamFactory {
 
         ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(in);
 
+        List<PreparedVerifier> preparedVerifiers = prepareSinglePassVerifiers(armorIn);
+        if (preparedVerifiers != null) {
+            InputStream verifyIn = wrapInVerifySignatureStream(
+                    new SinglePassClearsignedTextInputStream(armorIn, in, preparedVerifiers), null);
+            return new DecryptionStream(verifyIn, resultBuilder, integrityProtectedEncryptedInputStream, null);
+        }
+
         MultiPassStrategy multiPassStrategy = options.getMultiPassStrategy();
         PGPSignatureList signatures = ClearsignedMessageUtil.detachSignaturesFromInbandClearsignedMessage(armorIn, multiPassStrategy.getMessageOutputStream());
 
@@ -209,6 +253,106 @@ public final class DecryptionStreamFactory {
                 null);
     }
 
+    /**
+     * Prepare content verifiers for each combination of signing key and hash algorithm announced in the
+     * Hash armor header of a cleartext-signed message, so that the text can be hashed while it is read.
+     * One verifier hashes the canonical text for signatures of type {@link PGPSignature#CANONICAL_TEXT_DOCUMENT},
+     * the other one hashes the text as it is returned, just like on the multi-pass path, for other signature types.
+     * Returns null if the message has to be processed using the {@link MultiPassStrategy} instead, which is
+     * the case if a strategy was set explicitly, the hash algorithms are not announced, certificates might be
+     * fetched on demand or there are too many combinations of keys and hash algorithms.
+     *
+     * @param armorIn armored input stream of the cleartext-signed message
+     * @return prepared verifiers or null
+     */
+    @Nullable
+    private List<PreparedVerifier> prepareSinglePassVerifiers(ArmoredInputStream armorIn) {
+        if (options.hasMultiPassStrategy() || options.getMissingCertificateCallback() != null ||
+                !options.getDetachedSignatures().isEmpty()) {
+            return null;
+        }
+        List<HashAlgorithm> hashAlgorithms = ArmorUtils.getHashAlgorithms(armorIn);
+        if (hashAlgorithms.isEmpty() || hashAlgorithms.size() != ArmorUtils.getHashHeaderValues(armorIn).size()) {
+            // Without Hash header, MD5 would be used, so let the policy decide on the multi-pass path
+            return null;
+        }
+
+        List<PreparedVerifier> verifiers = new ArrayList<>();
+        for (PGPPublicKeyRing certificate : options.getCertificates()) {
+            Iterator<PGPPublicKey> keys = certificate.getPublicKeys();
+            while (keys.hasNext()) {
+                PGPPublicKey key = keys.next();
+                PublicKeyAlgorithm keyAlgorithm = PublicKeyAlgorithm.fromId(key.getAlgorithm());
+                if (keyAlgorithm == null || !keyAlgorithm.isSigningCapable()) {
+                    continue;
+                }
+                for (HashAlgorithm hashAlgorithm : hashAlgorithms) {
+                    if (verifiers.size() == 2 * MAX_SINGLE_PASS_COMBINATIONS) {
+                        return null;
+                    }
+                    try {
+                        PGPContentVerifierBuilder builder = verifierBuilderProvider
+                                .get(key.getAlgorithm(), hashAlgorithm.getAlgorithmId());
+                        PGPContentVerifier textVerifier = builder.build(key);
+                        PGPContentVerifier binaryVerifier = builder.build(key);
+                        verifiers.add(new PreparedVerifier(key, hashAlgorithm, true, textVerifier));
+                        verifiers.add(new PreparedVerifier(key, hashAlgorithm, false, binaryVerifier));
+                    } catch (PGPException e) {
+                        LOGGER.debug("Cannot verify signatures using {} and {}",
+                                new SubkeyIdentifier(certificate, key.getKeyID()), hashAlgorithm, e);
+                    }
+                }
+            }
+        }
+        return verifiers;
+    }
+
+    /**
+     * Initialize the signatures of a cleartext-signed message, which was verified in a single pass, with the
+     * prepared verifiers, which already hashed the text.
+     *
+     * @param signatures signatures following the text
+     * @param verifiers prepared verifiers
+     */
+    private void initializeSinglePassSignatures(PGPSignatureList signatures, List<PreparedVerifier> verifiers) {
+        reportParsedPackets(PGPainless.getPolicy().getOperationListener(), signatures);
+        for (PGPSignature signature : signatures) {
+            long issuerKeyId = SignatureUtils.determineIssuerKeyId(signature);
+            PGPPublicKeyRing signingKeyRing = findSignatureVerificationKeyRing(signature, issuerKeyId);
+            if (signingKeyRing == null) {
+                SignatureValidationException ex = new SignatureValidationException(
+                        "Missing verification certificate " + Long.toHexString(issuerKeyId));
+                resultBuilder.addInvalidDetachedSignature(new SignatureVerification(signature, null), ex);
+                continue;
+            }
+            PGPPublicKey signingKey = signingKeyRing.getPublicKey(issuerKeyId);
+            SubkeyIdentifier signingKeyIdentifier = new SubkeyIdentifier(signingKeyRing, issuerKeyId);
+            boolean canonicalText = signature.getSignatureType() == PGPSignature.CANONICAL_TEXT_DOCUMENT;
+            PreparedVerifier prepared = null;
+            for (PreparedVerifier verifier : verifiers) {
+                if (verifier.matches(signingKey, signature.getHashAlgorithm(), canonicalText)) {
+                    prepared = verifier;
+                    break;
+                }
+            }
+            if (prepared == null) {
+                SignatureValidationException ex = new SignatureValidationException(
+                        "Signature made by " + signingKeyIdentifier + " uses a hash algorithm which was not " +
+                                "announced in the armor header, or the key made more than one signature.");
+                resultBuilder.addInvalidDetachedSignature(new SignatureVerification(signature, signingKeyIdentifier), ex);
+                continue;
+            }
+            try {
+                signature.init(prepared.takeVerifier(), prepared.key);
+                detachedSignatureChecks.add(new DetachedSignatureCheck(signature, signingKeyRing, signingKeyIdentifier));
+            } catch (PGPException e) {
+                SignatureValidationException ex = new SignatureValidationException(
+                        "Cannot verify signature made by " + signingKeyIdentifier + ".", e);
+                resultBuilder.addInvalidDetachedSignature(new SignatureVerification(signature, signingKeyIdentifier), ex);
+            }
+        }
+    }
+
     private InputStream wrapInVerifySignatureStream(InputStream bufferedIn, @Nullable PGPObjectFactory objectFactory) {
         return new SignatureInputStream.VerifySignatures(
                 bufferedIn, objectFactory, onePassSignatureChecks,
@@ -224,6 +368,7 @@ public final class DecryptionStreamFactory {
         Object nextPgpObject;
         try {
             while ((nextPgpObject = objectFactory.nextObject()) != null) {
+                reportParsedPackets(PGPainless.getPolicy().getOperationListener(), nextPgpObject);
                 if (nextPgpObject instanceof PGPEncryptedDataList) {
                     return processPGPEncryptedDataList((PGPEncryptedDataList) nextPgpObject, depth);
                 }
@@ -315,6 +460,10 @@ public final class DecryptionStreamFactory {
         resultBuilder.setCompressionAlgorithm(compressionAlgorithm);
 
         InputStream inflatedDataStream = pgpCompressedData.getDataStream();
+        OperationListener listener = PGPainless.getPolicy().getOperationListener();
+        if (listener != OperationListener.NO_OP && compressionAlgorithm != CompressionAlgorithm.UNCOMPRESSED) {
+            inflatedDataStream = new DecompressionCountingInputStream(inflatedDataStream, compressionAlgorithm, listener);
+        }
         InputStream decodedDataStream = PGPUtil.getDecoderStream(inflatedDataStream);
         PGPObjectFactory objectFactory = ImplementationFactory.getInstance().getPGPObjectFactory(decodedDataStream);
 
@@ -359,12 +508,8 @@ public final class DecryptionStreamFactory {
             throw new PGPException("Decryption failed - EncryptedDataList has no items");
         }
 
-        PGPPrivateKey decryptionKey = null;
-        PGPPublicKeyEncryptedData encryptedSessionKey = null;
-
         List<PGPPBEEncryptedData> passphraseProtected = new ArrayList<>();
         List<PGPPublicKeyEncryptedData> publicKeyProtected = new ArrayList<>();
-        List<Tuple<SubkeyIdentifier, PGPPublicKeyEncryptedData>> postponedDueToMissingPassphrase = new ArrayList<>();
 
         // Sort PKESK and SKESK packets
         while (encryptedDataIterator.hasNext()) {
@@ -409,170 +554,48 @@ public final class DecryptionStreamFactory {
         }
 
         // Then try decryption with public key encryption
+        SessionKeyRecovery recovery = new SessionKeyRecovery(options, unlockedKeys,
+                options.getSessionKeyDecryptionExecutor());
         for (PGPPublicKeyEncryptedData publicKeyEncryptedData : publicKeyProtected) {
-            PGPPrivateKey privateKey = null;
-            if (options.getDecryptionKeys().isEmpty()) {
-                break;
-            }
-
             long keyId = publicKeyEncryptedData.getKeyID();
-            // Wildcard KeyID
-            if (keyId == 0L) {
-                LOGGER.debug("Hidden recipient detected. Try to decrypt with all available secret keys.");
-                for (PGPSecretKeyRing secretKeys : options.getDecryptionKeys()) {
-                    if (privateKey != null) {
-                        break;
-                    }
-                    KeyRingInfo info = new KeyRingInfo(secretKeys);
-                    List<PGPPublicKey> encryptionSubkeys = info.getEncryptionSubkeys(EncryptionPurpose.ANY);
-                    for (PGPPublicKey pubkey : encryptionSubkeys) {
-                        PGPSecretKey secretKey = secretKeys.getSecretKey(pubkey.getKeyID());
-                        // Skip missing secret key
-                        if (secretKey == null) {
-                            continue;
-                        }
-
-                        privateKey = tryPublicKeyDecryption(secretKeys, secretKey, publicKeyEncryptedData,
-                                postponedDueToMissingPassphrase, true);
-                    }
-                }
-            }
-            // Non-wildcard key-id
-            else {
-                LOGGER.debug("PGPEncryptedData is encrypted for key {}", Long.toHexString(keyId));
+            if (keyId != 0L) {
                 resultBuilder.addRecipientKeyId(keyId);
-
-                PGPSecretKeyRing secretKeys = findDecryptionKeyRing(keyId);
-                if (secretKeys == null) {
-                    LOGGER.debug("Missing certificate of {}. Skip.", Long.toHexString(keyId));
-                    continue;
-                }
-
-                // Make sure that the recipient key is encryption capable and non-expired
-                KeyRingInfo info = new KeyRingInfo(secretKeys);
-                List<PGPPublicKey> encryptionSubkeys = info.getEncryptionSubkeys(EncryptionPurpose.ANY);
-
-                PGPSecretKey secretKey = null;
-                for (PGPPublicKey pubkey : encryptionSubkeys) {
-                    if (pubkey.getKeyID() == keyId) {
-                        secretKey = secretKeys.getSecretKey(keyId);
-                        break;
-                    }
-                }
-
-                if (secretKey == null) {
-                    LOGGER.debug("Key " + Long.toHexString(keyId) + " is not valid or not capable for decryption.");
-                } else {
-                    privateKey = tryPublicKeyDecryption(secretKeys, secretKey, publicKeyEncryptedData,
-                            postponedDueToMissingPassphrase, true);
-                }
-            }
-            if (privateKey == null) {
-                continue;
             }
-            decryptionKey = privateKey;
-            encryptedSessionKey = publicKeyEncryptedData;
-            break;
+            recovery.addEncryptedSessionKey(publicKeyEncryptedData);
         }
+        SessionKeyRecovery.Result result = recovery.recover();
 
         // Try postponed keys with missing passphrases (will cause missing passphrase callbacks to fire)
-        if (encryptedSessionKey == null) {
+        if (result == null) {
 
             if (options.getMissingKeyPassphraseStrategy() == MissingKeyPassphraseStrategy.THROW_EXCEPTION) {
                 // Non-interactive mode: Throw an exception with all locked decryption keys
-                Set<SubkeyIdentifier> keyIds = new HashSet<>();
-                for (Tuple<SubkeyIdentifier, ?> k : postponedDueToMissingPassphrase) {
-                    keyIds.add(k.getA());
-                }
+                Set<SubkeyIdentifier> keyIds = recovery.getPostponedKeys();
                 if (!keyIds.isEmpty()) {
                     throw new MissingPassphraseException(keyIds);
                 }
             }
             else if (options.getMissingKeyPassphraseStrategy() == MissingKeyPassphraseStrategy.INTERACTIVE) {
                 // Interactive mode: Fire protector callbacks to get passphrases interactively
-                for (Tuple<SubkeyIdentifier, PGPPublicKeyEncryptedData> missingPassphrases : postponedDueToMissingPassphrase) {
-                    SubkeyIdentifier keyId = missingPassphrases.getA();
-                    PGPPublicKeyEncryptedData publicKeyEncryptedData = missingPassphrases.getB();
-                    PGPSecretKeyRing secretKeys = findDecryptionKeyRing(keyId.getKeyId());
-                    PGPSecretKey secretKey = secretKeys.getSecretKey(keyId.getSubkeyId());
-
-                    PGPPrivateKey privateKey = tryPublicKeyDecryption(secretKeys, secretKey, publicKeyEncryptedData,
-                            postponedDueToMissingPassphrase, false);
-                    if (privateKey == null) {
-                        continue;
-                    }
-
-                    decryptionKey = privateKey;
-                    encryptedSessionKey = publicKeyEncryptedData;
-                    break;
-                }
+                result = recovery.recoverPostponed();
             } else {
                 throw new IllegalStateException("Invalid PostponedKeysStrategy set in consumer options.");
             }
 
         }
 
-        return decryptWith(encryptedSessionKey, decryptionKey);
+        resultBuilder.setSessionKeyDecryptionAttempts(recovery.getAttempts());
+        return decryptWith(result);
     }
 
-    /**
-     * Try decryption of the provided public-key-encrypted-data using the given secret key.
-     * If the secret key is encrypted and the secret key protector does not have a passphrase available and the boolean
-     * postponeIfMissingPassphrase is true, data decryption is postponed by pushing a tuple of the encrypted data decryption key
-     * identifier to the postponed list.
-     *
-     * This method only returns a non-null private key, if the private key is able to decrypt the message successfully.
-     *
-     * @param secretKeys secret key ring
-     * @param secretKey secret key
-     * @param publicKeyEncryptedData encrypted data which is tried to decrypt using the secret key
-     * @param postponed list of postponed decryptions due to missing secret key passphrases
-     * @param postponeIfMissingPassphrase flag to specify whether missing secret key passphrases should result in postponed decryption
-     * @return private key if decryption is successful, null if decryption is unsuccessful or postponed
-     *
-     * @throws PGPException in case of an OpenPGP error
-     */
-    private PGPPrivateKey tryPublicKeyDecryption(
-            PGPSecretKeyRing secretKeys,
-            PGPSecretKey secretKey,
-            PGPPublicKeyEncryptedData publicKeyEncryptedData,
-            List<Tuple<SubkeyIdentifier, PGPPublicKeyEncryptedData>> postponed,
-            boolean postponeIfMissingPassphrase) throws PGPException {
-        SecretKeyRingProtector protector = options.getSecretKeyProtector(secretKeys);
-
-        if (postponeIfMissingPassphrase && !protector.hasPassphraseFor(secretKey.getKeyID())) {
-            // Postpone decryption with key with missing passphrase
-            SubkeyIdentifier identifier = new SubkeyIdentifier(secretKeys, secretKey.getKeyID());
-            postponed.add(new Tuple<>(identifier, publicKeyEncryptedData));
-            return null;
-        }
-
-        PGPPrivateKey privateKey = UnlockSecretKey.unlockSecretKey(
-                secretKey, protector.getDecryptor(secretKey.getKeyID()));
-
-        // test if we have the right private key
-        PublicKeyDataDecryptorFactory decryptorFactory = ImplementationFactory.getInstance()
-                .getPublicKeyDataDecryptorFactory(privateKey);
-        try {
-            publicKeyEncryptedData.getSymmetricAlgorithm(decryptorFactory); // will only succeed if we have the right secret key
-            LOGGER.debug("Found correct decryption key {}.", Long.toHexString(secretKey.getKeyID()));
-            resultBuilder.setDecryptionKey(new SubkeyIdentifier(secretKeys, privateKey.getKeyID()));
-            return privateKey;
-        } catch (PGPException | ClassCastException e) {
-            return null;
-        }
-    }
-
-    private InputStream decryptWith(PGPPublicKeyEncryptedData encryptedSessionKey, PGPPrivateKey decryptionKey)
+    private InputStream decryptWith(@Nullable SessionKeyRecovery.Result result)
             throws PGPException {
-        if (decryptionKey == null || encryptedSessionKey == null) {
+        if (result == null) {
             throw new MissingDecryptionMethodException("Decryption failed - No suitable decryption key or passphrase found");
         }
 
-        PublicKeyDataDecryptorFactory dataDecryptor = ImplementationFactory.getInstance()
-                .getPublicKeyDataDecryptorFactory(decryptionKey);
-
-        PGPSessionKey pgpSessionKey = encryptedSessionKey.getSessionKey(dataDecryptor);
+        resultBuilder.setDecryptionKey(result.getDecryptionKey());
+        PGPSessionKey pgpSessionKey = result.getSessionKey();
         SessionKey sessionKey = new SessionKey(pgpSessionKey);
         resultBuilder.setSessionKey(sessionKey);
 
@@ -584,6 +607,10 @@ public final class DecryptionStreamFactory {
         }
         throwIfAlgorithmIsRejected(symmetricKeyAlgorithm);
 
+        // The session key is already recovered, so avoid another private key operation
+        SessionKeyDataDecryptorFactory dataDecryptor = ImplementationFactory.getInstance()
+                .provideSessionKeyDataDecryptorFactory(pgpSessionKey);
+        PGPPublicKeyEncryptedData encryptedSessionKey = result.getEncryptedSessionKey();
         integrityProtectedEncryptedInputStream = new IntegrityProtectedInputStream(
                 encryptedSessionKey.getDataStream(dataDecryptor), encryptedSessionKey, options);
         return integrityProtectedEncryptedInputStream;
@@ -637,24 +664,22 @@ public final class DecryptionStreamFactory {
         onePassSignatureChecks.add(onePassSignature);
     }
 
-    private PGPSecretKeyRing findDecryptionKeyRing(long keyId) {
-        for (PGPSecretKeyRing key : options.getDecryptionKeys()) {
-            if (key.getSecretKey(keyId) != null) {
-                return key;
+    private PGPPublicKeyRing findSignatureVerificationKeyRing(PGPSignature signature, long keyId) {
+        // Prefer lookup by issuer fingerprint, which is unambiguous in case of key-id collisions
+        OpenPgpFingerprint issuerFingerprint = SignatureSubpacketsUtil.getIssuerFingerprintAsOpenPgpFingerprint(signature);
+        if (issuerFingerprint != null) {
+            PGPPublicKeyRing verificationKeyRing = options.getCertificate(issuerFingerprint);
+            if (verificationKeyRing != null) {
+                return verificationKeyRing;
             }
         }
-        return null;
+        return findSignatureVerificationKeyRing(keyId);
     }
 
     private PGPPublicKeyRing findSignatureVerificationKeyRing(long keyId) {
-        PGPPublicKeyRing verificationKeyRing = null;
-        for (PGPPublicKeyRing publicKeyRing : options.getCertificates()) {
-            PGPPublicKey verificationKey = publicKeyRing.getPublicKey(keyId);
-            if (verificationKey != null) {
-                LOGGER.debug("Found public key {} for signature verification", Long.toHexString(keyId));
-                verificationKeyRing = publicKeyRing;
-                break;
-            }
+        PGPPublicKeyRing verificationKeyRing = options.getCertificate(keyId);
+        if (verificationKeyRing != null) {
+            LOGGER.debug("Found public key {} for signature verification", Long.toHexString(keyId));
         }
 
         if (verificationKeyRing == null && options.getMissingCertificateCallback() != null) {
@@ -663,4 +688,200 @@ public final class DecryptionStreamFactory {
 
         return verificationKeyRing;
     }
+
+    /**
+     * Report the packets represented by the given object of a {@link PGPObjectFactory} to the listener.
+     *
+     * @param listener operation listener
+     * @param pgpObject parsed object
+     */
+    static void reportParsedPackets(OperationListener listener, Object pgpObject) {
+        if (listener == OperationListener.NO_OP) {
+            return;
+        }
+        if (pgpObject instanceof PGPEncryptedDataList) {
+            boolean integrityProtected = false;
+            for (PGPEncryptedData encryptedData : (PGPEncryptedDataList) pgpObject) {
+                listener.onPacketParsed(encryptedData instanceof PGPPBEEncryptedData ?
+                        PacketTags.SYMMETRIC_KEY_ENC_SESSION : PacketTags.PUBLIC_KEY_ENC_SESSION);
+                integrityProtected = encryptedData.isIntegrityProtected();
+            }
+            listener.onPacketParsed(integrityProtected ?
+                    PacketTags.SYM_ENC_INTEGRITY_PRO : PacketTags.SYMMETRIC_KEY_ENC);
+        } else if (pgpObject instanceof PGPCompressedData) {
+            listener.onPacketParsed(PacketTags.COMPRESSED_DATA);
+        } else if (pgpObject instanceof PGPOnePassSignatureList) {
+            for (int i = 0; i < ((PGPOnePassSignatureList) pgpObject).size(); i++) {
+                listener.onPacketParsed(PacketTags.ONE_PASS_SIGNATURE);
+            }
+        } else if (pgpObject instanceof PGPSignatureList) {
+            for (int i = 0; i < ((PGPSignatureList) pgpObject).size(); i++) {
+                listener.onPacketParsed(PacketTags.SIGNATURE);
+            }
+        } else if (pgpObject instanceof PGPLiteralData) {
+            listener.onPacketParsed(PacketTags.LITERAL_DATA);
+        } else if (pgpObject instanceof PGPMarker) {
+            listener.onPacketParsed(PacketTags.MARKER);
+        }
+    }
+
+    /**
+     * Stream which counts the decompressed bytes and reports them to an {@link OperationListener}
+     * once the end of the stream is reached or the stream is closed.
+     */
+    private static final class DecompressionCountingInputStream extends FilterInputStream {
+
+        private final CompressionAlgorithm algorithm;
+        private final OperationListener listener;
+        private long count = 0;
+        private boolean reported = false;
+
+        private DecompressionCountingInputStream(InputStream in, CompressionAlgorithm algorithm,
+                                                 OperationListener listener) {
+            super(in);
+            this.algorithm = algorithm;
+            this.listener = listener;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read == -1) {
+                report();
+            } else {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read == -1) {
+                report();
+            } else {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            report();
+            super.close();
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                listener.onBytesDecompressed(algorithm, count);
+            }
+        }
+    }
+
+    /**
+     * Reads the text of a cleartext-signed message, feeding its canonical form into the prepared verifiers for
+     * canonical text signatures and the text as returned into the prepared verifiers for other signatures.
+     * Once the text is consumed, the signatures are initialized with the verifiers, before the
+     * {@link SignatureInputStream.VerifySignatures} wrapping this stream encounters the end of the text and
+     * verifies them.
+     */
+    private final class SinglePassClearsignedTextInputStream extends ClearsignedTextInputStream {
+
+        private final List<PreparedVerifier> verifiers;
+
+        private SinglePassClearsignedTextInputStream(ArmoredInputStream armorIn, InputStream in,
+                                                     List<PreparedVerifier> verifiers)
+                throws WrongConsumingMethodException {
+            super(armorIn, in, new PreparedVerifierOutputStream(verifiers, true),
+                    new PreparedVerifierOutputStream(verifiers, false));
+            this.verifiers = verifiers;
+        }
+
+        @Override
+        protected void onSignatures(@Nonnull PGPSignatureList signatures) {
+            initializeSinglePassSignatures(signatures, verifiers);
+        }
+    }
+
+    /**
+     * Writes data into the content verifiers of all prepared verifiers for either canonical text or other signatures.
+     */
+    private static final class PreparedVerifierOutputStream extends OutputStream {
+
+        private final OutputStream[] outputStreams;
+
+        private PreparedVerifierOutputStream(List<PreparedVerifier> verifiers, boolean canonicalText) {
+            List<OutputStream> streams = new ArrayList<>();
+            for (PreparedVerifier verifier : verifiers) {
+                if (verifier.canonicalText == canonicalText) {
+                    streams.add(verifier.verifier.getOutputStream());
+                }
+            }
+            this.outputStreams = streams.toArray(new OutputStream[0]);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            for (OutputStream outputStream : outputStreams) {
+                outputStream.write(b);
+            }
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+            for (OutputStream outputStream : outputStreams) {
+                outputStream.write(b, off, len);
+            }
+        }
+    }
+
+    /**
+     * Content verifier for a signing key and hash algorithm, which is set up before the signatures of a
+     * cleartext-signed message are known.
+     * A verifier can only be used for a single signature, since the signature trailer is hashed into it.
+     */
+    private static final class PreparedVerifier {
+
+        private final PGPPublicKey key;
+        private final HashAlgorithm hashAlgorithm;
+        // true if the verifier hashes the canonical text, false if it hashes the text as returned
+        private final boolean canonicalText;
+        private final PGPContentVerifier verifier;
+        private boolean used = false;
+
+        private PreparedVerifier(PGPPublicKey key, HashAlgorithm hashAlgorithm, boolean canonicalText,
+                                 PGPContentVerifier verifier) {
+            this.key = key;
+            this.hashAlgorithm = hashAlgorithm;
+            this.canonicalText = canonicalText;
+            this.verifier = verifier;
+        }
+
+        private boolean matches(PGPPublicKey signingKey, int hashAlgorithm, boolean canonicalText) {
+            return !used && this.canonicalText == canonicalText &&
+                    this.hashAlgorithm.getAlgorithmId() == hashAlgorithm &&
+                    Arrays.equals(key.getFingerprint(), signingKey.getFingerprint());
+        }
+
+        /**
+         * Mark the verifier as used and return a provider which hands it out when the signature is initialized.
+         *
+         * @return verifier builder provider
+         */
+        private PGPContentVerifierBuilderProvider takeVerifier() {
+            used = true;
+            return new PGPContentVerifierBuilderProvider() {
+                @Override
+                public PGPContentVerifierBuilder get(int keyAlgorithm, int hashAlgorithm) {
+                    return new PGPContentVerifierBuilder() {
+                        @Override
+                        public PGPContentVerifier build(PGPPublicKey publicKey) {
+                            return verifier;
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,315 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.HashAlgorithm;
+import org.pgpainless.algorithm.PublicKeyAlgorithm;
+import org.pgpainless.algorithm.StreamEncoding;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+
+/**
+ * Information about an OpenPGP message, which was obtained by parsing the packet headers of the message only
+ * (see {@link MessageInspector#inspectHeaders(java.io.InputStream, int)}).
+ *
+ * Inspection stops at the first packet which contains the payload (encrypted, compressed or literal data),
+ * so packets nested inside of it (e.g. one-pass-signatures inside of compressed data) are not reported.
+ */
+public final class MessageHeaderInfo {
+
+    /**
+     * Recipient of a public-key encrypted session key packet.
+     */
+    public static final class Recipient {
+
+        private final long keyId;
+        private final int algorithm;
+
+        Recipient(long keyId, int algorithm) {
+            this.keyId = keyId;
+            this.algorithm = algorithm;
+        }
+
+        /**
+         * Return the key-id of the recipient key, or 0 if the recipient is hidden (wildcard key-id).
+         *
+         * @return key-id
+         */
+        public long getKeyId() {
+            return keyId;
+        }
+
+        /**
+         * Return true, if the key-id of the recipient is hidden.
+         *
+         * @return true if hidden
+         */
+        public boolean isHidden() {
+            return keyId == 0;
+        }
+
+        /**
+         * Return the public key algorithm of the recipient key, or null if the algorithm is unknown.
+         *
+         * @return algorithm
+         */
+        @Nullable
+        public PublicKeyAlgorithm getAlgorithm() {
+            return PublicKeyAlgorithm.fromId(algorithm);
+        }
+    }
+
+    /**
+     * Signer announced by a one-pass-signature packet.
+     */
+    public static final class OnePassSigner {
+
+        private final long keyId;
+        private final int keyAlgorithm;
+        private final int hashAlgorithm;
+        private final int signatureType;
+
+        OnePassSigner(long keyId, int keyAlgorithm, int hashAlgorithm, int signatureType) {
+            this.keyId = keyId;
+            this.keyAlgorithm = keyAlgorithm;
+            this.hashAlgorithm = hashAlgorithm;
+            this.signatureType = signatureType;
+        }
+
+        /**
+         * Return the key-id of the signing key.
+         *
+         * @return key-id
+         */
+        public long getKeyId() {
+            return keyId;
+        }
+
+        /**
+         * Return the public key algorithm of the signing key, or null if the algorithm is unknown.
+         *
+         * @return algorithm
+         */
+        @Nullable
+        public PublicKeyAlgorithm getKeyAlgorithm() {
+            return PublicKeyAlgorithm.fromId(keyAlgorithm);
+        }
+
+        /**
+         * Return the hash algorithm of the signature, or null if the algorithm is unknown.
+         *
+         * @return hash algorithm
+         */
+        @Nullable
+        public HashAlgorithm getHashAlgorithm() {
+            return HashAlgorithm.fromId(hashAlgorithm);
+        }
+
+        /**
+         * Return the numeric signature type of the signature.
+         *
+         * @return signature type
+         */
+        public int getSignatureType() {
+            return signatureType;
+        }
+    }
+
+    final List<Integer> packetTags = new ArrayList<>();
+    final List<Recipient> recipients = new ArrayList<>();
+    final List<Integer> passphraseAlgorithms = new ArrayList<>();
+    final List<OnePassSigner> onePassSigners = new ArrayList<>();
+    boolean cleartextSigned = false;
+    boolean encrypted = false;
+    boolean integrityProtected = false;
+    Integer compressionAlgorithm = null;
+    boolean literalData = false;
+    int literalDataFormat;
+    String fileName;
+    Date modificationDate;
+    boolean complete = false;
+    long bytesRead = 0;
+
+    MessageHeaderInfo() {
+
+    }
+
+    /**
+     * Return the tags of the inspected packets in the order of their appearance
+     * (see {@link org.bouncycastle.bcpg.PacketTags}).
+     *
+     * @return packet tags
+     */
+    public List<Integer> getPacketTags() {
+        return Collections.unmodifiableList(packetTags);
+    }
+
+    /**
+     * Return the recipients of the public-key encrypted session key packets.
+     *
+     * @return recipients
+     */
+    public List<Recipient> getRecipients() {
+        return Collections.unmodifiableList(recipients);
+    }
+
+    /**
+     * Return the key-ids of the recipients, including 0 for hidden recipients.
+     *
+     * @return recipient key-ids
+     */
+    public List<Long> getKeyIds() {
+        List<Long> keyIds = new ArrayList<>(recipients.size());
+        for (Recipient recipient : recipients) {
+            keyIds.add(recipient.getKeyId());
+        }
+        return keyIds;
+    }
+
+    /**
+     * Return the symmetric algorithms of the symmetric-key encrypted session key packets, which are used to encrypt
+     * the session key using the passphrase.
+     * Unknown algorithms are reported as null.
+     *
+     * @return algorithms
+     */
+    public List<SymmetricKeyAlgorithm> getPassphraseAlgorithms() {
+        List<SymmetricKeyAlgorithm> algorithms = new ArrayList<>(passphraseAlgorithms.size());
+        for (int algorithm : passphraseAlgorithms) {
+            algorithms.add(SymmetricKeyAlgorithm.fromId(algorithm));
+        }
+        return algorithms;
+    }
+
+    /**
+     * Return true, if the message is passphrase protected.
+     *
+     * @return true if passphrase protected
+     */
+    public boolean isPassphraseEncrypted() {
+        return !passphraseAlgorithms.isEmpty();
+    }
+
+    /**
+     * Return the signers announced by one-pass-signature packets preceding the payload.
+     *
+     * @return signers
+     */
+    public List<OnePassSigner> getOnePassSigners() {
+        return Collections.unmodifiableList(onePassSigners);
+    }
+
+    /**
+     * Return true, if the message is using the Cleartext Signature Framework.
+     * In this case, no packets are inspected.
+     *
+     * @return true if cleartext signed
+     */
+    public boolean isCleartextSigned() {
+        return cleartextSigned;
+    }
+
+    /**
+     * Return true, if the message contains encrypted data.
+     *
+     * @return true if encrypted
+     */
+    public boolean isEncrypted() {
+        return encrypted;
+    }
+
+    /**
+     * Return true, if the encrypted data is integrity protected (SEIPD packet).
+     *
+     * @return true if integrity protected
+     */
+    public boolean isIntegrityProtected() {
+        return integrityProtected;
+    }
+
+    /**
+     * Return true, if the payload is compressed.
+     *
+     * @return true if compressed
+     */
+    public boolean isCompressed() {
+        return compressionAlgorithm != null;
+    }
+
+    /**
+     * Return the compression algorithm of the payload, or null if the payload is not compressed or the algorithm
+     * is unknown.
+     *
+     * @return compression algorithm
+     */
+    @Nullable
+    public CompressionAlgorithm getCompressionAlgorithm() {
+        return compressionAlgorithm == null ? null : CompressionAlgorithm.fromId(compressionAlgorithm);
+    }
+
+    /**
+     * Return true, if the payload is a literal data packet, whose metadata is reported.
+     *
+     * @return true if literal data
+     */
+    public boolean hasLiteralData() {
+        return literalData;
+    }
+
+    /**
+     * Return the format of the literal data, or null if there is no literal data packet or the format is unknown.
+     *
+     * @return format
+     */
+    @Nullable
+    public StreamEncoding getLiteralDataFormat() {
+        return literalData ? StreamEncoding.fromCode(literalDataFormat) : null;
+    }
+
+    /**
+     * Return the file name of the literal data, or null if there is no literal data packet.
+     *
+     * @return file name
+     */
+    @Nullable
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Return the modification date of the literal data, or null if there is no literal data packet.
+     *
+     * @return modification date
+     */
+    @Nullable
+    public Date getModificationDate() {
+        return modificationDate;
+    }
+
+    /**
+     * Return true, if the headers were inspected up to the payload or the end of the message.
+     * If this returns false, the byte limit was reached before, so the information is incomplete.
+     *
+     * @return true if complete
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Return the number of bytes that were read from the input.
+     *
+     * @return number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+}
@@ -7,11 +7,22 @@ package org.pgpainless.decryption_verification;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import javax.annotation.Nonnull;
 
+import org.bouncycastle.bcpg.ArmoredInputStream;
+import org.bouncycastle.bcpg.BCPGInputStream;
+import org.bouncycastle.bcpg.CompressedDataPacket;
+import org.bouncycastle.bcpg.LiteralDataPacket;
+import org.bouncycastle.bcpg.OnePassSignaturePacket;
+import org.bouncycastle.bcpg.PacketTags;
+import org.bouncycastle.bcpg.PublicKeyEncSessionPacket;
+import org.bouncycastle.bcpg.SymmetricKeyEncSessionPacket;
 import org.bouncycastle.openpgp.PGPCompressedData;
 import org.bouncycastle.openpgp.PGPEncryptedData;
 import org.bouncycastle.openpgp.PGPEncryptedDataList;
@@ -30,6 +41,12 @@ import org.pgpainless.util.ArmorUtils;
  */
 public final class MessageInspector {
 
+    /**
+     * Default number of bytes read by {@link #inspectHeaders(InputStream)} (64 KiB), which is enough for the session
+     * key packets of about a hundred RSA-4096 recipients.
+     */
+    public static final int DEFAULT_MAX_HEADER_BYTES = 1 << 16;
+
     public static class EncryptionInfo {
         private final List<Long> keyIds = new ArrayList<>();
         private boolean isPassphraseEncrypted = false;
@@ -85,6 +102,8 @@ public final class MessageInspector {
     /**
      * Parses parts of the provided OpenPGP message in order to determine which keys were used to encrypt it.
      * Note: This method does not rewind the passed in Stream, so you might need to take care of that yourselves.
+     * Compressed data is decompressed in order to look for nested packets,
+     * see {@link #inspectHeaders(InputStream, int)} for an alternative which only reads the packet headers.
      *
      * @param dataIn openpgp message
      * @return encryption information
@@ -98,6 +117,131 @@ public final class MessageInspector {
         return info;
     }
 
+    /**
+     * Inspect the packet headers of the provided OpenPGP message, reading at most {@link #DEFAULT_MAX_HEADER_BYTES}
+     * bytes.
+     *
+     * @param dataIn OpenPGP message
+     * @return header information
+     * @throws IOException in case of an IO error or if the message is malformed
+     */
+    public static MessageHeaderInfo inspectHeaders(@Nonnull InputStream dataIn) throws IOException {
+        return inspectHeaders(dataIn, DEFAULT_MAX_HEADER_BYTES);
+    }
+
+    /**
+     * Inspect the packet headers of the provided OpenPGP message, reading at most maxHeaderBytes bytes.
+     * Session key packets, one-pass-signature packets, the compression algorithm and the metadata of literal data
+     * are reported, while inspection stops at the first packet containing the payload of the message.
+     * Neither encrypted nor compressed data is processed, so inspection is cheap regardless of the size of the message.
+     * If the limit is reached before, the information collected so far is returned
+     * (see {@link MessageHeaderInfo#isComplete()}).
+     *
+     * Note: This method does not rewind the passed in Stream, so you might need to take care of that yourselves.
+     *
+     * @param dataIn OpenPGP message
+     * @param maxHeaderBytes maximum number of bytes read from the stream
+     * @return header information
+     * @throws IOException in case of an IO error or if the message is malformed
+     */
+    public static MessageHeaderInfo inspectHeaders(@Nonnull InputStream dataIn, int maxHeaderBytes)
+            throws IOException {
+        if (maxHeaderBytes <= 0) {
+            throw new IllegalArgumentException("Maximum number of header bytes MUST be positive.");
+        }
+        HeaderInputStream headerIn = new HeaderInputStream(dataIn, maxHeaderBytes);
+        MessageHeaderInfo info = new MessageHeaderInfo();
+        try {
+            boolean reachedPayload = inspectPackets(headerIn, info);
+            info.complete = reachedPayload || !headerIn.limitReached;
+        } catch (IOException | RuntimeException e) {
+            // Truncated packets can cause all kinds of exceptions
+            if (!headerIn.limitReached) {
+                throw e;
+            }
+        }
+        info.bytesRead = headerIn.bytesRead;
+        return info;
+    }
+
+    /**
+     * Inspect the packet headers of the OpenPGP message between the position and the limit of the buffer, reading at
+     * most maxHeaderBytes bytes. The position of the buffer is not changed.
+     * Applied to a {@link java.nio.MappedByteBuffer}, only the pages containing the headers are read from the file.
+     *
+     * @param message OpenPGP message
+     * @param maxHeaderBytes maximum number of bytes read from the buffer
+     * @return header information
+     * @throws IOException if the message is malformed
+     */
+    public static MessageHeaderInfo inspectHeaders(@Nonnull ByteBuffer message, int maxHeaderBytes)
+            throws IOException {
+        if (maxHeaderBytes <= 0) {
+            throw new IllegalArgumentException("Maximum number of header bytes MUST be positive.");
+        }
+        byte[] headers = new byte[Math.min(message.remaining(), maxHeaderBytes)];
+        message.duplicate().get(headers);
+        return inspectHeaders(new ByteArrayInputStream(headers), maxHeaderBytes);
+    }
+
+    /**
+     * Parse the packet headers until the payload of the message is reached.
+     *
+     * @return true if the payload was reached, false if the end of the message was reached
+     */
+    private static boolean inspectPackets(InputStream dataIn, MessageHeaderInfo info) throws IOException {
+        InputStream decoded = ArmorUtils.getDecoderStream(dataIn);
+        if (decoded instanceof ArmoredInputStream && ((ArmoredInputStream) decoded).isClearText()) {
+            info.cleartextSigned = true;
+            return true;
+        }
+
+        BCPGInputStream packetIn = new BCPGInputStream(decoded);
+        int tag;
+        while ((tag = packetIn.nextPacketTag()) != -1) {
+            info.packetTags.add(tag);
+            switch (tag) {
+                case PacketTags.PUBLIC_KEY_ENC_SESSION:
+                    PublicKeyEncSessionPacket pkesk = (PublicKeyEncSessionPacket) packetIn.readPacket();
+                    info.recipients.add(new MessageHeaderInfo.Recipient(pkesk.getKeyID(), pkesk.getAlgorithm()));
+                    break;
+                case PacketTags.SYMMETRIC_KEY_ENC_SESSION:
+                    SymmetricKeyEncSessionPacket skesk = (SymmetricKeyEncSessionPacket) packetIn.readPacket();
+                    info.passphraseAlgorithms.add(skesk.getEncAlgorithm());
+                    break;
+                case PacketTags.ONE_PASS_SIGNATURE:
+                    OnePassSignaturePacket ops = (OnePassSignaturePacket) packetIn.readPacket();
+                    info.onePassSigners.add(new MessageHeaderInfo.OnePassSigner(ops.getKeyID(),
+                            ops.getKeyAlgorithm(), ops.getHashAlgorithm(), ops.getSignatureType()));
+                    break;
+                case PacketTags.SYMMETRIC_KEY_ENC:
+                case PacketTags.SYM_ENC_INTEGRITY_PRO:
+                    // Only the tag is read, the encrypted data is not touched
+                    info.encrypted = true;
+                    info.integrityProtected = tag == PacketTags.SYM_ENC_INTEGRITY_PRO;
+                    return true;
+                case PacketTags.COMPRESSED_DATA:
+                    // Reads the algorithm id, but does not decompress
+                    CompressedDataPacket compressed = (CompressedDataPacket) packetIn.readPacket();
+                    info.compressionAlgorithm = compressed.getAlgorithm();
+                    return true;
+                case PacketTags.LITERAL_DATA:
+                    // Reads the header fields, but not the literal data
+                    LiteralDataPacket literal = (LiteralDataPacket) packetIn.readPacket();
+                    info.literalData = true;
+                    info.literalDataFormat = literal.getFormat();
+                    info.fileName = literal.getFileName();
+                    info.modificationDate = new Date(literal.getModificationTime());
+                    return true;
+                default:
+                    // Marker packets, signatures of old-style signed messages, etc.
+                    packetIn.readPacket();
+                    break;
+            }
+        }
+        return false;
+    }
+
     private static void processMessage(InputStream dataIn, EncryptionInfo info) throws PGPException, IOException {
         PGPObjectFactory objectFactory = ImplementationFactory.getInstance().getPGPObjectFactory(dataIn);
 
@@ -137,4 +281,49 @@ public final class MessageInspector {
             }
         }
     }
+
+    /**
+     * {@link InputStream} which returns EOF once the limit of header bytes is reached.
+     */
+    private static final class HeaderInputStream extends InputStream {
+
+        private final InputStream in;
+        private final long limit;
+        private long bytesRead = 0;
+        private boolean limitReached = false;
+
+        private HeaderInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (bytesRead >= limit) {
+                limitReached = true;
+                return -1;
+            }
+            int b = in.read();
+            if (b != -1) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (bytesRead >= limit) {
+                limitReached = true;
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, limit - bytesRead));
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+    }
 }
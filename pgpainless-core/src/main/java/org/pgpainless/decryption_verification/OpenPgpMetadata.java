@@ -40,6 +40,7 @@ public class OpenPgpMetadata {
     private final String fileName;
     private final Date modificationDate;
     private final StreamEncoding fileEncoding;
+    private final int sessionKeyDecryptionAttempts;
 
     public OpenPgpMetadata(Set<Long> recipientKeyIds,
                            SubkeyIdentifier decryptionKey,
@@ -52,6 +53,24 @@ public class OpenPgpMetadata {
                            String fileName,
                            Date modificationDate,
                            StreamEncoding fileEncoding) {
+        this(recipientKeyIds, decryptionKey, sessionKey, algorithm,
+                verifiedInbandSignatures, invalidInbandSignatures,
+                verifiedDetachedSignatures, invalidDetachedSignatures,
+                fileName, modificationDate, fileEncoding, 0);
+    }
+
+    public OpenPgpMetadata(Set<Long> recipientKeyIds,
+                           SubkeyIdentifier decryptionKey,
+                           SessionKey sessionKey,
+                           CompressionAlgorithm algorithm,
+                           List<SignatureVerification> verifiedInbandSignatures,
+                           List<SignatureVerification.Failure> invalidInbandSignatures,
+                           List<SignatureVerification> verifiedDetachedSignatures,
+                           List<SignatureVerification.Failure> invalidDetachedSignatures,
+                           String fileName,
+                           Date modificationDate,
+                           StreamEncoding fileEncoding,
+                           int sessionKeyDecryptionAttempts) {
 
         this.recipientKeyIds = Collections.unmodifiableSet(recipientKeyIds);
         this.decryptionKey = decryptionKey;
@@ -64,6 +83,7 @@ public class OpenPgpMetadata {
         this.fileName = fileName;
         this.modificationDate = modificationDate;
         this.fileEncoding = fileEncoding;
+        this.sessionKeyDecryptionAttempts = sessionKeyDecryptionAttempts;
     }
 
     /**
@@ -108,6 +128,19 @@ public class OpenPgpMetadata {
         return sessionKey;
     }
 
+    /**
+     * Return the number of private key operations which were needed to recover the session key from the
+     * public key encrypted session key packets of the message.
+     * This is 1 if the decryption key was identified by key-id, but might be higher if the message was encrypted
+     * for hidden recipients. It is 0 if the message was not encrypted or decrypted using a passphrase or
+     * a provided session key.
+     *
+     * @return number of session key decryption attempts
+     */
+    public int getSessionKeyDecryptionAttempts() {
+        return sessionKeyDecryptionAttempts;
+    }
+
     /**
      * Return the {@link CompressionAlgorithm} that was used to compress the message.
      *
@@ -282,6 +315,7 @@ public class OpenPgpMetadata {
         private String fileName;
         private StreamEncoding fileEncoding;
         private Date modificationDate;
+        private int sessionKeyDecryptionAttempts;
 
         private final List<SignatureVerification> verifiedInbandSignatures = new ArrayList<>();
         private final List<SignatureVerification> verifiedDetachedSignatures = new ArrayList<>();
@@ -324,13 +358,18 @@ public class OpenPgpMetadata {
             return this;
         }
 
+        public Builder setSessionKeyDecryptionAttempts(int attempts) {
+            this.sessionKeyDecryptionAttempts = attempts;
+            return this;
+        }
+
         public OpenPgpMetadata build() {
             return new OpenPgpMetadata(
                     recipientFingerprints, decryptionKey,
                     sessionKey, compressionAlgorithm,
                     verifiedInbandSignatures, invalidInbandSignatures,
                     verifiedDetachedSignatures, invalidDetachedSignatures,
-                    fileName, modificationDate, fileEncoding);
+                    fileName, modificationDate, fileEncoding, sessionKeyDecryptionAttempts);
         }
 
         public void addVerifiedInbandSignature(SignatureVerification signatureVerification) {
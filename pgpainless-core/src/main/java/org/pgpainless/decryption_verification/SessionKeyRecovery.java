@@ -0,0 +1,428 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.bcpg.PublicKeyAlgorithmTags;
+import org.bouncycastle.bcpg.SecretKeyPacket;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyEncryptedData;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSessionKey;
+import org.bouncycastle.openpgp.operator.PublicKeyDataDecryptorFactory;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.protection.UnlockSecretKey;
+import org.pgpainless.key.protection.UnlockedPrivateKeyCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Recover the session key of a message from its public key encrypted session key packets (PKESKs).
+ *
+ * Every attempt to decrypt a PKESK costs a private key operation, and possibly unlocking the secret key first.
+ * Therefore, all candidate pairs of PKESK and decryption subkey are collected first and are then tried in
+ * order of their estimated cost: Keys which are already unlocked come before keys that need to be unlocked,
+ * and cheap algorithms (e.g. X25519) come before expensive ones (e.g. RSA-4096).
+ * Recovery stops with the first successful attempt.
+ *
+ * PKESKs with a wildcard key-id (hidden recipients) potentially match every encryption subkey of every
+ * decryption key, so they are only tried if no PKESK with an explicit key-id can be decrypted.
+ * If an {@link Executor} is given, the attempts for hidden recipients with keys that do not need to be unlocked are
+ * performed in parallel. Keys that need to be unlocked are only tried afterwards, one after another.
+ */
+final class SessionKeyRecovery {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionKeyRecovery.class);
+
+    /**
+     * Estimated cost of unlocking a passphrase-protected secret key, relative to {@link #algorithmCost(PGPPublicKey)}.
+     * Iterated and salted S2K usually takes longer than even an RSA-4096 private key operation.
+     */
+    static final int UNLOCK_COST = 1000;
+
+    private final ConsumerOptions options;
+    private final Map<SubkeyIdentifier, PGPPrivateKey> unlockedKeys;
+    private final Executor executor;
+
+    private final List<Candidate> candidates = new ArrayList<>();
+    private final List<Candidate> wildcardCandidates = new ArrayList<>();
+    private final List<Candidate> postponed = new ArrayList<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    /**
+     * Create a session key recovery.
+     *
+     * @param options consumer options providing decryption keys and their protectors
+     * @param unlockedKeys thread-safe map of unlocked private keys shared with other operations, or null
+     * @param executor executor for parallel decryption attempts for hidden recipients, or null
+     */
+    SessionKeyRecovery(@Nonnull ConsumerOptions options,
+                       @Nullable Map<SubkeyIdentifier, PGPPrivateKey> unlockedKeys,
+                       @Nullable Executor executor) {
+        this.options = options;
+        this.unlockedKeys = unlockedKeys;
+        this.executor = executor;
+    }
+
+    /**
+     * Register a PKESK and determine the candidate decryption subkeys for it.
+     *
+     * @param encryptedSessionKey public key encrypted session key
+     */
+    void addEncryptedSessionKey(@Nonnull PGPPublicKeyEncryptedData encryptedSessionKey) {
+        long keyId = encryptedSessionKey.getKeyID();
+        // Wildcard KeyID
+        if (keyId == 0L) {
+            LOGGER.debug("Hidden recipient detected. Try to decrypt with all available secret keys.");
+            for (PGPSecretKeyRing secretKeys : options.getDecryptionKeys()) {
+                KeyRingInfo info = PGPainless.inspectKeyRing(secretKeys);
+                for (PGPPublicKey pubkey : info.getEncryptionSubkeys(EncryptionPurpose.ANY)) {
+                    PGPSecretKey secretKey = secretKeys.getSecretKey(pubkey.getKeyID());
+                    // Skip missing secret key
+                    if (secretKey == null) {
+                        continue;
+                    }
+                    wildcardCandidates.add(new Candidate(secretKeys, secretKey, encryptedSessionKey));
+                }
+            }
+            return;
+        }
+
+        // Non-wildcard key-id
+        LOGGER.debug("PGPEncryptedData is encrypted for key {}", Long.toHexString(keyId));
+        PGPSecretKeyRing secretKeys = options.getDecryptionKey(keyId);
+        if (secretKeys == null) {
+            LOGGER.debug("Missing certificate of {}. Skip.", Long.toHexString(keyId));
+            return;
+        }
+
+        // Make sure that the recipient key is encryption capable and non-expired
+        KeyRingInfo info = PGPainless.inspectKeyRing(secretKeys);
+        for (PGPPublicKey pubkey : info.getEncryptionSubkeys(EncryptionPurpose.ANY)) {
+            if (pubkey.getKeyID() == keyId) {
+                PGPSecretKey secretKey = secretKeys.getSecretKey(keyId);
+                if (secretKey != null) {
+                    candidates.add(new Candidate(secretKeys, secretKey, encryptedSessionKey));
+                    return;
+                }
+            }
+        }
+        LOGGER.debug("Key {} is not valid or not capable for decryption.", Long.toHexString(keyId));
+    }
+
+    /**
+     * Try to recover the session key using all candidates, whose secret keys are either unprotected, already
+     * unlocked, or for which the protector has a passphrase available.
+     * Candidates whose passphrase is missing are postponed (see {@link #getPostponedKeys()} and
+     * {@link #recoverPostponed()}).
+     *
+     * @return result or null if the session key could not be recovered
+     * @throws PGPException if a secret key cannot be unlocked
+     */
+    @Nullable
+    Result recover() throws PGPException {
+        Result result = trySequentially(sortByCost(candidates), true);
+        if (result != null) {
+            return result;
+        }
+        List<Candidate> sortedWildcards = sortByCost(wildcardCandidates);
+        if (executor == null) {
+            return trySequentially(sortedWildcards, true);
+        }
+
+        // Only try keys in parallel which do not need to be unlocked, so that we do not pay for S2K in vain
+        List<Candidate> ready = new ArrayList<>();
+        List<Candidate> locked = new ArrayList<>();
+        for (Candidate candidate : sortedWildcards) {
+            if (candidate.locked) {
+                locked.add(candidate);
+            } else {
+                ready.add(candidate);
+            }
+        }
+        result = ready.size() > 1 ? tryInParallel(ready) : trySequentially(ready, true);
+        if (result != null) {
+            return result;
+        }
+        return trySequentially(locked, true);
+    }
+
+    /**
+     * Return the identifiers of the keys for which decryption was postponed, since no passphrase was available.
+     *
+     * @return postponed keys
+     */
+    Set<SubkeyIdentifier> getPostponedKeys() {
+        Set<SubkeyIdentifier> keys = new LinkedHashSet<>();
+        for (Candidate candidate : postponed) {
+            keys.add(candidate.identifier);
+        }
+        return keys;
+    }
+
+    /**
+     * Try to recover the session key using the postponed candidates.
+     * This will cause the protectors to ask for missing passphrases.
+     *
+     * @return result or null if the session key could not be recovered
+     * @throws PGPException if a secret key cannot be unlocked
+     */
+    @Nullable
+    Result recoverPostponed() throws PGPException {
+        List<Candidate> pending = new ArrayList<>(postponed);
+        postponed.clear();
+        return trySequentially(pending, false);
+    }
+
+    /**
+     * Return the number of private key operations which were performed in order to recover the session key.
+     *
+     * @return number of decryption attempts
+     */
+    int getAttempts() {
+        return attempts.get();
+    }
+
+    private Result trySequentially(List<Candidate> sortedCandidates, boolean postponeIfMissingPassphrase)
+            throws PGPException {
+        for (Candidate candidate : sortedCandidates) {
+            PGPPrivateKey privateKey = unlock(candidate, postponeIfMissingPassphrase);
+            if (privateKey == null) {
+                continue;
+            }
+            PGPSessionKey sessionKey = tryDecryption(candidate, privateKey);
+            if (sessionKey != null) {
+                return candidate.toResult(privateKey, sessionKey);
+            }
+        }
+        return null;
+    }
+
+    private Result tryInParallel(List<Candidate> sortedCandidates) throws PGPException {
+        // Extract the (unprotected) keys on this thread, since protectors are not required to be thread-safe
+        List<Candidate> unlocked = new ArrayList<>();
+        List<PGPPrivateKey> privateKeys = new ArrayList<>();
+        for (Candidate candidate : sortedCandidates) {
+            PGPPrivateKey privateKey = unlock(candidate, true);
+            if (privateKey != null) {
+                unlocked.add(candidate);
+                privateKeys.add(privateKey);
+            }
+        }
+
+        List<FutureTask<PGPSessionKey>> tasks = new ArrayList<>(unlocked.size());
+        for (int i = 0; i < unlocked.size(); i++) {
+            final Candidate candidate = unlocked.get(i);
+            final PGPPrivateKey privateKey = privateKeys.get(i);
+            FutureTask<PGPSessionKey> task = new FutureTask<>(new Callable<PGPSessionKey>() {
+                @Override
+                public PGPSessionKey call() {
+                    return tryDecryption(candidate, privateKey);
+                }
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        // Collect results in order of cost. Tasks which were not yet picked up by the executor are run on this thread.
+        Result result = null;
+        for (int i = 0; i < tasks.size() && result == null; i++) {
+            FutureTask<PGPSessionKey> task = tasks.get(i);
+            task.run();
+            try {
+                PGPSessionKey sessionKey = task.get();
+                if (sessionKey != null) {
+                    result = unlocked.get(i).toResult(privateKeys.get(i), sessionKey);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll(tasks);
+                throw new PGPException("Interrupted while decrypting the session key.", e);
+            } catch (ExecutionException e) {
+                LOGGER.debug("Unexpected error while decrypting the session key.", e.getCause());
+            }
+        }
+        cancelAll(tasks);
+        return result;
+    }
+
+    private static void cancelAll(List<FutureTask<PGPSessionKey>> tasks) {
+        for (FutureTask<PGPSessionKey> task : tasks) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Return the unlocked private key of the candidate, or null if decryption with the candidate was postponed.
+     */
+    private PGPPrivateKey unlock(Candidate candidate, boolean postponeIfMissingPassphrase) throws PGPException {
+        PGPPrivateKey privateKey = candidate.getUnlockedKey();
+        if (privateKey != null) {
+            return privateKey;
+        }
+
+        SecretKeyRingProtector protector = candidate.protector;
+        if (postponeIfMissingPassphrase && !protector.hasPassphraseFor(candidate.secretKey.getKeyID())) {
+            // Postpone decryption with key with missing passphrase
+            postponed.add(candidate);
+            return null;
+        }
+
+        privateKey = UnlockSecretKey.unlockSecretKey(candidate.secretKey, protector);
+        if (unlockedKeys != null) {
+            unlockedKeys.put(candidate.identifier, privateKey);
+        }
+        return privateKey;
+    }
+
+    /**
+     * Try to decrypt the session key using the given private key.
+     * Decryption failures are expected (e.g. for hidden recipients) and result in null.
+     */
+    private PGPSessionKey tryDecryption(Candidate candidate, PGPPrivateKey privateKey) {
+        attempts.incrementAndGet();
+        PublicKeyDataDecryptorFactory decryptorFactory = ImplementationFactory.getInstance()
+                .getPublicKeyDataDecryptorFactory(privateKey);
+        long start = System.nanoTime();
+        PGPSessionKey sessionKey = null;
+        try {
+            // will only succeed if we have the right secret key
+            sessionKey = candidate.encryptedSessionKey.getSessionKey(decryptorFactory);
+            LOGGER.debug("Found correct decryption key {}.", Long.toHexString(candidate.secretKey.getKeyID()));
+        } catch (PGPException | RuntimeException e) {
+            // wrong key
+        }
+        PGPainless.getPolicy().getOperationListener().onSessionKeyDecryption(candidate.secretKey.getKeyID(),
+                candidate.secretKey.getPublicKey().getAlgorithm(), sessionKey != null, System.nanoTime() - start);
+        return sessionKey;
+    }
+
+    private static List<Candidate> sortByCost(List<Candidate> candidates) {
+        List<Candidate> sorted = new ArrayList<>(candidates);
+        // stable sort, so candidates of equal cost keep the order of the PKESKs
+        Collections.sort(sorted, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate a, Candidate b) {
+                return a.cost < b.cost ? -1 : (a.cost == b.cost ? 0 : 1);
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Estimate the relative cost of a private key operation of the given key.
+     *
+     * @param publicKey public key
+     * @return estimated cost
+     */
+    static int algorithmCost(PGPPublicKey publicKey) {
+        int bits = publicKey.getBitStrength();
+        switch (publicKey.getAlgorithm()) {
+            case PublicKeyAlgorithmTags.ECDH:
+                return bits <= 256 ? 1 : 2 + bits / 256;
+            case PublicKeyAlgorithmTags.RSA_GENERAL:
+            case PublicKeyAlgorithmTags.RSA_ENCRYPT:
+                // private key operations scale roughly cubic with the modulus size
+                return cube(Math.max(1, bits / 1024));
+            case PublicKeyAlgorithmTags.ELGAMAL_ENCRYPT:
+            case PublicKeyAlgorithmTags.ELGAMAL_GENERAL:
+                // like RSA, but without CRT speedup
+                return 2 * cube(Math.max(1, bits / 1024));
+            default:
+                return 100;
+        }
+    }
+
+    private static int cube(int i) {
+        return i * i * i;
+    }
+
+    private final class Candidate {
+
+        private final PGPSecretKeyRing secretKeys;
+        private final PGPSecretKey secretKey;
+        private final SubkeyIdentifier identifier;
+        private final SecretKeyRingProtector protector;
+        private final PGPPublicKeyEncryptedData encryptedSessionKey;
+        private final boolean locked;
+        private final int cost;
+
+        private Candidate(PGPSecretKeyRing secretKeys, PGPSecretKey secretKey,
+                          PGPPublicKeyEncryptedData encryptedSessionKey) {
+            this.secretKeys = secretKeys;
+            this.secretKey = secretKey;
+            this.identifier = new SubkeyIdentifier(secretKeys, secretKey.getKeyID());
+            this.protector = options.getSecretKeyProtector(secretKeys);
+            this.encryptedSessionKey = encryptedSessionKey;
+
+            this.locked = getUnlockedKey() == null && secretKey.getS2KUsage() != SecretKeyPacket.USAGE_NONE;
+            this.cost = (locked ? UNLOCK_COST : 0) + algorithmCost(secretKey.getPublicKey());
+        }
+
+        private PGPPrivateKey getUnlockedKey() {
+            PGPPrivateKey privateKey = unlockedKeys != null ? unlockedKeys.get(identifier) : null;
+            if (privateKey == null) {
+                privateKey = UnlockedPrivateKeyCache.getInstance().get(secretKey, protector);
+            }
+            return privateKey;
+        }
+
+        private Result toResult(PGPPrivateKey privateKey, PGPSessionKey sessionKey) {
+            return new Result(new SubkeyIdentifier(secretKeys, privateKey.getKeyID()), encryptedSessionKey, sessionKey);
+        }
+    }
+
+    /**
+     * Successfully recovered session key.
+     */
+    static final class Result {
+
+        private final SubkeyIdentifier decryptionKey;
+        private final PGPPublicKeyEncryptedData encryptedSessionKey;
+        private final PGPSessionKey sessionKey;
+
+        private Result(SubkeyIdentifier decryptionKey,
+                       PGPPublicKeyEncryptedData encryptedSessionKey,
+                       PGPSessionKey sessionKey) {
+            this.decryptionKey = decryptionKey;
+            this.encryptedSessionKey = encryptedSessionKey;
+            this.sessionKey = sessionKey;
+        }
+
+        SubkeyIdentifier getDecryptionKey() {
+            return decryptionKey;
+        }
+
+        PGPPublicKeyEncryptedData getEncryptedSessionKey() {
+            return encryptedSessionKey;
+        }
+
+        PGPSessionKey getSessionKey() {
+            return sessionKey;
+        }
+    }
+}
@@ -44,6 +44,9 @@ public abstract class SignatureInputStream extends FilterInputStream {
         private final List<DetachedSignatureCheck> detachedSignatures;
         private final ConsumerOptions options;
         private final OpenPgpMetadata.Builder resultBuilder;
+        private boolean verified = false;
+        // number of bytes fed into the signatures, reported to the OperationListener
+        private long bytesRead = 0;
 
         public VerifySignatures(
                 InputStream literalDataStream,
@@ -67,9 +70,14 @@ public abstract class SignatureInputStream extends FilterInputStream {
             final int data = super.read();
             final boolean endOfStream = data == -1;
             if (endOfStream) {
-                verifyOnePassSignatures();
-                verifyDetachedSignatures();
+                if (!verified) {
+                    verified = true;
+                    verifyOnePassSignatures();
+                    verifyDetachedSignatures();
+                    reportBytesHashed();
+                }
             } else {
+                bytesRead++;
                 byte b = (byte) data;
                 updateOnePassSignatures(b);
                 updateDetachedSignatures(b);
@@ -83,10 +91,16 @@ public abstract class SignatureInputStream extends FilterInputStream {
 
             final boolean endOfStream = read == -1;
             if (endOfStream) {
-                parseAndCombineSignatures();
-                verifyOnePassSignatures();
-                verifyDetachedSignatures();
+                // Signatures are only verified once, even if the end of the stream is read repeatedly
+                if (!verified) {
+                    verified = true;
+                    parseAndCombineSignatures();
+                    verifyOnePassSignatures();
+                    verifyDetachedSignatures();
+                    reportBytesHashed();
+                }
             } else {
+                bytesRead += read;
                 updateOnePassSignatures(b, off, read);
                 updateDetachedSignatures(b, off, read);
             }
@@ -137,6 +151,7 @@ public abstract class SignatureInputStream extends FilterInputStream {
             if (signatureList == null || signatureList.isEmpty()) {
                 throw new IOException("Verification failed - No Signatures found");
             }
+            DecryptionStreamFactory.reportParsedPackets(PGPainless.getPolicy().getOperationListener(), signatureList);
 
             return signatureList;
         }
@@ -150,10 +165,14 @@ public abstract class SignatureInputStream extends FilterInputStream {
                     continue;
                 }
 
+                long start = System.nanoTime();
+                boolean valid = false;
                 try {
                     signatureWasCreatedInBounds(options.getVerifyNotBefore(),
                             options.getVerifyNotAfter()).verify(opSignature.getSignature());
-                    CertificateValidator.validateCertificateAndVerifyOnePassSignature(opSignature, policy);
+                    CertificateValidator.validateCertificateAndVerifyOnePassSignature(opSignature, policy,
+                            options.getCertificateValidationExecutor());
+                    valid = true;
                     resultBuilder.addVerifiedInbandSignature(
                             new SignatureVerification(opSignature.getSignature(), opSignature.getSigningKey()));
                 } catch (SignatureValidationException e) {
@@ -161,6 +180,10 @@ public abstract class SignatureInputStream extends FilterInputStream {
                             opSignature.getSigningKey(), e.getMessage(), e);
                     resultBuilder.addInvalidInbandSignature(
                             new SignatureVerification(opSignature.getSignature(), opSignature.getSigningKey()), e);
+                } finally {
+                    policy.getOperationListener().onSignatureVerification(
+                            SignatureUtils.determineIssuerKeyId(opSignature.getSignature()),
+                            valid, System.nanoTime() - start);
                 }
             }
         }
@@ -168,11 +191,14 @@ public abstract class SignatureInputStream extends FilterInputStream {
         private void verifyDetachedSignatures() {
             Policy policy = PGPainless.getPolicy();
             for (DetachedSignatureCheck s : detachedSignatures) {
+                long start = System.nanoTime();
+                boolean valid = false;
                 try {
                     signatureWasCreatedInBounds(options.getVerifyNotBefore(),
                             options.getVerifyNotAfter()).verify(s.getSignature());
                     CertificateValidator.validateCertificateAndVerifyInitializedSignature(s.getSignature(),
-                            (PGPPublicKeyRing) s.getSigningKeyRing(), policy);
+                            (PGPPublicKeyRing) s.getSigningKeyRing(), policy, options.getCertificateValidationExecutor());
+                    valid = true;
                     resultBuilder.addVerifiedDetachedSignature(new SignatureVerification(s.getSignature(),
                             s.getSigningKeyIdentifier()));
                 } catch (SignatureValidationException e) {
@@ -180,10 +206,21 @@ public abstract class SignatureInputStream extends FilterInputStream {
                             s.getSigningKeyIdentifier(), e.getMessage(), e);
                     resultBuilder.addInvalidDetachedSignature(new SignatureVerification(s.getSignature(),
                             s.getSigningKeyIdentifier()), e);
+                } finally {
+                    policy.getOperationListener().onSignatureVerification(
+                            SignatureUtils.determineIssuerKeyId(s.getSignature()),
+                            valid, System.nanoTime() - start);
                 }
             }
         }
 
+        private void reportBytesHashed() {
+            int signatures = opSignatures.size() + detachedSignatures.size();
+            if (signatures != 0) {
+                PGPainless.getPolicy().getOperationListener().onBytesHashed(bytesRead * signatures);
+            }
+        }
+
         private void updateOnePassSignatures(byte data) {
             for (OnePassSignatureCheck opSignature : opSignatures) {
                 opSignature.getOnePassSignature().update(data);
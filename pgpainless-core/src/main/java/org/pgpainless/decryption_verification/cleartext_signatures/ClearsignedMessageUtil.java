@@ -9,14 +9,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import javax.annotation.Nonnull;
 
 import org.bouncycastle.bcpg.ArmoredInputStream;
 import org.bouncycastle.openpgp.PGPObjectFactory;
 import org.bouncycastle.openpgp.PGPSignatureList;
-import org.bouncycastle.util.Strings;
 import org.pgpainless.exception.WrongConsumingMethodException;
 import org.pgpainless.implementation.ImplementationFactory;
 import org.pgpainless.util.ArmoredInputStreamFactory;
+import org.pgpainless.util.CleartextCanonicalizer;
 
 /**
  * Utility class to deal with cleartext-signed messages.
@@ -24,6 +25,19 @@ import org.pgpainless.util.ArmoredInputStreamFactory;
  */
 public final class ClearsignedMessageUtil {
 
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+            // discard
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) {
+            // discard
+        }
+    };
+
     private ClearsignedMessageUtil() {
 
     }
@@ -47,26 +61,21 @@ public final class ClearsignedMessageUtil {
 
         OutputStream out = new BufferedOutputStream(messageOutputStream);
         try {
-            ByteArrayOutputStream lineOut = new ByteArrayOutputStream();
-            int lookAhead = readInputLine(lineOut, in);
-            byte[] lineSep = getLineSeparator();
-
-            if (lookAhead != -1 && in.isClearText()) {
-                byte[] line = lineOut.toByteArray();
-                out.write(line, 0, getLengthWithoutSeparatorOrTrailingWhitespace(line));
-
-                while (lookAhead != -1 && in.isClearText()) {
-                    lookAhead = readInputLine(lineOut, lookAhead, in);
-                    line = lineOut.toByteArray();
-                    out.write(lineSep);
-                    out.write(line, 0, getLengthWithoutSeparatorOrTrailingWhitespace(line));
-                }
-            } else {
-                if (lookAhead != -1) {
-                    byte[] line = lineOut.toByteArray();
-                    out.write(line, 0, getLengthWithoutSeparatorOrTrailingWhitespace(line));
+            // only the text is needed, the signatures are updated when it is read from the multi-pass strategy
+            CleartextCanonicalizer canonicalizer = CleartextCanonicalizer.forVerification(DISCARD, out);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length = 0;
+            int c;
+            // in clear text mode, the armored input stream un-escapes the text and reads single bytes anyway
+            while ((c = in.read()) >= 0 && in.isClearText()) {
+                buffer[length++] = (byte) c;
+                if (length == buffer.length) {
+                    canonicalizer.update(buffer, 0, length);
+                    length = 0;
                 }
             }
+            canonicalizer.update(buffer, 0, length);
+            canonicalizer.finish();
         } finally {
             out.close();
         }
@@ -128,34 +137,4 @@ public final class ClearsignedMessageUtil {
 
         return lookAhead;
     }
-
-
-    private static byte[] getLineSeparator() {
-        String nl = Strings.lineSeparator();
-        byte[] nlBytes = new byte[nl.length()];
-
-        for (int i = 0; i != nlBytes.length; i++) {
-            nlBytes[i] = (byte) nl.charAt(i);
-        }
-
-        return nlBytes;
-    }
-
-    private static int getLengthWithoutSeparatorOrTrailingWhitespace(byte[] line) {
-        int    end = line.length - 1;
-
-        while (end >= 0 && isWhiteSpace(line[end])) {
-            end--;
-        }
-
-        return end + 1;
-    }
-
-    private static boolean isLineEnding(byte b) {
-        return b == '\r' || b == '\n';
-    }
-
-    private static boolean isWhiteSpace(byte b) {
-        return isLineEnding(b) || b == '\t' || b == ' ';
-    }
 }
@@ -0,0 +1,223 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification.cleartext_signatures;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.bcpg.ArmoredInputStream;
+import org.bouncycastle.openpgp.PGPObjectFactory;
+import org.bouncycastle.openpgp.PGPSignatureList;
+import org.pgpainless.exception.WrongConsumingMethodException;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.util.ArmoredInputStreamFactory;
+import org.pgpainless.util.CleartextCanonicalizer;
+
+/**
+ * {@link InputStream} which reads the text of a message using the Cleartext Signature Framework in a single pass.
+ *
+ * The text is returned the same way {@link ClearsignedMessageUtil#detachSignaturesFromInbandClearsignedMessage(
+ * InputStream, OutputStream)} writes it, with trailing whitespace removed and lines separated by the line separator
+ * of the system.
+ * At the same time, the canonical form of the text (lines separated by CRLF) is written to the hash stream, and
+ * optionally the text as returned to a second stream.
+ * The text is read in chunks from the stream underlying the {@link ArmoredInputStream}, which is only used to parse
+ * the armor headers, and un-escaped and canonicalized using a {@link CleartextCanonicalizer}.
+ * Memory consumption does not depend on the length of the message.
+ * Once the text is consumed, the signatures following it are parsed and passed to {@link #onSignatures(PGPSignatureList)}
+ * by the read call which signals the end of the stream to the reader.
+ */
+public abstract class ClearsignedTextInputStream extends InputStream {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private final ArmoredInputStream armorIn;
+    private final InputStream in;
+    private final byte[] readBuffer = new byte[BUFFER_SIZE];
+    private final TextBuffer text = new TextBuffer();
+    private final CleartextCanonicalizer canonicalizer;
+    private final OutputStream textOut;
+    private int textPos = 0;
+
+    private boolean atLineStart = true;
+    // a dash at the start of a line was read, which either escapes the line or starts the signature armor
+    private boolean dashPending = false;
+    private boolean endOfText = false;
+    private boolean signaturesRead = false;
+    // armor containing the signatures, starting with the dashes which ended the text
+    private InputStream signatureIn = null;
+
+    /**
+     * Create a stream reading the text of the clearsigned message.
+     *
+     * @param armorIn armored input stream, after the armor headers were parsed
+     * @param in stream underlying the armored input stream, which is positioned at the start of the text
+     * @param hashOut stream to which the canonical text is written
+     * @throws WrongConsumingMethodException if the message is not using the Cleartext Signature Framework
+     */
+    protected ClearsignedTextInputStream(@Nonnull ArmoredInputStream armorIn,
+                                         @Nonnull InputStream in,
+                                         @Nonnull OutputStream hashOut)
+            throws WrongConsumingMethodException {
+        this(armorIn, in, hashOut, null);
+    }
+
+    /**
+     * Create a stream reading the text of the clearsigned message, which also writes the text as it is returned
+     * by this stream to the given text stream, e.g. to hash it for signatures which are not calculated over the
+     * canonical text.
+     *
+     * @param armorIn armored input stream, after the armor headers were parsed
+     * @param in stream underlying the armored input stream, which is positioned at the start of the text
+     * @param hashOut stream to which the canonical text is written
+     * @param textOut stream to which the text is written as returned, or null
+     * @throws WrongConsumingMethodException if the message is not using the Cleartext Signature Framework
+     */
+    protected ClearsignedTextInputStream(@Nonnull ArmoredInputStream armorIn,
+                                         @Nonnull InputStream in,
+                                         @Nonnull OutputStream hashOut,
+                                         @Nullable OutputStream textOut)
+            throws WrongConsumingMethodException {
+        if (!armorIn.isClearText()) {
+            throw new WrongConsumingMethodException("Message is not using the Cleartext Signature Framework.");
+        }
+        this.armorIn = armorIn;
+        this.in = in;
+        this.canonicalizer = CleartextCanonicalizer.forVerification(hashOut, text);
+        this.textOut = textOut;
+    }
+
+    /**
+     * Called once the text was read completely with the signatures following the text.
+     * At this point, the complete canonical text was written to the hash stream.
+     *
+     * @param signatures signatures of the message
+     * @throws IOException in case of an error processing the signatures
+     */
+    protected abstract void onSignatures(@Nonnull PGPSignatureList signatures) throws IOException;
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return text.array()[textPos++] & 0xff;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, text.size() - textPos);
+        System.arraycopy(text.array(), textPos, b, off, n);
+        textPos += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        armorIn.close();
+    }
+
+    private boolean fill() throws IOException {
+        if (textPos < text.size()) {
+            return true;
+        }
+        text.reset();
+        textPos = 0;
+        while (text.size() == 0 && !endOfText) {
+            readChunk();
+        }
+        if (text.size() != 0) {
+            if (textOut != null) {
+                textOut.write(text.array(), 0, text.size());
+            }
+            return true;
+        }
+        if (!signaturesRead) {
+            signaturesRead = true;
+            onSignatures(readSignatures());
+        }
+        return false;
+    }
+
+    private void readChunk() throws IOException {
+        int len = in.read(readBuffer);
+        if (len == -1) {
+            endOfText = true;
+            canonicalizer.finish();
+            return;
+        }
+
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+            byte c = readBuffer[i];
+            if (dashPending) {
+                dashPending = false;
+                if (c == '-') {
+                    // the armor header line of the signatures follows the last line ending
+                    endOfText = true;
+                    canonicalizer.finish();
+                    byte[] armorStart = new byte[len - i + 1];
+                    armorStart[0] = '-';
+                    armorStart[1] = '-';
+                    System.arraycopy(readBuffer, i + 1, armorStart, 2, len - i - 1);
+                    signatureIn = new SequenceInputStream(new ByteArrayInputStream(armorStart), in);
+                    return;
+                }
+                // dash-escaped line, drop the escape
+                start = i + 1;
+                atLineStart = false;
+                continue;
+            }
+            if (atLineStart && c == '-') {
+                canonicalizer.update(readBuffer, start, i - start);
+                dashPending = true;
+                start = i + 1;
+                continue;
+            }
+            atLineStart = c == '\r' || c == '\n';
+        }
+        canonicalizer.update(readBuffer, start, len - start);
+        canonicalizer.flush();
+    }
+
+    private PGPSignatureList readSignatures() throws IOException {
+        if (signatureIn == null) {
+            throw new IOException("Cleartext signed message is not followed by signatures.");
+        }
+        ArmoredInputStream signatureArmor = ArmoredInputStreamFactory.get(signatureIn);
+        PGPObjectFactory objectFactory = ImplementationFactory.getInstance().getPGPObjectFactory(signatureArmor);
+        Object next = objectFactory.nextObject();
+        if (!(next instanceof PGPSignatureList)) {
+            throw new IOException("Cleartext signed message is not followed by signatures.");
+        }
+        return (PGPSignatureList) next;
+    }
+
+    /**
+     * Output of the {@link CleartextCanonicalizer}, which allows access to its contents without copying.
+     */
+    private static final class TextBuffer extends ByteArrayOutputStream {
+
+        private TextBuffer() {
+            super(BUFFER_SIZE);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+    }
+}
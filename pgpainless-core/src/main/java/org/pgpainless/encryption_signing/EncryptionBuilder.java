@@ -6,6 +6,9 @@ package org.pgpainless.encryption_signing;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -17,6 +20,8 @@ import org.pgpainless.algorithm.CompressionAlgorithm;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
 import org.pgpainless.algorithm.negotiation.SymmetricKeyAlgorithmNegotiator;
 import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.util.ChannelOutputStream;
+import org.pgpainless.util.MappedFileInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +47,40 @@ public class EncryptionBuilder implements EncryptionBuilderInterface {
         }
     }
 
+    static class WithChannelOptionsImpl implements WithChannelOptions {
+
+        private final FileChannel plaintext;
+        private final WritableByteChannel ciphertext;
+
+        WithChannelOptionsImpl(FileChannel plaintext, WritableByteChannel ciphertext) {
+            this.plaintext = plaintext;
+            this.ciphertext = ciphertext;
+        }
+
+        @Override
+        public EncryptionResult withOptions(ProducerOptions options) throws PGPException, IOException {
+            if (options == null) {
+                throw new NullPointerException("ProducerOptions cannot be null.");
+            }
+            ChannelOutputStream ciphertextOut = new ChannelOutputStream(ciphertext);
+            EncryptionStream encryptionStream = new EncryptionStream(ciphertextOut, options);
+
+            long position = plaintext.position();
+            long size = plaintext.size();
+            while (position < size) {
+                long length = Math.min(MappedFileInputStream.DEFAULT_REGION_SIZE, size - position);
+                MappedByteBuffer region = plaintext.map(FileChannel.MapMode.READ_ONLY, position, length);
+                encryptionStream.write(region);
+                position += length;
+            }
+            plaintext.position(position);
+
+            encryptionStream.close();
+            ciphertextOut.flush();
+            return encryptionStream.getResult();
+        }
+    }
+
     /**
      * Negotiate the {@link SymmetricKeyAlgorithm} used for message encryption.
      *
@@ -6,6 +6,8 @@ package org.pgpainless.encryption_signing;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import javax.annotation.Nonnull;
 
 import org.bouncycastle.openpgp.PGPException;
@@ -21,6 +23,26 @@ public interface EncryptionBuilderInterface {
      */
     WithOptions onOutputStream(@Nonnull OutputStream outputStream);
 
+    /**
+     * Encrypt and/or sign the contents of a {@link FileChannel} from its current position to the end of the file,
+     * and write the result to a {@link WritableByteChannel}.
+     * The plain data is read by mapping the file into memory, and the output is written in large chunks,
+     * which makes this considerably faster than streaming large files through an {@link EncryptionStream}.
+     * Consider setting a large buffer size via {@link ProducerOptions#setBufferSize(int)} to also reduce the number
+     * of partial packets.
+     *
+     * Afterwards, the position of the plaintext channel is at the end of the file.
+     * Neither channel is closed.
+     *
+     * @param plaintext file channel containing the plain data
+     * @param ciphertext channel to which the encrypted and/or signed data is written
+     * @return api handle
+     */
+    default WithChannelOptions onFileChannel(@Nonnull FileChannel plaintext,
+                                             @Nonnull WritableByteChannel ciphertext) {
+        return new EncryptionBuilder.WithChannelOptionsImpl(plaintext, ciphertext);
+    }
+
     interface WithOptions {
 
         /**
@@ -32,4 +54,18 @@ public interface EncryptionBuilderInterface {
         EncryptionStream withOptions(ProducerOptions options) throws PGPException, IOException;
 
     }
+
+    interface WithChannelOptions {
+
+        /**
+         * Encrypt and/or sign the contents of the file channel with the given options.
+         *
+         * @param options options
+         * @return result of the operation
+         * @throws PGPException in case of an OpenPGP related error
+         * @throws IOException in case of an IO error
+         */
+        EncryptionResult withOptions(ProducerOptions options) throws PGPException, IOException;
+
+    }
 }
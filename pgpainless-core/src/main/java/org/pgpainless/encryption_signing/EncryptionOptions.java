@@ -12,14 +12,18 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
 import org.bouncycastle.openpgp.operator.PBEKeyEncryptionMethodGenerator;
 import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.pgpainless.PGPainless;
 import org.pgpainless.algorithm.EncryptionPurpose;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
 import org.pgpainless.implementation.ImplementationFactory;
@@ -66,6 +70,10 @@ public class EncryptionOptions {
 
     private SymmetricKeyAlgorithm encryptionAlgorithmOverride = null;
 
+    private long sessionKeyLifetime = 0;
+    private SessionEnvelope sessionEnvelope = null;
+    private Executor sessionKeyEncryptionExecutor = null;
+
     /**
      * Encrypt to keys both carrying the key flag {@link org.pgpainless.algorithm.KeyFlag#ENCRYPT_COMMS}
      * or {@link org.pgpainless.algorithm.KeyFlag#ENCRYPT_STORAGE}.
@@ -148,7 +156,7 @@ public class EncryptionOptions {
      * @return this
      */
     public EncryptionOptions addRecipient(PGPPublicKeyRing key, String userId, EncryptionKeySelector encryptionKeySelectionStrategy) {
-        KeyRingInfo info = new KeyRingInfo(key, new Date());
+        KeyRingInfo info = PGPainless.inspectKeyRing(key, new Date());
 
         List<PGPPublicKey> encryptionSubkeys = encryptionKeySelectionStrategy
                 .selectEncryptionSubkeys(info.getEncryptionSubkeys(userId, purpose));
@@ -184,7 +192,7 @@ public class EncryptionOptions {
      * @return this
      */
     public EncryptionOptions addRecipient(PGPPublicKeyRing key, EncryptionKeySelector encryptionKeySelectionStrategy) {
-        KeyRingInfo info = new KeyRingInfo(key, new Date());
+        KeyRingInfo info = PGPainless.inspectKeyRing(key, new Date());
         Date primaryKeyExpiration = info.getPrimaryKeyExpirationDate();
         if (primaryKeyExpiration != null && primaryKeyExpiration.before(new Date())) {
             throw new IllegalArgumentException("Provided key " + OpenPgpFingerprint.of(key) + " is expired: " + primaryKeyExpiration);
@@ -240,9 +248,19 @@ public class EncryptionOptions {
      */
     public EncryptionOptions addEncryptionMethod(PGPKeyEncryptionMethodGenerator encryptionMethod) {
         encryptionMethods.add(encryptionMethod);
+        invalidateSessionEnvelope();
         return this;
     }
 
+    /**
+     * Return true, if at least one recipient or passphrase was added to these options.
+     *
+     * @return true if the options contain encryption methods
+     */
+    public boolean hasEncryptionMethods() {
+        return !encryptionMethods.isEmpty();
+    }
+
     Set<PGPKeyEncryptionMethodGenerator> getEncryptionMethods() {
         return new HashSet<>(encryptionMethods);
     }
@@ -278,9 +296,91 @@ public class EncryptionOptions {
             throw new IllegalArgumentException("Plaintext encryption can only be used to denote unencrypted secret keys.");
         }
         this.encryptionAlgorithmOverride = encryptionAlgorithm;
+        invalidateSessionEnvelope();
+        return this;
+    }
+
+    /**
+     * Reuse the session key for all messages which are encrypted using these options within the given lifetime.
+     *
+     * Usually, every message is encrypted using a fresh session key, which is then encrypted for each recipient
+     * subkey using public key cryptography.
+     * If the same options are used to encrypt many messages for a large number of recipients (e.g. a mailing list),
+     * these public key operations dominate the cost of encryption.
+     * With this option, the session key and the encrypted session key packets are computed once and reused
+     * for all messages within the lifetime. Afterwards, a new session key is generated.
+     *
+     * Note: Every recipient is able to decrypt all messages which share a session key.
+     * Leaking the session key of one message therefore exposes all other messages encrypted within the lifetime.
+     *
+     * Adding further recipients or passphrases, or changing the encryption algorithm causes a new session key
+     * to be generated.
+     *
+     * @param lifetimeMillis lifetime of the session key in milliseconds, or 0 to use a fresh key for every message
+     * @return this
+     */
+    public synchronized EncryptionOptions reuseSessionKey(long lifetimeMillis) {
+        if (lifetimeMillis < 0) {
+            throw new IllegalArgumentException("Lifetime MUST NOT be negative.");
+        }
+        this.sessionKeyLifetime = lifetimeMillis;
+        this.sessionEnvelope = null;
         return this;
     }
 
+    /**
+     * Set an {@link Executor} which is used to encrypt the session key for the recipients in parallel.
+     *
+     * Encrypting the session key requires one public key operation per recipient subkey.
+     * For large recipient lists (e.g. hundreds of RSA keys), these operations add up to a noticeable delay
+     * before the first byte of the message is written.
+     * If an executor is set, the encrypted session key packets are computed concurrently before the message header
+     * is emitted. The order of the packets is not affected.
+     * By default (null), the session key is encrypted sequentially on the thread which sets up the encryption stream.
+     *
+     * @param executor executor or null
+     * @return this
+     */
+    public synchronized EncryptionOptions setSessionKeyEncryptionExecutor(@Nullable Executor executor) {
+        this.sessionKeyEncryptionExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Return the {@link Executor} used to encrypt the session key for the recipients, or null if the session key
+     * is encrypted sequentially.
+     *
+     * @return executor or null
+     */
+    public synchronized @Nullable Executor getSessionKeyEncryptionExecutor() {
+        return sessionKeyEncryptionExecutor;
+    }
+
+    /**
+     * Return the {@link SessionEnvelope} to be used for the next message, or null if the session key is
+     * generated and encrypted by the {@link org.bouncycastle.openpgp.PGPEncryptedDataGenerator}.
+     * If session keys are reused and the current envelope expired, a new one is created.
+     * If session keys are not reused, but a {@link #setSessionKeyEncryptionExecutor(Executor) session key encryption
+     * executor} is set, a single-use envelope is returned.
+     *
+     * @return session envelope or null
+     * @throws PGPException if the session key cannot be encrypted for a recipient
+     */
+    synchronized SessionEnvelope getSessionEnvelope() throws PGPException {
+        if (sessionKeyLifetime == 0) {
+            return sessionKeyEncryptionExecutor == null ? null :
+                    SessionEnvelope.create(this, 0, sessionKeyEncryptionExecutor);
+        }
+        if (sessionEnvelope == null || sessionEnvelope.isExpired(System.currentTimeMillis())) {
+            sessionEnvelope = SessionEnvelope.create(this, sessionKeyLifetime, sessionKeyEncryptionExecutor);
+        }
+        return sessionEnvelope;
+    }
+
+    private synchronized void invalidateSessionEnvelope() {
+        sessionEnvelope = null;
+    }
+
     public interface EncryptionKeySelector {
         List<PGPPublicKey> selectEncryptionSubkeys(List<PGPPublicKey> encryptionCapableKeys);
     }
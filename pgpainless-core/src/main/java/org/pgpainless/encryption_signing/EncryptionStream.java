@@ -4,8 +4,11 @@
 
 package org.pgpainless.encryption_signing;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nonnull;
@@ -19,12 +22,15 @@ import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPSignatureGenerator;
 import org.bouncycastle.openpgp.operator.PGPDataEncryptorBuilder;
 import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.pgpainless.PGPainless;
 import org.pgpainless.algorithm.CompressionAlgorithm;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
 import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.instrumentation.OperationListener;
 import org.pgpainless.key.SubkeyIdentifier;
 import org.pgpainless.util.ArmorUtils;
 import org.pgpainless.util.ArmoredOutputStreamFactory;
+import org.pgpainless.util.CleartextCanonicalizer;
 import org.pgpainless.util.StreamGeneratorWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,30 +47,114 @@ public final class EncryptionStream extends OutputStream {
     private final EncryptionResult.Builder resultBuilder = EncryptionResult.builder();
 
     private boolean closed = false;
-    // 1 << 8 causes wrong partial body length encoding
-    //  1 << 9 fixes this.
-    //  see https://github.com/pgpainless/pgpainless/issues/160
-    private static final int BUFFER_SIZE = 1 << 9;
+    private static final int TRANSFER_BUFFER_SIZE = 1 << 16;
+    // Maximum amount of plaintext buffered in adaptive buffer size mode in order to determine the buffer size
+    static final int ADAPTIVE_PROBE_SIZE = 1 << 16;
+    private static final PGPSignatureGenerator[] NO_SIGNERS = new PGPSignatureGenerator[0];
 
     OutputStream outermostStream;
     private ArmoredOutputStream armorOutputStream = null;
+    // Stream wrapped by the ASCII armor, to which the cleartext of cleartext-signed messages is written directly
+    private OutputStream armorTargetStream = null;
+    // Dash-escapes and canonicalizes the text of cleartext-signed messages, or null
+    private CleartextCanonicalizer cleartextCanonicalizer = null;
+    // Generators of binary signatures over the text of cleartext-signed messages, which hash the text as written
+    private PGPSignatureGenerator[] binaryCleartextSignatureGenerators = NO_SIGNERS;
+    private final byte[] singleByte = new byte[1];
     private OutputStream publicKeyEncryptedStream = null;
     private PGPCompressedDataGenerator compressedDataGenerator;
     private BCPGOutputStream basicCompressionStream;
     private StreamGeneratorWrapper streamGeneratorWrapper;
     private OutputStream literalDataStream;
+    // Signature generators of all signing methods, so that writes do not need to iterate the signing options
+    private final PGPSignatureGenerator[] signatureGenerators;
+    // Scratch buffer for copying the contents of direct ByteBuffers
+    private byte[] transferBuffer = null;
+    // Plaintext buffered in adaptive buffer size mode before the packet pipeline is set up, or null
+    private ByteArrayOutputStream pendingData = null;
+
+    private CompressionAlgorithm compressionAlgorithm = CompressionAlgorithm.UNCOMPRESSED;
+    // number of plaintext bytes written, reported to the OperationListener
+    private long bytesWritten = 0;
 
     EncryptionStream(@Nonnull OutputStream targetOutputStream,
                      @Nonnull ProducerOptions options)
             throws IOException, PGPException {
         this.options = options;
+        this.signatureGenerators = collectSignatureGenerators(options.getSigningOptions());
         outermostStream = targetOutputStream;
 
+        if (options.isAdaptiveBufferSize() && !options.isCleartextSigned()) {
+            // Postpone the setup of the packet pipeline until we know more about the size of the message
+            pendingData = new ByteArrayOutputStream();
+            return;
+        }
+        preparePipeline(options.getBufferSize());
+    }
+
+    private void preparePipeline(int bufferSize) throws IOException, PGPException {
         prepareArmor();
-        prepareEncryption();
+        prepareEncryption(bufferSize);
         prepareCompression();
         prepareOnePassSignatures();
-        prepareLiteralDataProcessing();
+        prepareLiteralDataProcessing(bufferSize);
+    }
+
+    /**
+     * In adaptive buffer size mode, buffer the given plaintext as long as the message fits into the probe.
+     * Once the message exceeds the probe, set up the packet pipeline with the maximum buffer size and write
+     * the buffered plaintext.
+     *
+     * @return true if the plaintext was buffered, false if it must be written to the packet pipeline
+     */
+    private boolean bufferPendingData(byte[] buffer, int off, int len) throws IOException {
+        if (pendingData == null) {
+            return false;
+        }
+        if (pendingData.size() + len <= Math.min(ADAPTIVE_PROBE_SIZE, options.getBufferSize())) {
+            pendingData.write(buffer, off, len);
+            return true;
+        }
+        writePendingData(options.getBufferSize());
+        return false;
+    }
+
+    /**
+     * Set up the packet pipeline for the plaintext buffered in adaptive buffer size mode and write the plaintext.
+     */
+    private void writePendingData(int bufferSize) throws IOException {
+        ByteArrayOutputStream pending = pendingData;
+        pendingData = null;
+        try {
+            preparePipeline(bufferSize);
+        } catch (PGPException e) {
+            throw new IOException("Cannot set up OpenPGP packet pipeline.", e);
+        }
+        pending.writeTo(outermostStream);
+    }
+
+    /**
+     * Return the largest power of two that does not exceed the given message size, bounded by
+     * {@link ProducerOptions#MIN_BUFFER_SIZE} and the given maximum.
+     *
+     * @param messageSize (known lower bound of the) message size
+     * @param maxBufferSize maximum buffer size
+     * @return buffer size
+     */
+    static int adaptiveBufferSize(int messageSize, int maxBufferSize) {
+        int size = Math.min(messageSize, maxBufferSize);
+        return Math.max(ProducerOptions.MIN_BUFFER_SIZE, Integer.highestOneBit(size));
+    }
+
+    private static PGPSignatureGenerator[] collectSignatureGenerators(SigningOptions signingOptions) {
+        if (signingOptions == null || signingOptions.getSigningMethods().isEmpty()) {
+            return NO_SIGNERS;
+        }
+        List<PGPSignatureGenerator> generators = new ArrayList<>();
+        for (SigningOptions.SigningMethod signingMethod : signingOptions.getSigningMethods().values()) {
+            generators.add(signingMethod.getSignatureGenerator());
+        }
+        return generators.toArray(new PGPSignatureGenerator[0]);
     }
 
     private void prepareArmor() {
@@ -74,6 +164,7 @@ public final class EncryptionStream extends OutputStream {
         }
 
         LOGGER.debug("Wrap encryption output in ASCII armor");
+        armorTargetStream = outermostStream;
         armorOutputStream = ArmoredOutputStreamFactory.get(outermostStream);
         if (options.hasComment()) {
             String[] commentLines = options.getComment().split("\n");
@@ -86,7 +177,7 @@ public final class EncryptionStream extends OutputStream {
         outermostStream = armorOutputStream;
     }
 
-    private void prepareEncryption() throws IOException, PGPException {
+    private void prepareEncryption(int bufferSize) throws IOException, PGPException {
         EncryptionOptions encryptionOptions = options.getEncryptionOptions();
         if (encryptionOptions == null || encryptionOptions.getEncryptionMethods().isEmpty()) {
             // No encryption options/methods -> no encryption
@@ -94,29 +185,39 @@ public final class EncryptionStream extends OutputStream {
             return;
         }
 
-        SymmetricKeyAlgorithm encryptionAlgorithm = EncryptionBuilder.negotiateSymmetricEncryptionAlgorithm(encryptionOptions);
+        SessionEnvelope sessionEnvelope = encryptionOptions.getSessionEnvelope();
+        SymmetricKeyAlgorithm encryptionAlgorithm = sessionEnvelope != null ? sessionEnvelope.getAlgorithm() :
+                EncryptionBuilder.negotiateSymmetricEncryptionAlgorithm(encryptionOptions);
         resultBuilder.setEncryptionAlgorithm(encryptionAlgorithm);
         LOGGER.debug("Encrypt message using {}", encryptionAlgorithm);
         PGPDataEncryptorBuilder dataEncryptorBuilder =
                 ImplementationFactory.getInstance().getPGPDataEncryptorBuilder(encryptionAlgorithm);
         dataEncryptorBuilder.setWithIntegrityPacket(true);
 
-        PGPEncryptedDataGenerator encryptedDataGenerator =
-                new PGPEncryptedDataGenerator(dataEncryptorBuilder);
-        for (PGPKeyEncryptionMethodGenerator encryptionMethod : encryptionOptions.getEncryptionMethods()) {
-            encryptedDataGenerator.addMethod(encryptionMethod);
+        PGPEncryptedDataGenerator encryptedDataGenerator;
+        if (sessionEnvelope != null) {
+            // Use precomputed session key and encrypted session key packets
+            encryptedDataGenerator = new PGPEncryptedDataGenerator(sessionEnvelope.wrap(dataEncryptorBuilder));
+            for (PGPKeyEncryptionMethodGenerator encryptionMethod : sessionEnvelope.getEncryptionMethods()) {
+                encryptedDataGenerator.addMethod(encryptionMethod);
+            }
+        } else {
+            encryptedDataGenerator = new PGPEncryptedDataGenerator(dataEncryptorBuilder);
+            for (PGPKeyEncryptionMethodGenerator encryptionMethod : encryptionOptions.getEncryptionMethods()) {
+                encryptedDataGenerator.addMethod(encryptionMethod);
+            }
         }
 
         for (SubkeyIdentifier recipientSubkeyIdentifier : encryptionOptions.getEncryptionKeyIdentifiers()) {
             resultBuilder.addRecipient(recipientSubkeyIdentifier);
         }
 
-        publicKeyEncryptedStream = encryptedDataGenerator.open(outermostStream, new byte[BUFFER_SIZE]);
+        publicKeyEncryptedStream = encryptedDataGenerator.open(outermostStream, new byte[bufferSize]);
         outermostStream = publicKeyEncryptedStream;
     }
 
     private void prepareCompression() throws IOException {
-        CompressionAlgorithm compressionAlgorithm = EncryptionBuilder.negotiateCompressionAlgorithm(options);
+        compressionAlgorithm = EncryptionBuilder.negotiateCompressionAlgorithm(options);
         resultBuilder.setCompressionAlgorithm(compressionAlgorithm);
         compressedDataGenerator = new PGPCompressedDataGenerator(
                 compressionAlgorithm.getAlgorithmId());
@@ -150,16 +251,45 @@ public final class EncryptionStream extends OutputStream {
         }
     }
 
-    private void prepareLiteralDataProcessing() throws IOException {
+    private void prepareLiteralDataProcessing(int bufferSize) throws IOException, PGPException {
         if (options.isCleartextSigned()) {
             SigningOptions.SigningMethod firstMethod = options.getSigningOptions().getSigningMethods().values().iterator().next();
             armorOutputStream.beginClearText(firstMethod.getHashAlgorithm().getAlgorithmId());
+            List<PGPSignatureGenerator> textGenerators = new ArrayList<>();
+            List<PGPSignatureGenerator> binaryGenerators = new ArrayList<>();
+            for (PGPSignatureGenerator signatureGenerator : signatureGenerators) {
+                if (signatureGenerator.generateOnePassVersion(false).getSignatureType()
+                        == PGPSignature.CANONICAL_TEXT_DOCUMENT) {
+                    textGenerators.add(signatureGenerator);
+                } else {
+                    binaryGenerators.add(signatureGenerator);
+                }
+            }
+            final PGPSignatureGenerator[] textSignatureGenerators = textGenerators.toArray(NO_SIGNERS);
+            binaryCleartextSignatureGenerators = binaryGenerators.toArray(NO_SIGNERS);
+            // The armor would process the cleartext byte by byte, so write it to the underlying stream in chunks
+            // and hash the canonical text instead of the raw text
+            cleartextCanonicalizer = CleartextCanonicalizer.forSigning(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    for (PGPSignatureGenerator signatureGenerator : textSignatureGenerators) {
+                        signatureGenerator.update((byte) b);
+                    }
+                }
+
+                @Override
+                public void write(@Nonnull byte[] b, int off, int len) {
+                    for (PGPSignatureGenerator signatureGenerator : textSignatureGenerators) {
+                        signatureGenerator.update(b, off, len);
+                    }
+                }
+            }, armorTargetStream);
             return;
         }
 
         streamGeneratorWrapper = StreamGeneratorWrapper.forStreamEncoding(options.getEncoding());
         literalDataStream = streamGeneratorWrapper.open(outermostStream,
-                options.getFileName(), options.getModificationDate(), new byte[BUFFER_SIZE]);
+                options.getFileName(), options.getModificationDate(), new byte[bufferSize]);
         outermostStream = literalDataStream;
 
         resultBuilder.setFileName(options.getFileName())
@@ -169,16 +299,18 @@ public final class EncryptionStream extends OutputStream {
 
     @Override
     public void write(int data) throws IOException {
-        outermostStream.write(data);
-        SigningOptions signingOptions = options.getSigningOptions();
-        if (signingOptions == null || signingOptions.getSigningMethods().isEmpty()) {
+        if (cleartextCanonicalizer != null) {
+            singleByte[0] = (byte) data;
+            write(singleByte, 0, 1);
             return;
         }
-
-        for (SubkeyIdentifier signingKey : signingOptions.getSigningMethods().keySet()) {
-            SigningOptions.SigningMethod signingMethod = signingOptions.getSigningMethods().get(signingKey);
-            PGPSignatureGenerator signatureGenerator = signingMethod.getSignatureGenerator();
-            byte asByte = (byte) (data & 0xff);
+        singleByte[0] = (byte) data;
+        if (!bufferPendingData(singleByte, 0, 1)) {
+            outermostStream.write(data);
+        }
+        bytesWritten++;
+        byte asByte = (byte) (data & 0xff);
+        for (PGPSignatureGenerator signatureGenerator : signatureGenerators) {
             signatureGenerator.update(asByte);
         }
     }
@@ -191,15 +323,46 @@ public final class EncryptionStream extends OutputStream {
 
     @Override
     public void write(@Nonnull byte[] buffer, int off, int len) throws IOException {
-        outermostStream.write(buffer, 0, len);
-        SigningOptions signingOptions = options.getSigningOptions();
-        if (signingOptions == null || signingOptions.getSigningMethods().isEmpty()) {
+        if (cleartextCanonicalizer != null) {
+            cleartextCanonicalizer.update(buffer, off, len);
+            for (PGPSignatureGenerator signatureGenerator : binaryCleartextSignatureGenerators) {
+                signatureGenerator.update(buffer, off, len);
+            }
+            bytesWritten += len;
             return;
         }
-        for (SubkeyIdentifier signingKey : signingOptions.getSigningMethods().keySet()) {
-            SigningOptions.SigningMethod signingMethod = signingOptions.getSigningMethods().get(signingKey);
-            PGPSignatureGenerator signatureGenerator = signingMethod.getSignatureGenerator();
-            signatureGenerator.update(buffer, 0, len);
+        if (!bufferPendingData(buffer, off, len)) {
+            outermostStream.write(buffer, off, len);
+        }
+        bytesWritten += len;
+        for (PGPSignatureGenerator signatureGenerator : signatureGenerators) {
+            signatureGenerator.update(buffer, off, len);
+        }
+    }
+
+    /**
+     * Write the remaining bytes of the given {@link ByteBuffer}.
+     * Heap buffers are written without copying, while the contents of direct buffers are transferred in chunks
+     * using an internal buffer.
+     * After this method returns, the position of the buffer equals its limit.
+     *
+     * @param buffer buffer
+     * @throws IOException in case of an IO error
+     */
+    public void write(@Nonnull ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            ((Buffer) buffer).position(buffer.limit());
+            return;
+        }
+
+        if (transferBuffer == null) {
+            transferBuffer = new byte[TRANSFER_BUFFER_SIZE];
+        }
+        while (buffer.hasRemaining()) {
+            int len = Math.min(buffer.remaining(), transferBuffer.length);
+            buffer.get(transferBuffer, 0, len);
+            write(transferBuffer, 0, len);
         }
     }
 
@@ -214,6 +377,10 @@ public final class EncryptionStream extends OutputStream {
             return;
         }
 
+        if (pendingData != null) {
+            writePendingData(adaptiveBufferSize(pendingData.size(), options.getBufferSize()));
+        }
+
         // Literal Data
         if (literalDataStream != null) {
             literalDataStream.flush();
@@ -224,11 +391,12 @@ public final class EncryptionStream extends OutputStream {
         }
 
         if (options.isCleartextSigned()) {
+            cleartextCanonicalizer.finish();
             // Add linebreak between body and signatures
             // TODO: We should only add this line if required.
             //  I.e. if the message already ends with \n, don't add another linebreak.
-            armorOutputStream.write('\r');
-            armorOutputStream.write('\n');
+            armorTargetStream.write('\r');
+            armorTargetStream.write('\n');
             armorOutputStream.endClearText();
         }
 
@@ -253,6 +421,17 @@ public final class EncryptionStream extends OutputStream {
             armorOutputStream.close();
         }
         closed = true;
+        reportStatistics();
+    }
+
+    private void reportStatistics() {
+        OperationListener listener = PGPainless.getPolicy().getOperationListener();
+        if (signatureGenerators.length != 0) {
+            listener.onBytesHashed(bytesWritten * signatureGenerators.length);
+        }
+        if (compressionAlgorithm != CompressionAlgorithm.UNCOMPRESSED) {
+            listener.onBytesCompressed(compressionAlgorithm, bytesWritten);
+        }
     }
 
     private void writeSignatures() throws PGPException, IOException {
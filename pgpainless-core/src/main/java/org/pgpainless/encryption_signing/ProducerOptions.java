@@ -15,6 +15,13 @@ import org.pgpainless.algorithm.StreamEncoding;
 
 public final class ProducerOptions {
 
+    // 1 << 8 causes wrong partial body length encoding
+    //  1 << 9 fixes this.
+    //  see https://github.com/pgpainless/pgpainless/issues/160
+    public static final int MIN_BUFFER_SIZE = 1 << 9;
+    public static final int MAX_BUFFER_SIZE = 1 << 30;
+    public static final int DEFAULT_BUFFER_SIZE = MIN_BUFFER_SIZE;
+
     private final EncryptionOptions encryptionOptions;
     private final SigningOptions signingOptions;
     private String fileName = "";
@@ -26,6 +33,8 @@ public final class ProducerOptions {
             .defaultCompressionAlgorithm();
     private boolean asciiArmor = true;
     private String comment = null;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private boolean adaptiveBufferSize = false;
 
     private ProducerOptions(EncryptionOptions encryptionOptions, SigningOptions signingOptions) {
         this.encryptionOptions = encryptionOptions;
@@ -254,6 +263,72 @@ public final class ProducerOptions {
         return compressionAlgorithmOverride;
     }
 
+    /**
+     * Set the size of the buffers used for encrypted and literal data packets.
+     * The buffer size determines the chunk size of partial length packets, so larger buffers result in fewer
+     * packet headers and fewer, but larger writes to the underlying stream.
+     * Since partial length chunks must be a power of two, the size is rounded down to the next power of two.
+     * Defaults to {@link #DEFAULT_BUFFER_SIZE}.
+     *
+     * @param bufferSize buffer size between {@link #MIN_BUFFER_SIZE} and {@link #MAX_BUFFER_SIZE}
+     * @return this
+     */
+    public ProducerOptions setBufferSize(int bufferSize) {
+        this.bufferSize = checkBufferSize(bufferSize);
+        this.adaptiveBufferSize = false;
+        return this;
+    }
+
+    /**
+     * Let the buffer size adapt to the size of the message, up to the given maximum size.
+     * The {@link EncryptionStream} buffers up to 64 KiB (or maxBufferSize, if smaller) of plaintext before it writes
+     * any packets.
+     * If the message ends within that probe, the largest power of two not exceeding the message size is chosen as
+     * buffer size, otherwise maxBufferSize is used and the remaining plaintext is streamed.
+     * That way, small messages are processed with small buffers, while large messages benefit from large
+     * partial length chunks.
+     *
+     * Note: In adaptive mode, no output is written until either the probe is exceeded, or the
+     * {@link EncryptionStream} is closed.
+     * Large messages allocate buffers of maxBufferSize for both the encrypted and the literal data packet,
+     * just like with {@link #setBufferSize(int)}.
+     * This option has no effect on cleartext signed messages.
+     *
+     * @param maxBufferSize maximum buffer size between {@link #MIN_BUFFER_SIZE} and {@link #MAX_BUFFER_SIZE}
+     * @return this
+     */
+    public ProducerOptions setAdaptiveBufferSize(int maxBufferSize) {
+        this.bufferSize = checkBufferSize(maxBufferSize);
+        this.adaptiveBufferSize = true;
+        return this;
+    }
+
+    /**
+     * Return the buffer size, or in adaptive mode the maximum buffer size.
+     *
+     * @return buffer size
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Return true, if the buffer size adapts to the size of the message.
+     *
+     * @return adaptive buffer size
+     */
+    public boolean isAdaptiveBufferSize() {
+        return adaptiveBufferSize;
+    }
+
+    private static int checkBufferSize(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE || bufferSize > MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size MUST be between " + MIN_BUFFER_SIZE +
+                    " and " + MAX_BUFFER_SIZE + " bytes.");
+        }
+        return bufferSize;
+    }
+
     public @Nullable EncryptionOptions getEncryptionOptions() {
         return encryptionOptions;
     }
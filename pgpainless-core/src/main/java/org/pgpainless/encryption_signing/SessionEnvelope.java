@@ -0,0 +1,218 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.bcpg.ContainedPacket;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPUtil;
+import org.bouncycastle.openpgp.operator.PGPDataEncryptor;
+import org.bouncycastle.openpgp.operator.PGPDataEncryptorBuilder;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.util.SessionKey;
+
+/**
+ * A session key, together with the encrypted session key packets (PKESK and SKESK) which wrap it for all
+ * recipients of an {@link EncryptionOptions} object.
+ *
+ * Wrapping the session key requires one public key operation per recipient subkey.
+ * A session envelope allows to perform these operations once and reuse the resulting packets for all messages
+ * that are encrypted within the lifetime of the envelope.
+ *
+ * @see EncryptionOptions#reuseSessionKey(long)
+ */
+final class SessionEnvelope {
+
+    private final SymmetricKeyAlgorithm algorithm;
+    private final byte[] sessionKey;
+    private final List<ContainedPacket> encryptedSessionKeys;
+    private final long expirationTime;
+
+    private SessionEnvelope(SymmetricKeyAlgorithm algorithm,
+                            byte[] sessionKey,
+                            List<ContainedPacket> encryptedSessionKeys,
+                            long expirationTime) {
+        this.algorithm = algorithm;
+        this.sessionKey = sessionKey;
+        this.encryptedSessionKeys = Collections.unmodifiableList(encryptedSessionKeys);
+        this.expirationTime = expirationTime;
+    }
+
+    /**
+     * Generate a new session key and wrap it for all encryption methods of the given options.
+     * If an {@link Executor} is given, the session key is wrapped for the recipients in parallel.
+     *
+     * @param options encryption options
+     * @param lifetimeMillis lifetime of the envelope in milliseconds
+     * @param executor executor for parallel session key encryption or null
+     * @return session envelope
+     * @throws PGPException if the session key cannot be wrapped for a recipient
+     */
+    static SessionEnvelope create(EncryptionOptions options, long lifetimeMillis, @Nullable Executor executor)
+            throws PGPException {
+        SymmetricKeyAlgorithm algorithm = EncryptionBuilder.negotiateSymmetricEncryptionAlgorithm(options);
+        SecureRandom random = ImplementationFactory.getInstance()
+                .getPGPDataEncryptorBuilder(algorithm)
+                .getSecureRandom();
+        byte[] sessionKey = PGPUtil.makeRandomKey(algorithm.getAlgorithmId(), random);
+        byte[] sessionInfo = createSessionInfo(algorithm, sessionKey);
+
+        List<ContainedPacket> encryptedSessionKeys;
+        try {
+            encryptedSessionKeys = encryptSessionKey(options.getEncryptionMethods(), algorithm, sessionInfo, executor);
+        } finally {
+            Arrays.fill(sessionInfo, (byte) 0);
+        }
+        return new SessionEnvelope(algorithm, sessionKey, encryptedSessionKeys,
+                System.currentTimeMillis() + lifetimeMillis);
+    }
+
+    private static List<ContainedPacket> encryptSessionKey(Collection<PGPKeyEncryptionMethodGenerator> methods,
+                                                           final SymmetricKeyAlgorithm algorithm,
+                                                           final byte[] sessionInfo,
+                                                           @Nullable Executor executor)
+            throws PGPException {
+        List<ContainedPacket> encryptedSessionKeys = new ArrayList<>(methods.size());
+        if (executor == null || methods.size() < 2) {
+            for (PGPKeyEncryptionMethodGenerator method : methods) {
+                encryptedSessionKeys.add(method.generate(algorithm.getAlgorithmId(), sessionInfo));
+            }
+            return encryptedSessionKeys;
+        }
+
+        List<FutureTask<ContainedPacket>> tasks = new ArrayList<>(methods.size());
+        for (final PGPKeyEncryptionMethodGenerator method : methods) {
+            FutureTask<ContainedPacket> task = new FutureTask<>(new Callable<ContainedPacket>() {
+                @Override
+                public ContainedPacket call() throws PGPException {
+                    return method.generate(algorithm.getAlgorithmId(), sessionInfo);
+                }
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        // Collect the packets in order. Tasks which were not yet picked up by the executor are run on this thread.
+        PGPException failure = null;
+        for (FutureTask<ContainedPacket> task : tasks) {
+            task.run();
+            try {
+                encryptedSessionKeys.add(task.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new PGPException("Interrupted while encrypting the session key.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                failure = cause instanceof PGPException ? (PGPException) cause :
+                        new PGPException("Cannot encrypt session key.", cause instanceof Exception ?
+                                (Exception) cause : new RuntimeException(cause));
+            }
+            if (failure != null) {
+                // Cancel remaining tasks before the session info is wiped
+                for (FutureTask<ContainedPacket> remaining : tasks) {
+                    remaining.cancel(false);
+                }
+                throw failure;
+            }
+        }
+        return encryptedSessionKeys;
+    }
+
+    private static byte[] createSessionInfo(SymmetricKeyAlgorithm algorithm, byte[] keyBytes) {
+        // algorithm id, key, two octet checksum (see RFC4880 §5.1)
+        byte[] sessionInfo = new byte[keyBytes.length + 3];
+        sessionInfo[0] = (byte) algorithm.getAlgorithmId();
+        System.arraycopy(keyBytes, 0, sessionInfo, 1, keyBytes.length);
+        int check = 0;
+        for (byte b : keyBytes) {
+            check += b & 0xff;
+        }
+        sessionInfo[sessionInfo.length - 2] = (byte) (check >> 8);
+        sessionInfo[sessionInfo.length - 1] = (byte) check;
+        return sessionInfo;
+    }
+
+    /**
+     * Return true, if the envelope expired at the given time.
+     *
+     * @param currentTimeMillis current time
+     * @return true if expired
+     */
+    boolean isExpired(long currentTimeMillis) {
+        return currentTimeMillis >= expirationTime;
+    }
+
+    SymmetricKeyAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    SessionKey getSessionKey() {
+        return new SessionKey(algorithm, sessionKey);
+    }
+
+    /**
+     * Return one {@link PGPKeyEncryptionMethodGenerator} per recipient, which emits the precomputed encrypted
+     * session key packet.
+     *
+     * @return encryption methods
+     */
+    List<PGPKeyEncryptionMethodGenerator> getEncryptionMethods() {
+        List<PGPKeyEncryptionMethodGenerator> methods = new ArrayList<>();
+        for (final ContainedPacket packet : encryptedSessionKeys) {
+            methods.add(new PGPKeyEncryptionMethodGenerator() {
+                @Override
+                public ContainedPacket generate(int encAlgorithm, byte[] sessionInfo) {
+                    return packet;
+                }
+            });
+        }
+        return methods;
+    }
+
+    /**
+     * Wrap the given {@link PGPDataEncryptorBuilder}, so that data is encrypted using the session key of this
+     * envelope, instead of the random session key generated by {@link org.bouncycastle.openpgp.PGPEncryptedDataGenerator}.
+     *
+     * @param delegate data encryptor builder
+     * @return data encryptor builder using the session key of this envelope
+     */
+    PGPDataEncryptorBuilder wrap(final PGPDataEncryptorBuilder delegate) {
+        return new PGPDataEncryptorBuilder() {
+            @Override
+            public int getAlgorithm() {
+                return delegate.getAlgorithm();
+            }
+
+            @Override
+            public PGPDataEncryptor build(byte[] keyBytes) throws PGPException {
+                return delegate.build(sessionKey);
+            }
+
+            @Override
+            public SecureRandom getSecureRandom() {
+                return delegate.getSecureRandom();
+            }
+
+            @Override
+            public PGPDataEncryptorBuilder setWithIntegrityPacket(boolean withIntegrityPacket) {
+                delegate.setWithIntegrityPacket(withIntegrityPacket);
+                return this;
+            }
+        };
+    }
+}
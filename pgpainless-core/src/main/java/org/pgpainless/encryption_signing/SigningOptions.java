@@ -180,7 +180,7 @@ public final class SigningOptions {
                                              DocumentSignatureType signatureType,
                                              @Nullable BaseSignatureSubpackets.Callback subpacketsCallback)
             throws KeyValidationError, PGPException {
-        KeyRingInfo keyRingInfo = new KeyRingInfo(secretKey, new Date());
+        KeyRingInfo keyRingInfo = PGPainless.inspectKeyRing(secretKey, new Date());
         if (userId != null && !keyRingInfo.isUserIdValid(userId)) {
             throw new KeyValidationError(userId, keyRingInfo.getLatestUserIdCertification(userId), keyRingInfo.getUserIdRevocation(userId));
         }
@@ -285,7 +285,7 @@ public final class SigningOptions {
                                                DocumentSignatureType signatureType,
                                                @Nullable BaseSignatureSubpackets.Callback subpacketCallback)
             throws PGPException {
-        KeyRingInfo keyRingInfo = new KeyRingInfo(secretKey, new Date());
+        KeyRingInfo keyRingInfo = PGPainless.inspectKeyRing(secretKey, new Date());
         if (userId != null && !keyRingInfo.isUserIdValid(userId)) {
             throw new KeyValidationError(userId, keyRingInfo.getLatestUserIdCertification(userId), keyRingInfo.getUserIdRevocation(userId));
         }
@@ -300,8 +300,7 @@ public final class SigningOptions {
             if (signingSecKey == null) {
                 throw new PGPException("Missing secret key for signing key " + Long.toHexString(signingPubKey.getKeyID()));
             }
-            PGPPrivateKey signingSubkey = signingSecKey.extractPrivateKey(
-                    secretKeyDecryptor.getDecryptor(signingPubKey.getKeyID()));
+            PGPPrivateKey signingSubkey = UnlockSecretKey.unlockSecretKey(signingSecKey, secretKeyDecryptor);
             Set<HashAlgorithm> hashAlgorithms = userId != null ? keyRingInfo.getPreferredHashAlgorithms(userId)
                     : keyRingInfo.getPreferredHashAlgorithms(signingPubKey.getKeyID());
             HashAlgorithm hashAlgorithm = negotiateHashAlgorithm(hashAlgorithms, PGPainless.getPolicy());
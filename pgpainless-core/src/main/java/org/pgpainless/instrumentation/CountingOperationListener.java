@@ -0,0 +1,148 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pgpainless.algorithm.CompressionAlgorithm;
+
+/**
+ * {@link OperationListener} which accumulates counts and durations of operations.
+ * The counters can be exported to metrics systems, e.g. by polling them with gauges.
+ *
+ * <pre>
+ * {@code
+ * CountingOperationListener counters = new CountingOperationListener();
+ * PGPainless.getPolicy().setOperationListener(counters);
+ * ...
+ * long unlocks = counters.getSecretKeyUnlocks();
+ * }
+ * </pre>
+ */
+public class CountingOperationListener implements OperationListener {
+
+    private final AtomicLong secretKeyUnlocks = new AtomicLong();
+    private final AtomicLong secretKeyUnlockNanos = new AtomicLong();
+    private final AtomicLong sessionKeyDecryptions = new AtomicLong();
+    private final AtomicLong sessionKeyDecryptionNanos = new AtomicLong();
+    private final AtomicLong signatureVerifications = new AtomicLong();
+    private final AtomicLong signatureVerificationNanos = new AtomicLong();
+    private final AtomicLong certificateValidations = new AtomicLong();
+    private final AtomicLong certificateValidationNanos = new AtomicLong();
+    private final AtomicLong bytesHashed = new AtomicLong();
+    private final AtomicLong bytesCompressed = new AtomicLong();
+    private final AtomicLong bytesDecompressed = new AtomicLong();
+    private final AtomicLong packetsParsed = new AtomicLong();
+
+    @Override
+    public void onSecretKeyUnlock(long keyId, boolean success, long durationNanos) {
+        secretKeyUnlocks.incrementAndGet();
+        secretKeyUnlockNanos.addAndGet(durationNanos);
+    }
+
+    @Override
+    public void onSessionKeyDecryption(long keyId, int publicKeyAlgorithm, boolean success, long durationNanos) {
+        sessionKeyDecryptions.incrementAndGet();
+        sessionKeyDecryptionNanos.addAndGet(durationNanos);
+    }
+
+    @Override
+    public void onSignatureVerification(long issuerKeyId, boolean valid, long durationNanos) {
+        signatureVerifications.incrementAndGet();
+        signatureVerificationNanos.addAndGet(durationNanos);
+    }
+
+    @Override
+    public void onCertificateValidation(long primaryKeyId, boolean valid, long durationNanos) {
+        certificateValidations.incrementAndGet();
+        certificateValidationNanos.addAndGet(durationNanos);
+    }
+
+    @Override
+    public void onBytesHashed(long bytes) {
+        bytesHashed.addAndGet(bytes);
+    }
+
+    @Override
+    public void onBytesCompressed(CompressionAlgorithm algorithm, long bytes) {
+        bytesCompressed.addAndGet(bytes);
+    }
+
+    @Override
+    public void onBytesDecompressed(CompressionAlgorithm algorithm, long bytes) {
+        bytesDecompressed.addAndGet(bytes);
+    }
+
+    @Override
+    public void onPacketParsed(int packetTag) {
+        packetsParsed.incrementAndGet();
+    }
+
+    public long getSecretKeyUnlocks() {
+        return secretKeyUnlocks.get();
+    }
+
+    public long getSecretKeyUnlockNanos() {
+        return secretKeyUnlockNanos.get();
+    }
+
+    public long getSessionKeyDecryptions() {
+        return sessionKeyDecryptions.get();
+    }
+
+    public long getSessionKeyDecryptionNanos() {
+        return sessionKeyDecryptionNanos.get();
+    }
+
+    public long getSignatureVerifications() {
+        return signatureVerifications.get();
+    }
+
+    public long getSignatureVerificationNanos() {
+        return signatureVerificationNanos.get();
+    }
+
+    public long getCertificateValidations() {
+        return certificateValidations.get();
+    }
+
+    public long getCertificateValidationNanos() {
+        return certificateValidationNanos.get();
+    }
+
+    public long getBytesHashed() {
+        return bytesHashed.get();
+    }
+
+    public long getBytesCompressed() {
+        return bytesCompressed.get();
+    }
+
+    public long getBytesDecompressed() {
+        return bytesDecompressed.get();
+    }
+
+    public long getPacketsParsed() {
+        return packetsParsed.get();
+    }
+
+    /**
+     * Reset all counters to zero.
+     */
+    public void reset() {
+        secretKeyUnlocks.set(0);
+        secretKeyUnlockNanos.set(0);
+        sessionKeyDecryptions.set(0);
+        sessionKeyDecryptionNanos.set(0);
+        signatureVerifications.set(0);
+        signatureVerificationNanos.set(0);
+        certificateValidations.set(0);
+        certificateValidationNanos.set(0);
+        bytesHashed.set(0);
+        bytesCompressed.set(0);
+        bytesDecompressed.set(0);
+        packetsParsed.set(0);
+    }
+}
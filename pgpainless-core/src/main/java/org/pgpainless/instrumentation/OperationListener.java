@@ -0,0 +1,112 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.instrumentation;
+
+import org.pgpainless.algorithm.CompressionAlgorithm;
+
+/**
+ * Listener which is notified about expensive steps of OpenPGP operations, such as unlocking secret keys,
+ * decrypting session keys or verifying signatures.
+ * This can be used to feed metrics systems with counters and timings, without attaching a profiler.
+ *
+ * A listener is registered globally via {@link org.pgpainless.policy.Policy#setOperationListener(OperationListener)}.
+ * All methods have empty default implementations, so implementations only need to override the events they are
+ * interested in.
+ *
+ * Listeners are called synchronously on the thread which performs the operation, which might be a worker thread of an
+ * executor for parallelized operations. Implementations must therefore be thread-safe and should return quickly.
+ * Durations are measured using {@link System#nanoTime()}.
+ *
+ * @see CountingOperationListener
+ */
+public interface OperationListener {
+
+    /**
+     * Listener which ignores all events. This is the default.
+     */
+    OperationListener NO_OP = new OperationListener() {
+    };
+
+    /**
+     * Called after a secret key was unlocked (decrypted using its S2K specifier), or unlocking failed.
+     * Unlocked keys that are served from the {@link org.pgpainless.key.protection.UnlockedPrivateKeyCache}
+     * are not reported.
+     *
+     * @param keyId key-id of the secret key
+     * @param success true if the key was unlocked, false if unlocking failed (e.g. due to a wrong passphrase)
+     * @param durationNanos duration of the operation in nanoseconds
+     */
+    default void onSecretKeyUnlock(long keyId, boolean success, long durationNanos) {
+    }
+
+    /**
+     * Called after an attempt to decrypt a public key encrypted session key (PKESK) using a private key.
+     *
+     * @param keyId key-id of the private key
+     * @param publicKeyAlgorithm public key algorithm id of the private key
+     * @param success true if the session key was decrypted, false otherwise (e.g. wrong key for hidden recipient)
+     * @param durationNanos duration of the operation in nanoseconds
+     */
+    default void onSessionKeyDecryption(long keyId, int publicKeyAlgorithm, boolean success, long durationNanos) {
+    }
+
+    /**
+     * Called after a signature over a message was verified.
+     * The duration includes the validation of the signers certificate, which is additionally reported via
+     * {@link #onCertificateValidation(long, boolean, long)}.
+     *
+     * @param issuerKeyId key-id of the signing key
+     * @param valid true if the signature is valid
+     * @param durationNanos duration of the operation in nanoseconds
+     */
+    default void onSignatureVerification(long issuerKeyId, boolean valid, long durationNanos) {
+    }
+
+    /**
+     * Called after a certificate was validated in order to check, whether its signing subkey was eligible to create
+     * a signature.
+     *
+     * @param primaryKeyId key-id of the primary key of the certificate
+     * @param valid true if the certificate is valid
+     * @param durationNanos duration of the operation in nanoseconds
+     */
+    default void onCertificateValidation(long primaryKeyId, boolean valid, long durationNanos) {
+    }
+
+    /**
+     * Called once per message with the number of bytes that were hashed for creating or verifying signatures.
+     * If a message is signed or verified using multiple signatures, the data is counted once per signature.
+     *
+     * @param bytes number of hashed bytes
+     */
+    default void onBytesHashed(long bytes) {
+    }
+
+    /**
+     * Called once per message with the number of bytes that were compressed.
+     *
+     * @param algorithm compression algorithm
+     * @param bytes number of uncompressed bytes
+     */
+    default void onBytesCompressed(CompressionAlgorithm algorithm, long bytes) {
+    }
+
+    /**
+     * Called once per compressed data packet with the number of bytes that were decompressed.
+     *
+     * @param algorithm compression algorithm
+     * @param bytes number of decompressed bytes
+     */
+    default void onBytesDecompressed(CompressionAlgorithm algorithm, long bytes) {
+    }
+
+    /**
+     * Called for each OpenPGP packet which was parsed while processing a message.
+     *
+     * @param packetTag packet tag (see {@link org.bouncycastle.bcpg.PacketTags})
+     */
+    default void onPacketParsed(int packetTag) {
+    }
+}
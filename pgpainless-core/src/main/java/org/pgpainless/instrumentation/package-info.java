@@ -0,0 +1,8 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+/**
+ * Instrumentation of OpenPGP operations, e.g. for metrics and profiling.
+ */
+package org.pgpainless.instrumentation;
@@ -0,0 +1,236 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.info;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.policy.Policy;
+import org.pgpainless.util.LruCache;
+
+/**
+ * Process-wide cache of {@link KeyRingInfo} objects.
+ *
+ * Evaluating a key ring requires the verification of all its self-signatures, which is expensive.
+ * If the cache is enabled by setting a positive evaluation window via {@link #setEvaluationWindow(long)},
+ * repeated evaluations of the same key ring under the same {@link Policy} within the same window
+ * return the same {@link KeyRingInfo} object.
+ *
+ * Entries are keyed by the fingerprint of the key ring, the hash of its encoding, the policy and the evaluation
+ * window the evaluation date falls into.
+ * Since the encoding is part of the key, a modified key ring (e.g. one with an additional revocation) is always
+ * evaluated anew.
+ * Note however, that a cached {@link KeyRingInfo} reflects the state of the key ring at the first evaluation date
+ * within the window.
+ *
+ * The {@link Policy} is compared by identity, so after modifying the policy, {@link #clear()} should be called.
+ *
+ * The cache is disabled by default.
+ */
+public final class KeyRingInfoCache {
+
+    public static final long DISABLED = 0;
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private static final KeyRingInfoCache INSTANCE = new KeyRingInfoCache();
+
+    private long evaluationWindow = DISABLED;
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private LruCache<CacheKey, KeyRingInfo> cache = null;
+
+    private KeyRingInfoCache() {
+
+    }
+
+    public static KeyRingInfoCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set the length of the evaluation window in milliseconds.
+     * Evaluations of the same key ring with evaluation dates in the same window are served from the cache.
+     * A window of {@link #DISABLED} disables the cache.
+     * Changing the window clears the cache.
+     *
+     * @param windowMillis length of the window in milliseconds
+     */
+    public synchronized void setEvaluationWindow(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Evaluation window MUST NOT be negative.");
+        }
+        this.evaluationWindow = windowMillis;
+        resetCache();
+    }
+
+    public synchronized long getEvaluationWindow() {
+        return evaluationWindow;
+    }
+
+    /**
+     * Set the maximum number of cached {@link KeyRingInfo} objects.
+     * Changing the size clears the cache.
+     *
+     * @param maxSize maximum number of entries
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size MUST be positive.");
+        }
+        this.maxSize = maxSize;
+        resetCache();
+    }
+
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Evaluate the given key ring at the given date.
+     * If the cache is enabled and the key ring was already evaluated within the same evaluation window,
+     * the cached {@link KeyRingInfo} is returned.
+     *
+     * @param keys key ring
+     * @param evaluationDate evaluation date
+     * @return key ring info
+     */
+    public KeyRingInfo evaluate(@Nonnull PGPKeyRing keys, @Nonnull Date evaluationDate) {
+        LruCache<CacheKey, KeyRingInfo> cache;
+        long window;
+        synchronized (this) {
+            cache = this.cache;
+            window = this.evaluationWindow;
+        }
+        if (cache == null) {
+            return new KeyRingInfo(keys, evaluationDate);
+        }
+
+        CacheKey key;
+        try {
+            key = new CacheKey(keys, PGPainless.getPolicy(), evaluationDate.getTime() / window);
+        } catch (IOException e) {
+            // Key ring cannot be encoded, so do not cache it
+            return new KeyRingInfo(keys, evaluationDate);
+        }
+
+        KeyRingInfo info = cache.get(key);
+        if (info == null) {
+            info = new KeyRingInfo(keys, evaluationDate);
+            cache.put(key, info);
+        }
+        return info;
+    }
+
+    /**
+     * Remove all cached evaluations of the key ring with the given fingerprint.
+     *
+     * @param fingerprint fingerprint of the key ring
+     */
+    public void invalidate(@Nonnull OpenPgpFingerprint fingerprint) {
+        LruCache<CacheKey, KeyRingInfo> cache;
+        synchronized (this) {
+            cache = this.cache;
+        }
+        if (cache == null) {
+            return;
+        }
+        for (CacheKey key : cache.keys()) {
+            if (key.fingerprint.equals(fingerprint)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove all cached evaluations of the given key ring.
+     *
+     * @param keys key ring
+     */
+    public void invalidate(@Nonnull PGPKeyRing keys) {
+        invalidate(OpenPgpFingerprint.of(keys));
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public synchronized void clear() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Return the number of cached evaluations.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    private void resetCache() {
+        if (evaluationWindow == DISABLED) {
+            cache = null;
+        } else {
+            cache = new LruCache<>(maxSize, evaluationWindow);
+        }
+    }
+
+    private static final class CacheKey {
+
+        private final OpenPgpFingerprint fingerprint;
+        private final byte[] encodingHash;
+        private final Policy policy;
+        private final long window;
+
+        private CacheKey(PGPKeyRing keys, Policy policy, long window) throws IOException {
+            this.fingerprint = OpenPgpFingerprint.of(keys);
+            this.encodingHash = hash(keys.getEncoded());
+            this.policy = policy;
+            this.window = window;
+        }
+
+        private static byte[] hash(byte[] encoding) {
+            SHA256Digest digest = new SHA256Digest();
+            digest.update(encoding, 0, encoding.length);
+            byte[] hash = new byte[digest.getDigestSize()];
+            digest.doFinal(hash, 0);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return window == other.window
+                    && policy == other.policy
+                    && fingerprint.equals(other.fingerprint)
+                    && Arrays.equals(encodingHash, other.encodingHash);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = fingerprint.hashCode();
+            result = 31 * result + Arrays.hashCode(encodingHash);
+            result = 31 * result + System.identityHashCode(policy);
+            result = 31 * result + (int) (window ^ (window >>> 32));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.parsing;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.util.encoders.Hex;
+import org.pgpainless.util.LruCache;
+
+/**
+ * Bounded cache of parsed certificates (public key rings).
+ * Certificates are identified by the SHA-256 hash of their (armored or binary) encoding, so that repeatedly
+ * reading the same certificate bytes does not require dearmoring and parsing them again.
+ *
+ * Use it via {@link KeyRingReader#withCertificateCache(CertificateCache)}.
+ * A single cache instance can safely be shared between threads.
+ */
+public class CertificateCache {
+
+    private final LruCache<String, PGPPublicKeyRing> certificates;
+    private final LruCache<String, PGPPublicKeyRingCollection> collections;
+
+    /**
+     * Create a cache which holds at most maxSize certificates and maxSize certificate collections.
+     * Entries are evicted after maxAgeMillis milliseconds.
+     *
+     * @param maxSize maximum number of cached certificates (and collections)
+     * @param maxAgeMillis maximum age of cache entries in milliseconds or {@link LruCache#NO_EXPIRATION}
+     */
+    public CertificateCache(int maxSize, long maxAgeMillis) {
+        this.certificates = new LruCache<>(maxSize, maxAgeMillis);
+        this.collections = new LruCache<>(maxSize, maxAgeMillis);
+    }
+
+    /**
+     * Return the certificate encoded in the given bytes.
+     * If the same bytes were parsed before, the cached certificate is returned.
+     *
+     * @param encoding armored or binary certificate
+     * @param maxIterations max iterations while parsing
+     * @return certificate or null if the encoding does not contain a certificate
+     * @throws IOException in case of a parsing error
+     */
+    @Nullable
+    public PGPPublicKeyRing readPublicKeyRing(@Nonnull byte[] encoding, int maxIterations) throws IOException {
+        String key = contentHash(encoding);
+        PGPPublicKeyRing certificate = certificates.get(key);
+        if (certificate != null) {
+            return certificate;
+        }
+
+        certificate = KeyRingReader.readPublicKeyRing(new ByteArrayInputStream(encoding), maxIterations);
+        if (certificate != null) {
+            certificates.put(key, certificate);
+        }
+        return certificate;
+    }
+
+    /**
+     * Return the certificate collection encoded in the given bytes.
+     * If the same bytes were parsed before, the cached collection is returned.
+     *
+     * @param encoding armored or binary certificate collection
+     * @param maxIterations max iterations while parsing
+     * @return certificate collection
+     * @throws IOException in case of a parsing error
+     * @throws PGPException in case of a broken certificate
+     */
+    @Nonnull
+    public PGPPublicKeyRingCollection readPublicKeyRingCollection(@Nonnull byte[] encoding, int maxIterations)
+            throws IOException, PGPException {
+        String key = contentHash(encoding);
+        PGPPublicKeyRingCollection collection = collections.get(key);
+        if (collection != null) {
+            return collection;
+        }
+
+        collection = KeyRingReader.readPublicKeyRingCollection(new ByteArrayInputStream(encoding), maxIterations);
+        collections.put(key, collection);
+        return collection;
+    }
+
+    /**
+     * Return the number of cached certificates.
+     *
+     * @return number of certificates
+     */
+    public int size() {
+        return certificates.size();
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+        certificates.clear();
+        collections.clear();
+    }
+
+    private static String contentHash(byte[] encoding) {
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(encoding, 0, encoding.length);
+        byte[] hash = new byte[digest.getDigestSize()];
+        digest.doFinal(hash, 0);
+        return Hex.toHexString(hash);
+    }
+}
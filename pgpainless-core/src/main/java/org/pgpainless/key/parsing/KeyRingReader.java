@@ -4,13 +4,16 @@
 
 package org.pgpainless.key.parsing;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 import javax.annotation.Nonnull;
 
 import org.bouncycastle.openpgp.PGPException;
@@ -24,6 +27,7 @@ import org.bouncycastle.util.io.Streams;
 import org.pgpainless.implementation.ImplementationFactory;
 import org.pgpainless.key.collection.PGPKeyRingCollection;
 import org.pgpainless.util.ArmorUtils;
+import org.pgpainless.util.ArmoredBlockSplitter;
 
 public class KeyRingReader {
 
@@ -32,11 +36,31 @@ public class KeyRingReader {
     @SuppressWarnings("CharsetObjectCanBeUsed")
     public static final Charset UTF8 = Charset.forName("UTF-8");
 
+    private CertificateCache certificateCache = null;
+
+    /**
+     * Consult the given {@link CertificateCache} when reading certificates and certificate collections.
+     * Certificate bytes which were already parsed before are then not parsed again.
+     *
+     * @param cache certificate cache
+     * @return this
+     */
+    public KeyRingReader withCertificateCache(@Nonnull CertificateCache cache) {
+        this.certificateCache = cache;
+        return this;
+    }
+
     public PGPPublicKeyRing publicKeyRing(@Nonnull InputStream inputStream) throws IOException {
+        if (certificateCache != null) {
+            return publicKeyRing(Streams.readAll(inputStream));
+        }
         return readPublicKeyRing(inputStream);
     }
 
     public PGPPublicKeyRing publicKeyRing(@Nonnull byte[] bytes) throws IOException {
+        if (certificateCache != null) {
+            return certificateCache.readPublicKeyRing(bytes, MAX_ITERATIONS);
+        }
         return publicKeyRing(new ByteArrayInputStream(bytes));
     }
 
@@ -46,10 +70,16 @@ public class KeyRingReader {
 
     public PGPPublicKeyRingCollection publicKeyRingCollection(@Nonnull InputStream inputStream)
             throws IOException, PGPException {
+        if (certificateCache != null) {
+            return publicKeyRingCollection(Streams.readAll(inputStream));
+        }
         return readPublicKeyRingCollection(inputStream);
     }
 
     public PGPPublicKeyRingCollection publicKeyRingCollection(@Nonnull byte[] bytes) throws IOException, PGPException {
+        if (certificateCache != null) {
+            return certificateCache.readPublicKeyRingCollection(bytes, MAX_ITERATIONS);
+        }
         return publicKeyRingCollection(new ByteArrayInputStream(bytes));
     }
 
@@ -57,6 +87,83 @@ public class KeyRingReader {
         return publicKeyRingCollection(asciiArmored.getBytes(UTF8));
     }
 
+    /**
+     * Return an iterator which parses the certificates of the given keyring one at a time while iterating,
+     * so that the keyring does not need to fit into memory.
+     * Note: The certificate cache is not consulted.
+     *
+     * @param inputStream armored or binary keyring
+     * @return certificate iterator
+     * @throws IOException if the keyring cannot be read
+     */
+    public PublicKeyRingIterator publicKeyRingIterator(@Nonnull InputStream inputStream) throws IOException {
+        return PublicKeyRingIterator.sequential(inputStream, MAX_ITERATIONS);
+    }
+
+    /**
+     * Return an iterator which parses the certificates of the given keyring while iterating, using the executor
+     * to parse the armored blocks of an ASCII armored keyring concurrently.
+     * The certificates are returned in the order of the keyring, while at most parallelism blocks are read ahead.
+     * Since a binary keyring cannot be split without parsing it, binary keyrings are parsed sequentially.
+     * Note: The certificate cache is not consulted.
+     *
+     * @param inputStream armored or binary keyring
+     * @param executor executor used to parse armored blocks
+     * @param parallelism number of armored blocks parsed concurrently
+     * @return certificate iterator
+     * @throws IOException if the keyring cannot be read
+     */
+    public PublicKeyRingIterator publicKeyRingIterator(@Nonnull InputStream inputStream,
+                                                       @Nonnull Executor executor,
+                                                       int parallelism)
+            throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(inputStream);
+        if (!isArmored(buffered)) {
+            return PublicKeyRingIterator.sequential(buffered, MAX_ITERATIONS);
+        }
+        return PublicKeyRingIterator.parallel(buffered, executor, parallelism, MAX_ITERATIONS);
+    }
+
+    /**
+     * Return an iterator over the certificates of the ASCII armored keyring between the position and the limit of
+     * the buffer, which dispatches dearmoring and parsing of the armored blocks of the keyring to the executor
+     * (e.g. a {@link java.util.concurrent.ForkJoinPool}).
+     * The armored blocks are located using an {@link ArmoredBlockSplitter} and decoded directly from the buffer, so a
+     * keyring file can be mapped into memory via {@link java.nio.channels.FileChannel#map} instead of being read.
+     * The certificates are returned in the order of the keyring, while at most parallelism blocks are parsed ahead.
+     * The position of the buffer is not changed.
+     * Note: The certificate cache is not consulted.
+     *
+     * @param keyring armored keyring
+     * @param executor executor used to parse armored blocks
+     * @param parallelism number of armored blocks parsed concurrently
+     * @return certificate iterator
+     */
+    public PublicKeyRingIterator publicKeyRingIterator(@Nonnull ByteBuffer keyring,
+                                                       @Nonnull Executor executor,
+                                                       int parallelism) {
+        return PublicKeyRingIterator.parallel(keyring, executor, parallelism, MAX_ITERATIONS);
+    }
+
+    /**
+     * Return true, if the first non-whitespace character of the stream is a dash.
+     * The stream is reset afterwards.
+     */
+    private static boolean isArmored(BufferedInputStream inputStream) throws IOException {
+        inputStream.mark(1024);
+        try {
+            int c;
+            for (int i = 0; i < 1024 && (c = inputStream.read()) != -1; i++) {
+                if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                    return c == '-';
+                }
+            }
+            return false;
+        } finally {
+            inputStream.reset();
+        }
+    }
+
     public PGPSecretKeyRing secretKeyRing(@Nonnull InputStream inputStream) throws IOException {
         return readSecretKeyRing(inputStream);
     }
@@ -0,0 +1,507 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.parsing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPMarker;
+import org.bouncycastle.openpgp.PGPObjectFactory;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.util.Strings;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.util.ArmorUtils;
+import org.pgpainless.util.ArmoredBlockSplitter;
+
+/**
+ * Iterator over the certificates (public key rings) of a keyring file, which parses the certificates one at a time
+ * while iterating.
+ * Contrary to {@link KeyRingReader#publicKeyRingCollection(InputStream)}, the certificates are not collected, so
+ * arbitrarily large keyring files (e.g. keyserver dumps) can be processed with constant memory.
+ *
+ * Errors are reported by {@link #nextKeyRing()} as {@link IOException}. Since {@link Iterator#hasNext()} and
+ * {@link Iterator#next()} cannot throw checked exceptions, they wrap them in a {@link ParsingException} instead.
+ *
+ * Instances are created using {@link KeyRingReader#publicKeyRingIterator(InputStream)},
+ * {@link KeyRingReader#publicKeyRingIterator(InputStream, Executor, int)} and
+ * {@link KeyRingReader#publicKeyRingIterator(ByteBuffer, Executor, int)}.
+ * Instances are not thread-safe.
+ */
+public abstract class PublicKeyRingIterator implements Iterator<PGPPublicKeyRing>, Closeable {
+
+    // Input which is closed by close(), or null
+    private final Closeable resource;
+    private PGPPublicKeyRing next = null;
+    private boolean exhausted = false;
+
+    PublicKeyRingIterator(@Nullable Closeable resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * Create an iterator which parses the certificates sequentially.
+     * If more than maxIterations PGP packets that are not certificates are encountered in a row,
+     * an {@link IOException} is thrown.
+     *
+     * @param inputStream armored or binary keyring
+     * @param maxIterations max iterations before abort
+     * @return iterator
+     * @throws IOException if the armor header cannot be read
+     */
+    static PublicKeyRingIterator sequential(@Nonnull InputStream inputStream, int maxIterations) throws IOException {
+        return new Sequential(inputStream, ArmorUtils.getDecoderStream(inputStream), maxIterations);
+    }
+
+    /**
+     * Create an iterator which parses the armored blocks of the keyring concurrently using the given executor.
+     * At most parallelism blocks are read ahead and parsed at any time.
+     *
+     * @param inputStream armored keyring
+     * @param executor executor
+     * @param parallelism number of blocks parsed concurrently
+     * @param maxIterations max iterations per armored block before abort
+     * @return iterator
+     */
+    static PublicKeyRingIterator parallel(@Nonnull InputStream inputStream,
+                                          @Nonnull Executor executor,
+                                          int parallelism,
+                                          int maxIterations) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism MUST be positive.");
+        }
+        return new StreamBlocks(inputStream, executor, parallelism, maxIterations);
+    }
+
+    /**
+     * Create an iterator which parses the armored blocks of the keyring in the buffer concurrently using the given
+     * executor. The blocks are located using an {@link ArmoredBlockSplitter} and decoded directly from the buffer.
+     * At most parallelism blocks are parsed at any time.
+     *
+     * @param keyring armored keyring
+     * @param executor executor
+     * @param parallelism number of blocks parsed concurrently
+     * @param maxIterations max iterations per armored block before abort
+     * @return iterator
+     */
+    static PublicKeyRingIterator parallel(@Nonnull ByteBuffer keyring,
+                                          @Nonnull Executor executor,
+                                          int parallelism,
+                                          int maxIterations) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism MUST be positive.");
+        }
+        return new BufferBlocks(keyring, executor, parallelism, maxIterations);
+    }
+
+    /**
+     * Read the next certificate.
+     *
+     * @return next certificate or null if there are no more certificates
+     * @throws IOException in case of an IO error or a broken certificate
+     */
+    @Nullable
+    abstract PGPPublicKeyRing readNext() throws IOException;
+
+    /**
+     * Return the next certificate, or null if there are no more certificates.
+     *
+     * @return next certificate or null
+     * @throws IOException in case of an IO error or a broken certificate
+     */
+    @Nullable
+    public PGPPublicKeyRing nextKeyRing() throws IOException {
+        if (next != null) {
+            PGPPublicKeyRing ring = next;
+            next = null;
+            return ring;
+        }
+        if (exhausted) {
+            return null;
+        }
+        PGPPublicKeyRing ring = readNext();
+        if (ring == null) {
+            exhausted = true;
+        }
+        return ring;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        try {
+            next = nextKeyRing();
+        } catch (IOException e) {
+            throw new ParsingException(e);
+        }
+        return next != null;
+    }
+
+    @Override
+    public PGPPublicKeyRing next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PGPPublicKeyRing ring = next;
+        next = null;
+        return ring;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Certificates cannot be removed from the keyring.");
+    }
+
+    /**
+     * Close the underlying input stream, if any.
+     *
+     * @throws IOException in case of an IO error
+     */
+    @Override
+    public void close() throws IOException {
+        exhausted = true;
+        next = null;
+        if (resource != null) {
+            resource.close();
+        }
+    }
+
+    /**
+     * Unchecked exception thrown by {@link #hasNext()} and {@link #next()} if the keyring cannot be read.
+     * The cause is the {@link IOException} that would have been thrown by {@link #nextKeyRing()}.
+     */
+    public static final class ParsingException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ParsingException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Iterator which reads certificates from a single {@link PGPObjectFactory}.
+     */
+    private static final class Sequential extends PublicKeyRingIterator {
+
+        private final PGPObjectFactory objectFactory;
+        private final int maxIterations;
+        private Iterator<PGPPublicKeyRing> collection = Collections.<PGPPublicKeyRing>emptyList().iterator();
+
+        private Sequential(InputStream inputStream, InputStream decoderStream, int maxIterations) {
+            super(inputStream);
+            this.objectFactory = ImplementationFactory.getInstance().getPGPObjectFactory(decoderStream);
+            this.maxIterations = maxIterations;
+        }
+
+        @Override
+        PGPPublicKeyRing readNext() throws IOException {
+            if (collection.hasNext()) {
+                return collection.next();
+            }
+            int i = 0;
+            Object next;
+            do {
+                next = objectFactory.nextObject();
+                if (next == null) {
+                    return null;
+                }
+                if (next instanceof PGPMarker) {
+                    continue;
+                }
+                if (next instanceof PGPPublicKeyRing) {
+                    return (PGPPublicKeyRing) next;
+                }
+                if (next instanceof PGPPublicKeyRingCollection) {
+                    collection = ((PGPPublicKeyRingCollection) next).getKeyRings();
+                    if (collection.hasNext()) {
+                        return collection.next();
+                    }
+                }
+            } while (++i < maxIterations);
+
+            throw new IOException("Loop exceeded max iteration count.");
+        }
+    }
+
+    /**
+     * Iterator which parses the armored blocks of a keyring concurrently.
+     * The certificates are returned in the order of the keyring.
+     */
+    private abstract static class Parallel extends PublicKeyRingIterator {
+
+        private final Executor executor;
+        private final int parallelism;
+        private final int maxIterations;
+        private final Deque<FutureTask<List<PGPPublicKeyRing>>> pending = new ArrayDeque<>();
+        private Iterator<PGPPublicKeyRing> current = Collections.<PGPPublicKeyRing>emptyList().iterator();
+        private boolean endOfInput = false;
+
+        private Parallel(Closeable resource, Executor executor, int parallelism, int maxIterations) {
+            super(resource);
+            this.executor = executor;
+            this.parallelism = parallelism;
+            this.maxIterations = maxIterations;
+        }
+
+        /**
+         * Return the next armored block, starting with its armor header line and ending with its armor tail line.
+         * This is called on the thread of the reader, so it should only locate the block.
+         *
+         * @return block or null if there are no more blocks
+         * @throws IOException in case of an IO error
+         */
+        @Nullable
+        abstract InputStream readBlock() throws IOException;
+
+        @Override
+        PGPPublicKeyRing readNext() throws IOException {
+            while (true) {
+                if (current.hasNext()) {
+                    return current.next();
+                }
+                submitBlocks();
+                FutureTask<List<PGPPublicKeyRing>> task = pending.poll();
+                if (task == null) {
+                    return null;
+                }
+                current = await(task).iterator();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (FutureTask<List<PGPPublicKeyRing>> task : pending) {
+                task.cancel(false);
+            }
+            pending.clear();
+            super.close();
+        }
+
+        private void submitBlocks() throws IOException {
+            while (!endOfInput && pending.size() < parallelism) {
+                final InputStream block = readBlock();
+                if (block == null) {
+                    endOfInput = true;
+                    return;
+                }
+                // Dearmoring, CRC checking and parsing happen on the executor
+                FutureTask<List<PGPPublicKeyRing>> task = new FutureTask<>(
+                        new Callable<List<PGPPublicKeyRing>>() {
+                            @Override
+                            public List<PGPPublicKeyRing> call() throws IOException, PGPException {
+                                return parseBlock(block, maxIterations);
+                            }
+                        });
+                pending.add(task);
+                executor.execute(task);
+            }
+        }
+
+        private static List<PGPPublicKeyRing> parseBlock(InputStream block, int maxIterations)
+                throws IOException, PGPException {
+            PGPPublicKeyRingCollection collection = KeyRingReader.readPublicKeyRingCollection(block, maxIterations);
+            Iterator<PGPPublicKeyRing> iterator = collection.getKeyRings();
+            if (!iterator.hasNext()) {
+                return Collections.emptyList();
+            }
+            List<PGPPublicKeyRing> rings = new ArrayList<>(collection.size());
+            while (iterator.hasNext()) {
+                rings.add(iterator.next());
+            }
+            return rings;
+        }
+
+        private static List<PGPPublicKeyRing> await(FutureTask<List<PGPPublicKeyRing>> task) throws IOException {
+            // Tasks which were not yet picked up by the executor are run on this thread.
+            // This way a saturated or single threaded executor cannot deadlock the reader.
+            task.run();
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing certificates.");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException("Cannot parse certificates.", cause);
+            }
+        }
+    }
+
+    /**
+     * Parallel iterator which reads the armored blocks from an {@link InputStream} line by line.
+     */
+    private static final class StreamBlocks extends Parallel {
+
+        private static final byte[] ARMOR_BEGIN = Strings.toByteArray("-----BEGIN PGP ");
+        private static final byte[] ARMOR_END = Strings.toByteArray("-----END PGP ");
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int bufferPos = 0;
+        private int bufferLength = 0;
+        private byte[] line = new byte[128];
+        private int lineLength = 0;
+
+        private StreamBlocks(InputStream inputStream, Executor executor, int parallelism, int maxIterations) {
+            super(inputStream, executor, parallelism, maxIterations);
+            this.in = inputStream;
+        }
+
+        @Override
+        InputStream readBlock() throws IOException {
+            ByteArrayOutputStream block = null;
+            while (readLine()) {
+                if (block == null) {
+                    if (lineStartsWith(ARMOR_BEGIN)) {
+                        block = new ByteArrayOutputStream();
+                        block.write(line, 0, lineLength);
+                    }
+                    continue;
+                }
+                block.write(line, 0, lineLength);
+                if (lineStartsWith(ARMOR_END)) {
+                    return new ByteArrayInputStream(block.toByteArray());
+                }
+            }
+            if (block != null) {
+                throw new IOException("Armored block is missing its armor tail line.");
+            }
+            return null;
+        }
+
+        /**
+         * Read the next line including its line ending into {@link #line}.
+         *
+         * @return false at the end of the input
+         */
+        private boolean readLine() throws IOException {
+            lineLength = 0;
+            while (true) {
+                if (bufferPos == bufferLength) {
+                    bufferLength = in.read(buffer);
+                    bufferPos = 0;
+                    if (bufferLength == -1) {
+                        bufferLength = 0;
+                        return lineLength != 0;
+                    }
+                }
+                int end = bufferPos;
+                while (end < bufferLength && buffer[end] != '\n') {
+                    end++;
+                }
+                boolean lineEnd = end < bufferLength;
+                if (lineEnd) {
+                    end++;
+                }
+                appendToLine(end - bufferPos);
+                if (lineEnd) {
+                    return true;
+                }
+            }
+        }
+
+        private void appendToLine(int len) {
+            if (lineLength + len > line.length) {
+                byte[] grown = new byte[Math.max(line.length * 2, lineLength + len)];
+                System.arraycopy(line, 0, grown, 0, lineLength);
+                line = grown;
+            }
+            System.arraycopy(buffer, bufferPos, line, lineLength, len);
+            lineLength += len;
+            bufferPos += len;
+        }
+
+        private boolean lineStartsWith(byte[] prefix) {
+            if (lineLength < prefix.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (line[i] != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Parallel iterator which locates the armored blocks in a {@link ByteBuffer} using an
+     * {@link ArmoredBlockSplitter}. The blocks are decoded directly from the buffer without copying.
+     */
+    private static final class BufferBlocks extends Parallel {
+
+        private final ArmoredBlockSplitter splitter;
+
+        private BufferBlocks(ByteBuffer keyring, Executor executor, int parallelism, int maxIterations) {
+            super(null, executor, parallelism, maxIterations);
+            this.splitter = new ArmoredBlockSplitter(keyring);
+        }
+
+        @Override
+        InputStream readBlock() throws IOException {
+            final ByteBuffer block = splitter.nextBlock();
+            if (block == null) {
+                return null;
+            }
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return block.hasRemaining() ? block.get() & 0xff : -1;
+                }
+
+                @Override
+                public int read(@Nonnull byte[] b, int off, int len) {
+                    if (len == 0) {
+                        return 0;
+                    }
+                    if (!block.hasRemaining()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, block.remaining());
+                    block.get(b, off, n);
+                    return n;
+                }
+
+                @Override
+                public int available() {
+                    return block.remaining();
+                }
+            };
+        }
+    }
+}
@@ -9,8 +9,10 @@ import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPPrivateKey;
 import org.bouncycastle.openpgp.PGPSecretKey;
 import org.bouncycastle.openpgp.operator.PBESecretKeyDecryptor;
+import org.pgpainless.PGPainless;
 import org.pgpainless.exception.KeyIntegrityException;
 import org.pgpainless.exception.WrongPassphraseException;
+import org.pgpainless.instrumentation.OperationListener;
 import org.pgpainless.key.info.KeyInfo;
 import org.pgpainless.key.util.PublicKeyParameterValidationUtil;
 import org.pgpainless.util.Passphrase;
@@ -21,19 +23,50 @@ public final class UnlockSecretKey {
 
     }
 
+    /**
+     * Unlock the given secret key using the given protector.
+     * If the {@link UnlockedPrivateKeyCache} is enabled, a previously unlocked private key is returned
+     * if the key was unlocked using the same protector before.
+     *
+     * @param secretKey secret key
+     * @param protector protector
+     * @return unlocked private key
+     * @throws PGPException if the key cannot be unlocked
+     * @throws KeyIntegrityException if the key integrity check fails
+     */
     public static PGPPrivateKey unlockSecretKey(PGPSecretKey secretKey, SecretKeyRingProtector protector)
             throws PGPException, KeyIntegrityException {
+        UnlockedPrivateKeyCache cache = UnlockedPrivateKeyCache.getInstance();
+        PGPPrivateKey privateKey = cache.get(secretKey, protector);
+        if (privateKey != null) {
+            return privateKey;
+        }
 
         PBESecretKeyDecryptor decryptor = null;
         if (KeyInfo.isEncrypted(secretKey)) {
             decryptor = protector.getDecryptor(secretKey.getKeyID());
         }
-        PGPPrivateKey privateKey = unlockSecretKey(secretKey, decryptor);
+        privateKey = unlockSecretKey(secretKey, decryptor);
+        cache.put(secretKey, protector, privateKey);
         return privateKey;
     }
 
     public static PGPPrivateKey unlockSecretKey(PGPSecretKey secretKey, PBESecretKeyDecryptor decryptor)
             throws PGPException {
+        OperationListener listener = PGPainless.getPolicy().getOperationListener();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            PGPPrivateKey privateKey = extractPrivateKey(secretKey, decryptor);
+            success = true;
+            return privateKey;
+        } finally {
+            listener.onSecretKeyUnlock(secretKey.getKeyID(), success, System.nanoTime() - start);
+        }
+    }
+
+    private static PGPPrivateKey extractPrivateKey(PGPSecretKey secretKey, PBESecretKeyDecryptor decryptor)
+            throws PGPException {
         PGPPrivateKey privateKey;
         try {
             privateKey = secretKey.extractPrivateKey(decryptor);
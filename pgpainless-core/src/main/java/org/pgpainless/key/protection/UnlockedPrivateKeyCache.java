@@ -0,0 +1,235 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.protection;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.util.LruCache;
+
+/**
+ * Process-wide cache of unlocked {@link PGPPrivateKey PGPPrivateKeys}.
+ *
+ * Unlocking a secret key involves the S2K key derivation (which is deliberately slow for iterated and salted S2K)
+ * and a key integrity check using a trial signature or encryption.
+ * If the cache is enabled by setting a positive time-to-live via {@link #setTimeToLive(long)},
+ * {@link UnlockSecretKey#unlockSecretKey(PGPSecretKey, SecretKeyRingProtector)} only performs these steps once
+ * per key and protector within the time-to-live.
+ *
+ * Entries are keyed by the fingerprint of the (sub-)key and the {@link SecretKeyRingProtector}, which is compared
+ * by identity. A cached key is therefore only handed out to callers presenting the same protector instance which
+ * was used to unlock it in the first place.
+ *
+ * Evicted keys are dereferenced immediately.
+ * Note however, that the key material of BouncyCastle's {@link PGPPrivateKey} is held in immutable
+ * {@link java.math.BigInteger BigIntegers}, so it cannot be overwritten and remains in memory until it is
+ * garbage collected.
+ *
+ * The cache is disabled by default.
+ */
+public final class UnlockedPrivateKeyCache {
+
+    public static final long DISABLED = 0;
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    private static final UnlockedPrivateKeyCache INSTANCE = new UnlockedPrivateKeyCache();
+
+    private long timeToLive = DISABLED;
+    private int maxSize = DEFAULT_MAX_SIZE;
+    private LruCache<CacheKey, PGPPrivateKey> cache = null;
+
+    private UnlockedPrivateKeyCache() {
+
+    }
+
+    public static UnlockedPrivateKeyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set the time in milliseconds for which unlocked keys are cached.
+     * A time-to-live of {@link #DISABLED} disables the cache.
+     * Changing the time-to-live clears the cache.
+     *
+     * @param timeToLiveMillis time-to-live in milliseconds
+     */
+    public synchronized void setTimeToLive(long timeToLiveMillis) {
+        if (timeToLiveMillis < 0) {
+            throw new IllegalArgumentException("Time-to-live MUST NOT be negative.");
+        }
+        this.timeToLive = timeToLiveMillis;
+        resetCache();
+    }
+
+    public synchronized long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Set the maximum number of cached private keys.
+     * Changing the size clears the cache.
+     *
+     * @param maxSize maximum number of entries
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size MUST be positive.");
+        }
+        this.maxSize = maxSize;
+        resetCache();
+    }
+
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Return the cached private key for the given secret key, which was unlocked using the given protector.
+     * Returns null if the cache is disabled, or if there is no such key.
+     *
+     * @param secretKey secret key
+     * @param protector protector that was used to unlock the key
+     * @return private key or null
+     */
+    @Nullable
+    public PGPPrivateKey get(@Nonnull PGPSecretKey secretKey, @Nonnull SecretKeyRingProtector protector) {
+        LruCache<CacheKey, PGPPrivateKey> cache = getCache();
+        if (cache == null) {
+            return null;
+        }
+        return cache.get(new CacheKey(secretKey, protector));
+    }
+
+    /**
+     * Store the private key of the given secret key, which was unlocked using the given protector.
+     * If the cache is disabled, this method does nothing.
+     *
+     * @param secretKey secret key
+     * @param protector protector that was used to unlock the key
+     * @param privateKey unlocked private key
+     */
+    public void put(@Nonnull PGPSecretKey secretKey,
+                    @Nonnull SecretKeyRingProtector protector,
+                    @Nonnull PGPPrivateKey privateKey) {
+        LruCache<CacheKey, PGPPrivateKey> cache = getCache();
+        if (cache != null) {
+            cache.put(new CacheKey(secretKey, protector), privateKey);
+        }
+    }
+
+    /**
+     * Remove all cached private keys of the (sub-)key with the given fingerprint.
+     *
+     * @param fingerprint fingerprint of the (sub-)key
+     */
+    public void invalidate(@Nonnull OpenPgpFingerprint fingerprint) {
+        LruCache<CacheKey, PGPPrivateKey> cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        for (CacheKey key : cache.keys()) {
+            if (key.fingerprint.equals(fingerprint)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove all cached private keys which were unlocked using the given protector.
+     *
+     * @param protector protector
+     */
+    public void invalidate(@Nonnull SecretKeyRingProtector protector) {
+        LruCache<CacheKey, PGPPrivateKey> cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        for (CacheKey key : cache.keys()) {
+            if (key.protector == protector) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove all expired private keys from the cache.
+     * Expired keys are otherwise only removed when they are accessed.
+     */
+    public void evictExpired() {
+        LruCache<CacheKey, PGPPrivateKey> cache = getCache();
+        if (cache != null) {
+            cache.evictExpired();
+        }
+    }
+
+    /**
+     * Remove all private keys from the cache.
+     */
+    public synchronized void clear() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Return the number of cached private keys.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    private synchronized LruCache<CacheKey, PGPPrivateKey> getCache() {
+        return cache;
+    }
+
+    private void resetCache() {
+        if (cache != null) {
+            // dereference keys of the old cache
+            cache.clear();
+        }
+        if (timeToLive == DISABLED) {
+            cache = null;
+        } else {
+            cache = new LruCache<>(maxSize, timeToLive);
+        }
+    }
+
+    private static final class CacheKey {
+
+        private final OpenPgpFingerprint fingerprint;
+        private final SecretKeyRingProtector protector;
+
+        private CacheKey(PGPSecretKey secretKey, SecretKeyRingProtector protector) {
+            this.fingerprint = OpenPgpFingerprint.of(secretKey.getPublicKey());
+            this.protector = protector;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return protector == other.protector && fingerprint.equals(other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fingerprint.hashCode() + System.identityHashCode(protector);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import org.pgpainless.algorithm.CompressionAlgorithm;
 import org.pgpainless.algorithm.HashAlgorithm;
 import org.pgpainless.algorithm.PublicKeyAlgorithm;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.instrumentation.OperationListener;
 import org.pgpainless.util.NotationRegistry;
 
 /**
@@ -42,6 +43,8 @@ public final class Policy {
 
     private AlgorithmSuite keyGenerationAlgorithmSuite = AlgorithmSuite.getDefaultAlgorithmSuite();
 
+    private volatile OperationListener operationListener = OperationListener.NO_OP;
+
     Policy() {
     }
 
@@ -176,6 +179,29 @@ public final class Policy {
         this.publicKeyAlgorithmPolicy = publicKeyAlgorithmPolicy;
     }
 
+    /**
+     * Return the {@link OperationListener} which is notified about OpenPGP operations.
+     * By default, this is {@link OperationListener#NO_OP}.
+     *
+     * @return operation listener
+     */
+    public OperationListener getOperationListener() {
+        return operationListener;
+    }
+
+    /**
+     * Set an {@link OperationListener} which is notified about OpenPGP operations, e.g. in order to collect metrics.
+     * Use {@link OperationListener#NO_OP} to disable instrumentation again.
+     *
+     * @param operationListener operation listener
+     */
+    public void setOperationListener(OperationListener operationListener) {
+        if (operationListener == null) {
+            throw new NullPointerException("Operation listener cannot be null.");
+        }
+        this.operationListener = operationListener;
+    }
+
     public static final class SymmetricKeyAlgorithmPolicy {
 
         private final SymmetricKeyAlgorithm defaultSymmetricKeyAlgorithm;
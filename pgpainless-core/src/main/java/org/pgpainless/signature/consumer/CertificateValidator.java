@@ -11,9 +11,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import javax.annotation.Nullable;
 
 import org.bouncycastle.bcpg.sig.KeyFlags;
 import org.bouncycastle.bcpg.sig.SignerUserID;
@@ -23,6 +29,7 @@ import org.bouncycastle.openpgp.PGPSignature;
 import org.pgpainless.algorithm.KeyFlag;
 import org.pgpainless.algorithm.SignatureType;
 import org.pgpainless.exception.SignatureValidationException;
+import org.pgpainless.instrumentation.OperationListener;
 import org.pgpainless.policy.Policy;
 import org.pgpainless.signature.SignatureUtils;
 import org.pgpainless.signature.subpackets.SignatureSubpacketsUtil;
@@ -57,6 +64,46 @@ public final class CertificateValidator {
      */
     public static boolean validateCertificate(PGPSignature signature, PGPPublicKeyRing signingKeyRing, Policy policy)
             throws SignatureValidationException {
+        return validateCertificate(signature, signingKeyRing, policy, null);
+    }
+
+    /**
+     * Check if the signing key was eligible to create the provided signature.
+     * If an {@link Executor} is given, the independent verifications of the certificates self-signatures
+     * (key revocations, direct-key signatures, user-id certifications and subkey bindings) are fanned out onto it.
+     * Otherwise, all signatures are verified sequentially on the calling thread.
+     *
+     * @see #validateCertificate(PGPSignature, PGPPublicKeyRing, Policy)
+     *
+     * @param signature signature
+     * @param signingKeyRing signing key ring
+     * @param policy validation policy
+     * @param executor executor for parallel signature verification or null
+     * @return true if the signing key was eligible to create the signature
+     * @throws SignatureValidationException in case of a validation constraint violation
+     */
+    public static boolean validateCertificate(PGPSignature signature,
+                                              PGPPublicKeyRing signingKeyRing,
+                                              Policy policy,
+                                              @Nullable Executor executor)
+            throws SignatureValidationException {
+        OperationListener listener = policy.getOperationListener();
+        long start = System.nanoTime();
+        boolean valid = false;
+        try {
+            valid = doValidateCertificate(signature, signingKeyRing, policy, executor);
+            return valid;
+        } finally {
+            listener.onCertificateValidation(signingKeyRing.getPublicKey().getKeyID(), valid,
+                    System.nanoTime() - start);
+        }
+    }
+
+    private static boolean doValidateCertificate(PGPSignature signature,
+                                                 PGPPublicKeyRing signingKeyRing,
+                                                 Policy policy,
+                                                 @Nullable Executor executor)
+            throws SignatureValidationException {
 
         Map<PGPSignature, Exception> rejections = new ConcurrentHashMap<>();
         long keyId = SignatureUtils.determineIssuerKeyId(signature);
@@ -66,36 +113,57 @@ public final class CertificateValidator {
         }
 
         PGPPublicKey primaryKey = signingKeyRing.getPublicKey();
+        Date creationTime = signature.getCreationTime();
 
         // Key-Revocation Signatures
-        List<PGPSignature> directKeySignatures = new ArrayList<>();
+        List<VerificationTask> directKeyTasks = new ArrayList<>();
         Iterator<PGPSignature> primaryKeyRevocationIterator = primaryKey.getSignaturesOfType(SignatureType.KEY_REVOCATION.getCode());
         while (primaryKeyRevocationIterator.hasNext()) {
-            PGPSignature revocation = primaryKeyRevocationIterator.next();
-            try {
-                if (SignatureVerifier.verifyKeyRevocationSignature(revocation, primaryKey, policy, signature.getCreationTime())) {
-                    directKeySignatures.add(revocation);
-                }
-            } catch (SignatureValidationException e) {
-                rejections.put(revocation, e);
-                LOGGER.debug("Rejecting key revocation signature: {}", e.getMessage(), e);
-            }
+            directKeyTasks.add(VerificationTask.keyRevocation(primaryKeyRevocationIterator.next(), primaryKey, policy, creationTime));
         }
 
         // Direct-Key Signatures
         Iterator<PGPSignature> keySignatures = primaryKey.getSignaturesOfType(SignatureType.DIRECT_KEY.getCode());
         while (keySignatures.hasNext()) {
-            PGPSignature keySignature = keySignatures.next();
-            try {
-                if (SignatureVerifier.verifyDirectKeySignature(keySignature, primaryKey, policy, signature.getCreationTime())) {
-                    directKeySignatures.add(keySignature);
-                }
-            } catch (SignatureValidationException e) {
-                rejections.put(keySignature, e);
-                LOGGER.debug("Rejecting key signature: {}", e.getMessage(), e);
+            directKeyTasks.add(VerificationTask.directKey(keySignatures.next(), primaryKey, policy, creationTime));
+        }
+
+        // User-ID signatures (certifications, revocations)
+        Iterator<String> userIds = primaryKey.getUserIDs();
+        Map<String, List<VerificationTask>> userIdTasks = new LinkedHashMap<>();
+        while (userIds.hasNext()) {
+            String userId = userIds.next();
+            List<VerificationTask> tasks = new ArrayList<>();
+            Iterator<PGPSignature> userIdSigs = primaryKey.getSignaturesForID(userId);
+            while (userIdSigs.hasNext()) {
+                tasks.add(VerificationTask.userId(userIdSigs.next(), userId, primaryKey, policy, creationTime));
             }
+            userIdTasks.put(userId, tasks);
         }
 
+        // Subkey Binding Signatures / Subkey Revocation Signatures
+        List<VerificationTask> subkeyTasks = new ArrayList<>();
+        if (signingSubkey != primaryKey) {
+            Iterator<PGPSignature> bindingRevocations = signingSubkey.getSignaturesOfType(SignatureType.SUBKEY_REVOCATION.getCode());
+            while (bindingRevocations.hasNext()) {
+                subkeyTasks.add(VerificationTask.subkeyRevocation(bindingRevocations.next(), primaryKey, signingSubkey, policy, creationTime));
+            }
+
+            Iterator<PGPSignature> bindingSigs = signingSubkey.getSignaturesOfType(SignatureType.SUBKEY_BINDING.getCode());
+            while (bindingSigs.hasNext()) {
+                subkeyTasks.add(VerificationTask.subkeyBinding(bindingSigs.next(), primaryKey, signingSubkey, policy, creationTime));
+            }
+        }
+
+        if (executor != null) {
+            VerificationTask.submitAll(directKeyTasks, executor);
+            for (List<VerificationTask> tasks : userIdTasks.values()) {
+                VerificationTask.submitAll(tasks, executor);
+            }
+            VerificationTask.submitAll(subkeyTasks, executor);
+        }
+
+        List<PGPSignature> directKeySignatures = VerificationTask.collectAccepted(directKeyTasks, rejections);
         Collections.sort(directKeySignatures, new SignatureValidityComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
         if (!directKeySignatures.isEmpty()) {
             if (directKeySignatures.get(0).getSignatureType() == SignatureType.KEY_REVOCATION.getCode()) {
@@ -103,26 +171,11 @@ public final class CertificateValidator {
             }
         }
 
-        // User-ID signatures (certifications, revocations)
-        Iterator<String> userIds = primaryKey.getUserIDs();
         Map<String, List<PGPSignature>> userIdSignatures = new ConcurrentHashMap<>();
-        while (userIds.hasNext()) {
-            List<PGPSignature> signaturesOnUserId = new ArrayList<>();
-            String userId = userIds.next();
-            Iterator<PGPSignature> userIdSigs = primaryKey.getSignaturesForID(userId);
-            while (userIdSigs.hasNext()) {
-                PGPSignature userIdSig = userIdSigs.next();
-                try {
-                    if (SignatureVerifier.verifySignatureOverUserId(userId, userIdSig, primaryKey, policy, signature.getCreationTime())) {
-                        signaturesOnUserId.add(userIdSig);
-                    }
-                } catch (SignatureValidationException e) {
-                    rejections.put(userIdSig, e);
-                    LOGGER.debug("Rejecting user-id signature: {}", e.getMessage(), e);
-                }
-            }
+        for (Map.Entry<String, List<VerificationTask>> entry : userIdTasks.entrySet()) {
+            List<PGPSignature> signaturesOnUserId = VerificationTask.collectAccepted(entry.getValue(), rejections);
             Collections.sort(signaturesOnUserId, new SignatureValidityComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
-            userIdSignatures.put(userId, signaturesOnUserId);
+            userIdSignatures.put(entry.getKey(), signaturesOnUserId);
         }
 
         boolean anyUserIdValid = false;
@@ -158,33 +211,7 @@ public final class CertificateValidator {
             }
         } // Subkey Binding Signatures / Subkey Revocation Signatures
         else {
-            List<PGPSignature> subkeySigs = new ArrayList<>();
-            Iterator<PGPSignature> bindingRevocations = signingSubkey.getSignaturesOfType(SignatureType.SUBKEY_REVOCATION.getCode());
-            while (bindingRevocations.hasNext()) {
-                PGPSignature revocation = bindingRevocations.next();
-                try {
-                    if (SignatureVerifier.verifySubkeyBindingRevocation(revocation, primaryKey, signingSubkey, policy, signature.getCreationTime())) {
-                        subkeySigs.add(revocation);
-                    }
-                } catch (SignatureValidationException e) {
-                    rejections.put(revocation, e);
-                    LOGGER.debug("Rejecting subkey revocation signature: {}", e.getMessage(), e);
-                }
-            }
-
-            Iterator<PGPSignature> bindingSigs = signingSubkey.getSignaturesOfType(SignatureType.SUBKEY_BINDING.getCode());
-            while (bindingSigs.hasNext()) {
-                PGPSignature bindingSig = bindingSigs.next();
-                try {
-                    if (SignatureVerifier.verifySubkeyBindingSignature(bindingSig, primaryKey, signingSubkey, policy, signature.getCreationTime())) {
-                        subkeySigs.add(bindingSig);
-                    }
-                } catch (SignatureValidationException e) {
-                    rejections.put(bindingSig, e);
-                    LOGGER.debug("Rejecting subkey binding signature: {}", e.getMessage(), e);
-                }
-            }
-
+            List<PGPSignature> subkeySigs = VerificationTask.collectAccepted(subkeyTasks, rejections);
             Collections.sort(subkeySigs, new SignatureValidityComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
             if (subkeySigs.isEmpty()) {
                 throw new SignatureValidationException("Subkey is not bound.", rejections);
@@ -247,7 +274,26 @@ public final class CertificateValidator {
      */
     public static boolean validateCertificateAndVerifyInitializedSignature(PGPSignature signature, PGPPublicKeyRing verificationKeys, Policy policy)
             throws SignatureValidationException {
-        validateCertificate(signature, verificationKeys, policy);
+        return validateCertificateAndVerifyInitializedSignature(signature, verificationKeys, policy, null);
+    }
+
+    /**
+     * Validate the signing key and the given initialized signature.
+     * If an {@link Executor} is given, the certificate validation is parallelized using it.
+     *
+     * @param signature initialized signature
+     * @param verificationKeys key ring containing the verification key
+     * @param policy validation policy
+     * @param executor executor for parallel certificate validation or null
+     * @return true if the signature is valid, false otherwise
+     * @throws SignatureValidationException in case of a validation constraint violation
+     */
+    public static boolean validateCertificateAndVerifyInitializedSignature(PGPSignature signature,
+                                                                           PGPPublicKeyRing verificationKeys,
+                                                                           Policy policy,
+                                                                           @Nullable Executor executor)
+            throws SignatureValidationException {
+        validateCertificate(signature, verificationKeys, policy, executor);
         long keyId = SignatureUtils.determineIssuerKeyId(signature);
         PGPPublicKey signingKey = verificationKeys.getPublicKey(keyId);
         SignatureVerifier.verifyInitializedSignature(signature, signingKey, policy, signature.getCreationTime());
@@ -264,10 +310,141 @@ public final class CertificateValidator {
      */
     public static boolean validateCertificateAndVerifyOnePassSignature(OnePassSignatureCheck onePassSignature, Policy policy)
             throws SignatureValidationException {
+        return validateCertificateAndVerifyOnePassSignature(onePassSignature, policy, null);
+    }
+
+    /**
+     * Validate the signing key certificate and the given {@link OnePassSignatureCheck}.
+     * If an {@link Executor} is given, the certificate validation is parallelized using it.
+     *
+     * @param onePassSignature corresponding one-pass-signature
+     * @param policy policy
+     * @param executor executor for parallel certificate validation or null
+     * @return true if the certificate is valid and the signature is correct, false otherwise.
+     * @throws SignatureValidationException in case of a validation error
+     */
+    public static boolean validateCertificateAndVerifyOnePassSignature(OnePassSignatureCheck onePassSignature,
+                                                                       Policy policy,
+                                                                       @Nullable Executor executor)
+            throws SignatureValidationException {
         PGPSignature signature = onePassSignature.getSignature();
-        validateCertificate(signature, onePassSignature.getVerificationKeys(), policy);
+        validateCertificate(signature, onePassSignature.getVerificationKeys(), policy, executor);
         PGPPublicKey signingKey = onePassSignature.getVerificationKeys().getPublicKey(signature.getKeyID());
         verifyOnePassSignature(signature, signingKey, onePassSignature, policy);
         return true;
     }
+
+    /**
+     * Verification of a single signature of a certificate, which can either be run on the calling thread,
+     * or be submitted to an {@link Executor}.
+     */
+    private static final class VerificationTask {
+
+        private final PGPSignature signature;
+        private final String description;
+        private final FutureTask<Boolean> future;
+
+        private VerificationTask(PGPSignature signature, String description, Callable<Boolean> verification) {
+            this.signature = signature;
+            this.description = description;
+            this.future = new FutureTask<>(verification);
+        }
+
+        static VerificationTask keyRevocation(final PGPSignature revocation, final PGPPublicKey primaryKey,
+                                              final Policy policy, final Date creationTime) {
+            return new VerificationTask(revocation, "key revocation signature", new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws SignatureValidationException {
+                    return SignatureVerifier.verifyKeyRevocationSignature(revocation, primaryKey, policy, creationTime);
+                }
+            });
+        }
+
+        static VerificationTask directKey(final PGPSignature keySignature, final PGPPublicKey primaryKey,
+                                          final Policy policy, final Date creationTime) {
+            return new VerificationTask(keySignature, "key signature", new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws SignatureValidationException {
+                    return SignatureVerifier.verifyDirectKeySignature(keySignature, primaryKey, policy, creationTime);
+                }
+            });
+        }
+
+        static VerificationTask userId(final PGPSignature userIdSig, final String userId, final PGPPublicKey primaryKey,
+                                       final Policy policy, final Date creationTime) {
+            return new VerificationTask(userIdSig, "user-id signature", new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws SignatureValidationException {
+                    return SignatureVerifier.verifySignatureOverUserId(userId, userIdSig, primaryKey, policy, creationTime);
+                }
+            });
+        }
+
+        static VerificationTask subkeyRevocation(final PGPSignature revocation, final PGPPublicKey primaryKey,
+                                                 final PGPPublicKey subkey, final Policy policy, final Date creationTime) {
+            return new VerificationTask(revocation, "subkey revocation signature", new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws SignatureValidationException {
+                    return SignatureVerifier.verifySubkeyBindingRevocation(revocation, primaryKey, subkey, policy, creationTime);
+                }
+            });
+        }
+
+        static VerificationTask subkeyBinding(final PGPSignature bindingSig, final PGPPublicKey primaryKey,
+                                              final PGPPublicKey subkey, final Policy policy, final Date creationTime) {
+            return new VerificationTask(bindingSig, "subkey binding signature", new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws SignatureValidationException {
+                    return SignatureVerifier.verifySubkeyBindingSignature(bindingSig, primaryKey, subkey, policy, creationTime);
+                }
+            });
+        }
+
+        static void submitAll(List<VerificationTask> tasks, Executor executor) {
+            for (VerificationTask task : tasks) {
+                executor.execute(task.future);
+            }
+        }
+
+        /**
+         * Return the signatures of all tasks that verified successfully, in the order of the tasks.
+         * Tasks which were not yet started (or were never submitted) are run on the calling thread.
+         * Rejected signatures are recorded in the given map.
+         */
+        static List<PGPSignature> collectAccepted(List<VerificationTask> tasks, Map<PGPSignature, Exception> rejections)
+                throws SignatureValidationException {
+            List<PGPSignature> accepted = new ArrayList<>();
+            for (VerificationTask task : tasks) {
+                if (task.isAccepted(rejections)) {
+                    accepted.add(task.signature);
+                }
+            }
+            return accepted;
+        }
+
+        private boolean isAccepted(Map<PGPSignature, Exception> rejections) throws SignatureValidationException {
+            // no-op if the executor already started the task
+            future.run();
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SignatureValidationException("Interrupted while verifying " + description + ".", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SignatureValidationException) {
+                    rejections.put(signature, (SignatureValidationException) cause);
+                    LOGGER.debug("Rejecting {}: {}", description, cause.getMessage(), cause);
+                    return false;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new SignatureValidationException("Cannot verify " + description + ".", (Exception) cause);
+            }
+        }
+    }
 }
@@ -20,6 +20,7 @@ import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPSignatureList;
 import org.bouncycastle.openpgp.PGPSignatureSubpacketVector;
 import org.bouncycastle.openpgp.PGPUserAttributeSubpacketVector;
+import org.bouncycastle.util.Strings;
 import org.pgpainless.algorithm.HashAlgorithm;
 import org.pgpainless.algorithm.KeyFlag;
 import org.pgpainless.algorithm.PublicKeyAlgorithm;
@@ -437,12 +438,22 @@ public abstract class SignatureValidator {
                 if (primaryKey.getKeyID() == subkey.getKeyID()) {
                     throw new SignatureValidationException("Primary key cannot be its own subkey.");
                 }
+                SignatureVerificationCache cache = SignatureVerificationCache.getInstance();
+                String cacheKey = cache.computeKey(signature, primaryKey, subkey.getFingerprint());
+                if (cache.isVerified(cacheKey)) {
+                    return;
+                }
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), primaryKey);
-                    boolean valid = signature.verifyCertification(primaryKey, subkey);
+                    boolean valid;
+                    // PGPSignature holds the verifier state, and certificates may be shared between threads
+                    synchronized (signature) {
+                        signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), primaryKey);
+                        valid = signature.verifyCertification(primaryKey, subkey);
+                    }
                     if (!valid) {
                         throw new SignatureValidationException("Signature is not correct.");
                     }
+                    cache.markVerified(cacheKey);
                 } catch (PGPException e) {
                     throw new SignatureValidationException("Cannot verify subkey binding signature correctness", e);
                 }
@@ -461,12 +472,21 @@ public abstract class SignatureValidator {
         return new SignatureValidator() {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
+                SignatureVerificationCache cache = SignatureVerificationCache.getInstance();
+                String cacheKey = cache.computeKey(signature, subkey, primaryKey.getFingerprint());
+                if (cache.isVerified(cacheKey)) {
+                    return;
+                }
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), subkey);
-                    boolean valid = signature.verifyCertification(primaryKey, subkey);
+                    boolean valid;
+                    synchronized (signature) {
+                        signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), subkey);
+                        valid = signature.verifyCertification(primaryKey, subkey);
+                    }
                     if (!valid) {
                         throw new SignatureValidationException("Primary Key Binding Signature is not correct.");
                     }
+                    cache.markVerified(cacheKey);
                 } catch (PGPException e) {
                     throw new SignatureValidationException("Cannot verify primary key binding signature correctness", e);
                 }
@@ -485,17 +505,25 @@ public abstract class SignatureValidator {
         return new SignatureValidator() {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
+                SignatureVerificationCache cache = SignatureVerificationCache.getInstance();
+                String cacheKey = cache.computeKey(signature, signer, signee.getFingerprint());
+                if (cache.isVerified(cacheKey)) {
+                    return;
+                }
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), signer);
                     boolean valid;
-                    if (signer.getKeyID() != signee.getKeyID()) {
-                        valid = signature.verifyCertification(signer, signee);
-                    } else {
-                        valid = signature.verifyCertification(signee);
+                    synchronized (signature) {
+                        signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), signer);
+                        if (signer.getKeyID() != signee.getKeyID()) {
+                            valid = signature.verifyCertification(signer, signee);
+                        } else {
+                            valid = signature.verifyCertification(signee);
+                        }
                     }
                     if (!valid) {
                         throw new SignatureValidationException("Signature is not correct.");
                     }
+                    cache.markVerified(cacheKey);
                 } catch (PGPException e) {
                     throw new SignatureValidationException("Cannot verify direct-key signature correctness", e);
                 }
@@ -553,12 +581,22 @@ public abstract class SignatureValidator {
         return new SignatureValidator() {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
+                SignatureVerificationCache cache = SignatureVerificationCache.getInstance();
+                String cacheKey = cache.computeKey(signature, certifyingKey,
+                        certifiedKey.getFingerprint(), Strings.toUTF8ByteArray(userId));
+                if (cache.isVerified(cacheKey)) {
+                    return;
+                }
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), certifyingKey);
-                    boolean valid = signature.verifyCertification(userId, certifiedKey);
+                    boolean valid;
+                    synchronized (signature) {
+                        signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), certifyingKey);
+                        valid = signature.verifyCertification(userId, certifiedKey);
+                    }
                     if (!valid) {
                         throw new SignatureValidationException("Signature over user-id '" + userId + "' is not correct.");
                     }
+                    cache.markVerified(cacheKey);
                 } catch (PGPException e) {
                     throw new SignatureValidationException("Cannot verify signature over user-id '" + userId + "'.", e);
                 }
@@ -579,8 +617,11 @@ public abstract class SignatureValidator {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), certifyingKey);
-                    boolean valid = signature.verifyCertification(userAttributes, certifiedKey);
+                    boolean valid;
+                    synchronized (signature) {
+                        signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), certifyingKey);
+                        valid = signature.verifyCertification(userAttributes, certifiedKey);
+                    }
                     if (!valid) {
                         throw new SignatureValidationException("Signature over user-attribute vector is not correct.");
                     }
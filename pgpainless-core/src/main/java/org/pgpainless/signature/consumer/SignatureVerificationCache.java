@@ -0,0 +1,160 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature.consumer;
+
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.util.encoders.Hex;
+import org.pgpainless.util.LruCache;
+
+/**
+ * Process-wide cache of signatures which were already found to be cryptographically correct.
+ *
+ * Validating a certificate requires the verification of all its self-signatures.
+ * The public-key operations involved are expensive, but their result never changes for a given
+ * signature, signing key and signed data.
+ * If this cache is enabled by setting a positive size via {@link #setMaxSize(int)}, the validators in
+ * {@link SignatureValidator} only check the correctness of each signature once.
+ * All other checks (e.g. expiration, revocation or policy checks) are still performed every time.
+ *
+ * Entries are keyed by a digest over the encoding of the signature, the fingerprint of the signing key and
+ * the signed subject (e.g. the fingerprint of the subkey and the user-id).
+ * Only positive results are cached.
+ *
+ * The cache is disabled by default.
+ */
+public final class SignatureVerificationCache {
+
+    public static final int DISABLED = 0;
+
+    private static final SignatureVerificationCache INSTANCE = new SignatureVerificationCache();
+
+    private LruCache<String, Boolean> cache = null;
+
+    private SignatureVerificationCache() {
+
+    }
+
+    public static SignatureVerificationCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set the maximum number of cached signatures.
+     * A size of {@link #DISABLED} disables the cache.
+     * Changing the size clears the cache.
+     *
+     * @param maxSize maximum number of entries
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size MUST NOT be negative.");
+        }
+        cache = maxSize == DISABLED ? null : new LruCache<String, Boolean>(maxSize, LruCache.NO_EXPIRATION);
+    }
+
+    public synchronized int getMaxSize() {
+        return cache == null ? DISABLED : cache.getMaxSize();
+    }
+
+    public synchronized boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Compute the cache key for a signature made by the given signing key over the given subject.
+     * Returns null if the cache is disabled, or if the signature cannot be encoded.
+     *
+     * @param signature signature
+     * @param signingKey signing key
+     * @param subject signed subject, e.g. the fingerprint of the signed key, followed by the signed user-id
+     * @return cache key or null
+     */
+    @Nullable
+    public String computeKey(@Nonnull PGPSignature signature,
+                             @Nonnull PGPPublicKey signingKey,
+                             @Nonnull byte[]... subject) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        byte[] encoding;
+        try {
+            encoding = signature.getEncoded();
+        } catch (IOException e) {
+            return null;
+        }
+
+        SHA256Digest digest = new SHA256Digest();
+        update(digest, encoding);
+        update(digest, signingKey.getFingerprint());
+        for (byte[] part : subject) {
+            update(digest, part);
+        }
+        byte[] hash = new byte[digest.getDigestSize()];
+        digest.doFinal(hash, 0);
+        return Hex.toHexString(hash);
+    }
+
+    /**
+     * Return true, if a signature with the given cache key was already found to be correct.
+     *
+     * @param key cache key computed by {@link #computeKey(PGPSignature, PGPPublicKey, byte[]...)}, or null
+     * @return true if the signature is known to be correct
+     */
+    public boolean isVerified(@Nullable String key) {
+        LruCache<String, Boolean> cache = getCache();
+        return key != null && cache != null && cache.get(key) != null;
+    }
+
+    /**
+     * Remember that the signature with the given cache key is correct.
+     *
+     * @param key cache key computed by {@link #computeKey(PGPSignature, PGPPublicKey, byte[]...)}, or null
+     */
+    public void markVerified(@Nullable String key) {
+        LruCache<String, Boolean> cache = getCache();
+        if (key != null && cache != null) {
+            cache.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Return the number of cached signatures.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public synchronized void clear() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private synchronized LruCache<String, Boolean> getCache() {
+        return cache;
+    }
+
+    private static void update(SHA256Digest digest, byte[] bytes) {
+        // length prefix prevents ambiguity between adjacent fields
+        int length = bytes.length;
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+        digest.update(bytes, 0, length);
+    }
+}
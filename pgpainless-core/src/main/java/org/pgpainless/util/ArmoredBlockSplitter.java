@@ -0,0 +1,112 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.util.Strings;
+
+/**
+ * Splitter which locates the armored blocks of concatenated ASCII armored data (e.g. a keyring export consisting of
+ * many "-----BEGIN PGP PUBLIC KEY BLOCK-----" sections) in a {@link ByteBuffer}.
+ *
+ * Blocks are returned as slices of the buffer without copying, starting with the armor header line and ending with
+ * the line ending of the armor tail line. Lines outside of armored blocks are skipped.
+ * Only the armor header and tail lines are inspected, so the blocks can then be decoded independently of one another,
+ * e.g. on different threads.
+ * Applied to a {@link java.nio.MappedByteBuffer}, this allows to process a keyring file without reading it into the heap.
+ *
+ * Instances are not thread-safe.
+ */
+public final class ArmoredBlockSplitter {
+
+    private static final byte[] ARMOR_BEGIN = Strings.toByteArray("-----BEGIN PGP ");
+    private static final byte[] ARMOR_END = Strings.toByteArray("-----END PGP ");
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    /**
+     * Create a splitter for the data between the position and the limit of the buffer.
+     * The position of the buffer is not changed.
+     *
+     * @param buffer armored data
+     */
+    public ArmoredBlockSplitter(@Nonnull ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    /**
+     * Return the next armored block.
+     *
+     * @return slice containing the next block or null if there are no more blocks
+     * @throws IOException if the last block is missing its armor tail line
+     */
+    @Nullable
+    public ByteBuffer nextBlock() throws IOException {
+        int start = findLine(position, ARMOR_BEGIN);
+        if (start == -1) {
+            position = limit;
+            return null;
+        }
+        int tail = findLine(nextLine(start), ARMOR_END);
+        if (tail == -1) {
+            position = limit;
+            throw new IOException("Armored block is missing its armor tail line.");
+        }
+        int end = nextLine(tail);
+        position = end;
+
+        ByteBuffer block = buffer.duplicate();
+        ((Buffer) block).limit(end);
+        ((Buffer) block).position(start);
+        return block.slice();
+    }
+
+    /**
+     * Return the start of the first line at or after the given line start, which begins with the given prefix.
+     */
+    private int findLine(int lineStart, byte[] prefix) {
+        int i = lineStart;
+        while (i < limit) {
+            if (startsWith(i, prefix)) {
+                return i;
+            }
+            i = nextLine(i);
+        }
+        return -1;
+    }
+
+    /**
+     * Return the start of the line following the line containing the given index.
+     */
+    private int nextLine(int index) {
+        for (int i = index; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    private boolean startsWith(int index, byte[] prefix) {
+        if (limit - index < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(index + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
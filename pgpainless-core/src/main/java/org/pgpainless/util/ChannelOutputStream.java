@@ -0,0 +1,97 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link OutputStream} which collects data in a large direct buffer and writes it to a {@link WritableByteChannel}
+ * once the buffer is full.
+ * Compared to wrapping the channel using {@link java.nio.channels.Channels#newOutputStream(WritableByteChannel)},
+ * this results in few large writes, even if data is written in small chunks.
+ *
+ * Closing the stream flushes the buffer, but does not close the channel.
+ */
+public class ChannelOutputStream extends OutputStream {
+
+    /**
+     * Default size of the buffer (1 MiB).
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Create a stream which writes to the given channel using a buffer of {@link #DEFAULT_BUFFER_SIZE} bytes.
+     *
+     * @param channel channel
+     */
+    public ChannelOutputStream(@Nonnull WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a stream which writes to the given channel using a buffer of the given size.
+     *
+     * @param channel channel
+     * @param bufferSize buffer size
+     */
+    public ChannelOutputStream(@Nonnull WritableByteChannel channel, int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size MUST be positive.");
+        }
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (len > buffer.remaining()) {
+            flushBuffer();
+        }
+        if (len >= buffer.capacity()) {
+            // Large chunks are written directly
+            writeFully(ByteBuffer.wrap(b, off, len));
+            return;
+        }
+        buffer.put(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        ((Buffer) buffer).flip();
+        writeFully(buffer);
+        ((Buffer) buffer).clear();
+    }
+
+    private void writeFully(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+}
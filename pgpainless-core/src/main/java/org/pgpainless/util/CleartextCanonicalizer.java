@@ -0,0 +1,216 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.util.Strings;
+
+/**
+ * Line canonicalizer for messages using the Cleartext Signature Framework (RFC4880 §7).
+ *
+ * Text is processed in chunks of arbitrary size. The canonical form, which is hashed by the signatures,
+ * has trailing whitespace (spaces and tabs) removed from every line and uses CRLF line endings.
+ * Output is collected in reusable arrays and written in chunks, so processing does not allocate per line or byte.
+ *
+ * When signing, the text is dash-escaped as it is written to the cleartext section of the message and the
+ * canonical form includes the line ending of the last line, since the line ending following the text is added by
+ * the signer (see {@link #forSigning(OutputStream, OutputStream)}).
+ * When verifying, the (already un-escaped) text is written with trailing whitespace removed and lines separated by
+ * the line separator of the system, while the line ending preceding the signatures is not part of the text
+ * (see {@link #forVerification(OutputStream, OutputStream)}).
+ */
+public final class CleartextCanonicalizer {
+
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final byte[] CRLF = new byte[] {'\r', '\n'};
+    private static final byte[] DASH_ESCAPE = new byte[] {'-', ' '};
+    private static final byte[] LINE_SEPARATOR = Strings.toByteArray(Strings.lineSeparator());
+
+    private final boolean signing;
+    private final OutputStream canonicalOut;
+    private final OutputStream textOut;
+
+    private final byte[] canonical = new byte[BUFFER_SIZE];
+    private int canonicalLength = 0;
+    // text with trailing whitespace removed, only used when verifying
+    private final byte[] text;
+    private int textLength = 0;
+    // trailing whitespace of the current line, which is dropped if the line ends
+    private byte[] whitespace = new byte[64];
+    private int whitespaceLength = 0;
+
+    private boolean lastWasCR = false;
+    private boolean lineEndingPending = false;
+    // whether the next byte written to the cleartext section starts a line, only used when signing
+    private boolean atLineStart = true;
+
+    private CleartextCanonicalizer(boolean signing, OutputStream canonicalOut, OutputStream textOut) {
+        this.signing = signing;
+        this.canonicalOut = canonicalOut;
+        this.textOut = textOut;
+        this.text = signing ? null : new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Create a canonicalizer for the signing side.
+     * The text is dash-escaped and written to the cleartext output unchanged otherwise.
+     *
+     * @param canonicalOut output for the canonical text, e.g. the signature generators
+     * @param cleartextOut output for the cleartext section of the message
+     * @return canonicalizer
+     */
+    public static CleartextCanonicalizer forSigning(@Nonnull OutputStream canonicalOut,
+                                                    @Nonnull OutputStream cleartextOut) {
+        return new CleartextCanonicalizer(true, canonicalOut, cleartextOut);
+    }
+
+    /**
+     * Create a canonicalizer for the verifying side.
+     * The text is written with trailing whitespace removed and lines separated by the line separator of the system.
+     *
+     * @param canonicalOut output for the canonical text, e.g. the signature verifiers
+     * @param textOut output for the text of the message
+     * @return canonicalizer
+     */
+    public static CleartextCanonicalizer forVerification(@Nonnull OutputStream canonicalOut,
+                                                         @Nonnull OutputStream textOut) {
+        return new CleartextCanonicalizer(false, canonicalOut, textOut);
+    }
+
+    /**
+     * Process a chunk of text.
+     *
+     * @param b buffer
+     * @param off offset
+     * @param len length
+     * @throws IOException in case of an IO error of the outputs
+     */
+    public void update(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (signing) {
+            writeDashEscaped(b, off, len);
+        }
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            byte c = b[i];
+            if (c == '\n' && lastWasCR) {
+                // second half of CRLF
+                lastWasCR = false;
+                continue;
+            }
+            lastWasCR = c == '\r';
+
+            if (lineEndingPending) {
+                // the previous line is followed by another line
+                lineEndingPending = false;
+                appendLineEnding();
+            }
+
+            if (c == '\r' || c == '\n') {
+                whitespaceLength = 0;
+                lineEndingPending = true;
+            } else if (c == ' ' || c == '\t') {
+                appendWhitespace(c);
+            } else {
+                if (whitespaceLength != 0) {
+                    for (int j = 0; j < whitespaceLength; j++) {
+                        append(whitespace[j]);
+                    }
+                    whitespaceLength = 0;
+                }
+                append(c);
+            }
+        }
+    }
+
+    /**
+     * Write the processed text to the outputs.
+     * Trailing whitespace and line endings are held back, since they depend on the following text.
+     *
+     * @throws IOException in case of an IO error of the outputs
+     */
+    public void flush() throws IOException {
+        if (canonicalLength != 0) {
+            canonicalOut.write(canonical, 0, canonicalLength);
+            canonicalLength = 0;
+        }
+        if (textLength != 0) {
+            textOut.write(text, 0, textLength);
+            textLength = 0;
+        }
+    }
+
+    /**
+     * Finish processing at the end of the text and write the remaining text to the outputs.
+     * Trailing whitespace of the last line is dropped.
+     * When signing, a line ending after the last line is part of the canonical text.
+     *
+     * @throws IOException in case of an IO error of the outputs
+     */
+    public void finish() throws IOException {
+        if (signing && lineEndingPending) {
+            appendLineEnding();
+        }
+        lineEndingPending = false;
+        whitespaceLength = 0;
+        flush();
+    }
+
+    private void append(byte c) throws IOException {
+        if (canonicalLength == canonical.length || textLength == BUFFER_SIZE) {
+            flush();
+        }
+        canonical[canonicalLength++] = c;
+        if (!signing) {
+            text[textLength++] = c;
+        }
+    }
+
+    private void appendLineEnding() throws IOException {
+        for (byte c : CRLF) {
+            if (canonicalLength == canonical.length) {
+                flush();
+            }
+            canonical[canonicalLength++] = c;
+        }
+        if (!signing) {
+            for (byte c : LINE_SEPARATOR) {
+                if (textLength == text.length) {
+                    flush();
+                }
+                text[textLength++] = c;
+            }
+        }
+    }
+
+    private void appendWhitespace(byte c) {
+        if (whitespaceLength == whitespace.length) {
+            byte[] grown = new byte[whitespace.length * 2];
+            System.arraycopy(whitespace, 0, grown, 0, whitespaceLength);
+            whitespace = grown;
+        }
+        whitespace[whitespaceLength++] = c;
+    }
+
+    /**
+     * Write the text to the cleartext output, prefixing lines which start with a dash with "- ".
+     */
+    private void writeDashEscaped(byte[] b, int off, int len) throws IOException {
+        int end = off + len;
+        int start = off;
+        for (int i = off; i < end; i++) {
+            byte c = b[i];
+            if (atLineStart && c == '-') {
+                textOut.write(b, start, i - start);
+                textOut.write(DASH_ESCAPE);
+                start = i;
+            }
+            atLineStart = c == '\r' || c == '\n';
+        }
+        textOut.write(b, start, end - start);
+    }
+}
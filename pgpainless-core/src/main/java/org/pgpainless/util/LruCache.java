@@ -0,0 +1,201 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Thread-safe least-recently-used cache with size- and age-based eviction.
+ *
+ * If the cache holds more than maxSize entries, the least recently accessed entry is evicted.
+ * Entries which were inserted more than maxAgeMillis milliseconds ago are evicted upon access.
+ * A maxAgeMillis of {@link #NO_EXPIRATION} disables age-based eviction.
+ *
+ * Subclasses can override {@link #onEviction(Object, Object)} to get notified about removed entries.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LruCache<K, V> {
+
+    public static final long NO_EXPIRATION = 0;
+
+    private final int maxSize;
+    private final long maxAgeMillis;
+    private final Map<K, CacheEntry<V>> map;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxSize maximum number of entries
+     * @param maxAgeMillis maximum age of entries in milliseconds, or {@link #NO_EXPIRATION}
+     */
+    public LruCache(int maxSize, long maxAgeMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size MUST be positive.");
+        }
+        if (maxAgeMillis < 0) {
+            throw new IllegalArgumentException("Maximum age MUST NOT be negative.");
+        }
+        this.maxSize = maxSize;
+        this.maxAgeMillis = maxAgeMillis;
+        // access-ordered map
+        this.map = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() <= LruCache.this.maxSize) {
+                    return false;
+                }
+                onEviction(eldest.getKey(), eldest.getValue().value);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Return the value stored for the given key, or null if there is no such value, or if it expired.
+     *
+     * @param key key
+     * @return value or null
+     */
+    @Nullable
+    public synchronized V get(@Nonnull K key) {
+        CacheEntry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry)) {
+            map.remove(key);
+            onEviction(key, entry.value);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Store a value in the cache.
+     * If the cache already contains a value for the given key, the old value is replaced.
+     *
+     * @param key key
+     * @param value value
+     */
+    public synchronized void put(@Nonnull K key, @Nonnull V value) {
+        CacheEntry<V> previous = map.put(key, new CacheEntry<>(value, currentTimeMillis()));
+        if (previous != null && previous.value != value) {
+            onEviction(key, previous.value);
+        }
+    }
+
+    /**
+     * Remove the value for the given key from the cache.
+     *
+     * @param key key
+     * @return removed value or null
+     */
+    @Nullable
+    public synchronized V remove(@Nonnull K key) {
+        CacheEntry<V> entry = map.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        onEviction(key, entry.value);
+        return entry.value;
+    }
+
+    /**
+     * Remove all expired entries from the cache.
+     */
+    public synchronized void evictExpired() {
+        if (maxAgeMillis == NO_EXPIRATION) {
+            return;
+        }
+        Iterator<Map.Entry<K, CacheEntry<V>>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, CacheEntry<V>> next = iterator.next();
+            if (isExpired(next.getValue())) {
+                iterator.remove();
+                onEviction(next.getKey(), next.getValue().value);
+            }
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public synchronized void clear() {
+        List<Map.Entry<K, CacheEntry<V>>> entries = new ArrayList<>(map.entrySet());
+        map.clear();
+        for (Map.Entry<K, CacheEntry<V>> entry : entries) {
+            onEviction(entry.getKey(), entry.getValue().value);
+        }
+    }
+
+    /**
+     * Return the number of entries in the cache, including entries that expired but were not yet evicted.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Return a snapshot of the keys currently in the cache, ordered from least to most recently used.
+     *
+     * @return keys
+     */
+    public synchronized List<K> keys() {
+        return new ArrayList<>(map.keySet());
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    /**
+     * Called whenever a value is removed from the cache, either explicitly or due to eviction.
+     * Note: This method is called while holding the lock of the cache.
+     *
+     * @param key key
+     * @param value removed value
+     */
+    protected void onEviction(K key, V value) {
+
+    }
+
+    /**
+     * Return the current time in milliseconds.
+     * Can be overridden for testing purposes.
+     *
+     * @return current time
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private boolean isExpired(CacheEntry<V> entry) {
+        return maxAgeMillis != NO_EXPIRATION && currentTimeMillis() - entry.insertionTime >= maxAgeMillis;
+    }
+
+    private static final class CacheEntry<V> {
+        private final V value;
+        private final long insertionTime;
+
+        private CacheEntry(V value, long insertionTime) {
+            this.value = value;
+            this.insertionTime = insertionTime;
+        }
+    }
+}
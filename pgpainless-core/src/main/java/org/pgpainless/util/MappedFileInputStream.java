@@ -0,0 +1,129 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link InputStream} which reads from a {@link FileChannel} by mapping the file into memory.
+ * Reads are served by copying directly from the mapped memory, without system calls or intermediate buffers.
+ * Large files are mapped in consecutive regions of at most {@link #DEFAULT_REGION_SIZE} bytes.
+ * Mapped regions are released once they are garbage collected.
+ *
+ * Closing the stream does not close the channel.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    /**
+     * Default size of mapped regions (64 MiB).
+     */
+    public static final int DEFAULT_REGION_SIZE = 1 << 26;
+
+    private final FileChannel channel;
+    private final long end;
+    private final int regionSize;
+    private long regionEnd;
+    private MappedByteBuffer region;
+
+    /**
+     * Create a stream which reads the channel from its current position to the end of the file.
+     *
+     * @param channel file channel
+     * @throws IOException if the position or size of the channel cannot be determined
+     */
+    public MappedFileInputStream(@Nonnull FileChannel channel) throws IOException {
+        this(channel, channel.position(), channel.size() - channel.position(), DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Create a stream which reads length bytes of the channel, starting at the given position.
+     *
+     * @param channel file channel
+     * @param position start position
+     * @param length number of bytes to read
+     * @param regionSize maximum size of mapped regions
+     */
+    public MappedFileInputStream(@Nonnull FileChannel channel, long position, long length, int regionSize) {
+        if (position < 0 || length < 0) {
+            throw new IllegalArgumentException("Position and length MUST NOT be negative.");
+        }
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size MUST be positive.");
+        }
+        this.channel = channel;
+        this.regionEnd = position;
+        this.end = position + length;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Return the position of the next byte which will be read.
+     *
+     * @return file position
+     */
+    public long getPosition() {
+        return region == null ? regionEnd : regionEnd - region.remaining();
+    }
+
+    private boolean fill() throws IOException {
+        if (region != null && region.hasRemaining()) {
+            return true;
+        }
+        if (regionEnd >= end) {
+            return false;
+        }
+        long size = Math.min(regionSize, end - regionEnd);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, regionEnd, size);
+        regionEnd += size;
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return region.get() & 0xff;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, region.remaining());
+        region.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long skipped = Math.min(n, end - getPosition());
+        long target = getPosition() + skipped;
+        if (region != null && target <= regionEnd) {
+            ((Buffer) region).position(region.position() + (int) skipped);
+        } else {
+            region = null;
+            regionEnd = target;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - getPosition());
+    }
+}
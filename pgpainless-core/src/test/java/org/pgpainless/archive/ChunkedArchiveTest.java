@@ -0,0 +1,178 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.archive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.exception.ModificationDetectionException;
+import org.pgpainless.exception.SignatureValidationException;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.TestUtils;
+
+public class ChunkedArchiveTest {
+
+    private static final int SEGMENT_SIZE = 1000;
+
+    private static PGPSecretKeyRing secretKeys;
+    private static PGPPublicKeyRing certificate;
+    private Path archiveFile;
+
+    @BeforeAll
+    public static void readKeys() throws PGPException, IOException {
+        secretKeys = TestKeys.getJulietSecretKeyRing();
+        certificate = TestKeys.getJulietPublicKeyRing();
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        archiveFile = Files.createTempFile("archive", ".pgp");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(archiveFile);
+    }
+
+    @Test
+    public void parallelRoundTrip() throws IOException, PGPException {
+        byte[] data = TestUtils.randomBytes(10 * SEGMENT_SIZE + 500);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            EncryptionResult result = writeArchive(data, executor);
+            assertEquals(1, result.getRecipients().size());
+
+            try (FileChannel archive = FileChannel.open(archiveFile, StandardOpenOption.READ)) {
+                ChunkedArchiveReader reader = PGPainless.decryptChunkedArchive(archive, consumerOptions())
+                        .withExecutor(executor)
+                        .withParallelism(4);
+                assertEquals(11, reader.getSegmentCount());
+                assertEquals(data.length, reader.getPlaintextSize());
+                assertTrue(reader.getManifestMetadata().containsVerifiedSignatureFrom(certificate));
+
+                ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+                reader.decrypt(plaintext);
+                assertArrayEquals(data, plaintext.toByteArray());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void seekToSegment() throws IOException, PGPException {
+        byte[] data = TestUtils.randomBytes(5 * SEGMENT_SIZE + 1);
+        writeArchive(data, null);
+
+        try (FileChannel archive = FileChannel.open(archiveFile, StandardOpenOption.READ)) {
+            ChunkedArchiveReader reader = PGPainless.decryptChunkedArchive(archive, consumerOptions());
+            int index = reader.getSegmentIndex(3500);
+            assertEquals(3, index);
+            assertArrayEquals(Arrays.copyOfRange(data, 3000, 4000), reader.decryptSegment(index));
+
+            int last = reader.getSegmentIndex(data.length - 1);
+            assertArrayEquals(Arrays.copyOfRange(data, 5000, data.length), reader.decryptSegment(last));
+
+            ByteArrayOutputStream tail = new ByteArrayOutputStream();
+            reader.decrypt(2, 4, tail);
+            assertArrayEquals(Arrays.copyOfRange(data, 2000, 4000), tail.toByteArray());
+        }
+    }
+
+    @Test
+    public void modifiedSegmentIsRejected() throws IOException, PGPException {
+        byte[] data = TestUtils.randomBytes(3 * SEGMENT_SIZE);
+        writeArchive(data, null);
+
+        byte[] archiveBytes = Files.readAllBytes(archiveFile);
+        // flip a bit inside the second segment
+        archiveBytes[ChunkedArchiveManifest.MAGIC.length + SEGMENT_SIZE + 300] ^= 1;
+        Files.write(archiveFile, archiveBytes);
+
+        try (FileChannel archive = FileChannel.open(archiveFile, StandardOpenOption.READ)) {
+            ChunkedArchiveReader reader = PGPainless.decryptChunkedArchive(archive, consumerOptions());
+            assertArrayEquals(Arrays.copyOfRange(data, 0, SEGMENT_SIZE), reader.decryptSegment(0));
+            assertThrows(ModificationDetectionException.class, () -> reader.decryptSegment(1));
+            assertThrows(ModificationDetectionException.class, () -> reader.decrypt(new ByteArrayOutputStream()));
+        }
+    }
+
+    @Test
+    public void manifestMustBeVerified() throws IOException, PGPException {
+        writeArchive(TestUtils.randomBytes(SEGMENT_SIZE), null);
+
+        try (FileChannel archive = FileChannel.open(archiveFile, StandardOpenOption.READ)) {
+            assertThrows(SignatureValidationException.class, () -> PGPainless.decryptChunkedArchive(archive,
+                    new ConsumerOptions().addDecryptionKey(secretKeys)));
+        }
+    }
+
+    @Test
+    public void emptyInput() throws IOException, PGPException {
+        writeArchive(new byte[0], null);
+
+        try (FileChannel archive = FileChannel.open(archiveFile, StandardOpenOption.READ)) {
+            ChunkedArchiveReader reader = PGPainless.decryptChunkedArchive(archive, consumerOptions());
+            assertEquals(0, reader.getSegmentCount());
+            ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+            reader.decrypt(plaintext);
+            assertEquals(0, plaintext.size());
+        }
+    }
+
+    @Test
+    public void archiveMustBeSigned() {
+        ChunkedArchiveWriter writer = PGPainless.encryptChunkedArchive();
+        assertThrows(IllegalArgumentException.class, () -> writer.write(new ByteArrayInputStream(new byte[10]),
+                new ByteArrayOutputStream(), ProducerOptions.encrypt(new EncryptionOptions().addRecipient(certificate))));
+    }
+
+    private EncryptionResult writeArchive(byte[] data, ExecutorService executor) throws IOException, PGPException {
+        try (OutputStream out = Files.newOutputStream(archiveFile)) {
+            return PGPainless.encryptChunkedArchive()
+                    .withSegmentSize(SEGMENT_SIZE)
+                    .withExecutor(executor)
+                    .write(new ByteArrayInputStream(data), out, ProducerOptions.signAndEncrypt(
+                            new EncryptionOptions().addRecipient(certificate),
+                            new SigningOptions().addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                                    DocumentSignatureType.BINARY_DOCUMENT)));
+        }
+    }
+
+    private ConsumerOptions consumerOptions() {
+        return new ConsumerOptions()
+                .addDecryptionKey(secretKeys)
+                .addVerificationCert(certificate);
+    }
+}
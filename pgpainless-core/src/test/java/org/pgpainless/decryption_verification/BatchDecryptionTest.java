@@ -0,0 +1,214 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.operator.PBESecretKeyDecryptor;
+import org.bouncycastle.openpgp.operator.PBESecretKeyEncryptor;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.Passphrase;
+
+public class BatchDecryptionTest {
+
+    private static final String PASSWORD = "sw0rdf1sh";
+
+    @Test
+    public void decryptBatchUnlocksKeyOnce()
+            throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException,
+            InterruptedException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", PASSWORD);
+        PGPPublicKeyRing certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+        CountingProtector protector = new CountingProtector(
+                SecretKeyRingProtector.unlockEachKeyWith(Passphrase.fromPassword(PASSWORD), secretKeys));
+
+        List<byte[]> ciphertexts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ciphertexts.add(encrypt(plaintext(i), certificate, null));
+        }
+
+        Collector collector = new Collector();
+        int processed = PGPainless.decryptAndOrVerifyBatch()
+                .withOptions(new ConsumerOptions().addDecryptionKey(secretKeys, protector))
+                .withParallelism(1)
+                .process(indices(ciphertexts.size()), collector.handler(ciphertexts));
+
+        assertEquals(10, processed);
+        assertTrue(collector.failures.isEmpty());
+        for (int i = 0; i < 10; i++) {
+            assertArrayEquals(plaintext(i), collector.plaintexts.get(i));
+        }
+        assertEquals(1, protector.unlocks.get());
+    }
+
+    @Test
+    public void decryptAndVerifyBatchInParallel()
+            throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException,
+            InterruptedException {
+        PGPSecretKeyRing aliceKey = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", null);
+        PGPSecretKeyRing bobKey = PGPainless.generateKeyRing()
+                .modernKeyRing("Bob <bob@pgpainless.org>", null);
+        PGPPublicKeyRing aliceCert = KeyRingUtils.publicKeyRingFrom(aliceKey);
+        PGPPublicKeyRing bobCert = KeyRingUtils.publicKeyRingFrom(bobKey);
+
+        List<byte[]> ciphertexts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ciphertexts.add(encrypt(plaintext(i), aliceCert, bobKey));
+        }
+        // message which cannot be decrypted
+        ciphertexts.add(encrypt(plaintext(20), bobCert, null));
+
+        Collector collector = new Collector();
+        int processed = PGPainless.decryptAndOrVerifyBatch()
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(aliceKey)
+                        .addVerificationCert(bobCert))
+                .withParallelism(4)
+                .process(indices(ciphertexts.size()), collector.handler(ciphertexts));
+
+        assertEquals(20, processed);
+        assertEquals(1, collector.failures.size());
+        assertTrue(collector.failures.containsKey(20));
+        for (int i = 0; i < 20; i++) {
+            assertArrayEquals(plaintext(i), collector.plaintexts.get(i));
+            assertTrue(collector.metadata.get(i).isEncrypted());
+            assertTrue(collector.metadata.get(i).containsVerifiedSignatureFrom(bobCert));
+        }
+    }
+
+    @Test
+    public void rejectDetachedSignatures() throws PGPException, IOException {
+        PGPSignature signature = TestKeys.getEmilSecretKeyRing().getPublicKey().getSignatures().next();
+        ConsumerOptions options = new ConsumerOptions().addVerificationOfDetachedSignature(signature);
+        assertThrows(IllegalArgumentException.class, () -> PGPainless.decryptAndOrVerifyBatch().withOptions(options));
+    }
+
+    private static byte[] plaintext(int i) {
+        return ("Message number " + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Integer> indices(int count) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            indices.add(i);
+        }
+        return indices;
+    }
+
+    private static byte[] encrypt(byte[] plaintext, PGPPublicKeyRing recipient,
+                                  @Nullable PGPSecretKeyRing signingKey)
+            throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionOptions encryptionOptions = EncryptionOptions.encryptCommunications().addRecipient(recipient);
+        ProducerOptions producerOptions;
+        if (signingKey == null) {
+            producerOptions = ProducerOptions.encrypt(encryptionOptions);
+        } else {
+            producerOptions = ProducerOptions.signAndEncrypt(encryptionOptions, SigningOptions.get()
+                    .addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), signingKey,
+                            DocumentSignatureType.BINARY_DOCUMENT));
+        }
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(producerOptions);
+        encryptionStream.write(plaintext);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private static class Collector {
+
+        private final Map<Integer, byte[]> plaintexts = new ConcurrentHashMap<>();
+        private final Map<Integer, OpenPgpMetadata> metadata = new ConcurrentHashMap<>();
+        private final Map<Integer, Exception> failures = new ConcurrentHashMap<>();
+
+        BatchDecryption.MessageHandler<Integer> handler(List<byte[]> ciphertexts) {
+            return new BatchDecryption.MessageHandler<Integer>() {
+                @Override
+                public InputStream open(Integer message) {
+                    return new ByteArrayInputStream(ciphertexts.get(message));
+                }
+
+                @Override
+                public void consume(Integer message, InputStream plaintext) throws IOException {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Streams.pipeAll(plaintext, out);
+                    plaintexts.put(message, out.toByteArray());
+                }
+
+                @Override
+                public void onSuccess(Integer message, OpenPgpMetadata result) {
+                    metadata.put(message, result);
+                }
+
+                @Override
+                public void onFailure(Integer message, Exception exception) {
+                    failures.put(message, exception);
+                }
+            };
+        }
+    }
+
+    private static class CountingProtector implements SecretKeyRingProtector {
+
+        private final SecretKeyRingProtector delegate;
+        private final AtomicInteger unlocks = new AtomicInteger();
+
+        CountingProtector(SecretKeyRingProtector delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasPassphraseFor(Long keyId) {
+            return delegate.hasPassphraseFor(keyId);
+        }
+
+        @Nullable
+        @Override
+        public PBESecretKeyDecryptor getDecryptor(Long keyId) throws PGPException {
+            unlocks.incrementAndGet();
+            return delegate.getDecryptor(keyId);
+        }
+
+        @Nullable
+        @Override
+        public PBESecretKeyEncryptor getEncryptor(Long keyId) throws PGPException {
+            return delegate.getEncryptor(keyId);
+        }
+    }
+}
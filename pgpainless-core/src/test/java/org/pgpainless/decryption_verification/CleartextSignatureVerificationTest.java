@@ -6,6 +6,7 @@ package org.pgpainless.decryption_verification;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -240,6 +241,146 @@ public class CleartextSignatureVerificationTest {
         decryptionStream.close();
     }
 
+    @Test
+    public void singlePassVerificationMatchesMultiPassStrategy()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException, IOException {
+        String message = randomString(28, 4000) + "\n- dash-escaped line\r\nCRLF\r\n\r\n\rlast line";
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice", null);
+        byte[] cleartextSigned = cleartextSign(secretKeys, message);
+
+        ConsumerOptions singlePass = new ConsumerOptions()
+                .addVerificationCert(PGPainless.extractCertificate(secretKeys));
+        ByteArrayOutputStream singlePassOut = new ByteArrayOutputStream();
+        OpenPgpMetadata singlePassResult = verify(cleartextSigned, singlePass, singlePassOut);
+        assertTrue(singlePassResult.isVerified());
+
+        ConsumerOptions multiPass = new ConsumerOptions()
+                .addVerificationCert(PGPainless.extractCertificate(secretKeys))
+                .setMultiPassStrategy(MultiPassStrategy.keepMessageInMemory());
+        ByteArrayOutputStream multiPassOut = new ByteArrayOutputStream();
+        OpenPgpMetadata multiPassResult = verify(cleartextSigned, multiPass, multiPassOut);
+        assertTrue(multiPassResult.isVerified());
+
+        assertArrayEquals(multiPassOut.toByteArray(), singlePassOut.toByteArray());
+    }
+
+    @Test
+    public void singlePassVerificationOfBinarySignaturesMatchesMultiPassStrategy()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException, IOException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice", null);
+        PGPPublicKeyRing certificate = PGPainless.extractCertificate(secretKeys);
+
+        for (String message : new String[] {"a\nb\n", "-dash\nx", "a\r\nb"}) {
+            byte[] cleartextSigned = cleartextSign(secretKeys, message, DocumentSignatureType.BINARY_DOCUMENT);
+
+            ByteArrayOutputStream singlePassOut = new ByteArrayOutputStream();
+            OpenPgpMetadata singlePassResult = verify(cleartextSigned,
+                    new ConsumerOptions().addVerificationCert(certificate), singlePassOut);
+
+            ByteArrayOutputStream multiPassOut = new ByteArrayOutputStream();
+            OpenPgpMetadata multiPassResult = verify(cleartextSigned, new ConsumerOptions()
+                    .addVerificationCert(certificate)
+                    .setMultiPassStrategy(MultiPassStrategy.keepMessageInMemory()), multiPassOut);
+
+            assertEquals(multiPassResult.isVerified(), singlePassResult.isVerified(), message);
+            assertArrayEquals(multiPassOut.toByteArray(), singlePassOut.toByteArray());
+        }
+        // binary signatures over LF separated text verify
+        assertTrue(verify(cleartextSign(secretKeys, "a\nb\n", DocumentSignatureType.BINARY_DOCUMENT),
+                new ConsumerOptions().addVerificationCert(certificate), new ByteArrayOutputStream()).isVerified());
+    }
+
+    @Test
+    public void singlePassVerificationDoesNotReadAheadOfText()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException, IOException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice", null);
+        byte[] cleartextSigned = cleartextSign(secretKeys, randomString(28, 100000));
+        ByteArrayInputStream in = new ByteArrayInputStream(cleartextSigned);
+
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(in)
+                .withOptions(new ConsumerOptions()
+                        .addVerificationCert(PGPainless.extractCertificate(secretKeys)));
+        decryptionStream.read(new byte[16]);
+        // the text is passed through instead of being cached up to the signatures first
+        assertTrue(in.available() > cleartextSigned.length / 2);
+
+        Streams.drain(decryptionStream);
+        decryptionStream.close();
+        assertTrue(decryptionStream.getResult().isVerified());
+    }
+
+    @Test
+    public void singlePassVerificationRejectsUnannouncedHashAlgorithm() throws PGPException, IOException {
+        byte[] cleartextSigned = new String(MESSAGE_SIGNED, StandardCharsets.UTF_8)
+                .replace("Hash: SHA512", "Hash: SHA256")
+                .getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OpenPgpMetadata result = verify(cleartextSigned, new ConsumerOptions()
+                .addVerificationCert(TestKeys.getEmilPublicKeyRing()), out);
+
+        assertFalse(result.isVerified());
+        assertEquals(1, result.getInvalidDetachedSignatures().size());
+        assertArrayEquals(MESSAGE_BODY, out.toByteArray());
+    }
+
+    @Test
+    public void singlePassVerificationIgnoresTrailingWhitespace() throws PGPException, IOException {
+        byte[] cleartextSigned = new String(MESSAGE_SIGNED, StandardCharsets.UTF_8)
+                .replace("thy joy\n", "thy joy \t \r\n")
+                .getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OpenPgpMetadata result = verify(cleartextSigned, new ConsumerOptions()
+                .addVerificationCert(TestKeys.getEmilPublicKeyRing()), out);
+
+        assertTrue(result.isVerified());
+        assertArrayEquals(MESSAGE_BODY, out.toByteArray());
+    }
+
+    @Test
+    public void singlePassVerificationDetectsModifiedText() throws PGPException, IOException {
+        byte[] cleartextSigned = new String(MESSAGE_SIGNED, StandardCharsets.UTF_8)
+                .replace("Ah, Juliet", "Oh, Juliet")
+                .getBytes(StandardCharsets.UTF_8);
+
+        OpenPgpMetadata result = verify(cleartextSigned, new ConsumerOptions()
+                .addVerificationCert(TestKeys.getEmilPublicKeyRing()), new ByteArrayOutputStream());
+
+        assertFalse(result.isVerified());
+        assertEquals(1, result.getInvalidDetachedSignatures().size());
+    }
+
+    private static byte[] cleartextSign(PGPSecretKeyRing secretKeys, String message)
+            throws PGPException, IOException {
+        return cleartextSign(secretKeys, message, DocumentSignatureType.CANONICAL_TEXT_DOCUMENT);
+    }
+
+    private static byte[] cleartextSign(PGPSecretKeyRing secretKeys, String message, DocumentSignatureType type)
+            throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream signingStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.sign(SigningOptions.get()
+                        .addDetachedSignature(SecretKeyRingProtector.unprotectedKeys(),
+                                secretKeys, type)
+                ).setCleartextSigned());
+        Streams.pipeAll(new ByteArrayInputStream(message.getBytes(StandardCharsets.UTF_8)), signingStream);
+        signingStream.close();
+        return out.toByteArray();
+    }
+
+    private static OpenPgpMetadata verify(byte[] cleartextSigned, ConsumerOptions options, ByteArrayOutputStream out)
+            throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(cleartextSigned))
+                .withOptions(options);
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        return decryptionStream.getResult();
+    }
+
     private String randomString(int maxWordLen, int wordCount) {
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < wordCount; i++) {
@@ -0,0 +1,108 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+
+public class ConsumerOptionsKeyIndexTest {
+
+    @Test
+    public void lookupCertificateBySubkey() throws IOException, PGPException {
+        PGPPublicKeyRing julietCert = TestKeys.getJulietPublicKeyRing();
+        PGPPublicKeyRing emilCert = TestKeys.getEmilPublicKeyRing();
+        ConsumerOptions options = new ConsumerOptions()
+                .addVerificationCert(julietCert)
+                .addVerificationCert(emilCert);
+
+        Iterator<PGPPublicKey> keys = emilCert.getPublicKeys();
+        while (keys.hasNext()) {
+            PGPPublicKey key = keys.next();
+            assertSame(emilCert, options.getCertificate(key.getKeyID()));
+            assertSame(emilCert, options.getCertificate(OpenPgpFingerprint.of(key)));
+        }
+        assertSame(julietCert, options.getCertificate(TestKeys.JULIET_KEY_ID));
+        assertNull(options.getCertificate(TestKeys.ROMEO_KEY_ID));
+    }
+
+    @Test
+    public void lookupDecryptionKeyBySubkey() throws IOException, PGPException {
+        PGPSecretKeyRing emilKey = TestKeys.getEmilSecretKeyRing();
+        ConsumerOptions options = new ConsumerOptions()
+                .addDecryptionKey(TestKeys.getJulietSecretKeyRing())
+                .addDecryptionKey(emilKey);
+
+        Iterator<PGPSecretKey> keys = emilKey.getSecretKeys();
+        while (keys.hasNext()) {
+            assertSame(emilKey, options.getDecryptionKey(keys.next().getKeyID()));
+        }
+        assertNull(options.getDecryptionKey(TestKeys.ROMEO_KEY_ID));
+    }
+
+    @Test
+    public void addingCertificateTwiceKeepsFirstInstance() throws IOException, PGPException {
+        PGPPublicKeyRing first = TestKeys.getEmilPublicKeyRing();
+        PGPPublicKeyRing second = TestKeys.getEmilPublicKeyRing();
+        ConsumerOptions options = new ConsumerOptions()
+                .addVerificationCert(first)
+                .addVerificationCert(second);
+
+        assertEquals(1, options.getCertificates().size());
+        assertSame(first, options.getCertificate(TestKeys.EMIL_KEY_ID));
+    }
+
+    @Test
+    public void verifyWithManyCertificates() throws PGPException, IOException {
+        PGPSecretKeyRing signingKey = TestKeys.getEmilSecretKeyRing();
+        byte[] data = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream signed = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(signed)
+                .withOptions(ProducerOptions.sign(SigningOptions.get()
+                        .addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), signingKey,
+                                DocumentSignatureType.BINARY_DOCUMENT)));
+        encryptionStream.write(data);
+        encryptionStream.close();
+
+        PGPPublicKeyRing signingCert = KeyRingUtils.publicKeyRingFrom(signingKey);
+        ConsumerOptions options = new ConsumerOptions()
+                .addVerificationCert(TestKeys.getJulietPublicKeyRing())
+                .addVerificationCert(TestKeys.getRomeoPublicKeyRing())
+                .addVerificationCert(signingCert);
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(signed.toByteArray()))
+                .withOptions(options);
+        Streams.drain(decryptionStream);
+        decryptionStream.close();
+
+        assertTrue(decryptionStream.getResult().containsVerifiedSignatureFrom(signingCert));
+    }
+}
@@ -6,13 +6,41 @@ package org.pgpainless.decryption_verification;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
 
+import org.bouncycastle.bcpg.PacketTags;
 import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.algorithm.HashAlgorithm;
+import org.pgpainless.algorithm.PublicKeyAlgorithm;
+import org.pgpainless.algorithm.StreamEncoding;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
 import org.pgpainless.key.util.KeyIdUtil;
+import org.pgpainless.util.DateUtil;
+import org.pgpainless.util.Passphrase;
 
 public class MessageInspectorTest {
 
@@ -34,6 +62,12 @@ public class MessageInspectorTest {
         assertTrue(info.isEncrypted());
         assertEquals(1, info.getKeyIds().size());
         assertEquals(KeyIdUtil.fromLongKeyId("4766F6B9D5F21EB6"), info.getKeyIds().get(0));
+
+        MessageHeaderInfo headerInfo = MessageInspector.inspectHeaders(
+                new ByteArrayInputStream(message.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(headerInfo.isComplete());
+        assertTrue(headerInfo.isEncrypted());
+        assertEquals(info.getKeyIds(), headerInfo.getKeyIds());
     }
 
     @Test
@@ -142,4 +176,117 @@ public class MessageInspectorTest {
         assertFalse(info.isPassphraseEncrypted());
         assertTrue(info.getKeyIds().isEmpty());
     }
+
+    @Test
+    public void inspectHeadersOfEncryptedMessage() throws PGPException, IOException,
+            InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPPublicKeyRing alice = PGPainless.extractCertificate(
+                PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null));
+        PGPPublicKeyRing bob = PGPainless.extractCertificate(
+                PGPainless.generateKeyRing().modernKeyRing("Bob <bob@pgpainless.org>", null));
+        byte[] message = produce(new byte[1 << 20], ProducerOptions.encrypt(new EncryptionOptions()
+                        .addRecipient(alice)
+                        .addRecipient(bob)
+                        .addPassphrase(Passphrase.fromPassword("sw0rdf1sh"))));
+
+        MessageHeaderInfo info = MessageInspector.inspectHeaders(new ByteArrayInputStream(message), 4096);
+
+        assertTrue(info.isComplete());
+        assertTrue(info.getBytesRead() <= 4096);
+        assertTrue(info.isEncrypted());
+        assertTrue(info.isIntegrityProtected());
+        assertEquals(2, info.getRecipients().size());
+        assertEquals(new HashSet<>(Arrays.asList(
+                PGPainless.inspectKeyRing(alice).getEncryptionSubkeys(EncryptionPurpose.ANY).get(0).getKeyID(),
+                PGPainless.inspectKeyRing(bob).getEncryptionSubkeys(EncryptionPurpose.ANY).get(0).getKeyID())),
+                new HashSet<>(info.getKeyIds()));
+        assertEquals(PublicKeyAlgorithm.ECDH, info.getRecipients().get(0).getAlgorithm());
+        assertFalse(info.getRecipients().get(0).isHidden());
+        assertTrue(info.isPassphraseEncrypted());
+        assertEquals(Arrays.asList(SymmetricKeyAlgorithm.AES_256), info.getPassphraseAlgorithms());
+        // session key packets followed by the encrypted data
+        assertEquals(4, info.getPacketTags().size());
+        assertEquals(PacketTags.SYM_ENC_INTEGRITY_PRO, (int) info.getPacketTags().get(3));
+        assertFalse(info.isCompressed());
+        assertFalse(info.hasLiteralData());
+    }
+
+    @Test
+    public void inspectHeadersOfSignedMessage() throws PGPException, IOException,
+            InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        Date modificationDate = DateUtil.parseUTCDate("2022-01-01 12:00:00 UTC");
+        byte[] message = produce(new byte[1 << 20], ProducerOptions.sign(new SigningOptions()
+                        .addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                                DocumentSignatureType.BINARY_DOCUMENT))
+                .overrideCompressionAlgorithm(CompressionAlgorithm.UNCOMPRESSED)
+                .setFileName("data.bin")
+                .setModificationDate(modificationDate)
+                .setEncoding(StreamEncoding.BINARY));
+
+        MessageHeaderInfo info = MessageInspector.inspectHeaders(new ByteArrayInputStream(message), 4096);
+
+        assertTrue(info.isComplete());
+        assertFalse(info.isEncrypted());
+        assertEquals(1, info.getOnePassSigners().size());
+        MessageHeaderInfo.OnePassSigner signer = info.getOnePassSigners().get(0);
+        assertEquals(PGPainless.inspectKeyRing(secretKeys).getSigningSubkeys().get(0).getKeyID(), signer.getKeyId());
+        assertEquals(PublicKeyAlgorithm.EDDSA, signer.getKeyAlgorithm());
+        assertEquals(HashAlgorithm.SHA512, signer.getHashAlgorithm());
+        assertTrue(info.hasLiteralData());
+        assertEquals(StreamEncoding.BINARY, info.getLiteralDataFormat());
+        assertEquals("data.bin", info.getFileName());
+        assertEquals(modificationDate, info.getModificationDate());
+        assertEquals(Arrays.asList(PacketTags.ONE_PASS_SIGNATURE, PacketTags.LITERAL_DATA), info.getPacketTags());
+    }
+
+    @Test
+    public void inspectHeadersDoesNotDecompress() throws PGPException, IOException {
+        byte[] message = produce(new byte[1 << 20], ProducerOptions.noEncryptionNoSigning()
+                .overrideCompressionAlgorithm(CompressionAlgorithm.ZLIB));
+
+        MessageHeaderInfo info = MessageInspector.inspectHeaders(ByteBuffer.wrap(message), 4096);
+
+        assertTrue(info.isComplete());
+        assertTrue(info.isCompressed());
+        assertEquals(CompressionAlgorithm.ZLIB, info.getCompressionAlgorithm());
+        assertFalse(info.hasLiteralData());
+        assertNull(info.getFileName());
+        assertEquals(Arrays.asList(PacketTags.COMPRESSED_DATA), info.getPacketTags());
+    }
+
+    @Test
+    public void inspectHeadersStopsAtLimit() throws PGPException, IOException, InvalidAlgorithmParameterException,
+            NoSuchAlgorithmException {
+        EncryptionOptions encryptionOptions = new EncryptionOptions();
+        for (int i = 0; i < 10; i++) {
+            encryptionOptions.addRecipient(PGPainless.extractCertificate(
+                    PGPainless.generateKeyRing().modernKeyRing("Recipient " + i, null)));
+        }
+        byte[] message = produce(new byte[1024], ProducerOptions.encrypt(encryptionOptions));
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+
+        MessageHeaderInfo info = MessageInspector.inspectHeaders(buffer, 500);
+
+        assertFalse(info.isComplete());
+        assertTrue(info.getBytesRead() <= 500);
+        assertTrue(info.getRecipients().size() > 0);
+        assertTrue(info.getRecipients().size() < 10);
+        assertFalse(info.isEncrypted());
+        assertEquals(0, buffer.position());
+
+        info = MessageInspector.inspectHeaders(buffer, message.length);
+        assertTrue(info.isComplete());
+        assertEquals(10, info.getRecipients().size());
+    }
+
+    private static byte[] produce(byte[] data, ProducerOptions options) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(options.setAsciiArmor(false));
+        encryptionStream.write(data);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
 }
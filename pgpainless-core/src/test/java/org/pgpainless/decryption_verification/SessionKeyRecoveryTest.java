@@ -0,0 +1,217 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bouncycastle.bcpg.ContainedPacket;
+import org.bouncycastle.bcpg.PublicKeyEncSessionPacket;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.operator.PBESecretKeyDecryptor;
+import org.bouncycastle.openpgp.operator.PBESecretKeyEncryptor;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.generation.type.rsa.RsaLength;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.Passphrase;
+
+public class SessionKeyRecoveryTest {
+
+    private static final byte[] PLAINTEXT = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    private final List<PGPSecretKeyRing> keys = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        for (int i = 0; i < 4; i++) {
+            keys.add(PGPainless.generateKeyRing().modernKeyRing("Key " + i + " <k" + i + "@pgpainless.org>", null));
+        }
+    }
+
+    @Test
+    public void cheapAlgorithmsAreTriedFirst() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing rsaKey = PGPainless.generateKeyRing().simpleRsaKeyRing("RSA <rsa@pgpainless.org>", RsaLength._3072);
+        int x25519 = SessionKeyRecovery.algorithmCost(encryptionSubkey(keys.get(0)));
+        int rsa3072 = SessionKeyRecovery.algorithmCost(encryptionSubkey(rsaKey));
+
+        assertTrue(x25519 < rsa3072);
+        assertTrue(rsa3072 < SessionKeyRecovery.UNLOCK_COST);
+    }
+
+    @Test
+    public void explicitRecipientRequiresSingleAttempt() throws PGPException, IOException {
+        PGPSecretKeyRing recipient = keys.get(2);
+        byte[] ciphertext = encrypt(new EncryptionOptions().addRecipient(KeyRingUtils.publicKeyRingFrom(recipient)));
+
+        OpenPgpMetadata metadata = decrypt(ciphertext, allKeys());
+
+        assertEquals(1, metadata.getSessionKeyDecryptionAttempts());
+        assertEquals(new SubkeyIdentifier(recipient, encryptionSubkey(recipient).getKeyID()), metadata.getDecryptionKey());
+    }
+
+    @Test
+    public void hiddenRecipient() throws PGPException, IOException {
+        PGPSecretKeyRing recipient = keys.get(2);
+        byte[] ciphertext = encrypt(new EncryptionOptions().addEncryptionMethod(hiddenRecipient(recipient)));
+
+        OpenPgpMetadata metadata = decrypt(ciphertext, allKeys());
+
+        assertTrue(metadata.getRecipientKeyIds().isEmpty());
+        assertEquals(new SubkeyIdentifier(recipient, encryptionSubkey(recipient).getKeyID()), metadata.getDecryptionKey());
+        // trials stop at the first success
+        assertTrue(metadata.getSessionKeyDecryptionAttempts() >= 1);
+        assertTrue(metadata.getSessionKeyDecryptionAttempts() <= keys.size());
+    }
+
+    @Test
+    public void hiddenRecipientInParallel() throws PGPException, IOException {
+        PGPSecretKeyRing recipient = keys.get(3);
+        byte[] ciphertext = encrypt(new EncryptionOptions().addEncryptionMethod(hiddenRecipient(recipient)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            OpenPgpMetadata metadata = decrypt(ciphertext, allKeys().setSessionKeyDecryptionExecutor(executor));
+
+            assertEquals(new SubkeyIdentifier(recipient, encryptionSubkey(recipient).getKeyID()), metadata.getDecryptionKey());
+            assertTrue(metadata.getSessionKeyDecryptionAttempts() >= 1);
+            assertTrue(metadata.getSessionKeyDecryptionAttempts() <= keys.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void keysWhichDoNotNeedUnlockingArePreferred() throws PGPException, IOException,
+            InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        Passphrase passphrase = Passphrase.fromPassword("sw0rdf1sh");
+        PGPSecretKeyRing protectedKey = PGPainless.generateKeyRing()
+                .modernKeyRing("Protected <protected@pgpainless.org>", "sw0rdf1sh");
+        PGPSecretKeyRing unprotectedKey = keys.get(0);
+
+        byte[] ciphertext = encrypt(new EncryptionOptions()
+                .addRecipient(KeyRingUtils.publicKeyRingFrom(protectedKey))
+                .addRecipient(KeyRingUtils.publicKeyRingFrom(unprotectedKey)));
+
+        OpenPgpMetadata metadata = decrypt(ciphertext, new ConsumerOptions()
+                .addDecryptionKey(protectedKey, SecretKeyRingProtector.unlockEachKeyWith(passphrase, protectedKey))
+                .addDecryptionKey(unprotectedKey));
+
+        assertEquals(1, metadata.getSessionKeyDecryptionAttempts());
+        assertEquals(new SubkeyIdentifier(unprotectedKey, encryptionSubkey(unprotectedKey).getKeyID()),
+                metadata.getDecryptionKey());
+    }
+
+    @Test
+    public void hiddenRecipientInParallelDoesNotUnlockProtectedKeys() throws PGPException, IOException,
+            InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing protectedKey = PGPainless.generateKeyRing()
+                .modernKeyRing("Protected <protected@pgpainless.org>", "sw0rdf1sh");
+        final SecretKeyRingProtector delegate = SecretKeyRingProtector.unlockAnyKeyWith(Passphrase.fromPassword("sw0rdf1sh"));
+        final AtomicInteger unlocks = new AtomicInteger();
+        SecretKeyRingProtector countingProtector = new SecretKeyRingProtector() {
+            @Override
+            public boolean hasPassphraseFor(Long keyId) {
+                return delegate.hasPassphraseFor(keyId);
+            }
+
+            @Override
+            public PBESecretKeyDecryptor getDecryptor(Long keyId) throws PGPException {
+                unlocks.incrementAndGet();
+                return delegate.getDecryptor(keyId);
+            }
+
+            @Override
+            public PBESecretKeyEncryptor getEncryptor(Long keyId) throws PGPException {
+                return delegate.getEncryptor(keyId);
+            }
+        };
+        PGPSecretKeyRing recipient = keys.get(1);
+        byte[] ciphertext = encrypt(new EncryptionOptions().addEncryptionMethod(hiddenRecipient(recipient)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            OpenPgpMetadata metadata = decrypt(ciphertext, allKeys()
+                    .addDecryptionKey(protectedKey, countingProtector)
+                    .setSessionKeyDecryptionExecutor(executor));
+
+            assertEquals(new SubkeyIdentifier(recipient, encryptionSubkey(recipient).getKeyID()), metadata.getDecryptionKey());
+            assertEquals(0, unlocks.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ConsumerOptions allKeys() {
+        ConsumerOptions options = new ConsumerOptions();
+        for (PGPSecretKeyRing key : keys) {
+            options.addDecryptionKey(key);
+        }
+        return options;
+    }
+
+    private static PGPPublicKey encryptionSubkey(PGPSecretKeyRing secretKeys) {
+        return PGPainless.inspectKeyRing(secretKeys).getEncryptionSubkeys(EncryptionPurpose.ANY).get(0);
+    }
+
+    private static PGPKeyEncryptionMethodGenerator hiddenRecipient(PGPSecretKeyRing secretKeys) {
+        final PGPKeyEncryptionMethodGenerator delegate = ImplementationFactory.getInstance()
+                .getPublicKeyKeyEncryptionMethodGenerator(encryptionSubkey(secretKeys));
+        return new PGPKeyEncryptionMethodGenerator() {
+            @Override
+            public ContainedPacket generate(int encAlgorithm, byte[] sessionInfo) throws PGPException {
+                PublicKeyEncSessionPacket packet = (PublicKeyEncSessionPacket) delegate.generate(encAlgorithm, sessionInfo);
+                // wildcard key-id
+                return new PublicKeyEncSessionPacket(0L, packet.getAlgorithm(), packet.getEncSessionKey());
+            }
+        };
+    }
+
+    private static byte[] encrypt(EncryptionOptions options) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(options));
+        encryptionStream.write(PLAINTEXT);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private static OpenPgpMetadata decrypt(byte[] ciphertext, ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        assertArrayEquals(PLAINTEXT, out.toByteArray());
+        return decryptionStream.getResult();
+    }
+}
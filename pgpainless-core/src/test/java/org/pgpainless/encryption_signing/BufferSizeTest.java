@@ -0,0 +1,159 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.TestUtils;
+
+public class BufferSizeTest {
+
+    private static PGPSecretKeyRing secretKeys;
+    private static PGPPublicKeyRing certificate;
+
+    @BeforeAll
+    public static void setup() throws PGPException, IOException {
+        secretKeys = TestKeys.getJulietSecretKeyRing();
+        certificate = TestKeys.getJulietPublicKeyRing();
+    }
+
+    @Test
+    public void adaptiveBufferSize() {
+        assertEquals(ProducerOptions.MIN_BUFFER_SIZE, EncryptionStream.adaptiveBufferSize(0, 1 << 20));
+        assertEquals(ProducerOptions.MIN_BUFFER_SIZE, EncryptionStream.adaptiveBufferSize(100, 1 << 20));
+        assertEquals(1 << 12, EncryptionStream.adaptiveBufferSize(5000, 1 << 20));
+        assertEquals(1 << 20, EncryptionStream.adaptiveBufferSize(1 << 20, 1 << 20));
+        assertEquals(1 << 16, EncryptionStream.adaptiveBufferSize(1 << 20, (1 << 16) + 1));
+    }
+
+    @Test
+    public void invalidBufferSizes() {
+        ProducerOptions options = ProducerOptions.noEncryptionNoSigning();
+        assertThrows(IllegalArgumentException.class, () -> options.setBufferSize(256));
+        assertThrows(IllegalArgumentException.class, () -> options.setAdaptiveBufferSize(0));
+        assertThrows(IllegalArgumentException.class, () -> new ConsumerOptions().setBufferSize(0));
+    }
+
+    @Test
+    public void largerBuffersProduceFewerPacketHeaders() throws PGPException, IOException {
+        byte[] data = TestUtils.randomBytes(1 << 20);
+
+        byte[] defaultBuffer = encryptAndSign(data, ProducerOptions.DEFAULT_BUFFER_SIZE, false);
+        byte[] fixedBuffer = encryptAndSign(data, 1 << 16, false);
+        byte[] adaptiveBuffer = encryptAndSign(data, 1 << 16, true);
+
+        assertTrue(fixedBuffer.length < defaultBuffer.length);
+        assertEquals(fixedBuffer.length, adaptiveBuffer.length);
+
+        assertArrayEquals(data, decryptAndVerify(defaultBuffer));
+        assertArrayEquals(data, decryptAndVerify(fixedBuffer));
+        assertArrayEquals(data, decryptAndVerify(adaptiveBuffer));
+    }
+
+    @Test
+    public void adaptiveBufferSizeWithSmallMessages() throws PGPException, IOException {
+        for (int size : new int[] {0, 1, 511, 512, 513, 5000}) {
+            byte[] data = TestUtils.randomBytes(size);
+            byte[] ciphertext = encryptAndSign(data, 1 << 16, true);
+            assertArrayEquals(data, decryptAndVerify(ciphertext));
+        }
+    }
+
+    @Test
+    public void adaptiveModeDefersOutput() throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                                .addRecipient(certificate))
+                        .setAdaptiveBufferSize(1 << 16));
+        encryptionStream.write(TestUtils.randomBytes(1000));
+        encryptionStream.flush();
+        assertEquals(0, out.size());
+
+        encryptionStream.close();
+        assertFalse(out.size() == 0);
+    }
+
+    @Test
+    public void adaptiveModeStreamsLargeMessages() throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                                .addRecipient(certificate))
+                        .setAdaptiveBufferSize(1 << 20));
+        byte[] chunk = TestUtils.randomBytes(1000);
+        int written = 0;
+        while (out.size() == 0) {
+            encryptionStream.write(chunk);
+            written += chunk.length;
+        }
+        encryptionStream.close();
+
+        // plaintext beyond the probe is not buffered, but written to the packet pipeline
+        assertTrue(written <= EncryptionStream.ADAPTIVE_PROBE_SIZE + chunk.length);
+    }
+
+    private byte[] encryptAndSign(byte[] data, int bufferSize, boolean adaptive) throws PGPException, IOException {
+        ProducerOptions options = ProducerOptions.signAndEncrypt(
+                        EncryptionOptions.encryptCommunications().addRecipient(certificate),
+                        SigningOptions.get().addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                                DocumentSignatureType.BINARY_DOCUMENT))
+                .setAsciiArmor(false)
+                .overrideCompressionAlgorithm(CompressionAlgorithm.UNCOMPRESSED);
+        if (adaptive) {
+            options.setAdaptiveBufferSize(bufferSize);
+        } else {
+            options.setBufferSize(bufferSize);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(options);
+        // write in small chunks
+        for (int off = 0; off < data.length; off += 100) {
+            encryptionStream.write(data, off, Math.min(100, data.length - off));
+        }
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private byte[] decryptAndVerify(byte[] ciphertext) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext))
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(secretKeys)
+                        .addVerificationCert(certificate)
+                        .setBufferSize(1 << 16));
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, plaintext);
+        decryptionStream.close();
+        assertTrue(decryptionStream.getResult().containsVerifiedSignatureFrom(certificate));
+        return plaintext.toByteArray();
+    }
+}
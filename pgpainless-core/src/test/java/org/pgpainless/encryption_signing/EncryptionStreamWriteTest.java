@@ -0,0 +1,135 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+
+public class EncryptionStreamWriteTest {
+
+    private PGPSecretKeyRing secretKeys;
+    private PGPPublicKeyRing certificate;
+    private byte[] data;
+
+    @BeforeEach
+    public void setup() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+        data = new byte[10000];
+        new Random(42).nextBytes(data);
+    }
+
+    @Test
+    public void writeArraySlices() throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = encryptAndSign(out);
+        // Write the data in chunks of varying size from a larger buffer
+        byte[] padded = new byte[data.length + 20];
+        System.arraycopy(data, 0, padded, 10, data.length);
+        int off = 0;
+        int chunk = 1;
+        while (off < data.length) {
+            int len = Math.min(chunk, data.length - off);
+            encryptionStream.write(padded, 10 + off, len);
+            off += len;
+            chunk = chunk * 2 + 1;
+        }
+        encryptionStream.close();
+
+        decryptAndVerify(out.toByteArray());
+    }
+
+    @Test
+    public void writeSingleBytes() throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = encryptAndSign(out);
+        for (byte b : data) {
+            encryptionStream.write(b);
+        }
+        encryptionStream.close();
+
+        decryptAndVerify(out.toByteArray());
+    }
+
+    @Test
+    public void writeHeapByteBuffer() throws PGPException, IOException {
+        byte[] padded = new byte[data.length + 20];
+        System.arraycopy(data, 0, padded, 10, data.length);
+        ByteBuffer buffer = ByteBuffer.wrap(padded, 5, data.length + 10);
+        buffer.position(10);
+        buffer = buffer.slice();
+        buffer.limit(data.length);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = encryptAndSign(out);
+        encryptionStream.write(buffer);
+        encryptionStream.close();
+
+        assertEquals(buffer.limit(), buffer.position());
+        decryptAndVerify(out.toByteArray());
+    }
+
+    @Test
+    public void writeDirectByteBuffer() throws PGPException, IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = encryptAndSign(out);
+        encryptionStream.write(buffer);
+        encryptionStream.close();
+
+        assertEquals(buffer.limit(), buffer.position());
+        decryptAndVerify(out.toByteArray());
+    }
+
+    private EncryptionStream encryptAndSign(ByteArrayOutputStream out) throws PGPException, IOException {
+        return PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.signAndEncrypt(
+                        EncryptionOptions.encryptCommunications().addRecipient(certificate),
+                        SigningOptions.get().addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                                DocumentSignatureType.BINARY_DOCUMENT)));
+    }
+
+    private void decryptAndVerify(byte[] ciphertext) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext))
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(secretKeys)
+                        .addVerificationCert(certificate));
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, plaintext);
+        decryptionStream.close();
+
+        OpenPgpMetadata metadata = decryptionStream.getResult();
+        assertArrayEquals(data, plaintext.toByteArray());
+        assertTrue(metadata.containsVerifiedSignatureFrom(certificate));
+    }
+}
@@ -0,0 +1,162 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.MappedFileInputStream;
+import org.pgpainless.util.TestUtils;
+
+public class FileChannelEncryptionTest {
+
+    private static PGPSecretKeyRing secretKeys;
+    private static PGPPublicKeyRing certificate;
+    private Path plaintextFile;
+    private Path ciphertextFile;
+
+    @BeforeAll
+    public static void readKeys() throws PGPException, IOException {
+        secretKeys = TestKeys.getJulietSecretKeyRing();
+        certificate = TestKeys.getJulietPublicKeyRing();
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        plaintextFile = Files.createTempFile("plaintext", ".bin");
+        ciphertextFile = Files.createTempFile("ciphertext", ".pgp");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(plaintextFile);
+        Files.deleteIfExists(ciphertextFile);
+    }
+
+    @Test
+    public void encryptFileChannelDecryptStream() throws IOException, PGPException {
+        byte[] data = TestUtils.randomBytes(3 * (1 << 20) + 7);
+        Files.write(plaintextFile, data);
+
+        EncryptionResult result;
+        try (FileChannel plaintext = FileChannel.open(plaintextFile, StandardOpenOption.READ);
+             FileChannel ciphertext = FileChannel.open(ciphertextFile, StandardOpenOption.WRITE)) {
+            result = PGPainless.encryptAndOrSign()
+                    .onFileChannel(plaintext, ciphertext)
+                    .withOptions(producerOptions());
+            assertEquals(data.length, plaintext.position());
+        }
+        assertEquals(1, result.getRecipients().size());
+
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(Files.readAllBytes(ciphertextFile)))
+                .withOptions(consumerOptions());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+
+        assertArrayEquals(data, out.toByteArray());
+        assertTrue(decryptionStream.getResult().containsVerifiedSignatureFrom(certificate));
+    }
+
+    @Test
+    public void encryptStreamDecryptFileChannel() throws IOException, PGPException {
+        byte[] data = TestUtils.randomBytes(1 << 20);
+        ByteArrayOutputStream ciphertextOut = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(ciphertextOut)
+                .withOptions(producerOptions());
+        encryptionStream.write(data);
+        encryptionStream.close();
+        Files.write(ciphertextFile, ciphertextOut.toByteArray());
+
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        OpenPgpMetadata metadata;
+        try (FileChannel ciphertext = FileChannel.open(ciphertextFile, StandardOpenOption.READ)) {
+            metadata = PGPainless.decryptAndOrVerify()
+                    .onFileChannel(ciphertext, Channels.newChannel(plaintext))
+                    .withOptions(consumerOptions());
+        }
+
+        assertArrayEquals(data, plaintext.toByteArray());
+        assertTrue(metadata.isEncrypted());
+        assertTrue(metadata.containsVerifiedSignatureFrom(certificate));
+    }
+
+    @Test
+    public void emptyFile() throws IOException, PGPException {
+        try (FileChannel plaintext = FileChannel.open(plaintextFile, StandardOpenOption.READ);
+             FileChannel ciphertext = FileChannel.open(ciphertextFile, StandardOpenOption.WRITE)) {
+            PGPainless.encryptAndOrSign()
+                    .onFileChannel(plaintext, ciphertext)
+                    .withOptions(producerOptions());
+        }
+
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        try (FileChannel ciphertext = FileChannel.open(ciphertextFile, StandardOpenOption.READ)) {
+            PGPainless.decryptAndOrVerify()
+                    .onFileChannel(ciphertext, Channels.newChannel(plaintext))
+                    .withOptions(consumerOptions());
+        }
+        assertEquals(0, plaintext.size());
+    }
+
+    @Test
+    public void mappedFileInputStreamCrossesRegions() throws IOException {
+        byte[] data = TestUtils.randomBytes(10000);
+        Files.write(plaintextFile, data);
+
+        try (FileChannel channel = FileChannel.open(plaintextFile, StandardOpenOption.READ)) {
+            MappedFileInputStream in = new MappedFileInputStream(channel, 10, data.length - 20, 333);
+            assertEquals(100, in.skip(100));
+            assertEquals(110, in.getPosition());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Streams.pipeAll(in, out);
+            assertArrayEquals(Arrays.copyOfRange(data, 110, data.length - 10), out.toByteArray());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    private ProducerOptions producerOptions() throws PGPException {
+        return ProducerOptions.signAndEncrypt(
+                        new EncryptionOptions().addRecipient(certificate),
+                        new SigningOptions().addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                                DocumentSignatureType.BINARY_DOCUMENT))
+                .setBufferSize(1 << 16);
+    }
+
+    private ConsumerOptions consumerOptions() {
+        return new ConsumerOptions()
+                .addDecryptionKey(secretKeys)
+                .addVerificationCert(certificate);
+    }
+}
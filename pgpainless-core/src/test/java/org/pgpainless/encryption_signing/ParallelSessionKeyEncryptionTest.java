@@ -0,0 +1,138 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bouncycastle.bcpg.ContainedPacket;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.Passphrase;
+
+public class ParallelSessionKeyEncryptionTest {
+
+    private static final byte[] PLAINTEXT = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    private final List<PGPSecretKeyRing> recipients = new ArrayList<>();
+    private ExecutorService executor;
+    private AtomicInteger submittedTasks;
+
+    @BeforeEach
+    public void setup() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        for (int i = 0; i < 8; i++) {
+            recipients.add(PGPainless.generateKeyRing().modernKeyRing("Recipient " + i + " <r" + i + "@pgpainless.org>", null));
+        }
+        executor = Executors.newFixedThreadPool(4);
+        submittedTasks = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void allRecipientsCanDecrypt() throws PGPException, IOException {
+        EncryptionOptions options = new EncryptionOptions()
+                .setSessionKeyEncryptionExecutor(countingExecutor());
+        for (PGPSecretKeyRing recipient : recipients) {
+            options.addRecipient(KeyRingUtils.publicKeyRingFrom(recipient));
+        }
+
+        byte[] ciphertext = encrypt(options);
+
+        assertEquals(recipients.size(), submittedTasks.get());
+        for (PGPSecretKeyRing recipient : recipients) {
+            assertArrayEquals(PLAINTEXT, decrypt(ciphertext, new ConsumerOptions().addDecryptionKey(recipient)));
+        }
+    }
+
+    @Test
+    public void parallelEncryptionWithSessionKeyReuse() throws PGPException, IOException {
+        EncryptionOptions options = new EncryptionOptions()
+                .setSessionKeyEncryptionExecutor(countingExecutor())
+                .addPassphrase(Passphrase.fromPassword("sw0rdf1sh"))
+                .reuseSessionKey(60 * 1000);
+        for (PGPSecretKeyRing recipient : recipients) {
+            options.addRecipient(KeyRingUtils.publicKeyRingFrom(recipient));
+        }
+
+        byte[] first = encrypt(options);
+        byte[] second = encrypt(options);
+
+        assertEquals(recipients.size() + 1, submittedTasks.get());
+        for (PGPSecretKeyRing recipient : recipients) {
+            assertArrayEquals(PLAINTEXT, decrypt(first, new ConsumerOptions().addDecryptionKey(recipient)));
+            assertArrayEquals(PLAINTEXT, decrypt(second, new ConsumerOptions().addDecryptionKey(recipient)));
+        }
+    }
+
+    @Test
+    public void failingRecipientAbortsEncryption() {
+        EncryptionOptions options = new EncryptionOptions()
+                .setSessionKeyEncryptionExecutor(countingExecutor())
+                .addRecipient(KeyRingUtils.publicKeyRingFrom(recipients.get(0)))
+                .addEncryptionMethod(new PGPKeyEncryptionMethodGenerator() {
+                    @Override
+                    public ContainedPacket generate(int encAlgorithm, byte[] sessionInfo) throws PGPException {
+                        throw new PGPException("Broken recipient");
+                    }
+                });
+
+        PGPException e = assertThrows(PGPException.class, () -> encrypt(options));
+        assertEquals("Broken recipient", e.getMessage());
+    }
+
+    private Executor countingExecutor() {
+        return command -> {
+            submittedTasks.incrementAndGet();
+            executor.execute(command);
+        };
+    }
+
+    private static byte[] encrypt(EncryptionOptions options) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(options));
+        encryptionStream.write(PLAINTEXT);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] decrypt(byte[] ciphertext, ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        return out.toByteArray();
+    }
+}
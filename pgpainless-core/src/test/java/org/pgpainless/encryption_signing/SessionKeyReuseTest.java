@@ -0,0 +1,188 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bouncycastle.bcpg.ContainedPacket;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.Passphrase;
+
+public class SessionKeyReuseTest {
+
+    private static final Passphrase PASSPHRASE = Passphrase.fromPassword("sw0rdf1sh");
+
+    private PGPSecretKeyRing aliceKey;
+    private PGPSecretKeyRing bobKey;
+    private PGPPublicKeyRing bobCert;
+
+    @BeforeEach
+    public void setup() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        aliceKey = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        bobKey = PGPainless.generateKeyRing().modernKeyRing("Bob <bob@pgpainless.org>", null);
+        bobCert = KeyRingUtils.publicKeyRingFrom(bobKey);
+    }
+
+    @Test
+    public void sessionKeyIsWrappedOnceWithinLifetime() throws PGPException, IOException {
+        CountingMethod alice = countingMethod(KeyRingUtils.publicKeyRingFrom(aliceKey));
+        EncryptionOptions options = new EncryptionOptions()
+                .addEncryptionMethod(alice)
+                .addRecipient(bobCert)
+                .addPassphrase(PASSPHRASE)
+                .reuseSessionKey(60 * 1000);
+
+        byte[] sessionKey = null;
+        for (int i = 0; i < 5; i++) {
+            byte[] plaintext = ("Message " + i).getBytes(StandardCharsets.UTF_8);
+            byte[] ciphertext = encrypt(options, plaintext);
+
+            assertArrayEquals(plaintext, decrypt(ciphertext, new ConsumerOptions().addDecryptionKey(aliceKey)).plaintext);
+            assertArrayEquals(plaintext, decrypt(ciphertext, new ConsumerOptions().addDecryptionKey(bobKey)).plaintext);
+            Decrypted withPassphrase = decrypt(ciphertext, new ConsumerOptions().addDecryptionPassphrase(PASSPHRASE));
+            assertArrayEquals(plaintext, withPassphrase.plaintext);
+
+            byte[] messageSessionKey = withPassphrase.metadata.getSessionKey().getKey();
+            if (sessionKey != null) {
+                assertArrayEquals(sessionKey, messageSessionKey);
+            }
+            sessionKey = messageSessionKey;
+        }
+
+        assertEquals(1, alice.count.get());
+    }
+
+    @Test
+    public void freshSessionKeyByDefault() throws PGPException, IOException {
+        CountingMethod alice = countingMethod(KeyRingUtils.publicKeyRingFrom(aliceKey));
+        EncryptionOptions options = new EncryptionOptions()
+                .addEncryptionMethod(alice)
+                .addPassphrase(PASSPHRASE);
+
+        byte[] plaintext = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+        byte[] first = sessionKey(encrypt(options, plaintext));
+        byte[] second = sessionKey(encrypt(options, plaintext));
+
+        assertFalse(Arrays.equals(first, second));
+        assertEquals(2, alice.count.get());
+    }
+
+    @Test
+    public void sessionKeyIsRenewedAfterExpiration() throws PGPException, IOException, InterruptedException {
+        EncryptionOptions options = new EncryptionOptions()
+                .addPassphrase(PASSPHRASE)
+                .reuseSessionKey(1);
+
+        byte[] plaintext = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+        byte[] first = sessionKey(encrypt(options, plaintext));
+        Thread.sleep(10);
+        byte[] second = sessionKey(encrypt(options, plaintext));
+
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void addingRecipientRenewsSessionKey() throws PGPException, IOException {
+        EncryptionOptions options = new EncryptionOptions()
+                .addPassphrase(PASSPHRASE)
+                .reuseSessionKey(60 * 1000);
+
+        byte[] plaintext = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+        byte[] first = sessionKey(encrypt(options, plaintext));
+        options.addRecipient(bobCert);
+        byte[] ciphertext = encrypt(options, plaintext);
+
+        assertFalse(Arrays.equals(first, sessionKey(ciphertext)));
+        assertArrayEquals(plaintext, decrypt(ciphertext, new ConsumerOptions().addDecryptionKey(bobKey)).plaintext);
+    }
+
+    @Test
+    public void negativeLifetimeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new EncryptionOptions().reuseSessionKey(-1));
+    }
+
+    private static byte[] encrypt(EncryptionOptions options, byte[] plaintext) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(options));
+        encryptionStream.write(plaintext);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private static byte[] sessionKey(byte[] ciphertext) throws PGPException, IOException {
+        return decrypt(ciphertext, new ConsumerOptions().addDecryptionPassphrase(PASSPHRASE))
+                .metadata.getSessionKey().getKey();
+    }
+
+    private static Decrypted decrypt(byte[] ciphertext, ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        return new Decrypted(out.toByteArray(), decryptionStream.getResult());
+    }
+
+    private static CountingMethod countingMethod(PGPPublicKeyRing certificate) {
+        PGPKeyEncryptionMethodGenerator delegate = ImplementationFactory.getInstance()
+                .getPublicKeyKeyEncryptionMethodGenerator(PGPainless.inspectKeyRing(certificate)
+                        .getEncryptionSubkeys(EncryptionPurpose.ANY).get(0));
+        return new CountingMethod(delegate);
+    }
+
+    private static class CountingMethod extends PGPKeyEncryptionMethodGenerator {
+
+        private final PGPKeyEncryptionMethodGenerator delegate;
+        private final AtomicInteger count = new AtomicInteger();
+
+        CountingMethod(PGPKeyEncryptionMethodGenerator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public ContainedPacket generate(int encAlgorithm, byte[] sessionInfo) throws PGPException {
+            count.incrementAndGet();
+            return delegate.generate(encAlgorithm, sessionInfo);
+        }
+    }
+
+    private static class Decrypted {
+        private final byte[] plaintext;
+        private final OpenPgpMetadata metadata;
+
+        Decrypted(byte[] plaintext, OpenPgpMetadata metadata) {
+            this.plaintext = plaintext;
+            this.metadata = metadata;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.instrumentation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.Passphrase;
+
+public class OperationListenerTest {
+
+    private static final byte[] PLAINTEXT = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    private final CountingOperationListener counters = new CountingOperationListener();
+
+    @BeforeEach
+    public void registerListener() {
+        PGPainless.getPolicy().setOperationListener(counters);
+    }
+
+    @AfterEach
+    public void resetListener() {
+        PGPainless.getPolicy().setOperationListener(OperationListener.NO_OP);
+    }
+
+    @Test
+    public void noOpIsDefault() {
+        PGPainless.getPolicy().setOperationListener(OperationListener.NO_OP);
+        assertSame(OperationListener.NO_OP, PGPainless.getPolicy().getOperationListener());
+        assertThrows(NullPointerException.class, () -> PGPainless.getPolicy().setOperationListener(null));
+    }
+
+    @Test
+    public void encryptAndDecryptIsReported() throws PGPException, IOException,
+            InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        Passphrase passphrase = Passphrase.fromPassword("sw0rdf1sh");
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", "sw0rdf1sh");
+        PGPPublicKeyRing certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+        SecretKeyRingProtector protector = SecretKeyRingProtector.unlockEachKeyWith(passphrase, secretKeys);
+        // ignore key generation
+        counters.reset();
+
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(ciphertext)
+                .withOptions(ProducerOptions.signAndEncrypt(
+                                EncryptionOptions.encryptCommunications().addRecipient(certificate),
+                                SigningOptions.get().addInlineSignature(protector, secretKeys,
+                                        DocumentSignatureType.BINARY_DOCUMENT))
+                        .overrideCompressionAlgorithm(CompressionAlgorithm.ZIP));
+        encryptionStream.write(PLAINTEXT);
+        encryptionStream.close();
+
+        assertEquals(1, counters.getSecretKeyUnlocks());
+        assertEquals(PLAINTEXT.length, counters.getBytesHashed());
+        assertEquals(PLAINTEXT.length, counters.getBytesCompressed());
+        counters.reset();
+
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext.toByteArray()))
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(secretKeys, protector)
+                        .addVerificationCert(certificate));
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, plaintext);
+        decryptionStream.close();
+
+        assertArrayEquals(PLAINTEXT, plaintext.toByteArray());
+        assertEquals(1, counters.getSecretKeyUnlocks());
+        assertTrue(counters.getSecretKeyUnlockNanos() > 0);
+        assertEquals(1, counters.getSessionKeyDecryptions());
+        assertEquals(1, counters.getSignatureVerifications());
+        assertTrue(counters.getCertificateValidations() >= 1);
+        assertEquals(PLAINTEXT.length, counters.getBytesHashed());
+        assertTrue(counters.getBytesDecompressed() > PLAINTEXT.length);
+        // PKESK, SEIPD, compressed data, one-pass-signature, literal data, signature
+        assertEquals(6, counters.getPacketsParsed());
+    }
+}
@@ -0,0 +1,114 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.info;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.UnprotectedKeysProtector;
+
+public class KeyRingInfoCacheTest {
+
+    private final KeyRingInfoCache cache = KeyRingInfoCache.getInstance();
+
+    @BeforeEach
+    public void enableCache() {
+        cache.setEvaluationWindow(60 * 1000);
+    }
+
+    @AfterEach
+    public void disableCache() {
+        cache.setEvaluationWindow(KeyRingInfoCache.DISABLED);
+    }
+
+    @Test
+    public void disabledCacheEvaluatesAnew() throws IOException, PGPException {
+        cache.setEvaluationWindow(KeyRingInfoCache.DISABLED);
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+
+        assertFalse(cache.isEnabled());
+        assertNotSame(PGPainless.inspectKeyRing(secretKeys), PGPainless.inspectKeyRing(secretKeys));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void sameKeyRingWithinWindowIsCached() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+        Date date = new Date(1_000_000_000_000L);
+
+        KeyRingInfo first = PGPainless.inspectKeyRing(secretKeys, date);
+        KeyRingInfo second = PGPainless.inspectKeyRing(secretKeys, new Date(date.getTime() + 1000));
+
+        assertTrue(cache.isEnabled());
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void differentWindowIsEvaluatedAnew() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+        Date date = new Date(1_000_000_000_000L);
+
+        KeyRingInfo first = PGPainless.inspectKeyRing(secretKeys, date);
+        KeyRingInfo second = PGPainless.inspectKeyRing(secretKeys, new Date(date.getTime() + 60 * 1000));
+
+        assertNotSame(first, second);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void modifiedKeyRingIsEvaluatedAnew() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+        KeyRingInfo info = PGPainless.inspectKeyRing(secretKeys);
+        assertTrue(info.isKeyValidlyBound(secretKeys.getPublicKey().getKeyID()));
+
+        PGPSecretKeyRing revoked = PGPainless.modifyKeyRing(secretKeys)
+                .revoke(new UnprotectedKeysProtector())
+                .done();
+        KeyRingInfo revokedInfo = PGPainless.inspectKeyRing(revoked);
+
+        assertNotSame(info, revokedInfo);
+        assertFalse(revokedInfo.isKeyValidlyBound(revoked.getPublicKey().getKeyID()));
+    }
+
+    @Test
+    public void invalidate() throws IOException, PGPException {
+        PGPSecretKeyRing emil = TestKeys.getEmilSecretKeyRing();
+        PGPSecretKeyRing juliet = TestKeys.getJulietSecretKeyRing();
+        KeyRingInfo emilInfo = PGPainless.inspectKeyRing(emil);
+        KeyRingInfo julietInfo = PGPainless.inspectKeyRing(juliet);
+        assertEquals(2, cache.size());
+
+        cache.invalidate(OpenPgpFingerprint.of(emil));
+
+        assertEquals(1, cache.size());
+        assertNotSame(emilInfo, PGPainless.inspectKeyRing(emil));
+        assertSame(julietInfo, PGPainless.inspectKeyRing(juliet));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> cache.setEvaluationWindow(-1));
+        assertThrows(IllegalArgumentException.class, () -> cache.setMaxSize(0));
+    }
+}
@@ -0,0 +1,88 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.parsing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.util.LruCache;
+
+public class CertificateCacheTest {
+
+    @Test
+    public void sameBytesReturnCachedCertificate() throws IOException {
+        CertificateCache cache = new CertificateCache(10, LruCache.NO_EXPIRATION);
+
+        PGPPublicKeyRing first = PGPainless.readKeyRing().withCertificateCache(cache)
+                .publicKeyRing(TestKeys.JULIET_PUB);
+        PGPPublicKeyRing second = PGPainless.readKeyRing().withCertificateCache(cache)
+                .publicKeyRing(new ByteArrayInputStream(TestKeys.JULIET_PUB.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(TestKeys.JULIET_FINGERPRINT, OpenPgpFingerprint.of(first));
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void differentBytesAreParsedSeparately() throws IOException {
+        CertificateCache cache = new CertificateCache(10, LruCache.NO_EXPIRATION);
+        KeyRingReader reader = PGPainless.readKeyRing().withCertificateCache(cache);
+
+        PGPPublicKeyRing juliet = reader.publicKeyRing(TestKeys.JULIET_PUB);
+        PGPPublicKeyRing romeo = reader.publicKeyRing(TestKeys.ROMEO_PUB);
+
+        assertEquals(TestKeys.JULIET_FINGERPRINT, OpenPgpFingerprint.of(juliet));
+        assertEquals(TestKeys.ROMEO_FINGERPRINT, OpenPgpFingerprint.of(romeo));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedCertificateIsEvicted() throws IOException {
+        CertificateCache cache = new CertificateCache(1, LruCache.NO_EXPIRATION);
+        KeyRingReader reader = PGPainless.readKeyRing().withCertificateCache(cache);
+
+        PGPPublicKeyRing juliet = reader.publicKeyRing(TestKeys.JULIET_PUB);
+        reader.publicKeyRing(TestKeys.ROMEO_PUB);
+        PGPPublicKeyRing julietAgain = reader.publicKeyRing(TestKeys.JULIET_PUB);
+
+        assertEquals(1, cache.size());
+        assertNotSame(juliet, julietAgain);
+        assertEquals(OpenPgpFingerprint.of(juliet), OpenPgpFingerprint.of(julietAgain));
+    }
+
+    @Test
+    public void cacheCollections() throws IOException, PGPException {
+        CertificateCache cache = new CertificateCache(10, LruCache.NO_EXPIRATION);
+        String armored = TestKeys.JULIET_PUB + "\n" + TestKeys.ROMEO_PUB;
+
+        PGPPublicKeyRingCollection first = PGPainless.readKeyRing().withCertificateCache(cache)
+                .publicKeyRingCollection(armored);
+        PGPPublicKeyRingCollection second = PGPainless.readKeyRing().withCertificateCache(cache)
+                .publicKeyRingCollection(armored);
+
+        assertEquals(2, first.size());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void nonCertificateIsNotCached() throws IOException {
+        CertificateCache cache = new CertificateCache(10, LruCache.NO_EXPIRATION);
+        assertNull(cache.readPublicKeyRing(new byte[0], KeyRingReader.MAX_ITERATIONS));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,206 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.parsing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.util.ArmorUtils;
+
+public class PublicKeyRingIteratorTest {
+
+    private static final int CERTIFICATES = 20;
+
+    private static List<PGPPublicKeyRing> certificates;
+    private static ExecutorService executor;
+
+    @BeforeAll
+    public static void setup() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        certificates = new ArrayList<>();
+        for (int i = 0; i < CERTIFICATES; i++) {
+            certificates.add(PGPainless.extractCertificate(
+                    PGPainless.generateKeyRing().modernKeyRing("Certificate " + i + " <" + i + "@pgpainless.org>", null)));
+        }
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void iterateBinaryKeyring() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (PGPPublicKeyRing certificate : certificates) {
+            certificate.encode(out);
+        }
+
+        assertCertificates(PGPainless.readKeyRing().publicKeyRingIterator(new ByteArrayInputStream(out.toByteArray())));
+        assertCertificates(PGPainless.readKeyRing().publicKeyRingIterator(
+                new ByteArrayInputStream(out.toByteArray()), executor, 4));
+    }
+
+    @Test
+    public void iterateArmoredKeyring() throws IOException, PGPException {
+        byte[] keyring = concatenatedArmor();
+
+        assertCertificates(PGPainless.readKeyRing().publicKeyRingIterator(new ByteArrayInputStream(keyring)));
+    }
+
+    @Test
+    public void parseArmoredBlocksConcurrently() throws IOException, PGPException {
+        byte[] keyring = concatenatedArmor();
+
+        for (int parallelism : new int[] {1, 3, 8}) {
+            assertCertificates(PGPainless.readKeyRing().publicKeyRingIterator(
+                    new ByteArrayInputStream(keyring), executor, parallelism));
+        }
+    }
+
+    @Test
+    public void tasksNotPickedUpByExecutorAreRunByReader() throws IOException, PGPException {
+        byte[] keyring = concatenatedArmor();
+        // Executor which never gets around to running its tasks
+        Executor stalled = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+            }
+        };
+
+        assertCertificates(PGPainless.readKeyRing().publicKeyRingIterator(
+                new ByteArrayInputStream(keyring), stalled, 4));
+    }
+
+    @Test
+    public void parseMappedKeyringConcurrently() throws IOException, PGPException {
+        Path file = Files.createTempFile("keyring", ".asc");
+        try {
+            Files.write(file, concatenatedArmor());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer keyring = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                assertCertificates(PGPainless.readKeyRing().publicKeyRingIterator(
+                        keyring, ForkJoinPool.commonPool(), 4));
+                assertEquals(0, keyring.position());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void brokenChecksumIsReported() throws IOException, PGPException {
+        String keyring = new String(concatenatedArmor(), StandardCharsets.UTF_8);
+        // Replace the CRC24 checksum of the third block
+        int third = keyring.indexOf("-----BEGIN PGP PUBLIC KEY BLOCK-----",
+                keyring.indexOf("-----BEGIN PGP PUBLIC KEY BLOCK-----", 1) + 1);
+        int checksum = keyring.indexOf("\n=", third) + 2;
+        String broken = keyring.substring(0, checksum) + "AAAA" + keyring.substring(checksum + 4);
+
+        PublicKeyRingIterator iterator = PGPainless.readKeyRing().publicKeyRingIterator(
+                ByteBuffer.wrap(broken.getBytes(StandardCharsets.UTF_8)), executor, 4);
+        assertArrayEquals(certificates.get(0).getEncoded(), iterator.nextKeyRing().getEncoded());
+        assertArrayEquals(certificates.get(1).getEncoded(), iterator.nextKeyRing().getEncoded());
+        assertThrows(IOException.class, iterator::nextKeyRing);
+        iterator.close();
+    }
+
+    @Test
+    public void brokenBlockIsReported() throws IOException, PGPException {
+        String keyring = new String(concatenatedArmor(), StandardCharsets.UTF_8);
+        // Corrupt the second block
+        int second = keyring.indexOf("-----BEGIN PGP PUBLIC KEY BLOCK-----", 1);
+        int body = keyring.indexOf("\n\n", second) + 2;
+        String broken = keyring.substring(0, body) + "AAAA" + keyring.substring(body + 4);
+
+        PublicKeyRingIterator iterator = PGPainless.readKeyRing().publicKeyRingIterator(
+                new ByteArrayInputStream(broken.getBytes(StandardCharsets.UTF_8)), executor, 4);
+        assertArrayEquals(certificates.get(0).getEncoded(), iterator.next().getEncoded());
+        assertThrows(PublicKeyRingIterator.ParsingException.class, iterator::hasNext);
+        iterator.close();
+    }
+
+    @Test
+    public void keyringIsNotLimitedByMaxIterations() throws IOException {
+        byte[] certificate = certificates.get(0).getEncoded();
+        int count = KeyRingReader.MAX_ITERATIONS + 10;
+        byte[] keyring = new byte[certificate.length * count];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(certificate, 0, keyring, i * certificate.length, certificate.length);
+        }
+
+        PublicKeyRingIterator iterator = PGPainless.readKeyRing().publicKeyRingIterator(
+                new ByteArrayInputStream(keyring));
+        int read = 0;
+        while (iterator.nextKeyRing() != null) {
+            read++;
+        }
+        assertEquals(count, read);
+    }
+
+    @Test
+    public void emptyKeyring() throws IOException {
+        PublicKeyRingIterator iterator = PGPainless.readKeyRing().publicKeyRingIterator(
+                new ByteArrayInputStream(new byte[0]), executor, 4);
+        assertFalse(iterator.hasNext());
+        assertNull(iterator.nextKeyRing());
+    }
+
+    /**
+     * Return an armored keyring consisting of one armored block per certificate,
+     * except for the last two certificates which share a block.
+     */
+    private static byte[] concatenatedArmor() throws IOException, PGPException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < CERTIFICATES - 2; i++) {
+            sb.append(ArmorUtils.toAsciiArmoredString(certificates.get(i)));
+        }
+        sb.append(ArmorUtils.toAsciiArmoredString(new PGPPublicKeyRingCollection(
+                certificates.subList(CERTIFICATES - 2, CERTIFICATES))));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void assertCertificates(PublicKeyRingIterator iterator) throws IOException {
+        List<byte[]> read = new ArrayList<>();
+        while (iterator.hasNext()) {
+            read.add(iterator.next().getEncoded());
+        }
+        iterator.close();
+
+        assertEquals(CERTIFICATES, read.size());
+        for (int i = 0; i < CERTIFICATES; i++) {
+            assertArrayEquals(certificates.get(i).getEncoded(), read.get(i));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.protection;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.operator.PBESecretKeyDecryptor;
+import org.bouncycastle.openpgp.operator.PBESecretKeyEncryptor;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.exception.WrongPassphraseException;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.Passphrase;
+
+public class UnlockedPrivateKeyCacheTest {
+
+    private static final String PASSWORD = "sw0rdf1sh";
+
+    private final UnlockedPrivateKeyCache cache = UnlockedPrivateKeyCache.getInstance();
+
+    @BeforeEach
+    public void enableCache() {
+        cache.setTimeToLive(60 * 1000);
+    }
+
+    @AfterEach
+    public void disableCache() {
+        cache.setTimeToLive(UnlockedPrivateKeyCache.DISABLED);
+    }
+
+    @Test
+    public void unlockedKeyIsCachedPerProtector()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", PASSWORD);
+        PGPSecretKey secretKey = secretKeys.getSecretKey();
+        CountingProtector protector = new CountingProtector(
+                SecretKeyRingProtector.unlockEachKeyWith(Passphrase.fromPassword(PASSWORD), secretKeys));
+
+        PGPPrivateKey first = UnlockSecretKey.unlockSecretKey(secretKey, protector);
+        PGPPrivateKey second = UnlockSecretKey.unlockSecretKey(secretKey, protector);
+        assertSame(first, second);
+        assertEquals(1, protector.unlocks.get());
+        assertEquals(1, cache.size());
+
+        // A different protector MUST NOT get access to the cached key
+        SecretKeyRingProtector wrongPassphrase = SecretKeyRingProtector.unlockEachKeyWith(
+                Passphrase.fromPassword("wrong"), secretKeys);
+        assertThrows(WrongPassphraseException.class, () -> UnlockSecretKey.unlockSecretKey(secretKey, wrongPassphrase));
+    }
+
+    @Test
+    public void invalidateKey()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", null);
+        PGPSecretKey secretKey = secretKeys.getSecretKey();
+        SecretKeyRingProtector protector = SecretKeyRingProtector.unprotectedKeys();
+
+        PGPPrivateKey first = UnlockSecretKey.unlockSecretKey(secretKey, protector);
+        cache.invalidate(OpenPgpFingerprint.of(secretKey.getPublicKey()));
+        assertEquals(0, cache.size());
+        assertNotSame(first, UnlockSecretKey.unlockSecretKey(secretKey, protector));
+
+        cache.invalidate(protector);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void disabledCache()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        cache.setTimeToLive(UnlockedPrivateKeyCache.DISABLED);
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", null);
+        PGPSecretKey secretKey = secretKeys.getSecretKey();
+        SecretKeyRingProtector protector = SecretKeyRingProtector.unprotectedKeys();
+
+        assertFalse(cache.isEnabled());
+        assertNotSame(UnlockSecretKey.unlockSecretKey(secretKey, protector),
+                UnlockSecretKey.unlockSecretKey(secretKey, protector));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void decryptionUsesCachedKey()
+            throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", PASSWORD);
+        PGPPublicKeyRing certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+        CountingProtector protector = new CountingProtector(
+                SecretKeyRingProtector.unlockEachKeyWith(Passphrase.fromPassword(PASSWORD), secretKeys));
+        byte[] plaintext = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+            EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                    .onOutputStream(ciphertext)
+                    .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                            .addRecipient(certificate)));
+            encryptionStream.write(plaintext);
+            encryptionStream.close();
+
+            DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                    .onInputStream(new ByteArrayInputStream(ciphertext.toByteArray()))
+                    .withOptions(new ConsumerOptions().addDecryptionKey(secretKeys, protector));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Streams.pipeAll(decryptionStream, out);
+            decryptionStream.close();
+            assertArrayEquals(plaintext, out.toByteArray());
+        }
+
+        assertEquals(1, protector.unlocks.get());
+    }
+
+    private static class CountingProtector implements SecretKeyRingProtector {
+
+        private final SecretKeyRingProtector delegate;
+        private final AtomicInteger unlocks = new AtomicInteger();
+
+        CountingProtector(SecretKeyRingProtector delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasPassphraseFor(Long keyId) {
+            return delegate.hasPassphraseFor(keyId);
+        }
+
+        @Nullable
+        @Override
+        public PBESecretKeyDecryptor getDecryptor(Long keyId) throws PGPException {
+            unlocks.incrementAndGet();
+            return delegate.getDecryptor(keyId);
+        }
+
+        @Nullable
+        @Override
+        public PBESecretKeyEncryptor getEncryptor(Long keyId) throws PGPException {
+            return delegate.getEncryptor(keyId);
+        }
+    }
+}
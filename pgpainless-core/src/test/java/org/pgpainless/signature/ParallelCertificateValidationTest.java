@@ -0,0 +1,148 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.exception.SignatureValidationException;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.signature.consumer.CertificateValidator;
+
+public class ParallelCertificateValidationTest {
+
+    private static final byte[] MESSAGE = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void validCertificateWithManyUserIds()
+            throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = generateKeyWithManyUserIds();
+        PGPPublicKeyRing certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+        EncryptionResult result = sign(secretKeys);
+        PGPSignature signature = getSignature(result);
+
+        assertTrue(CertificateValidator.validateCertificate(signature, certificate, PGPainless.getPolicy(), executor));
+        assertTrue(verify(result, certificate).isVerified());
+    }
+
+    @Test
+    public void revokedSubkeyIsRejected()
+            throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = generateKeyWithManyUserIds();
+        EncryptionResult result = sign(secretKeys);
+        SubkeyIdentifier signingKey = result.getDetachedSignatures().keySet().iterator().next();
+        PGPSignature signature = getSignature(result);
+
+        secretKeys = PGPainless.modifyKeyRing(secretKeys)
+                .revokeSubKey(signingKey.getSubkeyFingerprint(), SecretKeyRingProtector.unprotectedKeys())
+                .done();
+        PGPPublicKeyRing certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+
+        assertThrows(SignatureValidationException.class, () ->
+                CertificateValidator.validateCertificate(signature, certificate, PGPainless.getPolicy(), executor));
+        assertThrows(SignatureValidationException.class, () ->
+                CertificateValidator.validateCertificate(signature, certificate, PGPainless.getPolicy()));
+        assertFalse(verify(result, certificate).isVerified());
+    }
+
+    @Test
+    public void revokedPrimaryKeyIsRejected()
+            throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = generateKeyWithManyUserIds();
+        EncryptionResult result = sign(secretKeys);
+        PGPSignature signature = getSignature(result);
+
+        secretKeys = PGPainless.modifyKeyRing(secretKeys)
+                .revoke(SecretKeyRingProtector.unprotectedKeys())
+                .done();
+        PGPPublicKeyRing certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+
+        assertThrows(SignatureValidationException.class, () ->
+                CertificateValidator.validateCertificate(signature, certificate, PGPainless.getPolicy(), executor));
+    }
+
+    private static PGPSecretKeyRing generateKeyWithManyUserIds()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", null);
+        for (int i = 0; i < 10; i++) {
+            secretKeys = PGPainless.modifyKeyRing(secretKeys)
+                    .addUserId("Alice " + i + " <alice" + i + "@pgpainless.org>", SecretKeyRingProtector.unprotectedKeys())
+                    .done();
+        }
+        return secretKeys;
+    }
+
+    private static EncryptionResult sign(PGPSecretKeyRing secretKeys) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.sign(SigningOptions.get()
+                        .addDetachedSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                                DocumentSignatureType.BINARY_DOCUMENT)));
+        encryptionStream.write(MESSAGE);
+        encryptionStream.close();
+        return encryptionStream.getResult();
+    }
+
+    private OpenPgpMetadata verify(EncryptionResult result, PGPPublicKeyRing certificate)
+            throws PGPException, IOException {
+        ConsumerOptions options = new ConsumerOptions()
+                .addVerificationCert(certificate)
+                .setCertificateValidationExecutor(executor);
+        options.addVerificationOfDetachedSignature(getSignature(result));
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(MESSAGE))
+                .withOptions(options);
+        Streams.drain(decryptionStream);
+        decryptionStream.close();
+        return decryptionStream.getResult();
+    }
+
+    private static PGPSignature getSignature(EncryptionResult result) {
+        return result.getDetachedSignatures().values().iterator().next().iterator().next();
+    }
+}
@@ -0,0 +1,111 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.exception.SignatureValidationException;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.signature.consumer.SignatureValidator;
+import org.pgpainless.signature.consumer.SignatureVerificationCache;
+
+public class SignatureVerificationCacheTest {
+
+    private final SignatureVerificationCache cache = SignatureVerificationCache.getInstance();
+
+    @BeforeEach
+    public void enableCache() {
+        cache.setMaxSize(100);
+    }
+
+    @AfterEach
+    public void disableCache() {
+        cache.setMaxSize(SignatureVerificationCache.DISABLED);
+    }
+
+    @Test
+    public void correctSignatureIsCached() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+        PGPPublicKey primaryKey = secretKeys.getPublicKey();
+        PGPSignature certification = getUserIdCertification(primaryKey, TestKeys.EMIL_UID);
+
+        SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, primaryKey, primaryKey).verify(certification);
+        assertEquals(1, cache.size());
+        assertTrue(cache.isVerified(cache.computeKey(certification, primaryKey,
+                primaryKey.getFingerprint(), TestKeys.EMIL_UID.getBytes("UTF-8"))));
+
+        // Second verification is served from the cache
+        SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, primaryKey, primaryKey).verify(certification);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void incorrectSignatureIsNotCached() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+        PGPPublicKey primaryKey = secretKeys.getPublicKey();
+        PGPSignature certification = getUserIdCertification(primaryKey, TestKeys.EMIL_UID);
+
+        SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, primaryKey, primaryKey).verify(certification);
+
+        // Cached result for the correct user-id must not be used for a different user-id
+        assertThrows(SignatureValidationException.class, () -> SignatureValidator
+                .correctSignatureOverUserId("Mallory <mallory@pgpainless.org>", primaryKey, primaryKey)
+                .verify(certification));
+        assertThrows(SignatureValidationException.class, () -> SignatureValidator
+                .correctSignatureOverUserId("Mallory <mallory@pgpainless.org>", primaryKey, primaryKey)
+                .verify(certification));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void keyRingEvaluationPopulatesCache() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+
+        KeyRingInfo info = PGPainless.inspectKeyRing(secretKeys);
+        int size = cache.size();
+        assertTrue(size > 0);
+
+        KeyRingInfo again = PGPainless.inspectKeyRing(secretKeys);
+        assertEquals(size, cache.size());
+        assertEquals(info.getValidUserIds(), again.getValidUserIds());
+        assertEquals(info.getEncryptionSubkeys(EncryptionPurpose.ANY).size(),
+                again.getEncryptionSubkeys(EncryptionPurpose.ANY).size());
+    }
+
+    @Test
+    public void disabledCache() throws IOException, PGPException {
+        cache.setMaxSize(SignatureVerificationCache.DISABLED);
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+        PGPPublicKey primaryKey = secretKeys.getPublicKey();
+        PGPSignature certification = getUserIdCertification(primaryKey, TestKeys.EMIL_UID);
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.computeKey(certification, primaryKey, primaryKey.getFingerprint()));
+        SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, primaryKey, primaryKey).verify(certification);
+        assertEquals(0, cache.size());
+    }
+
+    private static PGPSignature getUserIdCertification(PGPPublicKey key, String userId) {
+        Iterator<PGPSignature> signatures = key.getSignaturesForID(userId);
+        return signatures.next();
+    }
+}
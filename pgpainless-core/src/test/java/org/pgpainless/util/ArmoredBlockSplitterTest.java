@@ -0,0 +1,69 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class ArmoredBlockSplitterTest {
+
+    private static final String FIRST = "-----BEGIN PGP PUBLIC KEY BLOCK-----\n" +
+            "\n" +
+            "AAAA\n" +
+            "-----END PGP PUBLIC KEY BLOCK-----\n";
+    private static final String SECOND = "-----BEGIN PGP PUBLIC KEY BLOCK-----\r\n" +
+            "Comment: CRLF\r\n" +
+            "\r\n" +
+            "BBBB\r\n" +
+            "-----END PGP PUBLIC KEY BLOCK-----\r\n";
+    private static final String THIRD = "-----BEGIN PGP SIGNATURE-----\n" +
+            "\n" +
+            "CCCC\n" +
+            "-----END PGP SIGNATURE-----";
+
+    @Test
+    public void splitBlocks() throws IOException {
+        ByteBuffer buffer = buffer("leading text\n" + FIRST + "\n" +
+                "text between blocks\n" + SECOND + THIRD);
+        buffer.position(5);
+
+        ArmoredBlockSplitter splitter = new ArmoredBlockSplitter(buffer);
+        assertEquals(FIRST, string(splitter.nextBlock()));
+        assertEquals(SECOND, string(splitter.nextBlock()));
+        assertEquals(THIRD, string(splitter.nextBlock()));
+        assertNull(splitter.nextBlock());
+        assertEquals(5, buffer.position());
+    }
+
+    @Test
+    public void noBlocks() throws IOException {
+        assertNull(new ArmoredBlockSplitter(buffer("")).nextBlock());
+        assertNull(new ArmoredBlockSplitter(buffer("-----END PGP PUBLIC KEY BLOCK-----\n")).nextBlock());
+    }
+
+    @Test
+    public void missingArmorTail() throws IOException {
+        ArmoredBlockSplitter splitter = new ArmoredBlockSplitter(buffer(FIRST + "-----BEGIN PGP PUBLIC KEY BLOCK-----\n"));
+        assertEquals(FIRST, string(splitter.nextBlock()));
+        assertThrows(IOException.class, splitter::nextBlock);
+    }
+
+    private static ByteBuffer buffer(String string) {
+        return ByteBuffer.wrap(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String string(ByteBuffer block) {
+        byte[] bytes = new byte[block.remaining()];
+        block.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,96 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.bouncycastle.util.Strings;
+import org.junit.jupiter.api.Test;
+
+public class CleartextCanonicalizerTest {
+
+    private static final String TEXT = "- dashes \t\n" +
+            "trailing whitespace   \r\n" +
+            "\r" +
+            "-- not the end\n" +
+            "last line \t";
+
+    @Test
+    public void signing() throws IOException {
+        ByteArrayOutputStream canonical = new ByteArrayOutputStream();
+        ByteArrayOutputStream cleartext = new ByteArrayOutputStream();
+        CleartextCanonicalizer canonicalizer = CleartextCanonicalizer.forSigning(canonical, cleartext);
+        updateBytewise(canonicalizer, TEXT + "\n");
+        canonicalizer.finish();
+
+        assertEquals("- dashes\r\n" +
+                "trailing whitespace\r\n" +
+                "\r\n" +
+                "-- not the end\r\n" +
+                "last line\r\n", canonical.toString("UTF-8"));
+        assertEquals("- - dashes \t\n" +
+                "trailing whitespace   \r\n" +
+                "\r" +
+                "- -- not the end\n" +
+                "last line \t\n", cleartext.toString("UTF-8"));
+    }
+
+    @Test
+    public void verification() throws IOException {
+        ByteArrayOutputStream canonical = new ByteArrayOutputStream();
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        CleartextCanonicalizer canonicalizer = CleartextCanonicalizer.forVerification(canonical, text);
+        // the line ending preceding the signatures is not part of the text
+        updateBytewise(canonicalizer, TEXT + "\r\n");
+        canonicalizer.finish();
+
+        assertEquals("- dashes\r\n" +
+                "trailing whitespace\r\n" +
+                "\r\n" +
+                "-- not the end\r\n" +
+                "last line", canonical.toString("UTF-8"));
+        String nl = Strings.lineSeparator();
+        assertEquals("- dashes" + nl +
+                "trailing whitespace" + nl +
+                nl +
+                "-- not the end" + nl +
+                "last line", text.toString("UTF-8"));
+    }
+
+    @Test
+    public void chunkBoundariesDoNotMatter() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i % 7 == 0 ? "-" : "").append("line ").append(i).append(i % 3 == 0 ? "  \r\n" : "\n");
+        }
+        byte[] input = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream canonical = new ByteArrayOutputStream();
+        ByteArrayOutputStream cleartext = new ByteArrayOutputStream();
+        CleartextCanonicalizer canonicalizer = CleartextCanonicalizer.forSigning(canonical, cleartext);
+        canonicalizer.update(input, 0, input.length);
+        canonicalizer.finish();
+
+        ByteArrayOutputStream bytewiseCanonical = new ByteArrayOutputStream();
+        ByteArrayOutputStream bytewiseCleartext = new ByteArrayOutputStream();
+        CleartextCanonicalizer bytewise = CleartextCanonicalizer.forSigning(bytewiseCanonical, bytewiseCleartext);
+        updateBytewise(bytewise, sb.toString());
+        bytewise.finish();
+
+        assertEquals(bytewiseCanonical.toString("UTF-8"), canonical.toString("UTF-8"));
+        assertEquals(bytewiseCleartext.toString("UTF-8"), cleartext.toString("UTF-8"));
+    }
+
+    private static void updateBytewise(CleartextCanonicalizer canonicalizer, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            canonicalizer.update(bytes, i, 1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class LruCacheTest {
+
+    /**
+     * Cache with a manually controlled clock, which records evicted values.
+     */
+    private static class TestCache extends LruCache<String, String> {
+
+        private long now = 0;
+        private final List<String> evicted = new ArrayList<>();
+
+        TestCache(int maxSize, long maxAgeMillis) {
+            super(maxSize, maxAgeMillis);
+        }
+
+        @Override
+        protected void onEviction(String key, String value) {
+            evicted.add(value);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        TestCache cache = new TestCache(2, LruCache.NO_EXPIRATION);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        // access a, so b becomes the least recently used entry
+        assertEquals("A", cache.get("a"));
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.evicted.size());
+        assertEquals("B", cache.evicted.get(0));
+    }
+
+    @Test
+    public void expiredEntriesAreEvicted() {
+        TestCache cache = new TestCache(10, 1000);
+        cache.put("a", "A");
+        cache.now = 500;
+        cache.put("b", "B");
+
+        cache.now = 999;
+        assertEquals("A", cache.get("a"));
+
+        cache.now = 1000;
+        assertNull(cache.get("a"));
+        assertEquals("B", cache.get("b"));
+
+        cache.now = 1500;
+        cache.evictExpired();
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.evicted.size());
+    }
+
+    @Test
+    public void noExpiration() {
+        TestCache cache = new TestCache(10, LruCache.NO_EXPIRATION);
+        cache.put("a", "A");
+        cache.now = Long.MAX_VALUE;
+        assertEquals("A", cache.get("a"));
+    }
+
+    @Test
+    public void removeAndClearNotifyEviction() {
+        TestCache cache = new TestCache(10, LruCache.NO_EXPIRATION);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+
+        assertEquals("A", cache.remove("a"));
+        assertNull(cache.remove("a"));
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.evicted.size());
+    }
+
+    @Test
+    public void invalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, String>(0, LruCache.NO_EXPIRATION));
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, String>(10, -1));
+    }
+}
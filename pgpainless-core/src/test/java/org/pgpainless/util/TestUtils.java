@@ -44,6 +44,12 @@ public class TestUtils {
         return sb.toString();
     }
 
+    public static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+
     public static MarkerPacket getMarkerPacket() throws IOException {
         BCPGInputStream pgpIn = new BCPGInputStream(new ByteArrayInputStream("PGP".getBytes(StandardCharsets.UTF_8)));
         MarkerPacket markerPacket = new MarkerPacket(pgpIn);
@@ -0,0 +1,31 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A certificate was validated.
+ */
+@Name("org.pgpainless.CertificateValidation")
+@Label("Certificate Validation")
+@Category("PGPainless")
+@Description("Validation of the self-signatures of a signers certificate")
+final class CertificateValidationEvent extends jdk.jfr.Event {
+
+    @Label("Primary Key ID")
+    String primaryKeyId;
+
+    @Label("Valid")
+    boolean valid;
+
+    @Label("Operation Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long operationDuration;
+}
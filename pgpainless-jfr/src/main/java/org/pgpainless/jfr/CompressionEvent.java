@@ -0,0 +1,28 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Data of a message was compressed.
+ */
+@Name("org.pgpainless.Compression")
+@Label("Compression")
+@Category("PGPainless")
+@Description("Number of uncompressed bytes of a message that were compressed")
+final class CompressionEvent extends jdk.jfr.Event {
+
+    @Label("Compression Algorithm")
+    String algorithm;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
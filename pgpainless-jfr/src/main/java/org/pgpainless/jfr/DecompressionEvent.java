@@ -0,0 +1,28 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A compressed data packet was decompressed.
+ */
+@Name("org.pgpainless.Decompression")
+@Label("Decompression")
+@Category("PGPainless")
+@Description("Number of bytes decompressed from a compressed data packet")
+final class DecompressionEvent extends jdk.jfr.Event {
+
+    @Label("Compression Algorithm")
+    String algorithm;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
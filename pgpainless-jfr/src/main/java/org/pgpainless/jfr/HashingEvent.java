@@ -0,0 +1,25 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Data of a message was hashed for signing or signature verification.
+ */
+@Name("org.pgpainless.Hashing")
+@Label("Hashing")
+@Category("PGPainless")
+@Description("Number of bytes of a message hashed for creating or verifying signatures")
+final class HashingEvent extends jdk.jfr.Event {
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,161 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.PublicKeyAlgorithm;
+import org.pgpainless.instrumentation.OperationListener;
+
+/**
+ * {@link OperationListener} which emits JDK Flight Recorder events for OpenPGP operations.
+ *
+ * Events are only created if they are enabled in a running recording, so the listener does not cause noticeable
+ * overhead if no recording is active.
+ * Since JFR events cannot be backdated, timed operations are reported as instant events with the measured duration
+ * in the {@code operationDuration} field.
+ *
+ * Each event is forwarded to a delegate listener first, so that existing instrumentation keeps working.
+ */
+public class JfrOperationListener implements OperationListener {
+
+    private final OperationListener delegate;
+
+    /**
+     * Create a listener which only emits JFR events.
+     */
+    public JfrOperationListener() {
+        this(OperationListener.NO_OP);
+    }
+
+    /**
+     * Create a listener which emits JFR events and forwards all events to the given delegate.
+     *
+     * @param delegate delegate listener
+     */
+    public JfrOperationListener(OperationListener delegate) {
+        if (delegate == null) {
+            throw new NullPointerException("Delegate listener cannot be null.");
+        }
+        this.delegate = delegate;
+    }
+
+    /**
+     * Register a {@link JfrOperationListener} in the global {@link org.pgpainless.policy.Policy}.
+     * The previously registered listener is kept as delegate.
+     *
+     * @return registered listener
+     */
+    public static JfrOperationListener register() {
+        JfrOperationListener listener = new JfrOperationListener(PGPainless.getPolicy().getOperationListener());
+        PGPainless.getPolicy().setOperationListener(listener);
+        return listener;
+    }
+
+    /**
+     * Return the listener to which events are forwarded.
+     *
+     * @return delegate
+     */
+    public OperationListener getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void onSecretKeyUnlock(long keyId, boolean success, long durationNanos) {
+        delegate.onSecretKeyUnlock(keyId, success, durationNanos);
+        SecretKeyUnlockEvent event = new SecretKeyUnlockEvent();
+        if (event.isEnabled()) {
+            event.keyId = keyIdToString(keyId);
+            event.success = success;
+            event.operationDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onSessionKeyDecryption(long keyId, int publicKeyAlgorithm, boolean success, long durationNanos) {
+        delegate.onSessionKeyDecryption(keyId, publicKeyAlgorithm, success, durationNanos);
+        SessionKeyDecryptionEvent event = new SessionKeyDecryptionEvent();
+        if (event.isEnabled()) {
+            event.keyId = keyIdToString(keyId);
+            PublicKeyAlgorithm algorithm = PublicKeyAlgorithm.fromId(publicKeyAlgorithm);
+            event.algorithm = algorithm != null ? algorithm.name() : Integer.toString(publicKeyAlgorithm);
+            event.success = success;
+            event.operationDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onSignatureVerification(long issuerKeyId, boolean valid, long durationNanos) {
+        delegate.onSignatureVerification(issuerKeyId, valid, durationNanos);
+        SignatureVerificationEvent event = new SignatureVerificationEvent();
+        if (event.isEnabled()) {
+            event.issuerKeyId = keyIdToString(issuerKeyId);
+            event.valid = valid;
+            event.operationDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onCertificateValidation(long primaryKeyId, boolean valid, long durationNanos) {
+        delegate.onCertificateValidation(primaryKeyId, valid, durationNanos);
+        CertificateValidationEvent event = new CertificateValidationEvent();
+        if (event.isEnabled()) {
+            event.primaryKeyId = keyIdToString(primaryKeyId);
+            event.valid = valid;
+            event.operationDuration = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onBytesHashed(long bytes) {
+        delegate.onBytesHashed(bytes);
+        HashingEvent event = new HashingEvent();
+        if (event.isEnabled()) {
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onBytesCompressed(CompressionAlgorithm algorithm, long bytes) {
+        delegate.onBytesCompressed(algorithm, bytes);
+        CompressionEvent event = new CompressionEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm.name();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onBytesDecompressed(CompressionAlgorithm algorithm, long bytes) {
+        delegate.onBytesDecompressed(algorithm, bytes);
+        DecompressionEvent event = new DecompressionEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm.name();
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onPacketParsed(int packetTag) {
+        delegate.onPacketParsed(packetTag);
+        PacketParsedEvent event = new PacketParsedEvent();
+        if (event.isEnabled()) {
+            event.packetTag = packetTag;
+            event.commit();
+        }
+    }
+
+    private static String keyIdToString(long keyId) {
+        return String.format("%016X", keyId);
+    }
+}
@@ -0,0 +1,26 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An OpenPGP packet was parsed.
+ * This event is emitted very frequently, so it is disabled by default.
+ */
+@Name("org.pgpainless.PacketParsed")
+@Label("Packet Parsed")
+@Category("PGPainless")
+@Description("An OpenPGP packet was parsed while processing a message")
+@Enabled(false)
+final class PacketParsedEvent extends jdk.jfr.Event {
+
+    @Label("Packet Tag")
+    int packetTag;
+}
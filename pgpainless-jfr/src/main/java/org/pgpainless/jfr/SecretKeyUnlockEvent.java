@@ -0,0 +1,31 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A secret key was unlocked.
+ */
+@Name("org.pgpainless.SecretKeyUnlock")
+@Label("Secret Key Unlock")
+@Category("PGPainless")
+@Description("Decryption of a secret key using its S2K specifier")
+final class SecretKeyUnlockEvent extends jdk.jfr.Event {
+
+    @Label("Key ID")
+    String keyId;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Operation Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long operationDuration;
+}
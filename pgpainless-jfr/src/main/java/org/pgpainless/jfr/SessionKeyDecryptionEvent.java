@@ -0,0 +1,34 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * An attempt to decrypt a public key encrypted session key.
+ */
+@Name("org.pgpainless.SessionKeyDecryption")
+@Label("Session Key Decryption")
+@Category("PGPainless")
+@Description("Attempt to decrypt a public key encrypted session key packet using a private key")
+final class SessionKeyDecryptionEvent extends jdk.jfr.Event {
+
+    @Label("Key ID")
+    String keyId;
+
+    @Label("Public Key Algorithm")
+    String algorithm;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Operation Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long operationDuration;
+}
@@ -0,0 +1,31 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A signature over a message was verified.
+ */
+@Name("org.pgpainless.SignatureVerification")
+@Label("Signature Verification")
+@Category("PGPainless")
+@Description("Verification of a message signature, including validation of the signers certificate")
+final class SignatureVerificationEvent extends jdk.jfr.Event {
+
+    @Label("Issuer Key ID")
+    String issuerKeyId;
+
+    @Label("Valid")
+    boolean valid;
+
+    @Label("Operation Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long operationDuration;
+}
@@ -0,0 +1,147 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.jfr;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.instrumentation.CountingOperationListener;
+import org.pgpainless.instrumentation.OperationListener;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.Passphrase;
+
+public class JfrOperationListenerTest {
+
+    private static final byte[] PLAINTEXT = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    @AfterEach
+    public void resetListener() {
+        PGPainless.getPolicy().setOperationListener(OperationListener.NO_OP);
+    }
+
+    @Test
+    public void registerKeepsPreviousListenerAsDelegate() {
+        CountingOperationListener counters = new CountingOperationListener();
+        PGPainless.getPolicy().setOperationListener(counters);
+
+        JfrOperationListener listener = JfrOperationListener.register();
+
+        assertSame(listener, PGPainless.getPolicy().getOperationListener());
+        assertSame(counters, listener.getDelegate());
+    }
+
+    @Test
+    public void eventsAreRecorded() throws PGPException, IOException,
+            InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", "sw0rdf1sh");
+        PGPPublicKeyRing certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+        SecretKeyRingProtector protector = SecretKeyRingProtector.unlockEachKeyWith(
+                Passphrase.fromPassword("sw0rdf1sh"), secretKeys);
+
+        CountingOperationListener counters = new CountingOperationListener();
+        PGPainless.getPolicy().setOperationListener(new JfrOperationListener(counters));
+
+        Path dump = Files.createTempFile("pgpainless", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.start();
+
+            byte[] ciphertext = encryptAndSign(secretKeys, certificate, protector);
+            decryptAndVerify(ciphertext, secretKeys, certificate, protector);
+
+            recording.stop();
+            recording.dump(dump);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            Set<String> names = new HashSet<>();
+            for (RecordedEvent event : events) {
+                names.add(event.getEventType().getName());
+            }
+
+            assertTrue(names.contains("org.pgpainless.SecretKeyUnlock"));
+            assertTrue(names.contains("org.pgpainless.SessionKeyDecryption"));
+            assertTrue(names.contains("org.pgpainless.SignatureVerification"));
+            assertTrue(names.contains("org.pgpainless.CertificateValidation"));
+            assertTrue(names.contains("org.pgpainless.Hashing"));
+            assertTrue(names.contains("org.pgpainless.Compression"));
+            assertTrue(names.contains("org.pgpainless.Decompression"));
+            // disabled by default
+            assertFalse(names.contains("org.pgpainless.PacketParsed"));
+
+            for (RecordedEvent event : events) {
+                if (event.getEventType().getName().equals("org.pgpainless.SessionKeyDecryption")) {
+                    assertTrue(event.getBoolean("success"));
+                    assertTrue(event.getLong("operationDuration") >= 0);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+
+        // events are forwarded to the delegate
+        assertTrue(counters.getSessionKeyDecryptions() > 0);
+        assertTrue(counters.getSignatureVerifications() > 0);
+    }
+
+    private static byte[] encryptAndSign(PGPSecretKeyRing secretKeys, PGPPublicKeyRing certificate,
+                                         SecretKeyRingProtector protector) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.signAndEncrypt(
+                        new EncryptionOptions().addRecipient(certificate),
+                        new SigningOptions().addInlineSignature(protector, secretKeys,
+                                DocumentSignatureType.BINARY_DOCUMENT)));
+        encryptionStream.write(PLAINTEXT);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private static void decryptAndVerify(byte[] ciphertext, PGPSecretKeyRing secretKeys, PGPPublicKeyRing certificate,
+                                         SecretKeyRingProtector protector) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext))
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(secretKeys, protector)
+                        .addVerificationCert(certificate));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        assertArrayEquals(PLAINTEXT, out.toByteArray());
+        assertTrue(decryptionStream.getResult().containsVerifiedSignatureFrom(certificate));
+    }
+}
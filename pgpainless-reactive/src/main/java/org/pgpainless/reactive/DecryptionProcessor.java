@@ -0,0 +1,155 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.reactive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.pgpainless.PGPainless;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+
+/**
+ * {@link java.util.concurrent.Flow.Processor} which decrypts and/or verifies a stream of ciphertext
+ * {@link ByteBuffer ByteBuffers} using a {@link DecryptionStream}.
+ *
+ * OpenPGP messages are parsed by pulling data from an {@link InputStream}. To avoid blocking while waiting for
+ * ciphertext, the processor only reads plaintext from the decryption stream while at least {@link #LOW_WATERMARK}
+ * bytes of ciphertext are buffered, or the upstream publisher completed.
+ * Only if the parser needs to look further ahead than that (e.g. for very large packet headers), the worker thread
+ * waits for the next item of ciphertext.
+ *
+ * The {@link OpenPgpMetadata} is available via {@link #getResult()} once the subscriber received
+ * {@link java.util.concurrent.Flow.Subscriber#onComplete()}.
+ * Note, that plaintext is emitted before the integrity of the message and its signatures are verified.
+ * Consumers must not process the plaintext before the result completed successfully.
+ *
+ * Items of ciphertext must not be modified after they were passed to {@link #onNext(ByteBuffer)}.
+ */
+public final class DecryptionProcessor extends StreamProcessor<OpenPgpMetadata> {
+
+    /**
+     * Minimal number of buffered bytes of ciphertext, before plaintext is read from the decryption stream.
+     */
+    public static final int LOW_WATERMARK = 1 << 16;
+
+    private final ConsumerOptions options;
+    private final CiphertextInputStream ciphertext = new CiphertextInputStream();
+    private final byte[] plaintext;
+    private DecryptionStream decryptionStream;
+
+    /**
+     * Create a processor which decrypts and/or verifies data using the given options.
+     * The work is performed by {@link ForkJoinPool#commonPool()}.
+     *
+     * @param options options
+     */
+    public DecryptionProcessor(@Nonnull ConsumerOptions options) {
+        this(options, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a processor which decrypts and/or verifies data using the given options.
+     * The work is performed by the given {@link Executor}.
+     *
+     * @param options options
+     * @param executor executor
+     */
+    public DecryptionProcessor(@Nonnull ConsumerOptions options, @Nonnull Executor executor) {
+        super(executor);
+        this.options = options;
+        this.plaintext = new byte[options.getBufferSize()];
+    }
+
+    @Override
+    boolean step() throws IOException, PGPException {
+        if (!isUpstreamComplete()) {
+            long buffered = bufferedBytes() + ciphertext.remaining();
+            if (buffered < 2L * LOW_WATERMARK) {
+                // read ahead
+                requestInput();
+            }
+            if (buffered < LOW_WATERMARK) {
+                return false;
+            }
+        }
+
+        if (decryptionStream == null) {
+            decryptionStream = PGPainless.decryptAndOrVerify()
+                    .onInputStream(ciphertext)
+                    .withOptions(options);
+            return true;
+        }
+
+        int read = decryptionStream.read(plaintext, 0, plaintext.length);
+        if (read < 0) {
+            decryptionStream.close();
+            finish();
+        } else if (read > 0) {
+            emit(ByteBuffer.wrap(Arrays.copyOf(plaintext, read)));
+        }
+        return true;
+    }
+
+    @Override
+    OpenPgpMetadata createResult() {
+        return decryptionStream.getResult();
+    }
+
+    /**
+     * Input stream over the items of ciphertext received from upstream.
+     */
+    private final class CiphertextInputStream extends InputStream {
+
+        private ByteBuffer current;
+
+        int remaining() {
+            return current == null ? 0 : current.remaining();
+        }
+
+        private boolean fill() throws IOException {
+            while (current == null || !current.hasRemaining()) {
+                current = awaitInput();
+                if (current == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return current.get() & 0xff;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, current.remaining());
+            current.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return remaining();
+        }
+    }
+}
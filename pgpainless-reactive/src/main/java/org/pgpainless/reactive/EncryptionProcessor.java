@@ -0,0 +1,96 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.reactive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.pgpainless.PGPainless;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+
+/**
+ * {@link java.util.concurrent.Flow.Processor} which encrypts and/or signs a stream of plaintext
+ * {@link ByteBuffer ByteBuffers} using an {@link EncryptionStream}.
+ *
+ * Each item of plaintext results in at most one item of ciphertext. Since the encryption stream buffers data,
+ * small items of plaintext might not produce any ciphertext until more plaintext arrives.
+ * The {@link EncryptionResult} is available via {@link #getResult()} once the subscriber received
+ * {@link java.util.concurrent.Flow.Subscriber#onComplete()}.
+ *
+ * Items of plaintext must not be modified after they were passed to {@link #onNext(ByteBuffer)}.
+ */
+public final class EncryptionProcessor extends StreamProcessor<EncryptionResult> {
+
+    private final ProducerOptions options;
+    private final ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+    private EncryptionStream encryptionStream;
+
+    /**
+     * Create a processor which encrypts and/or signs data using the given options.
+     * The work is performed by {@link ForkJoinPool#commonPool()}.
+     *
+     * @param options options
+     */
+    public EncryptionProcessor(@Nonnull ProducerOptions options) {
+        this(options, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a processor which encrypts and/or signs data using the given options.
+     * The work is performed by the given {@link Executor}.
+     *
+     * @param options options
+     * @param executor executor
+     */
+    public EncryptionProcessor(@Nonnull ProducerOptions options, @Nonnull Executor executor) {
+        super(executor);
+        this.options = options;
+    }
+
+    @Override
+    boolean step() throws IOException, PGPException {
+        if (encryptionStream == null) {
+            encryptionStream = PGPainless.encryptAndOrSign()
+                    .onOutputStream(ciphertext)
+                    .withOptions(options);
+            emitCiphertext();
+            return true;
+        }
+
+        ByteBuffer plaintext = pollInput();
+        if (plaintext != null) {
+            encryptionStream.write(plaintext);
+            emitCiphertext();
+            return true;
+        }
+
+        if (isUpstreamComplete()) {
+            encryptionStream.close();
+            emitCiphertext();
+            finish();
+            return true;
+        }
+        return false;
+    }
+
+    private void emitCiphertext() {
+        if (ciphertext.size() != 0) {
+            emit(ByteBuffer.wrap(ciphertext.toByteArray()));
+            ciphertext.reset();
+        }
+    }
+
+    @Override
+    EncryptionResult createResult() {
+        return encryptionStream.getResult();
+    }
+}
@@ -0,0 +1,422 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.reactive;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bouncycastle.openpgp.PGPException;
+
+/**
+ * Base class for {@link Flow.Processor Processors} which transform a stream of {@link ByteBuffer ByteBuffers}
+ * using one of the stream based APIs of PGPainless.
+ *
+ * All processing happens in a serialized drain loop, which runs on the {@link Executor} of the processor.
+ * The drain loop only makes progress while the downstream subscriber has outstanding demand, and requests one item
+ * at a time from upstream when it runs out of input, so backpressure is propagated in both directions.
+ *
+ * @param <R> type of the result of the operation
+ */
+abstract class StreamProcessor<R> implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+    private final Executor executor;
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+
+    // accessed by the drain loop only
+    private final Deque<ByteBuffer> output = new ArrayDeque<>();
+    private boolean finished = false;
+    private boolean terminated = false;
+
+    // guarded by lock
+    private final Object lock = new Object();
+    private final Deque<ByteBuffer> input = new ArrayDeque<>();
+    private long bufferedBytes = 0;
+    private boolean inputRequested = false;
+    private boolean upstreamComplete = false;
+    private Throwable upstreamError;
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super ByteBuffer> downstream;
+
+    private volatile boolean cancelled = false;
+
+    private final InputBlocker inputBlocker = new InputBlocker();
+
+    StreamProcessor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Return a future which completes with the result of the operation once all output has been emitted
+     * to the subscriber.
+     * If the operation fails, the future completes exceptionally with the same error that was passed to
+     * {@link Flow.Subscriber#onError(Throwable)}. If the subscriber cancels its subscription, the future completes
+     * with a {@link CancellationException}.
+     *
+     * @return result
+     */
+    public CompletableFuture<R> getResult() {
+        return result;
+    }
+
+    /**
+     * Make progress on the operation.
+     * This method is only called from the drain loop, if the downstream subscriber has outstanding demand and all
+     * previous output has been emitted.
+     * Implementations pass their output to {@link #emit(ByteBuffer)} and call {@link #finish()} once all output has
+     * been produced.
+     *
+     * @return false if no progress could be made due to missing input
+     * @throws IOException in case of an IO error
+     * @throws PGPException in case of an OpenPGP error
+     */
+    abstract boolean step() throws IOException, PGPException;
+
+    /**
+     * Return the result of the operation.
+     * This is called once after {@link #finish()} and after all output has been emitted.
+     *
+     * @return result
+     */
+    abstract R createResult();
+
+    /**
+     * Queue output for the downstream subscriber.
+     *
+     * @param buffer output
+     */
+    void emit(ByteBuffer buffer) {
+        if (buffer.hasRemaining()) {
+            output.add(buffer);
+        }
+    }
+
+    /**
+     * Mark the operation as finished.
+     */
+    void finish() {
+        finished = true;
+    }
+
+    /**
+     * Return the next item of input without blocking.
+     * If no input is available, one more item is requested from upstream.
+     *
+     * @return input or null
+     */
+    ByteBuffer pollInput() {
+        ByteBuffer buffer;
+        synchronized (lock) {
+            buffer = input.poll();
+            if (buffer != null) {
+                bufferedBytes -= buffer.remaining();
+                return buffer;
+            }
+        }
+        requestInput();
+        return null;
+    }
+
+    /**
+     * Return the next item of input, waiting for it to arrive if necessary.
+     * This is a fallback for parsers which pull more input than has been buffered.
+     * If the drain loop runs in a {@link ForkJoinPool}, the pool is informed about the blocked worker,
+     * so that it can compensate by activating another worker.
+     *
+     * @return input or null, if the upstream publisher completed
+     * @throws IOException if the upstream publisher failed or the subscription was cancelled
+     */
+    ByteBuffer awaitInput() throws IOException {
+        while (true) {
+            boolean await;
+            synchronized (lock) {
+                ByteBuffer buffer = input.poll();
+                if (buffer != null) {
+                    bufferedBytes -= buffer.remaining();
+                    return buffer;
+                }
+                if (upstreamError != null) {
+                    throw new IOException("Upstream publisher failed.", upstreamError);
+                }
+                if (upstreamComplete) {
+                    return null;
+                }
+                if (cancelled) {
+                    throw new InterruptedIOException("Subscription was cancelled.");
+                }
+                await = inputRequested;
+            }
+            if (!await) {
+                requestInput();
+                continue;
+            }
+            try {
+                ForkJoinPool.managedBlock(inputBlocker);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for input.");
+            }
+        }
+    }
+
+    /**
+     * Request one more item from upstream, unless a request is already outstanding.
+     */
+    void requestInput() {
+        Flow.Subscription subscription;
+        synchronized (lock) {
+            if (inputRequested || upstreamComplete || upstreamError != null) {
+                return;
+            }
+            inputRequested = true;
+            subscription = upstream;
+        }
+        if (subscription != null) {
+            subscription.request(1);
+        }
+    }
+
+    /**
+     * Return the number of bytes which were received from upstream, but not yet polled.
+     *
+     * @return number of buffered bytes
+     */
+    long bufferedBytes() {
+        synchronized (lock) {
+            return bufferedBytes;
+        }
+    }
+
+    /**
+     * Return true if the upstream publisher completed. There might still be buffered input.
+     *
+     * @return true if upstream completed
+     */
+    boolean isUpstreamComplete() {
+        synchronized (lock) {
+            return upstreamComplete;
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        boolean request;
+        synchronized (lock) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            request = inputRequested;
+        }
+        if (cancelled) {
+            subscription.cancel();
+        } else if (request) {
+            subscription.request(1);
+        }
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        synchronized (lock) {
+            // consuming the item must not change the position of the callers buffer
+            input.add(item.duplicate());
+            bufferedBytes += item.remaining();
+            inputRequested = false;
+            lock.notifyAll();
+        }
+        signal();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (lock) {
+            upstreamError = throwable;
+            lock.notifyAll();
+        }
+        signal();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (lock) {
+            upstreamComplete = true;
+            lock.notifyAll();
+        }
+        signal();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        boolean accepted;
+        synchronized (lock) {
+            accepted = downstream == null;
+            if (accepted) {
+                downstream = subscriber;
+            }
+        }
+        if (!accepted) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Processor supports only a single subscriber."));
+            return;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+    }
+
+    private void signal() {
+        if (wip.getAndIncrement() == 0) {
+            executor.execute(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            drain();
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drain() {
+        while (!terminated) {
+            Throwable error;
+            Flow.Subscriber<? super ByteBuffer> subscriber;
+            synchronized (lock) {
+                error = upstreamError;
+                subscriber = downstream;
+            }
+            if (subscriber == null) {
+                return;
+            }
+            if (cancelled) {
+                cancelUpstream();
+                terminated = true;
+                result.completeExceptionally(new CancellationException("Subscription was cancelled."));
+                return;
+            }
+            if (error != null) {
+                cancelUpstream();
+                fail(error);
+                return;
+            }
+
+            while (demand.get() > 0 && !output.isEmpty()) {
+                demand.decrementAndGet();
+                subscriber.onNext(output.poll());
+            }
+
+            if (finished) {
+                if (output.isEmpty()) {
+                    terminated = true;
+                    subscriber.onComplete();
+                    result.complete(createResult());
+                }
+                return;
+            }
+            if (!output.isEmpty() || demand.get() == 0) {
+                // wait for demand
+                return;
+            }
+
+            try {
+                if (!step()) {
+                    // wait for input
+                    return;
+                }
+            } catch (IOException | PGPException | RuntimeException e) {
+                if (cancelled) {
+                    // report cancellation instead
+                    continue;
+                }
+                cancelUpstream();
+                fail(e);
+                return;
+            }
+        }
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription;
+        synchronized (lock) {
+            subscription = upstream;
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void fail(Throwable error) {
+        terminated = true;
+        downstream.onError(error);
+        result.completeExceptionally(error);
+    }
+
+    /**
+     * Blocks until new input arrived, the outstanding request is resolved otherwise, or the operation is aborted.
+     */
+    private final class InputBlocker implements ForkJoinPool.ManagedBlocker {
+
+        @Override
+        public boolean block() throws InterruptedException {
+            synchronized (lock) {
+                while (!isReleasable()) {
+                    lock.wait();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            synchronized (lock) {
+                return !input.isEmpty() || !inputRequested || upstreamComplete || upstreamError != null || cancelled;
+            }
+        }
+    }
+
+    private final class DownstreamSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                onError(new IllegalArgumentException("Demand MUST be positive."));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> {
+                long sum = current + added;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+            signal();
+        }
+    }
+}
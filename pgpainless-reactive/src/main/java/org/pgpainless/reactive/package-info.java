@@ -0,0 +1,8 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+/**
+ * Reactive Streams ({@link java.util.concurrent.Flow}) adapters for encryption and decryption.
+ */
+package org.pgpainless.reactive;
@@ -0,0 +1,231 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+
+public class FlowProcessorTest {
+
+    private static PGPSecretKeyRing secretKeys;
+    private static PGPPublicKeyRing certificate;
+    private ExecutorService executor;
+
+    @BeforeAll
+    public static void generateKey() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        certificate = KeyRingUtils.publicKeyRingFrom(secretKeys);
+    }
+
+    @BeforeEach
+    public void setup() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void roundTrip() throws PGPException, ExecutionException, InterruptedException, TimeoutException {
+        byte[] data = new byte[5 * DecryptionProcessor.LOW_WATERMARK + 123];
+        new Random().nextBytes(data);
+
+        EncryptionProcessor encryption = new EncryptionProcessor(producerOptions(), executor);
+        Collector ciphertext = new Collector(1);
+        encryption.subscribe(ciphertext);
+        publish(data, 1000, encryption);
+        EncryptionResult encryptionResult = encryption.getResult().get(30, TimeUnit.SECONDS);
+        ciphertext.done.get(30, TimeUnit.SECONDS);
+        assertEquals(1, encryptionResult.getRecipients().size());
+
+        DecryptionProcessor decryption = new DecryptionProcessor(consumerOptions(), executor);
+        Collector plaintext = new Collector(1);
+        decryption.subscribe(plaintext);
+        publish(ciphertext.bytes.toByteArray(), 4096, decryption);
+        OpenPgpMetadata metadata = decryption.getResult().get(30, TimeUnit.SECONDS);
+        plaintext.done.get(30, TimeUnit.SECONDS);
+
+        assertTrue(metadata.isEncrypted());
+        assertTrue(metadata.containsVerifiedSignatureFrom(certificate));
+        assertArrayEquals(data, plaintext.bytes.toByteArray());
+    }
+
+    @Test
+    public void noInputIsRequestedWithoutDemand() throws PGPException, InterruptedException {
+        EncryptionProcessor encryption = new EncryptionProcessor(producerOptions(), executor);
+        Collector ciphertext = new Collector(0);
+        encryption.subscribe(ciphertext);
+
+        AtomicLong requested = new AtomicLong();
+        encryption.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                requested.addAndGet(n);
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+
+        Thread.sleep(100);
+        assertEquals(0, requested.get());
+
+        // plaintext is requested one item at a time
+        ciphertext.subscription.request(10);
+        for (int i = 0; i < 100 && requested.get() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, requested.get());
+    }
+
+    @Test
+    public void upstreamErrorIsPropagated() throws PGPException {
+        EncryptionProcessor encryption = new EncryptionProcessor(producerOptions(), executor);
+        Collector ciphertext = new Collector(Long.MAX_VALUE);
+        encryption.subscribe(ciphertext);
+
+        IOException failure = new IOException("Broken pipe.");
+        SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>(executor, 16);
+        publisher.subscribe(encryption);
+        publisher.submit(ByteBuffer.wrap(new byte[100]));
+        publisher.closeExceptionally(failure);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> encryption.getResult().get(30, TimeUnit.SECONDS));
+        assertSame(failure, e.getCause());
+        e = assertThrows(ExecutionException.class, () -> ciphertext.done.get(30, TimeUnit.SECONDS));
+        assertSame(failure, e.getCause());
+    }
+
+    @Test
+    public void decryptionErrorIsPropagated() {
+        DecryptionProcessor decryption = new DecryptionProcessor(new ConsumerOptions(), executor);
+        Collector plaintext = new Collector(Long.MAX_VALUE);
+        decryption.subscribe(plaintext);
+
+        // truncated public key encrypted session key packet
+        SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>(executor, 16);
+        publisher.subscribe(decryption);
+        publisher.submit(ByteBuffer.wrap(new byte[] {(byte) 0x85, 0x01, 0x0c, 0x03}));
+        publisher.close();
+
+        assertThrows(ExecutionException.class, () -> decryption.getResult().get(30, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> plaintext.done.get(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void secondSubscriberIsRejected() throws PGPException {
+        EncryptionProcessor encryption = new EncryptionProcessor(producerOptions(), executor);
+        encryption.subscribe(new Collector(0));
+        Collector second = new Collector(0);
+        encryption.subscribe(second);
+
+        assertTrue(second.done.isCompletedExceptionally());
+    }
+
+    private void publish(byte[] data, int chunkSize, Flow.Subscriber<ByteBuffer> subscriber) {
+        SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>(executor, 4);
+        publisher.subscribe(subscriber);
+        for (int off = 0; off < data.length; off += chunkSize) {
+            publisher.submit(ByteBuffer.wrap(data, off, Math.min(chunkSize, data.length - off)));
+        }
+        publisher.close();
+    }
+
+    private ProducerOptions producerOptions() throws PGPException {
+        return ProducerOptions.signAndEncrypt(
+                new EncryptionOptions().addRecipient(certificate),
+                new SigningOptions().addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                        DocumentSignatureType.BINARY_DOCUMENT));
+    }
+
+    private ConsumerOptions consumerOptions() {
+        return new ConsumerOptions()
+                .addDecryptionKey(secretKeys)
+                .addVerificationCert(certificate);
+    }
+
+    /**
+     * Subscriber which collects all items, requesting the given number of items at a time.
+     */
+    private static final class Collector implements Flow.Subscriber<ByteBuffer> {
+
+        private final long batchSize;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        Collector(long batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batchSize > 0) {
+                subscription.request(batchSize);
+            }
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            byte[] chunk = new byte[item.remaining()];
+            item.get(chunk);
+            bytes.write(chunk, 0, chunk.length);
+            if (batchSize == 1) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
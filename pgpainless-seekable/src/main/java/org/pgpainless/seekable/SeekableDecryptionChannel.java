@@ -0,0 +1,325 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.seekable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.util.io.Streams;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.exception.ModificationDetectionException;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.util.SessionKey;
+
+/**
+ * Read-only {@link SeekableByteChannel} over the plaintext of a file in the seekable format.
+ *
+ * Reading at a position only fetches and decrypts the blocks which contain the requested range, so reading
+ * a small range of a huge file (e.g. using ranged requests to an object store) costs one positioned read
+ * of the underlying channel per block.
+ * Every block is authenticated before any of its plaintext is returned.
+ * If a block fails authentication, a {@link ModificationDetectionException} is thrown.
+ *
+ * Closing this channel closes the underlying channel.
+ */
+public final class SeekableDecryptionChannel implements SeekableByteChannel {
+
+    private final SeekableByteChannel ciphertext;
+    private final SessionKey sessionKey;
+    private final SubkeyIdentifier decryptionKey;
+    private final KeyParameter key;
+    private final byte[] headerDigest;
+    private final long bodyOffset;
+    private final int blockSize;
+    private final long blockCount;
+    private final long size;
+    private final GCMBlockCipher cipher = SeekableFormat.newCipher();
+
+    private long position = 0;
+    // most recently decrypted block
+    private long cachedIndex = -1;
+    private final byte[] plaintextBlock;
+    private int plaintextLength;
+    private final ByteBuffer ciphertextBlock;
+
+    private SeekableDecryptionChannel(SeekableByteChannel ciphertext, Header header, SessionKey sessionKey,
+                                      @Nullable SubkeyIdentifier decryptionKey)
+            throws IOException {
+        if (sessionKey.getAlgorithm().getAlgorithmId() != header.algorithmId) {
+            throw new IOException("Session key algorithm does not match the file header.");
+        }
+        this.ciphertext = ciphertext;
+        this.sessionKey = sessionKey;
+        this.decryptionKey = decryptionKey;
+        this.key = new KeyParameter(sessionKey.getKey());
+        this.headerDigest = SeekableFormat.digest(header.bytes);
+        this.bodyOffset = header.bytes.length;
+        this.blockSize = header.blockSize;
+
+        long stride = (long) blockSize + SeekableFormat.TAG_LENGTH;
+        long bodyLength = ciphertext.size() - bodyOffset;
+        if (bodyLength < SeekableFormat.TAG_LENGTH) {
+            throw new EOFException("File does not contain any blocks.");
+        }
+        this.blockCount = (bodyLength + stride - 1) / stride;
+        long lastBlockLength = bodyLength - (blockCount - 1) * stride;
+        if (lastBlockLength < SeekableFormat.TAG_LENGTH) {
+            throw new EOFException("File ends with a truncated block.");
+        }
+        this.size = (blockCount - 1) * blockSize + lastBlockLength - SeekableFormat.TAG_LENGTH;
+
+        this.plaintextBlock = new byte[blockSize];
+        this.ciphertextBlock = ByteBuffer.allocate((int) stride);
+    }
+
+    /**
+     * Open a file in the seekable format, decrypting its file key using the given options.
+     *
+     * @param ciphertext channel of the encrypted file
+     * @param options options containing a decryption key or passphrase
+     * @return plaintext channel
+     * @throws IOException in case of an IO error or if the file is not in the seekable format
+     * @throws PGPException if the file key cannot be decrypted
+     */
+    static SeekableDecryptionChannel open(@Nonnull SeekableByteChannel ciphertext, @Nonnull ConsumerOptions options)
+            throws IOException, PGPException {
+        Header header = Header.read(ciphertext);
+        DecryptionStream keyStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(header.bytes, header.keyMessageOffset,
+                        header.bytes.length - header.keyMessageOffset))
+                .withOptions(options);
+        ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+        Streams.pipeAll(keyStream, keyBytes);
+        keyStream.close();
+        OpenPgpMetadata metadata = keyStream.getResult();
+        if (!metadata.isEncrypted()) {
+            throw new IOException("File key is not encrypted.");
+        }
+
+        byte[] key = keyBytes.toByteArray();
+        SymmetricKeyAlgorithm algorithm = key.length == 0 ? null : SymmetricKeyAlgorithm.fromId(key[0]);
+        if (algorithm == null || !SeekableFormat.isSupported(algorithm)) {
+            throw new IOException("Unsupported file key algorithm.");
+        }
+        SessionKey sessionKey = new SessionKey(algorithm, Arrays.copyOfRange(key, 1, key.length));
+        Arrays.fill(key, (byte) 0);
+        return new SeekableDecryptionChannel(ciphertext, header, sessionKey, metadata.getDecryptionKey());
+    }
+
+    /**
+     * Open a file in the seekable format using a known file key.
+     *
+     * @param ciphertext channel of the encrypted file
+     * @param sessionKey file key
+     * @return plaintext channel
+     * @throws IOException in case of an IO error or if the file is not in the seekable format
+     */
+    static SeekableDecryptionChannel open(@Nonnull SeekableByteChannel ciphertext, @Nonnull SessionKey sessionKey)
+            throws IOException {
+        return new SeekableDecryptionChannel(ciphertext, Header.read(ciphertext), sessionKey, null);
+    }
+
+    /**
+     * Return the file key, which can be cached to open the file again without public key operations.
+     *
+     * @return file key
+     */
+    public SessionKey getSessionKey() {
+        return sessionKey;
+    }
+
+    /**
+     * Return the identifier of the subkey which was used to decrypt the file key, or null if the file
+     * was opened using a passphrase or a known file key.
+     *
+     * @return decryption key or null
+     */
+    public @Nullable SubkeyIdentifier getDecryptionKey() {
+        return decryptionKey;
+    }
+
+    /**
+     * Return the size of the plaintext blocks.
+     *
+     * @return block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            long index = position / blockSize;
+            loadBlock(index);
+            int offset = (int) (position - index * blockSize);
+            int n = Math.min(dst.remaining(), plaintextLength - offset);
+            dst.put(plaintextBlock, offset, n);
+            position += n;
+            total += n;
+        }
+        return total;
+    }
+
+    private void loadBlock(long index) throws IOException {
+        if (index == cachedIndex) {
+            return;
+        }
+        boolean last = index == blockCount - 1;
+        ((Buffer) ciphertextBlock).clear();
+        if (last) {
+            long lastLength = ciphertext.size() - bodyOffset - index * ciphertextBlock.capacity();
+            ((Buffer) ciphertextBlock).limit((int) lastLength);
+        }
+        ciphertext.position(bodyOffset + index * ciphertextBlock.capacity());
+        while (ciphertextBlock.hasRemaining()) {
+            if (ciphertext.read(ciphertextBlock) == -1) {
+                throw new EOFException("Unexpected end of block " + index);
+            }
+        }
+
+        cachedIndex = -1;
+        SeekableFormat.init(cipher, false, key, headerDigest, index, last);
+        int length = cipher.processBytes(ciphertextBlock.array(), 0, ciphertextBlock.limit(), plaintextBlock, 0);
+        try {
+            length += cipher.doFinal(plaintextBlock, length);
+        } catch (InvalidCipherTextException e) {
+            Arrays.fill(plaintextBlock, (byte) 0);
+            throw new ModificationDetectionException("Block " + index + " failed authentication.");
+        }
+        plaintextLength = length;
+        cachedIndex = index;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableDecryptionChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Position MUST NOT be negative.");
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long newSize) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return ciphertext.isOpen();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        Arrays.fill(plaintextBlock, (byte) 0);
+        cachedIndex = -1;
+        ciphertext.close();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!ciphertext.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Header of a file in the seekable format.
+     */
+    private static final class Header {
+
+        private final byte[] bytes;
+        private final int algorithmId;
+        private final int blockSize;
+        private final int keyMessageOffset;
+
+        private Header(byte[] bytes, int algorithmId, int blockSize) {
+            this.bytes = bytes;
+            this.algorithmId = algorithmId;
+            this.blockSize = blockSize;
+            this.keyMessageOffset = SeekableFormat.FIXED_HEADER_LENGTH;
+        }
+
+        private static Header read(SeekableByteChannel channel) throws IOException {
+            ByteBuffer fixed = ByteBuffer.allocate(SeekableFormat.FIXED_HEADER_LENGTH);
+            channel.position(0);
+            readFully(channel, fixed);
+            byte[] magic = new byte[SeekableFormat.MAGIC.length];
+            fixed.get(magic);
+            if (!Arrays.equals(magic, SeekableFormat.MAGIC)) {
+                throw new IOException("File is not in the seekable format.");
+            }
+            int version = fixed.get() & 0xff;
+            if (version != SeekableFormat.VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            int algorithmId = fixed.get() & 0xff;
+            int blockSize = fixed.getInt();
+            if (blockSize < SeekablePGPainless.MIN_BLOCK_SIZE || blockSize > SeekablePGPainless.MAX_BLOCK_SIZE) {
+                throw new IOException("Invalid block size " + blockSize);
+            }
+            int keyMessageLength = fixed.getInt();
+            if (keyMessageLength <= 0 || keyMessageLength > SeekableFormat.MAX_KEY_MESSAGE_LENGTH) {
+                throw new IOException("Invalid key message length " + keyMessageLength);
+            }
+
+            ByteBuffer bytes = ByteBuffer.allocate(SeekableFormat.FIXED_HEADER_LENGTH + keyMessageLength);
+            ((Buffer) fixed).flip();
+            bytes.put(fixed);
+            readFully(channel, bytes);
+            return new Header(bytes.array(), algorithmId, blockSize);
+        }
+
+        private static void readFully(SeekableByteChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) {
+                    throw new EOFException("Unexpected end of header.");
+                }
+            }
+            ((Buffer) buffer).flip();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.seekable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.SecureRandom;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPUtil;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.encryption_signing.EncryptionBuilder;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionResult;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.util.SessionKey;
+
+/**
+ * {@link OutputStream} which encrypts data into the seekable format.
+ *
+ * A random file key is encrypted for the recipients of the {@link EncryptionOptions} as an OpenPGP message
+ * in the header of the file. The plaintext is then encrypted in blocks, each of which is authenticated on its own.
+ * The file can be decrypted from any position using {@link SeekableDecryptionChannel}.
+ * Closing the stream writes the last block and closes the underlying output stream.
+ */
+public final class SeekableEncryptionStream extends OutputStream {
+
+    private final OutputStream out;
+    private final EncryptionResult result;
+    private final SessionKey sessionKey;
+    private final KeyParameter key;
+    private final byte[] headerDigest;
+    private final GCMBlockCipher cipher = SeekableFormat.newCipher();
+    private final byte[] block;
+    private final byte[] ciphertext;
+    private int blockLength = 0;
+    private long blockIndex = 0;
+    private boolean closed = false;
+
+    SeekableEncryptionStream(@Nonnull OutputStream out, @Nonnull EncryptionOptions options, int blockSize)
+            throws IOException, PGPException {
+        this.out = out;
+        SymmetricKeyAlgorithm algorithm = EncryptionBuilder.negotiateSymmetricEncryptionAlgorithm(options);
+        if (!SeekableFormat.isSupported(algorithm)) {
+            algorithm = SymmetricKeyAlgorithm.AES_256;
+        }
+        byte[] fileKey = PGPUtil.makeRandomKey(algorithm.getAlgorithmId(), new SecureRandom());
+        this.sessionKey = new SessionKey(algorithm, fileKey);
+        this.key = new KeyParameter(fileKey);
+
+        ByteArrayOutputStream keyMessage = new ByteArrayOutputStream();
+        EncryptionStream keyStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(keyMessage)
+                .withOptions(ProducerOptions.encrypt(options)
+                        .setAsciiArmor(false)
+                        .overrideCompressionAlgorithm(CompressionAlgorithm.UNCOMPRESSED));
+        keyStream.write(algorithm.getAlgorithmId());
+        keyStream.write(fileKey);
+        keyStream.close();
+        this.result = keyStream.getResult();
+        if (result.getEncryptionAlgorithm() == SymmetricKeyAlgorithm.NULL) {
+            throw new IllegalArgumentException("Encryption options MUST contain at least one recipient or passphrase.");
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.write(SeekableFormat.MAGIC);
+        header.writeByte(SeekableFormat.VERSION);
+        header.writeByte(algorithm.getAlgorithmId());
+        header.writeInt(blockSize);
+        header.writeInt(keyMessage.size());
+        keyMessage.writeTo(header);
+        header.flush();
+        byte[] headerArray = headerBytes.toByteArray();
+        this.headerDigest = SeekableFormat.digest(headerArray);
+        out.write(headerArray);
+
+        this.block = new byte[blockSize];
+        this.ciphertext = new byte[blockSize + SeekableFormat.TAG_LENGTH];
+    }
+
+    /**
+     * Return the result of the encryption of the file key.
+     *
+     * @return encryption result
+     */
+    public EncryptionResult getResult() {
+        return result;
+    }
+
+    /**
+     * Return the file key, e.g. to cache it for later use with
+     * {@link SeekablePGPainless#decrypt(java.nio.channels.SeekableByteChannel, SessionKey)}.
+     *
+     * @return file key
+     */
+    public SessionKey getSessionKey() {
+        return sessionKey;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed.");
+        }
+        while (len > 0) {
+            if (blockLength == block.length) {
+                // more data follows, so the buffered block is not the last one
+                sealBlock(false);
+            }
+            int n = Math.min(len, block.length - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        sealBlock(true);
+        out.close();
+    }
+
+    private void sealBlock(boolean last) throws IOException {
+        SeekableFormat.init(cipher, true, key, headerDigest, blockIndex, last);
+        int length = cipher.processBytes(block, 0, blockLength, ciphertext, 0);
+        try {
+            length += cipher.doFinal(ciphertext, length);
+        } catch (InvalidCipherTextException e) {
+            throw new IOException("Cannot encrypt block " + blockIndex, e);
+        }
+        out.write(ciphertext, 0, length);
+        blockIndex++;
+        blockLength = 0;
+    }
+}
@@ -0,0 +1,87 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.seekable;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+
+/**
+ * Layout of a seekable encrypted file.
+ *
+ * <pre>
+ *     MAGIC                      (7 octets "PGPSEEK")
+ *     version                    (1 octet)
+ *     symmetric algorithm        (1 octet, OpenPGP algorithm id of AES-128, AES-192 or AES-256)
+ *     block size                 (4 octets)
+ *     key message length         (4 octets)
+ *     key message                (OpenPGP message encrypted for the recipients, containing algorithm and file key)
+ *     block 0 .. block n-1       (block size octets of AES-GCM ciphertext, followed by a 16 octet tag)
+ * </pre>
+ *
+ * Every block is encrypted with the random file key and a nonce derived from the block index, so the
+ * position of a block is an index into the file and each block can be decrypted and authenticated on its own.
+ * The associated data of each block consists of the SHA-256 digest of the header, the block index and a flag
+ * marking the last block, so that modification of the header, reordering of blocks and truncation of the file
+ * are detected.
+ */
+final class SeekableFormat {
+
+    static final byte[] MAGIC = new byte[] {'P', 'G', 'P', 'S', 'E', 'E', 'K'};
+    static final int VERSION = 1;
+    // magic, version, algorithm, block size, key message length
+    static final int FIXED_HEADER_LENGTH = MAGIC.length + 1 + 1 + 4 + 4;
+    static final int MAX_KEY_MESSAGE_LENGTH = 1 << 24;
+    static final int TAG_LENGTH = 16;
+    static final int NONCE_LENGTH = 12;
+
+    private SeekableFormat() {
+
+    }
+
+    static boolean isSupported(SymmetricKeyAlgorithm algorithm) {
+        return algorithm == SymmetricKeyAlgorithm.AES_128 ||
+                algorithm == SymmetricKeyAlgorithm.AES_192 ||
+                algorithm == SymmetricKeyAlgorithm.AES_256;
+    }
+
+    static byte[] digest(byte[] header) {
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(header, 0, header.length);
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    static GCMBlockCipher newCipher() {
+        return new GCMBlockCipher(new AESEngine());
+    }
+
+    /**
+     * Initialize the cipher for the block with the given index.
+     *
+     * @param cipher cipher
+     * @param encrypt true for encryption, false for decryption
+     * @param key file key
+     * @param headerDigest digest of the header
+     * @param index block index
+     * @param last whether the block is the last block of the file
+     */
+    static void init(GCMBlockCipher cipher, boolean encrypt, KeyParameter key, byte[] headerDigest,
+                     long index, boolean last) {
+        byte[] nonce = ByteBuffer.allocate(NONCE_LENGTH).putInt(0).putLong(index).array();
+        byte[] associatedData = ByteBuffer.allocate(headerDigest.length + 8 + 1)
+                .put(headerDigest)
+                .putLong(index)
+                .put((byte) (last ? 1 : 0))
+                .array();
+        cipher.init(encrypt, new AEADParameters(key, TAG_LENGTH * 8, nonce, associatedData));
+    }
+}
@@ -0,0 +1,115 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.seekable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.util.SessionKey;
+
+/**
+ * Entry point to the seekable encryption format of PGPainless.
+ *
+ * OpenPGP messages can only be decrypted from the start, so reading a range at the end of a huge encrypted
+ * object requires decrypting everything before it.
+ * Files in the seekable format are encrypted in independently authenticated blocks, while the file key is
+ * protected by an OpenPGP message for the recipients, so the usual PGPainless key handling applies.
+ * Note, that the format is specific to PGPainless and cannot be decrypted by other OpenPGP implementations.
+ *
+ * <pre>
+ * {@code
+ * try (OutputStream out = SeekablePGPainless.encrypt(fileOut, EncryptionOptions.encryptDataAtRest()
+ *         .addRecipient(certificate))) {
+ *     Streams.pipeAll(plaintextIn, out);
+ * }
+ *
+ * SeekableByteChannel plaintext = SeekablePGPainless.decrypt(Files.newByteChannel(file),
+ *         new ConsumerOptions().addDecryptionKey(secretKey));
+ * plaintext.position(10L * 1024 * 1024 * 1024);
+ * plaintext.read(buffer);
+ * }
+ * </pre>
+ */
+public final class SeekablePGPainless {
+
+    public static final int MIN_BLOCK_SIZE = 1 << 9;
+    public static final int MAX_BLOCK_SIZE = 1 << 24;
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    private SeekablePGPainless() {
+
+    }
+
+    /**
+     * Create a stream which encrypts data into the seekable format using the {@link #DEFAULT_BLOCK_SIZE}.
+     *
+     * @param out output stream for the encrypted file
+     * @param options options containing the recipients
+     * @return encryption stream
+     * @throws IOException in case of an IO error
+     * @throws PGPException if the file key cannot be encrypted for the recipients
+     */
+    public static SeekableEncryptionStream encrypt(@Nonnull OutputStream out, @Nonnull EncryptionOptions options)
+            throws IOException, PGPException {
+        return encrypt(out, options, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a stream which encrypts data into the seekable format.
+     * Smaller blocks reduce the amount of data that is fetched and decrypted for short reads, while larger blocks
+     * reduce the overhead of 16 bytes per block and the number of reads needed for long ranges.
+     *
+     * @param out output stream for the encrypted file
+     * @param options options containing the recipients
+     * @param blockSize plaintext block size between {@link #MIN_BLOCK_SIZE} and {@link #MAX_BLOCK_SIZE}
+     * @return encryption stream
+     * @throws IOException in case of an IO error
+     * @throws PGPException if the file key cannot be encrypted for the recipients
+     */
+    public static SeekableEncryptionStream encrypt(@Nonnull OutputStream out,
+                                                   @Nonnull EncryptionOptions options,
+                                                   int blockSize)
+            throws IOException, PGPException {
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size MUST be between " + MIN_BLOCK_SIZE + " and " + MAX_BLOCK_SIZE);
+        }
+        return new SeekableEncryptionStream(out, options, blockSize);
+    }
+
+    /**
+     * Open a file in the seekable format. The file key is decrypted using the given options.
+     *
+     * @param ciphertext channel of the encrypted file
+     * @param options options containing a decryption key or passphrase
+     * @return channel of the plaintext
+     * @throws IOException in case of an IO error or if the file is not in the seekable format
+     * @throws PGPException if the file key cannot be decrypted
+     */
+    public static SeekableDecryptionChannel decrypt(@Nonnull SeekableByteChannel ciphertext,
+                                                    @Nonnull ConsumerOptions options)
+            throws IOException, PGPException {
+        return SeekableDecryptionChannel.open(ciphertext, options);
+    }
+
+    /**
+     * Open a file in the seekable format using a previously obtained file key
+     * (see {@link SeekableDecryptionChannel#getSessionKey()}), which avoids public key operations.
+     *
+     * @param ciphertext channel of the encrypted file
+     * @param sessionKey file key
+     * @return channel of the plaintext
+     * @throws IOException in case of an IO error or if the file is not in the seekable format
+     */
+    public static SeekableDecryptionChannel decrypt(@Nonnull SeekableByteChannel ciphertext,
+                                                    @Nonnull SessionKey sessionKey)
+            throws IOException {
+        return SeekableDecryptionChannel.open(ciphertext, sessionKey);
+    }
+}
@@ -0,0 +1,8 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+/**
+ * Seekable encrypted files, which allow random-access decryption via {@link java.nio.channels.SeekableByteChannel}.
+ */
+package org.pgpainless.seekable;
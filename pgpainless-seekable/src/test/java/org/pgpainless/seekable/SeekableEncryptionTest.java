@@ -0,0 +1,181 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.seekable;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.exception.ModificationDetectionException;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.SessionKey;
+
+public class SeekableEncryptionTest {
+
+    private static final int BLOCK_SIZE = 4096;
+
+    private static PGPSecretKeyRing secretKeys;
+    private Path file;
+
+    @BeforeAll
+    public static void generateKey() throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = Files.createTempFile("seekable", ".bin");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void readRangeAtOffset() throws IOException, PGPException {
+        byte[] data = new byte[25 * BLOCK_SIZE + 123];
+        new Random().nextBytes(data);
+        encrypt(data);
+
+        try (SeekableDecryptionChannel channel = open()) {
+            assertEquals(data.length, channel.size());
+            assertNotNull(channel.getDecryptionKey());
+
+            channel.position(10 * BLOCK_SIZE - 100);
+            assertArrayEquals(Arrays.copyOfRange(data, 10 * BLOCK_SIZE - 100, 12 * BLOCK_SIZE + 7),
+                    read(channel, 2 * BLOCK_SIZE + 107));
+            assertEquals(12 * BLOCK_SIZE + 7, channel.position());
+
+            channel.position(data.length - 50);
+            assertArrayEquals(Arrays.copyOfRange(data, data.length - 50, data.length), read(channel, 50));
+            assertEquals(-1, channel.read(ByteBuffer.allocate(10)));
+
+            channel.position(0);
+            assertArrayEquals(data, read(channel, data.length));
+        }
+    }
+
+    @Test
+    public void reopenWithSessionKey() throws IOException, PGPException {
+        byte[] data = new byte[3 * BLOCK_SIZE];
+        new Random().nextBytes(data);
+        SessionKey sessionKey = encrypt(data);
+
+        try (SeekableDecryptionChannel channel = SeekablePGPainless.decrypt(Files.newByteChannel(file), sessionKey)) {
+            assertNull(channel.getDecryptionKey());
+            channel.position(BLOCK_SIZE);
+            assertArrayEquals(Arrays.copyOfRange(data, BLOCK_SIZE, 3 * BLOCK_SIZE), read(channel, 2 * BLOCK_SIZE));
+        }
+        try (SeekableDecryptionChannel channel = open()) {
+            assertArrayEquals(sessionKey.getKey(), channel.getSessionKey().getKey());
+        }
+    }
+
+    @Test
+    public void modifiedBlockIsDetected() throws IOException, PGPException {
+        byte[] data = new byte[4 * BLOCK_SIZE];
+        new Random().nextBytes(data);
+        encrypt(data);
+
+        byte[] ciphertext = Files.readAllBytes(file);
+        // flip a bit in the third block
+        ciphertext[ciphertext.length - 2 * (BLOCK_SIZE + 16) + 10] ^= 1;
+        Files.write(file, ciphertext);
+
+        try (SeekableDecryptionChannel channel = open()) {
+            assertArrayEquals(Arrays.copyOfRange(data, 0, BLOCK_SIZE), read(channel, BLOCK_SIZE));
+            channel.position(2 * BLOCK_SIZE + 1);
+            assertThrows(ModificationDetectionException.class, () -> channel.read(ByteBuffer.allocate(1)));
+        }
+    }
+
+    @Test
+    public void truncationIsDetected() throws IOException, PGPException {
+        byte[] data = new byte[4 * BLOCK_SIZE];
+        new Random().nextBytes(data);
+        encrypt(data);
+
+        byte[] ciphertext = Files.readAllBytes(file);
+        // remove the last block
+        Files.write(file, Arrays.copyOf(ciphertext, ciphertext.length - (BLOCK_SIZE + 16)));
+
+        try (SeekableDecryptionChannel channel = open()) {
+            assertEquals(3 * BLOCK_SIZE, channel.size());
+            channel.position(3 * BLOCK_SIZE - 1);
+            assertThrows(ModificationDetectionException.class, () -> channel.read(ByteBuffer.allocate(1)));
+        }
+    }
+
+    @Test
+    public void emptyPlaintext() throws IOException, PGPException {
+        encrypt(new byte[0]);
+
+        try (SeekableDecryptionChannel channel = open()) {
+            assertEquals(0, channel.size());
+            assertEquals(-1, channel.read(ByteBuffer.allocate(10)));
+        }
+    }
+
+    @Test
+    public void channelIsReadOnly() throws IOException, PGPException {
+        encrypt(new byte[100]);
+
+        try (SeekableDecryptionChannel channel = open()) {
+            assertThrows(NonWritableChannelException.class,
+                    () -> channel.write(ByteBuffer.allocate(1)));
+        }
+    }
+
+    private SessionKey encrypt(byte[] data) throws IOException, PGPException {
+        SeekableEncryptionStream encryptionStream;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            encryptionStream = SeekablePGPainless.encrypt(out, EncryptionOptions.encryptDataAtRest()
+                    .addRecipient(KeyRingUtils.publicKeyRingFrom(secretKeys)), BLOCK_SIZE);
+            // write in odd chunks to cross block boundaries
+            for (int off = 0; off < data.length; off += 1000) {
+                encryptionStream.write(data, off, Math.min(1000, data.length - off));
+            }
+            encryptionStream.close();
+        }
+        assertEquals(1, encryptionStream.getResult().getRecipients().size());
+        return encryptionStream.getSessionKey();
+    }
+
+    private SeekableDecryptionChannel open() throws IOException, PGPException {
+        return SeekablePGPainless.decrypt(Files.newByteChannel(file), new ConsumerOptions().addDecryptionKey(secretKeys));
+    }
+
+    private static byte[] read(SeekableByteChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            // read until the buffer is full
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
@@ -101,7 +101,7 @@ public class DecryptImpl implements Decrypt {
                     .secretKeyRingCollection(keyIn);
 
             for (PGPSecretKeyRing secretKey : secretKeys) {
-                KeyRingInfo info = new KeyRingInfo(secretKey);
+                KeyRingInfo info = PGPainless.inspectKeyRing(secretKey);
                 if (!info.isFullyDecrypted()) {
                     throw new SOPGPException.KeyIsProtected();
                 }